@@ -13,7 +13,9 @@ import org.neo4j.driver.types.Path;
 import org.neo4j.driver.types.Relationship;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GraphData {
 
@@ -25,6 +27,22 @@ public class GraphData {
 
   protected String sourceTransformName;
 
+  /**
+   * The hash indexes below map IDs to positions in the lists of nodes and relationships.
+   * They're built when needed and kept in sync by the methods of this class.
+   * If the lists of nodes or relationships are modified directly and their size changes the indexes are rebuilt.
+   */
+  private Map<String, Integer> nodeIndex;
+  private List<GraphNodeData> indexedNodes;
+  private int indexedNodesSize;
+
+  private Map<String, Integer> relationshipIndex;
+  private Map<String, List<Integer>> nodeRelationshipsIndex;
+  private List<GraphRelationshipData> indexedRelationships;
+  private int indexedRelationshipsSize;
+
+  private Map<String, Map<Object, GraphNodeData>> propertyIndexes;
+
   public GraphData() {
     nodes = new ArrayList<>();
     relationships = new ArrayList<>();
@@ -75,6 +93,8 @@ public class GraphData {
 
     sourcePipelineName = source.sourcePipelineName;
     sourceTransformName = source.sourceTransformName;
+
+    invalidateIndexes();
   }
 
   public JSONObject toJson() {
@@ -134,6 +154,16 @@ public class GraphData {
     return new GraphData(this);
   }
 
+  /**
+   * Make sure the nodes and relationships of this graph can be modified without changing the graph data of other rows.
+   * Graph data owns its nodes and relationships so there's nothing to do here. Views on other graphs copy their element.
+   *
+   * @return This graph data
+   */
+  public GraphData makeWritable() {
+    return this;
+  }
+
   public GraphData createEmptyCopy() {
     GraphData copy = new GraphData();
     copy.setSourcePipelineName( getSourcePipelineName() );
@@ -148,12 +178,11 @@ public class GraphData {
    * @return The mode with the given ID or null if the node was not found
    */
   public GraphNodeData findNode( String nodeId ) {
-    for ( GraphNodeData node : nodes ) {
-      if ( node.getId() != null && node.getId().equals( nodeId ) ) {
-        return node;
-      }
+    if ( nodeId == null ) {
+      return null;
     }
-    return null;
+    Integer position = getNodeIndex().get( nodeId );
+    return position == null ? null : nodes.get( position );
   }
 
 
@@ -164,12 +193,12 @@ public class GraphData {
    * @return The relationship with the given name or null if the relationship was not found
    */
   public GraphRelationshipData findRelationship( String relationshipId ) {
-    for ( GraphRelationshipData relationship : relationships ) {
-      if ( relationship.getId() != null && relationship.getId().equals( relationshipId ) ) {
-        return relationship;
-      }
+    if ( relationshipId == null ) {
+      return null;
     }
-    return null;
+    getRelationshipIndexes();
+    Integer position = relationshipIndex.get( relationshipId );
+    return position == null ? null : relationships.get( position );
   }
 
   /**
@@ -180,7 +209,13 @@ public class GraphData {
    * @return the relationship or null if nothing was found.
    */
   public GraphRelationshipData findRelationship( String sourceId, String targetId ) {
-    for ( GraphRelationshipData relationship : relationships ) {
+    getRelationshipIndexes();
+    List<Integer> positions = nodeRelationshipsIndex.get( sourceId );
+    if ( positions == null ) {
+      return null;
+    }
+    for ( int position : positions ) {
+      GraphRelationshipData relationship = relationships.get( position );
       if ( relationship.getSourceNodeId().equals( sourceId ) &&
         relationship.getTargetNodeId().equals( targetId ) ) {
         return relationship;
@@ -199,56 +234,185 @@ public class GraphData {
     this();
 
     while ( result.hasNext() ) {
-      Record record = result.next();
-      for ( String key : record.keys() ) {
-        Value value = record.get( key );
-        if ( "NODE".equals( value.type().name() ) ) {
-          Node node = value.asNode();
+      addRecord( result.next() );
+    }
+  }
+
+  /**
+   * Build graph data from records which were already fetched, asynchronously for example.
+   *
+   * @param records The records to get the nodes, relationships and paths from
+   */
+  public GraphData( List<Record> records ) {
+    this();
+
+    for ( Record record : records ) {
+      addRecord( record );
+    }
+  }
+
+  private void addRecord( Record record ) {
+    for ( String key : record.keys() ) {
+      Value value = record.get( key );
+      if ( "NODE".equals( value.type().name() ) ) {
+        Node node = value.asNode();
+        update( new GraphNodeData( node ) );
+      } else if ( "RELATIONSHIP".equals( value.type().name() ) ) {
+        Relationship relationship = value.asRelationship();
+        update( new GraphRelationshipData( relationship ) );
+      } else if ( "PATH".equals( value.type().name() ) ) {
+        Path path = value.asPath();
+        for ( Node node : path.nodes() ) {
           update( new GraphNodeData( node ) );
-        } else if ( "RELATIONSHIP".equals( value.type().name() ) ) {
-          Relationship relationship = value.asRelationship();
+        }
+        for ( Relationship relationship : path.relationships() ) {
           update( new GraphRelationshipData( relationship ) );
-        } else if ( "PATH".equals( value.type().name() ) ) {
-          Path path = value.asPath();
-          for ( Node node : path.nodes() ) {
-            update( new GraphNodeData( node ) );
-          }
-          for ( Relationship relationship : path.relationships() ) {
-            update( new GraphRelationshipData( relationship ) );
-          }
         }
       }
     }
   }
 
+  /**
+   * Add a node or replace the node with the same ID
+   *
+   * @param dataNode The node to add or replace
+   */
   private void update( GraphNodeData dataNode ) {
-    int index = nodes.indexOf( dataNode );
-    if ( index < 0 ) {
-      nodes.add( dataNode );
+    Integer position = getNodeIndex().get( dataNode.getId() );
+    if ( position == null ) {
+      addNode( dataNode );
     } else {
-      nodes.set( index, dataNode );
+      nodes.set( position, dataNode );
+      propertyIndexes = null;
     }
   }
 
+  /**
+   * Add a relationship or replace the relationship with the same ID
+   *
+   * @param dataRelationship The relationship to add or replace
+   */
   private void update( GraphRelationshipData dataRelationship ) {
-    int index = relationships.indexOf( dataRelationship );
-    if ( index < 0 ) {
-      relationships.add( dataRelationship );
+    getRelationshipIndexes();
+    Integer position = relationshipIndex.get( dataRelationship.getId() );
+    if ( position == null ) {
+      addRelationship( dataRelationship );
     } else {
-      relationships.set( index, dataRelationship );
+      // A relationship with the same ID connects the same nodes so the other indexes stay valid
+      //
+      relationships.set( position, dataRelationship );
     }
   }
 
+  /**
+   * Add a node to the graph keeping the indexes up to date
+   *
+   * @param node The node to add
+   */
+  public void addNode( GraphNodeData node ) {
+    Map<String, Integer> index = getNodeIndex();
+    nodes.add( node );
+    indexedNodesSize = nodes.size();
+    if ( node.getId() != null ) {
+      index.putIfAbsent( node.getId(), nodes.size() - 1 );
+    }
+    propertyIndexes = null;
+  }
+
+  /**
+   * Add a relationship to the graph keeping the indexes up to date
+   *
+   * @param relationship The relationship to add
+   */
+  public void addRelationship( GraphRelationshipData relationship ) {
+    getRelationshipIndexes();
+    relationships.add( relationship );
+    indexedRelationshipsSize = relationships.size();
+    indexRelationship( relationship, relationships.size() - 1 );
+  }
+
+  /**
+   * Find the first node with a property with the given value.
+   * The nodes are indexed on the property the first time it's searched for.
+   * The index is rebuilt when nodes are added or replaced but not when property values of nodes in the graph are changed.
+   *
+   * @param propertyId The ID of the property
+   * @param value      The value to look for
+   * @return The node or null if no node has the property value
+   */
   public GraphNodeData findNodeWithProperty( String propertyId, Object value ) {
-    for ( GraphNodeData node : nodes ) {
-      GraphPropertyData property = node.findProperty( propertyId );
-      if ( property != null ) {
-        if ( property.getValue() != null && property.getValue().equals( value ) ) {
-          return node;
+    if ( value == null ) {
+      return null;
+    }
+    getNodeIndex();
+    if ( propertyIndexes == null ) {
+      propertyIndexes = new HashMap<>();
+    }
+    Map<Object, GraphNodeData> propertyIndex = propertyIndexes.get( propertyId );
+    if ( propertyIndex == null ) {
+      propertyIndex = new HashMap<>();
+      for ( GraphNodeData node : nodes ) {
+        GraphPropertyData property = node.findProperty( propertyId );
+        if ( property != null && property.getValue() != null ) {
+          propertyIndex.putIfAbsent( property.getValue(), node );
         }
       }
+      propertyIndexes.put( propertyId, propertyIndex );
+    }
+    return propertyIndex.get( value );
+  }
+
+  /**
+   * Make sure the indexes are rebuilt the next time they're used
+   */
+  private void invalidateIndexes() {
+    indexedNodes = null;
+    indexedRelationships = null;
+    propertyIndexes = null;
+  }
+
+  private Map<String, Integer> getNodeIndex() {
+    if ( nodeIndex == null || indexedNodes != nodes || indexedNodesSize != nodes.size() ) {
+      nodeIndex = new HashMap<>( (int) ( nodes.size() / 0.75f ) + 1 );
+      for ( int position = 0; position < nodes.size(); position++ ) {
+        String id = nodes.get( position ).getId();
+        if ( id != null ) {
+          nodeIndex.putIfAbsent( id, position );
+        }
+      }
+      indexedNodes = nodes;
+      indexedNodesSize = nodes.size();
+      propertyIndexes = null;
+    }
+    return nodeIndex;
+  }
+
+  private void getRelationshipIndexes() {
+    if ( relationshipIndex == null || indexedRelationships != relationships || indexedRelationshipsSize != relationships.size() ) {
+      relationshipIndex = new HashMap<>( (int) ( relationships.size() / 0.75f ) + 1 );
+      nodeRelationshipsIndex = new HashMap<>();
+      for ( int position = 0; position < relationships.size(); position++ ) {
+        indexRelationship( relationships.get( position ), position );
+      }
+      indexedRelationships = relationships;
+      indexedRelationshipsSize = relationships.size();
+    }
+  }
+
+  private void indexRelationship( GraphRelationshipData relationship, int position ) {
+    if ( relationship.getId() != null ) {
+      relationshipIndex.putIfAbsent( relationship.getId(), position );
+    }
+    addNodeRelationship( relationship.getSourceNodeId(), position );
+    if ( relationship.getTargetNodeId() != null && !relationship.getTargetNodeId().equals( relationship.getSourceNodeId() ) ) {
+      addNodeRelationship( relationship.getTargetNodeId(), position );
+    }
+  }
+
+  private void addNodeRelationship( String nodeId, int position ) {
+    if ( nodeId != null ) {
+      nodeRelationshipsIndex.computeIfAbsent( nodeId, id -> new ArrayList<>() ).add( position );
     }
-    return null;
   }
 
   public List<GraphRelationshipData> findRelationships( String label ) {
@@ -270,11 +434,18 @@ public class GraphData {
     if ( rels.size() == 0 ) {
       return null;
     }
+    // Index the relationships on their target so following them up is a lookup per step
+    //
+    Map<String, GraphRelationshipData> relsByTarget = new HashMap<>( (int) ( rels.size() / 0.75f ) + 1 );
+    for ( GraphRelationshipData relationship : rels ) {
+      relsByTarget.putIfAbsent( relationship.getTargetNodeId(), relationship );
+    }
     GraphRelationshipData rel = rels.get( 0 );
     GraphNodeData node = null;
-    while ( rel != null ) {
+    int steps = 0;
+    while ( rel != null && steps++ <= rels.size() ) {
       node = findNode( rel.getSourceNodeId() );
-      rel = findRelationshipsWithTarget( rels, node.getId() );
+      rel = relsByTarget.get( node.getId() );
     }
     return node;
   }
@@ -380,11 +551,12 @@ public class GraphData {
    * @return
    */
   public List<GraphRelationshipData> findRelationships( GraphNodeData dataNode ) {
-
+    getRelationshipIndexes();
     List<GraphRelationshipData> found = new ArrayList<>();
-    for ( GraphRelationshipData relationship : relationships ) {
-      if ( relationship.getSourceNodeId().equals( dataNode.getId() ) || relationship.getTargetNodeId().equals( dataNode.getId() ) ) {
-        found.add( relationship );
+    List<Integer> positions = nodeRelationshipsIndex.get( dataNode.getId() );
+    if ( positions != null ) {
+      for ( int position : positions ) {
+        found.add( relationships.get( position ) );
       }
     }
     return found;
@@ -0,0 +1,102 @@
+package org.neo4j.hop.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Graph data with a single node or relationship of another graph.
+ * The element isn't copied: the view shares it with the parent graph and the other views on it.
+ * The lists of nodes and relationships belong to the view so they can be modified like the ones of any graph data.
+ * As soon as the graph is modified through one of its methods the element is copied first (copy-on-write).
+ * Code changing the node or relationship itself needs to call {@link #makeWritable()} first.
+ */
+public class GraphElementView extends GraphData {
+
+  private boolean writable;
+
+  /**
+   * A view on a node of a graph
+   *
+   * @param parent The graph of the node
+   * @param node   The node to share
+   */
+  public GraphElementView( GraphData parent, GraphNodeData node ) {
+    super( new ArrayList<>( Collections.singletonList( node ) ), new ArrayList<>() );
+    setSource( parent );
+  }
+
+  /**
+   * A view on a relationship of a graph
+   *
+   * @param parent       The graph of the relationship
+   * @param relationship The relationship to share
+   */
+  public GraphElementView( GraphData parent, GraphRelationshipData relationship ) {
+    super( new ArrayList<>(), new ArrayList<>( Collections.singletonList( relationship ) ) );
+    setSource( parent );
+  }
+
+  private void setSource( GraphData parent ) {
+    sourcePipelineName = parent.getSourcePipelineName();
+    sourceTransformName = parent.getSourceTransformName();
+  }
+
+  /**
+   * Copy the shared element so that it can be modified
+   *
+   * @return This graph data
+   */
+  @Override public GraphData makeWritable() {
+    if ( !writable ) {
+      List<GraphNodeData> nodesCopy = new ArrayList<>( nodes.size() );
+      for ( GraphNodeData node : nodes ) {
+        nodesCopy.add( new GraphNodeData( node ) );
+      }
+      List<GraphRelationshipData> relationshipsCopy = new ArrayList<>( relationships.size() );
+      for ( GraphRelationshipData relationship : relationships ) {
+        relationshipsCopy.add( new GraphRelationshipData( relationship ) );
+      }
+      nodes = nodesCopy;
+      relationships = relationshipsCopy;
+      writable = true;
+    }
+    return this;
+  }
+
+  @Override public void replace( GraphData source ) {
+    // Everything is copied from the source
+    //
+    writable = true;
+    super.replace( source );
+  }
+
+  @Override public void addNode( GraphNodeData node ) {
+    makeWritable();
+    super.addNode( node );
+  }
+
+  @Override public void addRelationship( GraphRelationshipData relationship ) {
+    makeWritable();
+    super.addRelationship( relationship );
+  }
+
+  @Override public void setNodes( List<GraphNodeData> nodes ) {
+    makeWritable();
+    super.setNodes( nodes );
+  }
+
+  @Override public void setRelationships( List<GraphRelationshipData> relationships ) {
+    makeWritable();
+    super.setRelationships( relationships );
+  }
+
+  /**
+   * Gets writable
+   *
+   * @return value of writable, true once the element is copied
+   */
+  public boolean isWritable() {
+    return writable;
+  }
+}
@@ -5,10 +5,10 @@ import org.json.simple.JSONObject;
 import org.neo4j.driver.Value;
 import org.neo4j.driver.types.Node;
 import org.apache.hop.core.Const;
-import org.neo4j.driver.types.Point;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class GraphNodeData {
 
@@ -38,10 +38,11 @@ public class GraphNodeData {
 
   public GraphNodeData( Node node ) {
     this();
+    GraphSymbols symbols = GraphSymbols.getShared();
     this.id = Long.toString( node.id() );
     StringBuilder propertySet = new StringBuilder();
     for ( String label : node.labels() ) {
-      labels.add( label );
+      labels.add( symbols.intern( label ) );
       if (propertySet.length()>0) {
         propertySet.append( "," );
       }
@@ -49,10 +50,9 @@ public class GraphNodeData {
     }
     for ( String propertyKey : node.keys() ) {
       Value propertyValue = node.get( propertyKey );
-      Point point = propertyValue.asPoint();
       Object propertyObject = propertyValue.asObject();
       GraphPropertyDataType propertyType = GraphPropertyDataType.getTypeFromNeo4jValue(propertyObject);
-      properties.add( new GraphPropertyData( propertyKey, propertyObject, propertyType, false ) );
+      properties.add( new GraphPropertyData( symbols.intern( propertyKey ), propertyObject, propertyType, false ) );
     }
     this.propertySetId = propertySet.toString();
   }
@@ -99,7 +99,7 @@ public class GraphNodeData {
     id = (String) jNode.get("id");
     JSONArray jLabels = (JSONArray) jNode.get("labels");
     for (int i=0;i<jLabels.size();i++) {
-      labels.add((String)jLabels.get(i));
+      labels.add( GraphSymbols.getShared().intern( (String) jLabels.get( i ) ) );
     }
 
     JSONArray jProperties = (JSONArray)jNode.get("properties");
@@ -129,16 +129,26 @@ public class GraphNodeData {
     if ( o == this ) {
       return true;
     }
-    return ( (GraphNodeData) o ).getId().equals( id );
+    return Objects.equals( ( (GraphNodeData) o ).getId(), id );
+  }
+
+  @Override public int hashCode() {
+    return Objects.hashCode( id );
   }
 
   /**
-   * Search for the property with the given ID, case insensitive
+   * Search for the property with the given ID, case insensitive.
+   * Property IDs are usually interned (see {@link GraphSymbols}) so an exact match is looked for by reference first.
    *
    * @param id the name of the property to look for
    * @return the property or null if nothing could be found.
    */
   public GraphPropertyData findProperty( String id ) {
+    for ( GraphPropertyData property : properties ) {
+      if ( property.getId() == id ) {
+        return property;
+      }
+    }
     for ( GraphPropertyData property : properties ) {
       if ( property.getId().equalsIgnoreCase( id ) ) {
         return property;
@@ -75,7 +75,7 @@ public class GraphPropertyData {
   public GraphPropertyData( JSONObject jProperty ) {
     this();
 
-    id = (String) jProperty.get( "id" );
+    id = GraphSymbols.getShared().intern( (String) jProperty.get( "id" ) );
 
     String typeCode = (String) jProperty.get( "type" );
     if ( StringUtils.isNotEmpty( typeCode ) ) {
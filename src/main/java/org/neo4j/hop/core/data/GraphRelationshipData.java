@@ -44,7 +44,15 @@ public class GraphRelationshipData {
     if ( o == this ) {
       return true;
     }
-    return ( (GraphRelationshipData) o ).getId().equalsIgnoreCase( id );
+    String otherId = ( (GraphRelationshipData) o ).getId();
+    return otherId == null ? id == null : otherId.equalsIgnoreCase( id );
+  }
+
+  /**
+   * Consistent with the case insensitive comparison of the IDs in equals()
+   */
+  @Override public int hashCode() {
+    return id == null ? 0 : id.toLowerCase().hashCode();
   }
 
   @Override public String toString() {
@@ -72,12 +80,13 @@ public class GraphRelationshipData {
     setId( Long.toString( relationship.id() ) );
     setSourceNodeId( Long.toString( relationship.startNodeId() ) );
     setTargetNodeId( Long.toString( relationship.endNodeId() ) );
-    setLabel( relationship.type() );
+    GraphSymbols symbols = GraphSymbols.getShared();
+    setLabel( symbols.intern( relationship.type() ) );
     for ( String propertyKey : relationship.keys() ) {
       Value propertyValue = relationship.get( propertyKey );
       Object propertyObject = propertyValue.asObject();
       GraphPropertyDataType propertyType = GraphPropertyDataType.getTypeFromNeo4jValue(propertyObject);
-      properties.add( new GraphPropertyData( propertyKey, propertyObject, propertyType, false ) );
+      properties.add( new GraphPropertyData( symbols.intern( propertyKey ), propertyObject, propertyType, false ) );
     }
   }
 
@@ -104,7 +113,7 @@ public class GraphRelationshipData {
   public GraphRelationshipData( JSONObject jRelationship ) {
     this();
     id = (String) jRelationship.get("id");
-    label = (String) jRelationship.get("label");
+    label = GraphSymbols.getShared().intern( (String) jRelationship.get("label") );
     sourceNodeId = (String) jRelationship.get("sourceNodeId");
     targetNodeId = (String) jRelationship.get("targetNodeId");
 
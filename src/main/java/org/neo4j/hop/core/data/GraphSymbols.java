@@ -0,0 +1,89 @@
+package org.neo4j.hop.core.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A symbol table for the labels, relationship types and property IDs of graph data.
+ * <p>
+ * A pipeline only uses a handful of them but without interning every node read from Neo4j, JSON or a binary value
+ * carries its own copy of the same strings. Interned symbols are shared between all nodes and relationships and can
+ * be compared by reference, see {@link GraphNodeData#findProperty(String)}.
+ * <p>
+ * The table is bounded: once it's full new strings are returned as they are. This keeps data driven labels or keys
+ * from growing the table without limit.
+ * <p>
+ * The shared table lives as long as the process and is used by all pipelines. Only the names of the graph schema go
+ * in there: labels, relationship types and property keys. Values derived from the data, like node IDs or property set
+ * IDs, are never interned. Transforms creating graph data from field values use a table of their own.
+ */
+public class GraphSymbols {
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  /**
+   * Symbols longer than this are not worth sharing
+   */
+  private static final int MAX_SYMBOL_LENGTH = 256;
+
+  private static final GraphSymbols shared = new GraphSymbols();
+
+  private final ConcurrentHashMap<String, String> symbols;
+  private final int maxSize;
+
+  public GraphSymbols() {
+    this( DEFAULT_MAX_SIZE );
+  }
+
+  public GraphSymbols( int maxSize ) {
+    this.maxSize = maxSize;
+    this.symbols = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * The symbol table used for graph data which isn't created by a specific transform: data read from Neo4j, JSON or binary values.
+   *
+   * @return The shared symbol table
+   */
+  public static GraphSymbols getShared() {
+    return shared;
+  }
+
+  /**
+   * Get the shared instance of a label, relationship type or property ID
+   *
+   * @param symbol The symbol to intern
+   * @return The shared instance or the given string if it can't be interned
+   */
+  public String intern( String symbol ) {
+    if ( symbol == null || symbol.length() > MAX_SYMBOL_LENGTH ) {
+      return symbol;
+    }
+    String existing = symbols.get( symbol );
+    if ( existing != null ) {
+      return existing;
+    }
+    if ( symbols.size() >= maxSize ) {
+      return symbol;
+    }
+    existing = symbols.putIfAbsent( symbol, symbol );
+    return existing == null ? symbol : existing;
+  }
+
+  /**
+   * Gets the number of interned symbols
+   *
+   * @return value of size
+   */
+  public int size() {
+    return symbols.size();
+  }
+
+  /**
+   * Gets maxSize
+   *
+   * @return value of maxSize
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+}
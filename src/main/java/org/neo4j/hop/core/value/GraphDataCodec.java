@@ -0,0 +1,518 @@
+package org.neo4j.hop.core.value;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.IsoDuration;
+import org.neo4j.driver.types.Point;
+import org.neo4j.hop.core.data.GraphData;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+import org.neo4j.hop.core.data.GraphSymbols;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format for graph data.
+ * <p>
+ * Lengths and counts are unsigned varints, signed numbers are zigzag encoded varints.
+ * IDs, labels, property IDs and other names are interned: the first occurrence is written in full, later ones as a reference.
+ * The dictionary is built while writing and reading so there is no separate header.
+ * Property values are written with a tag for their type followed by their binary representation.
+ */
+public class GraphDataCodec {
+
+  private static final int VERSION = 1;
+
+  private static final int NAME_NULL = 0;
+  private static final int NAME_NEW = 1;
+  private static final int NAME_REFERENCE_OFFSET = 2;
+
+  private static final int VALUE_NULL = 0;
+  private static final int VALUE_STRING = 1;
+  private static final int VALUE_LONG = 2;
+  private static final int VALUE_INTEGER = 3;
+  private static final int VALUE_DOUBLE = 4;
+  private static final int VALUE_FLOAT = 5;
+  private static final int VALUE_TRUE = 6;
+  private static final int VALUE_FALSE = 7;
+  private static final int VALUE_DATE = 8;
+  private static final int VALUE_LOCAL_DATE_TIME = 9;
+  private static final int VALUE_LOCAL_TIME = 10;
+  private static final int VALUE_ZONED_DATE_TIME = 11;
+  private static final int VALUE_OFFSET_DATE_TIME = 12;
+  private static final int VALUE_OFFSET_TIME = 13;
+  private static final int VALUE_DURATION = 14;
+  private static final int VALUE_POINT = 15;
+  private static final int VALUE_BYTES = 16;
+  private static final int VALUE_LIST = 17;
+  private static final int VALUE_OTHER = 18;
+
+  private static final GraphPropertyDataType[] TYPES = GraphPropertyDataType.values();
+
+  private GraphDataCodec() {
+  }
+
+  /**
+   * Encode graph data
+   *
+   * @param graphData The graph data to encode
+   * @return The binary representation
+   */
+  public static byte[] encode( GraphData graphData ) {
+    Writer writer = new Writer();
+    writer.writeVarInt( VERSION );
+    writer.writeName( graphData.getSourcePipelineName() );
+    writer.writeName( graphData.getSourceTransformName() );
+
+    List<GraphNodeData> nodes = graphData.getNodes();
+    writer.writeVarInt( nodes.size() );
+    for ( GraphNodeData node : nodes ) {
+      writer.writeName( node.getId() );
+      writer.writeVarInt( node.getLabels().size() );
+      for ( String label : node.getLabels() ) {
+        writer.writeName( label );
+      }
+      writer.writeName( node.getPropertySetId() );
+      writer.writeProperties( node.getProperties() );
+    }
+
+    List<GraphRelationshipData> relationships = graphData.getRelationships();
+    writer.writeVarInt( relationships.size() );
+    for ( GraphRelationshipData relationship : relationships ) {
+      writer.writeName( relationship.getId() );
+      writer.writeName( relationship.getLabel() );
+      writer.writeName( relationship.getSourceNodeId() );
+      writer.writeName( relationship.getTargetNodeId() );
+      writer.writeName( relationship.getPropertySetId() );
+      writer.writeProperties( relationship.getProperties() );
+    }
+
+    return writer.toByteArray();
+  }
+
+  /**
+   * Decode graph data
+   *
+   * @param bytes The binary representation written by {@link #encode(GraphData)}
+   * @return The graph data
+   * @throws HopValueException In case the data can't be decoded
+   */
+  public static GraphData decode( byte[] bytes ) throws HopValueException {
+    try {
+      Reader reader = new Reader( bytes );
+      int version = reader.readVarInt();
+      if ( version != VERSION ) {
+        throw new HopValueException( "Unsupported version " + version + " of binary graph data" );
+      }
+      GraphData graphData = new GraphData();
+      graphData.setSourcePipelineName( reader.readName() );
+      graphData.setSourceTransformName( reader.readName() );
+
+      int nrNodes = reader.readCount();
+      List<GraphNodeData> nodes = new ArrayList<>( nrNodes );
+      for ( int n = 0; n < nrNodes; n++ ) {
+        GraphNodeData node = new GraphNodeData();
+        node.setId( reader.readName() );
+        int nrLabels = reader.readCount();
+        List<String> labels = new ArrayList<>( nrLabels );
+        for ( int l = 0; l < nrLabels; l++ ) {
+          labels.add( reader.readSymbol() );
+        }
+        node.setLabels( labels );
+        node.setPropertySetId( reader.readName() );
+        node.setProperties( reader.readProperties() );
+        nodes.add( node );
+      }
+      graphData.setNodes( nodes );
+
+      int nrRelationships = reader.readCount();
+      List<GraphRelationshipData> relationships = new ArrayList<>( nrRelationships );
+      for ( int r = 0; r < nrRelationships; r++ ) {
+        GraphRelationshipData relationship = new GraphRelationshipData();
+        relationship.setId( reader.readName() );
+        relationship.setLabel( reader.readSymbol() );
+        relationship.setSourceNodeId( reader.readName() );
+        relationship.setTargetNodeId( reader.readName() );
+        relationship.setPropertySetId( reader.readName() );
+        relationship.setProperties( reader.readProperties() );
+        relationships.add( relationship );
+      }
+      graphData.setRelationships( relationships );
+
+      return graphData;
+    } catch ( HopValueException e ) {
+      throw e;
+    } catch ( RuntimeException e ) {
+      throw new HopValueException( "Unable to decode binary graph data", e );
+    }
+  }
+
+  private static class Writer {
+    private byte[] buffer = new byte[ 256 ];
+    private int position;
+    private final Map<String, Integer> names = new HashMap<>();
+
+    void writeByte( int b ) {
+      if ( position == buffer.length ) {
+        buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+      }
+      buffer[ position++ ] = (byte) b;
+    }
+
+    void writeBytes( byte[] bytes ) {
+      writeVarInt( bytes.length );
+      if ( position + bytes.length > buffer.length ) {
+        buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, position + bytes.length ) );
+      }
+      System.arraycopy( bytes, 0, buffer, position, bytes.length );
+      position += bytes.length;
+    }
+
+    void writeVarInt( int value ) {
+      writeVarLong( value & 0xFFFFFFFFL );
+    }
+
+    void writeVarLong( long value ) {
+      while ( ( value & ~0x7FL ) != 0 ) {
+        writeByte( (int) ( ( value & 0x7F ) | 0x80 ) );
+        value >>>= 7;
+      }
+      writeByte( (int) value );
+    }
+
+    void writeZigZag( long value ) {
+      writeVarLong( ( value << 1 ) ^ ( value >> 63 ) );
+    }
+
+    void writeString( String string ) {
+      writeBytes( string.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    void writeName( String name ) {
+      if ( name == null ) {
+        writeVarInt( NAME_NULL );
+        return;
+      }
+      Integer reference = names.get( name );
+      if ( reference != null ) {
+        writeVarInt( reference + NAME_REFERENCE_OFFSET );
+        return;
+      }
+      names.put( name, names.size() );
+      writeVarInt( NAME_NEW );
+      writeString( name );
+    }
+
+    void writeProperties( List<GraphPropertyData> properties ) {
+      writeVarInt( properties.size() );
+      for ( GraphPropertyData property : properties ) {
+        writeName( property.getId() );
+        // The type and the primary flag share a varint
+        //
+        int type = property.getType() == null ? 0 : property.getType().ordinal() + 1;
+        writeVarInt( ( type << 1 ) | ( property.isPrimary() ? 1 : 0 ) );
+        writeValue( property.getValue() );
+      }
+    }
+
+    void writeValue( Object value ) {
+      if ( value == null ) {
+        writeVarInt( VALUE_NULL );
+      } else if ( value instanceof String ) {
+        writeVarInt( VALUE_STRING );
+        writeString( (String) value );
+      } else if ( value instanceof Long ) {
+        writeVarInt( VALUE_LONG );
+        writeZigZag( (Long) value );
+      } else if ( value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+        writeVarInt( VALUE_INTEGER );
+        writeZigZag( ( (Number) value ).longValue() );
+      } else if ( value instanceof Double ) {
+        writeVarInt( VALUE_DOUBLE );
+        writeFixedLong( Double.doubleToLongBits( (Double) value ) );
+      } else if ( value instanceof Float ) {
+        writeVarInt( VALUE_FLOAT );
+        writeVarInt( Float.floatToIntBits( (Float) value ) );
+      } else if ( value instanceof Boolean ) {
+        writeVarInt( (Boolean) value ? VALUE_TRUE : VALUE_FALSE );
+      } else if ( value instanceof LocalDate ) {
+        writeVarInt( VALUE_DATE );
+        writeZigZag( ( (LocalDate) value ).toEpochDay() );
+      } else if ( value instanceof LocalDateTime ) {
+        writeVarInt( VALUE_LOCAL_DATE_TIME );
+        writeLocalDateTime( (LocalDateTime) value );
+      } else if ( value instanceof LocalTime ) {
+        writeVarInt( VALUE_LOCAL_TIME );
+        writeVarLong( ( (LocalTime) value ).toNanoOfDay() );
+      } else if ( value instanceof ZonedDateTime ) {
+        writeVarInt( VALUE_ZONED_DATE_TIME );
+        writeLocalDateTime( ( (ZonedDateTime) value ).toLocalDateTime() );
+        writeName( ( (ZonedDateTime) value ).getZone().getId() );
+      } else if ( value instanceof OffsetDateTime ) {
+        writeVarInt( VALUE_OFFSET_DATE_TIME );
+        writeLocalDateTime( ( (OffsetDateTime) value ).toLocalDateTime() );
+        writeZigZag( ( (OffsetDateTime) value ).getOffset().getTotalSeconds() );
+      } else if ( value instanceof OffsetTime ) {
+        writeVarInt( VALUE_OFFSET_TIME );
+        writeVarLong( ( (OffsetTime) value ).toLocalTime().toNanoOfDay() );
+        writeZigZag( ( (OffsetTime) value ).getOffset().getTotalSeconds() );
+      } else if ( value instanceof IsoDuration ) {
+        IsoDuration duration = (IsoDuration) value;
+        writeVarInt( VALUE_DURATION );
+        writeZigZag( duration.months() );
+        writeZigZag( duration.days() );
+        writeZigZag( duration.seconds() );
+        writeZigZag( duration.nanoseconds() );
+      } else if ( value instanceof Point ) {
+        Point point = (Point) value;
+        boolean threeDimensional = !Double.isNaN( point.z() );
+        writeVarInt( VALUE_POINT );
+        writeVarInt( ( point.srid() << 1 ) | ( threeDimensional ? 1 : 0 ) );
+        writeFixedLong( Double.doubleToLongBits( point.x() ) );
+        writeFixedLong( Double.doubleToLongBits( point.y() ) );
+        if ( threeDimensional ) {
+          writeFixedLong( Double.doubleToLongBits( point.z() ) );
+        }
+      } else if ( value instanceof byte[] ) {
+        writeVarInt( VALUE_BYTES );
+        writeBytes( (byte[]) value );
+      } else if ( value instanceof List || value instanceof Object[] ) {
+        List<?> elements = value instanceof List ? (List<?>) value : Arrays.asList( (Object[]) value );
+        writeVarInt( VALUE_LIST );
+        writeVarInt( elements.size() );
+        for ( Object element : elements ) {
+          writeValue( element );
+        }
+      } else {
+        // Big numbers and anything else we don't know keep their string representation, the same as in JSON
+        //
+        writeVarInt( VALUE_OTHER );
+        writeString( value.toString() );
+      }
+    }
+
+    void writeLocalDateTime( LocalDateTime dateTime ) {
+      writeZigZag( dateTime.toEpochSecond( ZoneOffset.UTC ) );
+      writeVarInt( dateTime.getNano() );
+    }
+
+    void writeFixedLong( long value ) {
+      for ( int shift = 56; shift >= 0; shift -= 8 ) {
+        writeByte( (int) ( value >>> shift ) );
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf( buffer, position );
+    }
+  }
+
+  private static class Reader {
+    private final byte[] buffer;
+    private int position;
+    private final List<String> names = new ArrayList<>();
+
+    Reader( byte[] buffer ) {
+      this.buffer = buffer;
+    }
+
+    int readByte() throws HopValueException {
+      if ( position >= buffer.length ) {
+        throw new HopValueException( "Unexpected end of binary graph data" );
+      }
+      return buffer[ position++ ] & 0xFF;
+    }
+
+    byte[] readBytes() throws HopValueException {
+      int length = readVarInt();
+      if ( length < 0 || position + length > buffer.length ) {
+        throw new HopValueException( "Invalid length " + length + " in binary graph data" );
+      }
+      byte[] bytes = Arrays.copyOfRange( buffer, position, position + length );
+      position += length;
+      return bytes;
+    }
+
+    int readVarInt() throws HopValueException {
+      return (int) readVarLong();
+    }
+
+    /**
+     * Every element takes at least a byte so a count can't be larger than what's left
+     */
+    int readCount() throws HopValueException {
+      int count = readVarInt();
+      if ( count < 0 || count > buffer.length - position ) {
+        throw new HopValueException( "Invalid count " + count + " in binary graph data" );
+      }
+      return count;
+    }
+
+    long readVarLong() throws HopValueException {
+      long value = 0;
+      for ( int shift = 0; shift < 64; shift += 7 ) {
+        int b = readByte();
+        value |= (long) ( b & 0x7F ) << shift;
+        if ( ( b & 0x80 ) == 0 ) {
+          return value;
+        }
+      }
+      throw new HopValueException( "Invalid varint in binary graph data" );
+    }
+
+    long readZigZag() throws HopValueException {
+      long value = readVarLong();
+      return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    long readFixedLong() throws HopValueException {
+      long value = 0;
+      for ( int i = 0; i < 8; i++ ) {
+        value = ( value << 8 ) | readByte();
+      }
+      return value;
+    }
+
+    String readString() throws HopValueException {
+      int length = readVarInt();
+      if ( length < 0 || position + length > buffer.length ) {
+        throw new HopValueException( "Invalid string length " + length + " in binary graph data" );
+      }
+      String string = new String( buffer, position, length, StandardCharsets.UTF_8 );
+      position += length;
+      return string;
+    }
+
+    String readName() throws HopValueException {
+      return readName( false );
+    }
+
+    /**
+     * Read a label, relationship type or property ID: these are interned so that decoded values share them.
+     */
+    String readSymbol() throws HopValueException {
+      return readName( true );
+    }
+
+    private String readName( boolean symbol ) throws HopValueException {
+      int reference = readVarInt();
+      if ( reference == NAME_NULL ) {
+        return null;
+      }
+      if ( reference == NAME_NEW ) {
+        String name = readString();
+        if ( symbol ) {
+          name = GraphSymbols.getShared().intern( name );
+        }
+        names.add( name );
+        return name;
+      }
+      int index = reference - NAME_REFERENCE_OFFSET;
+      if ( index < 0 || index >= names.size() ) {
+        throw new HopValueException( "Invalid name reference " + index + " in binary graph data" );
+      }
+      return names.get( index );
+    }
+
+    List<GraphPropertyData> readProperties() throws HopValueException {
+      int nrProperties = readCount();
+      List<GraphPropertyData> properties = new ArrayList<>( nrProperties );
+      for ( int i = 0; i < nrProperties; i++ ) {
+        String id = readSymbol();
+        int typeAndPrimary = readVarInt();
+        int type = typeAndPrimary >>> 1;
+        if ( type > TYPES.length ) {
+          throw new HopValueException( "Invalid property type " + type + " in binary graph data" );
+        }
+        Object value = readValue();
+        properties.add( new GraphPropertyData( id, value, type == 0 ? null : TYPES[ type - 1 ], ( typeAndPrimary & 1 ) != 0 ) );
+      }
+      return properties;
+    }
+
+    Object readValue() throws HopValueException {
+      int valueType = readVarInt();
+      switch ( valueType ) {
+        case VALUE_NULL:
+          return null;
+        case VALUE_STRING:
+        case VALUE_OTHER:
+          return readString();
+        case VALUE_LONG:
+          return readZigZag();
+        case VALUE_INTEGER:
+          return (int) readZigZag();
+        case VALUE_DOUBLE:
+          return Double.longBitsToDouble( readFixedLong() );
+        case VALUE_FLOAT:
+          return Float.intBitsToFloat( readVarInt() );
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        case VALUE_DATE:
+          return LocalDate.ofEpochDay( readZigZag() );
+        case VALUE_LOCAL_DATE_TIME:
+          return readLocalDateTime();
+        case VALUE_LOCAL_TIME:
+          return LocalTime.ofNanoOfDay( readVarLong() );
+        case VALUE_ZONED_DATE_TIME:
+          LocalDateTime zonedDateTime = readLocalDateTime();
+          return ZonedDateTime.of( zonedDateTime, ZoneId.of( readName() ) );
+        case VALUE_OFFSET_DATE_TIME:
+          LocalDateTime offsetDateTime = readLocalDateTime();
+          return OffsetDateTime.of( offsetDateTime, ZoneOffset.ofTotalSeconds( (int) readZigZag() ) );
+        case VALUE_OFFSET_TIME:
+          LocalTime time = LocalTime.ofNanoOfDay( readVarLong() );
+          return OffsetTime.of( time, ZoneOffset.ofTotalSeconds( (int) readZigZag() ) );
+        case VALUE_DURATION:
+          long months = readZigZag();
+          long days = readZigZag();
+          long seconds = readZigZag();
+          int nanoseconds = (int) readZigZag();
+          return Values.isoDuration( months, days, seconds, nanoseconds ).asIsoDuration();
+        case VALUE_POINT:
+          int sridAndDimensions = readVarInt();
+          double x = Double.longBitsToDouble( readFixedLong() );
+          double y = Double.longBitsToDouble( readFixedLong() );
+          if ( ( sridAndDimensions & 1 ) != 0 ) {
+            double z = Double.longBitsToDouble( readFixedLong() );
+            return Values.point( sridAndDimensions >>> 1, x, y, z ).asPoint();
+          }
+          return Values.point( sridAndDimensions >>> 1, x, y ).asPoint();
+        case VALUE_BYTES:
+          return readBytes();
+        case VALUE_LIST:
+          int size = readCount();
+          List<Object> elements = new ArrayList<>( size );
+          for ( int i = 0; i < size; i++ ) {
+            elements.add( readValue() );
+          }
+          return elements;
+        default:
+          throw new HopValueException( "Unknown value type " + valueType + " in binary graph data" );
+      }
+    }
+
+    LocalDateTime readLocalDateTime() throws HopValueException {
+      long epochSecond = readZigZag();
+      int nano = readVarInt();
+      return LocalDateTime.ofEpochSecond( epochSecond, nano, ZoneOffset.UTC );
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package org.neo4j.hop.core.value;
 
 import org.neo4j.hop.core.data.GraphData;
+import org.apache.hop.core.exception.HopEOFException;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.ValueDataUtil;
 import org.apache.hop.core.row.IValueMeta;
@@ -9,6 +11,12 @@ import org.apache.hop.core.row.value.ValueMetaBase;
 import org.apache.hop.core.row.value.ValueMetaPlugin;
 import org.w3c.dom.Node;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
 @ValueMetaPlugin(
   id = "303",
   name = "Graph",
@@ -186,6 +194,49 @@ public class ValueMetaGraph extends ValueMetaBase implements IValueMeta {
     return new GraphData(graphData);
   }
 
+  /**
+   * Graphs are serialized in the compact binary format of {@link GraphDataCodec}, for example to send rows to remote
+   * servers or to spill sorted rows to disk. The binary string of a graph is still its JSON text.
+   */
+  @Override
+  public void writeData( DataOutputStream outputStream, Object object ) throws HopFileException {
+    if ( type != TYPE_GRAPH || storageType != STORAGE_TYPE_NORMAL ) {
+      super.writeData( outputStream, object );
+      return;
+    }
+    try {
+      outputStream.writeBoolean( object == null );
+      if ( object != null ) {
+        byte[] binary = GraphDataCodec.encode( getGraphData( object ) );
+        outputStream.writeInt( binary.length );
+        outputStream.write( binary );
+      }
+    } catch ( Exception e ) {
+      throw new HopFileException( toString() + " : Unable to write graph data to output stream", e );
+    }
+  }
+
+  @Override
+  public Object readData( DataInputStream inputStream ) throws HopFileException, HopEOFException, SocketTimeoutException {
+    if ( type != TYPE_GRAPH || storageType != STORAGE_TYPE_NORMAL ) {
+      return super.readData( inputStream );
+    }
+    try {
+      if ( inputStream.readBoolean() ) {
+        return null;
+      }
+      byte[] binary = new byte[ inputStream.readInt() ];
+      inputStream.readFully( binary );
+      return GraphDataCodec.decode( binary );
+    } catch ( EOFException e ) {
+      throw new HopEOFException( e );
+    } catch ( SocketTimeoutException e ) {
+      throw e;
+    } catch ( IOException | HopValueException e ) {
+      throw new HopFileException( toString() + " : Unable to read graph data from input stream", e );
+    }
+  }
+
   @Override
   public Class<?> getNativeDataTypeClass() throws HopValueException {
     return GraphData.class;
@@ -8,5 +8,24 @@ public class Defaults {
 
   public static final String VARIABLE_NEO4J_LOGGING_CONNECTION_DISABLED = "-";
 
+  /**
+   * The number of seconds between two snapshots of the transform metrics of a running pipeline, 0 disables them
+   */
+  public static final String VARIABLE_NEO4J_LOGGING_SNAPSHOT_INTERVAL = "NEO4J_LOGGING_SNAPSHOT_INTERVAL";
+
+  public static final int DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 30;
+
+  /**
+   * How the logging text of executions is stored: TEXT (default) or COMPRESSED
+   */
+  public static final String VARIABLE_NEO4J_LOGGING_TEXT_MODE = "NEO4J_LOGGING_TEXT_MODE";
+
+  /**
+   * The maximum number of characters of a logging text stored in COMPRESSED mode, the head and tail are kept
+   */
+  public static final String VARIABLE_NEO4J_LOGGING_TEXT_MAX_LENGTH = "NEO4J_LOGGING_TEXT_MAX_LENGTH";
+
+  public static final int DEFAULT_LOGGING_TEXT_MAX_LENGTH = 1000000;
+
 
 }
@@ -22,6 +22,8 @@ import org.neo4j.driver.types.Node;
 import org.neo4j.hop.logging.Defaults;
 import org.neo4j.hop.shared.NeoConnection;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -55,67 +57,86 @@ public class LoggingCore {
   }
 
 
-  public final static void writeHierarchies( ILogChannel log, NeoConnection connection, Transaction transaction,
-                                             List<LoggingHierarchy> hierarchies, String rootLogChannelId ) {
+  private static final LoggingStatement HIERARCHY_EXECUTION = new LoggingStatement( LoggingStatement.ORDER_HIERARCHY,
+    "MERGE (e:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  e.containerId = row.containerId "
+      + ", e.logLevel = row.logLevel "
+      + ", e.copy = row.copy "
+      + ", e.registrationDate = row.registrationDate "
+      + ", e.root = row.root "
+  );
 
-    try {
-      // First create the Execution nodes
-      //
-      for ( LoggingHierarchy hierarchy : hierarchies ) {
-        ILoggingObject loggingObject = hierarchy.getLoggingObject();
-        LogLevel logLevel = loggingObject.getLogLevel();
+  private static final LoggingStatement HIERARCHY_RELATIONSHIP = new LoggingStatement( LoggingStatement.ORDER_HIERARCHY_RELATIONSHIP,
+    "MATCH (child:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "MATCH (parent:Execution { name : row.parentName, type : row.parentType, id : row.parentId } ) "
+      + "MERGE (parent)-[rel:EXECUTES]->(child) "
+  );
+
+  /**
+   * Queue the Execution nodes of a logging hierarchy and the EXECUTES relationships between them
+   *
+   * @param sink             The sink to log to
+   * @param hierarchies      The logging hierarchy
+   * @param rootLogChannelId The log channel ID of the root of the hierarchy
+   */
+  public final static void logHierarchies( LoggingSink sink, List<LoggingHierarchy> hierarchies, String rootLogChannelId ) {
+
+    // First create the Execution nodes
+    //
+    for ( LoggingHierarchy hierarchy : hierarchies ) {
+      ILoggingObject loggingObject = hierarchy.getLoggingObject();
+      LogLevel logLevel = loggingObject.getLogLevel();
+      Map<String, Object> execPars = new HashMap<>();
+      execPars.put( "name", loggingObject.getObjectName() );
+      execPars.put( "type", loggingObject.getObjectType().name() );
+      execPars.put( "copy", loggingObject.getObjectCopy() );
+      execPars.put( "id", loggingObject.getLogChannelId() );
+      execPars.put( "containerId", loggingObject.getContainerId() );
+      execPars.put( "logLevel", logLevel != null ? logLevel.getCode() : null );
+      execPars.put( "root", loggingObject.getLogChannelId().equals( rootLogChannelId ) );
+      execPars.put( "registrationDate", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( loggingObject.getRegistrationDate() ) );
+      sink.log( HIERARCHY_EXECUTION, execPars );
+    }
+
+    // Now create the relationships between them
+    //
+    for ( LoggingHierarchy hierarchy : hierarchies ) {
+      ILoggingObject loggingObject = hierarchy.getLoggingObject();
+      ILoggingObject parentObject = loggingObject.getParent();
+      if ( parentObject != null ) {
         Map<String, Object> execPars = new HashMap<>();
         execPars.put( "name", loggingObject.getObjectName() );
         execPars.put( "type", loggingObject.getObjectType().name() );
-        execPars.put( "copy", loggingObject.getObjectCopy() );
         execPars.put( "id", loggingObject.getLogChannelId() );
-        execPars.put( "containerId", loggingObject.getContainerId() );
-        execPars.put( "logLevel", logLevel != null ? logLevel.getCode() : null );
-        execPars.put( "root", loggingObject.getLogChannelId().equals( rootLogChannelId ) );
-        execPars.put( "registrationDate", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( loggingObject.getRegistrationDate() ) );
-
-        StringBuilder execCypher = new StringBuilder();
-        execCypher.append( "MERGE (e:Execution { name : $name, type : $type, id : $id } ) " );
-        execCypher.append( "SET " );
-        execCypher.append( "  e.containerId = $containerId " );
-        execCypher.append( ", e.logLevel = $logLevel " );
-        execCypher.append( ", e.copy = $copy " );
-        execCypher.append( ", e.registrationDate = $registrationDate " );
-        execCypher.append( ", e.root = $root " );
-
-        Result run = transaction.run( execCypher.toString(), execPars );
-        run.consume();
+        execPars.put( "parentName", parentObject.getObjectName() );
+        execPars.put( "parentType", parentObject.getObjectType().name() );
+        execPars.put( "parentId", parentObject.getLogChannelId() );
+        sink.log( HIERARCHY_RELATIONSHIP, execPars );
       }
+    }
+  }
 
-      // Now create the relationships between them
-      //
-      for ( LoggingHierarchy hierarchy : hierarchies ) {
-        ILoggingObject loggingObject = hierarchy.getLoggingObject();
-        ILoggingObject parentObject = loggingObject.getParent();
-        if ( parentObject != null ) {
-          Map<String, Object> execPars = new HashMap<>();
-          execPars.put( "name", loggingObject.getObjectName() );
-          execPars.put( "type", loggingObject.getObjectType().name() );
-          execPars.put( "id", loggingObject.getLogChannelId() );
-          execPars.put( "parentName", parentObject.getObjectName() );
-          execPars.put( "parentType", parentObject.getObjectType().name() );
-          execPars.put( "parentId", parentObject.getLogChannelId() );
-
-          StringBuilder execCypher = new StringBuilder();
-          execCypher.append( "MATCH (child:Execution { name : $name, type : $type, id : $id } ) " );
-          execCypher.append( "MATCH (parent:Execution { name : $parentName, type : $parentType, id : $parentId } ) " );
-          execCypher.append( "MERGE (parent)-[rel:EXECUTES]->(child) " );
-          transaction.run( execCypher.toString(), execPars );
-        }
+
+  /**
+   * Calculate a fingerprint of a pipeline or workflow topology
+   *
+   * @param topology A text describing everything which is logged about the topology
+   * @return The SHA-256 hash of the text as a hexadecimal string
+   */
+  public static String getFingerprint( String topology ) {
+    try {
+      byte[] hash = MessageDigest.getInstance( "SHA-256" ).digest( topology.getBytes( StandardCharsets.UTF_8 ) );
+      StringBuilder fingerprint = new StringBuilder();
+      for ( byte b : hash ) {
+        fingerprint.append( String.format( "%02x", b ) );
       }
-      transaction.commit();
-    } catch(Exception e) {
-      log.logError( "Error logging hierarchies", e );
-      transaction.rollback();
+      return fingerprint.toString();
+    } catch ( Exception e ) {
+      throw new IllegalStateException( "SHA-256 is not available", e );
     }
   }
 
-
   public static <T> T executeCypher( ILogChannel log, NeoConnection connection, String cypher, Map<String, Object> parameters, WorkLambda<T> lambda ) throws Exception {
 
     Session session = null;
@@ -0,0 +1,482 @@
+package org.neo4j.hop.logging.util;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.core.logging.LogChannel;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.TransactionWork;
+import org.neo4j.driver.exceptions.FatalDiscoveryException;
+import org.neo4j.driver.exceptions.SecurityException;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.exceptions.SessionExpiredException;
+import org.neo4j.driver.exceptions.TransientException;
+import org.neo4j.hop.shared.NeoConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes execution logging to Neo4j in the background.
+ * <p>
+ * Pipelines and workflows only append the rows to log to a {@link LoggingSpool} on local disk. A single replay
+ * thread per logging connection reads the spooled rows and writes them in batches: one transaction with one UNWIND
+ * statement per {@link LoggingStatement}. Identical rows are only written once, which is common for the metadata of
+ * sub-pipelines executed many times.
+ * <p>
+ * When Neo4j is slow or down the rows stay in the spool and the replay is retried with an increasing delay, rows
+ * which are not replayed when the JVM stops are replayed by the next process using the spool.
+ * A batch which fails for any other reason, like a statement Neo4j refuses, is never going to succeed. It's moved to
+ * the dead letter folder of the spool so that it doesn't hold up the rows after it.
+ * The spool is limited in size, beyond that rows are dropped rather than slowing down the pipelines.
+ */
+public class LoggingSink {
+
+  /**
+   * System property to set the folder of the spools, by default the neo4j-logging-spool folder in the Hop directory
+   */
+  public static final String PROPERTY_SPOOL_FOLDER = "NEO4J_LOGGING_SPOOL_FOLDER";
+
+  /**
+   * System property to set the maximum size of the spool of a logging connection in MB
+   */
+  public static final String PROPERTY_SPOOL_MAX_MB = "NEO4J_LOGGING_SPOOL_MAX_MB";
+
+  public static final long DEFAULT_SPOOL_MAX_MB = 1024L;
+
+  public static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 30000L;
+
+  /**
+   * The parameters of a row logged with {@link #logFingerprint(LoggingStatement, Map, String, String)}
+   */
+  public static final String PARAMETER_FINGERPRINT_KEY = "fingerprintKey";
+  public static final String PARAMETER_FINGERPRINT = "fingerprint";
+
+  /**
+   * How long to wait for the replay thread to finish the batch it's writing when the JVM shuts down
+   */
+  private static final long SHUTDOWN_REPLAYER_TIMEOUT_MS = 10000L;
+
+  /**
+   * The maximum number of rows written in one transaction
+   */
+  private static final int MAX_ROWS_PER_TRANSACTION = 10000;
+
+  /**
+   * The maximum number of rows passed to one UNWIND statement
+   */
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  /**
+   * How long rows are collected in the current segment before it's sealed and replayed
+   */
+  private static final long LINGER_MS = 200L;
+
+  private static final long MIN_RETRY_DELAY_MS = 1000L;
+  private static final long MAX_RETRY_DELAY_MS = 60000L;
+
+  /**
+   * How often the folder is checked for segments of stopped processes
+   */
+  private static final long ADOPT_INTERVAL_MS = 60000L;
+
+  private static final Map<String, LoggingSink> sinks = new ConcurrentHashMap<>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook( new Thread( LoggingSink::flushAll, "Neo4j logging flush" ) );
+  }
+
+  private final NeoConnection connection;
+  private final ILogChannel log;
+  private final LoggingSpool spool;
+  private final Thread replayer;
+
+  private final Map<String, String> fingerprints;
+
+  private volatile boolean stopping;
+  private volatile boolean failing;
+  private volatile long replayedRows;
+  private volatile double replayRowsPerSecond;
+  private volatile String lastError;
+
+  private LoggingSink( NeoConnection connection, LoggingSpool spool ) {
+    this.connection = connection;
+    this.spool = spool;
+    this.log = new LogChannel( "Neo4j logging" );
+    this.fingerprints = new ConcurrentHashMap<>();
+
+    replayer = new Thread( this::replay, "Neo4j logging replay (" + connection.getName() + ")" );
+    replayer.setDaemon( true );
+    replayer.start();
+  }
+
+  /**
+   * Get the sink writing to the given logging connection
+   *
+   * @param connection The logging connection
+   * @return The sink shared by everything logging to the same connection
+   * @throws HopException In case the spool of the sink can't be opened
+   */
+  public static LoggingSink getSink( NeoConnection connection ) throws HopException {
+    String key = connection.getName() + "|" + connection.getUrl() + "|" + connection.environmentSubstitute( connection.getDatabaseName() );
+    LoggingSink sink = sinks.get( key );
+    if ( sink != null ) {
+      return sink;
+    }
+    synchronized ( sinks ) {
+      sink = sinks.get( key );
+      if ( sink == null ) {
+        File folder = new File( getSpoolBaseFolder(), getSpoolFolderName( connection, key ) );
+        long maxSizeBytes = Const.toLong( System.getProperty( PROPERTY_SPOOL_MAX_MB ), DEFAULT_SPOOL_MAX_MB ) * 1024L * 1024L;
+        try {
+          sink = new LoggingSink( connection, new LoggingSpool( folder, maxSizeBytes ) );
+        } catch ( Exception e ) {
+          throw new HopException( "Unable to open the logging spool in folder " + folder, e );
+        }
+        sinks.put( key, sink );
+      }
+      return sink;
+    }
+  }
+
+  private static File getSpoolBaseFolder() {
+    String folder = System.getProperty( PROPERTY_SPOOL_FOLDER );
+    if ( folder == null || folder.isEmpty() ) {
+      return new File( Const.getHopDirectory(), "neo4j-logging-spool" );
+    }
+    return new File( folder );
+  }
+
+  /**
+   * One folder per connection: a readable name plus a hash of the effective connection details
+   */
+  private static String getSpoolFolderName( NeoConnection connection, String key ) {
+    String name = connection.getName() == null ? "connection" : connection.getName().replaceAll( "[^A-Za-z0-9_.-]", "_" );
+    return name + "-" + Integer.toHexString( key.hashCode() );
+  }
+
+  /**
+   * Spool a row to log. This never waits for Neo4j.
+   *
+   * @param statement The statement to execute for the row
+   * @param row       The parameters of the statement
+   * @return false if the row was dropped because the spool is full or can't be written
+   */
+  public boolean log( LoggingStatement statement, Map<String, Object> row ) {
+    try {
+      return spool.append( statement, row );
+    } catch ( Exception e ) {
+      log.logError( "Unable to write to the logging spool in folder " + spool.getFolder(), e );
+      return false;
+    }
+  }
+
+  /**
+   * Spool the row recording the fingerprint of a pipeline or workflow topology.
+   * The fingerprint is only remembered once the replay thread wrote the row to Neo4j, see {@link #isFingerprintWritten(String, String)}
+   *
+   * @param statement   The statement recording the fingerprint, it needs to run after the statements logging the topology
+   * @param row         The parameters of the statement
+   * @param key         The pipeline or workflow
+   * @param fingerprint The fingerprint of its topology, see {@link LoggingCore#getFingerprint(String)}
+   * @return false if the row was dropped because the spool is full or can't be written
+   */
+  public boolean logFingerprint( LoggingStatement statement, Map<String, Object> row, String key, String fingerprint ) {
+    row.put( PARAMETER_FINGERPRINT_KEY, key );
+    row.put( PARAMETER_FINGERPRINT, fingerprint );
+    return log( statement, row );
+  }
+
+  /**
+   * @param key         The pipeline or workflow
+   * @param fingerprint The fingerprint of its topology
+   * @return true if this process wrote the topology with the same fingerprint to Neo4j
+   */
+  public boolean isFingerprintWritten( String key, String fingerprint ) {
+    return fingerprint.equals( fingerprints.get( key ) );
+  }
+
+  /**
+   * Remember the fingerprints of the rows written to Neo4j
+   */
+  private void confirmFingerprints( List<LoggingSpool.Row> rows ) {
+    for ( LoggingSpool.Row row : rows ) {
+      Object key = row.getParameters().get( PARAMETER_FINGERPRINT_KEY );
+      Object fingerprint = row.getParameters().get( PARAMETER_FINGERPRINT );
+      if ( key != null && fingerprint != null ) {
+        fingerprints.put( key.toString(), fingerprint.toString() );
+      }
+    }
+  }
+
+  /**
+   * Wait until everything in the spool is written to Neo4j.
+   * There's no point in waiting while Neo4j can't be written to: the rows are safe in the spool and are replayed when
+   * Neo4j is back, by this process or the next one.
+   *
+   * @param timeoutMs The maximum number of milliseconds to wait
+   * @return true if nothing is left in the spool
+   */
+  public boolean flush( long timeoutMs ) {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while ( spool.getRows() > 0 ) {
+      if ( failing || System.currentTimeMillis() >= deadline ) {
+        return false;
+      }
+      try {
+        Thread.sleep( 10 );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Flush all sinks, stop their replay threads and close their spools, used when the JVM shuts down.
+   * What isn't written stays in the spool for the next process. Sinks failing to write to Neo4j aren't waited for so
+   * that processes don't hang on exit while Neo4j is down.
+   */
+  public static void flushAll() {
+    for ( LoggingSink sink : sinks.values() ) {
+      if ( !sink.flush( SHUTDOWN_FLUSH_TIMEOUT_MS ) ) {
+        sink.log.logError( sink.spool.getRows() + " execution logging rows for Neo4j connection '" + sink.connection.getName()
+          + "' are kept in spool folder " + sink.spool.getFolder() + " for the next run" );
+      }
+      if ( !sink.stopReplayer( SHUTDOWN_REPLAYER_TIMEOUT_MS ) ) {
+        // Still reading the spool, the locks are released when the process ends
+        //
+        sink.log.logError( "The execution logging replay for Neo4j connection '" + sink.connection.getName() + "' didn't stop in time" );
+        continue;
+      }
+      try {
+        sink.spool.close();
+      } catch ( Exception e ) {
+        sink.log.logError( "Error closing logging spool in folder " + sink.spool.getFolder(), e );
+      }
+    }
+  }
+
+  /**
+   * Stop the replay thread after the batch it's writing
+   *
+   * @param timeoutMs The maximum time to wait for the thread
+   * @return true if the thread stopped
+   */
+  private boolean stopReplayer( long timeoutMs ) {
+    stopping = true;
+    replayer.interrupt();
+    try {
+      replayer.join( timeoutMs );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    return !replayer.isAlive();
+  }
+
+  private void replay() {
+    long retryDelayMs = MIN_RETRY_DELAY_MS;
+    long lastAdoptTime = System.currentTimeMillis();
+    long reportedDroppedRows = 0L;
+    File segment = null;
+    long segmentOffset = 0L;
+
+    while ( !stopping ) {
+      try {
+        if ( segment == null ) {
+          segment = spool.getOldestSegment();
+          segmentOffset = 0L;
+        }
+        if ( segment == null ) {
+          if ( System.currentTimeMillis() - lastAdoptTime > ADOPT_INTERVAL_MS ) {
+            lastAdoptTime = System.currentTimeMillis();
+            spool.adoptOrphanedSegments();
+            continue;
+          }
+          // Wait for rows, give them a moment to accumulate and replay them
+          //
+          if ( spool.waitForRows( 1000L ) ) {
+            Thread.sleep( LINGER_MS );
+            spool.seal();
+          }
+          continue;
+        }
+
+        long droppedRows = spool.getDroppedRows();
+        if ( droppedRows > reportedDroppedRows ) {
+          log.logError( ( droppedRows - reportedDroppedRows ) + " execution logging rows were dropped because the spool in folder "
+            + spool.getFolder() + " reached its maximum size of " + spool.getMaxSizeBytes() + " bytes" );
+          reportedDroppedRows = droppedRows;
+        }
+
+        LoggingSpool.Batch batch;
+        try {
+          batch = spool.read( segment, segmentOffset, MAX_ROWS_PER_TRANSACTION );
+        } catch ( IOException e ) {
+          log.logError( "Unable to read logging spool segment " + segment + ", skipping it", e );
+          spool.remove( segment );
+          segment = null;
+          continue;
+        }
+        if ( batch.getError() != null ) {
+          deadLetter( segment, batch, "can't be read", batch.getError() );
+          segmentOffset = batch.getEndOffset();
+          continue;
+        }
+        List<LoggingSpool.Row> rows = batch.getRows();
+        if ( rows.isEmpty() ) {
+          spool.remove( segment );
+          segment = null;
+          continue;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+          write( rows );
+        } catch ( RuntimeException e ) {
+          if ( stopping || isRetryable( e ) ) {
+            throw e;
+          }
+          deadLetter( segment, batch, "was refused by Neo4j", e );
+          segmentOffset = batch.getEndOffset();
+          continue;
+        }
+        long durationMs = Math.max( 1L, System.currentTimeMillis() - startTime );
+        confirmFingerprints( rows );
+
+        segmentOffset = batch.getEndOffset();
+        replayedRows += rows.size();
+        replayRowsPerSecond = rows.size() * 1000.0 / durationMs;
+        retryDelayMs = MIN_RETRY_DELAY_MS;
+        if ( failing ) {
+          failing = false;
+          log.logBasic( "Execution logging to Neo4j connection '" + connection.getName() + "' resumed, " + spool.getRows() + " rows left in the spool" );
+        }
+        if ( log.isDetailed() ) {
+          log.logDetailed( "Replayed " + rows.size() + " execution logging rows in " + durationMs + "ms, " + spool.getRows() + " rows ("
+            + spool.getSizeBytes() + " bytes) left in the spool" );
+        }
+      } catch ( InterruptedException e ) {
+        return;
+      } catch ( Throwable e ) {
+        lastError = e.getMessage();
+        if ( !failing ) {
+          failing = true;
+          log.logError( "Unable to write execution logging to Neo4j connection '" + connection.getName() + "', the rows are kept in spool folder "
+            + spool.getFolder() + " and retried", e );
+        }
+        try {
+          Thread.sleep( retryDelayMs );
+        } catch ( InterruptedException ie ) {
+          return;
+        }
+        retryDelayMs = Math.min( MAX_RETRY_DELAY_MS, retryDelayMs * 2 );
+      }
+    }
+  }
+
+  /**
+   * Errors of the connection rather than of the rows: retrying the batch later can succeed
+   */
+  private static boolean isRetryable( Throwable e ) {
+    for ( Throwable cause = e; cause != null; cause = cause.getCause() ) {
+      if ( cause instanceof ServiceUnavailableException
+        || cause instanceof SessionExpiredException
+        || cause instanceof TransientException
+        || cause instanceof SecurityException
+        || cause instanceof FatalDiscoveryException ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Move a batch out of the way so that the rows after it can be replayed
+   */
+  private void deadLetter( File segment, LoggingSpool.Batch batch, String reason, Exception e ) {
+    String rows = batch.getRows().isEmpty() ? "A logging row" : "A batch of " + batch.getRows().size() + " logging rows";
+    try {
+      File file = spool.deadLetter( segment, batch );
+      log.logError( rows + " " + reason + ", it's moved to " + file + " and skipped", e );
+    } catch ( IOException ioe ) {
+      log.logError( rows + " " + reason + " and couldn't be moved to the dead letter folder, it's skipped", e );
+    }
+  }
+
+  private void write( List<LoggingSpool.Row> rows ) {
+    // Group the rows per statement, sorted in the order of execution
+    //
+    Map<LoggingStatement, Set<Map<String, Object>>> statementRows = new TreeMap<>();
+    for ( LoggingSpool.Row row : rows ) {
+      statementRows.computeIfAbsent( row.getStatement(), statement -> new LinkedHashSet<>() ).add( row.getParameters() );
+    }
+
+    try ( Session session = connection.getSession( log ) ) {
+      session.writeTransaction( (TransactionWork<Void>) transaction -> {
+        for ( Map.Entry<LoggingStatement, Set<Map<String, Object>>> entry : statementRows.entrySet() ) {
+          List<Map<String, Object>> parameters = new ArrayList<>( entry.getValue() );
+          for ( int start = 0; start < parameters.size(); start += MAX_ROWS_PER_STATEMENT ) {
+            List<Map<String, Object>> chunk = new ArrayList<>( parameters.subList( start, Math.min( parameters.size(), start + MAX_ROWS_PER_STATEMENT ) ) );
+            transaction.run( entry.getKey().getUnwindCypher(), Collections.singletonMap( "rows", chunk ) ).consume();
+          }
+        }
+        return null;
+      } );
+    }
+  }
+
+  /**
+   * Gets the spool with its size and row metrics
+   *
+   * @return value of spool
+   */
+  public LoggingSpool getSpool() {
+    return spool;
+  }
+
+  /**
+   * Gets replayedRows
+   *
+   * @return value of replayedRows, the number of rows written to Neo4j by this process
+   */
+  public long getReplayedRows() {
+    return replayedRows;
+  }
+
+  /**
+   * Gets replayRowsPerSecond
+   *
+   * @return value of replayRowsPerSecond, the throughput of the last replayed batch
+   */
+  public double getReplayRowsPerSecond() {
+    return replayRowsPerSecond;
+  }
+
+  /**
+   * Gets failing
+   *
+   * @return value of failing, true while Neo4j can't be written to
+   */
+  public boolean isFailing() {
+    return failing;
+  }
+
+  /**
+   * Gets lastError
+   *
+   * @return value of lastError, the last error writing to Neo4j or null
+   */
+  public String getLastError() {
+    return lastError;
+  }
+}
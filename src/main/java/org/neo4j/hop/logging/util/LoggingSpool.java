@@ -0,0 +1,617 @@
+package org.neo4j.hop.logging.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An append-only journal of execution logging rows on local disk.
+ * <p>
+ * Rows are appended to the current segment file which is sealed once it's large enough or when the
+ * {@link LoggingSink} wants to replay it. Sealed segments are replayed to Neo4j oldest first and deleted afterwards.
+ * <p>
+ * Every process writes its own segments and holds a lock on a lock file while it runs. The segments of a process
+ * which stopped before its spool was replayed are picked up by the next process using the same folder.
+ * Replaying a row more than once is harmless since all logging statements MERGE.
+ * <p>
+ * Batches Neo4j refuses are copied to the dead letter folder, a segment with the same record format.
+ * Moving such a file back into the spool folder replays it.
+ */
+public class LoggingSpool implements Closeable {
+
+  public static final String SEGMENT_EXTENSION = ".spool";
+  public static final String LOCK_EXTENSION = ".lock";
+  public static final String DEAD_LETTER_FOLDER = "dead-letter";
+
+  /**
+   * Segments are sealed once they grow beyond this size
+   */
+  private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+
+  private static final int BUFFER_SIZE = 65536;
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_STRING = 1;
+  private static final byte TYPE_LONG = 2;
+  private static final byte TYPE_INTEGER = 3;
+  private static final byte TYPE_BOOLEAN = 4;
+  private static final byte TYPE_DOUBLE = 5;
+  private static final byte TYPE_BYTES = 6;
+
+  private final File folder;
+  private final long maxSizeBytes;
+  private final String owner;
+
+  private final RandomAccessFile lockFile;
+  private final FileLock lock;
+
+  /**
+   * Sealed segments waiting to be replayed with the number of rows in them, oldest first
+   */
+  private final LinkedHashMap<File, Long> sealedSegments;
+
+  /**
+   * Locks held on the lock files of stopped processes whose segments we adopted
+   */
+  private final Map<String, FileLock> adoptedLocks;
+
+  private int sequence;
+  private File currentSegment;
+  private DataOutputStream currentOut;
+  private long currentSize;
+  private long currentRows;
+
+  private long sizeBytes;
+  private long rows;
+  private long appendedRows;
+  private long droppedRows;
+
+  /**
+   * Open the spool in the given folder, adopting the segments left behind by stopped processes
+   *
+   * @param folder       The spool folder
+   * @param maxSizeBytes The maximum size of all segments together, rows are dropped beyond that size
+   * @throws IOException In case the folder can't be created or locked
+   */
+  public LoggingSpool( File folder, long maxSizeBytes ) throws IOException {
+    this.folder = folder;
+    this.maxSizeBytes = maxSizeBytes;
+    this.sealedSegments = new LinkedHashMap<>();
+    this.adoptedLocks = new HashMap<>();
+
+    if ( !folder.isDirectory() && !folder.mkdirs() ) {
+      throw new IOException( "Unable to create logging spool folder " + folder );
+    }
+
+    owner = Long.toString( System.currentTimeMillis(), 36 ) + "-" + Integer.toString( new Random().nextInt( Integer.MAX_VALUE ), 36 );
+    lockFile = new RandomAccessFile( new File( folder, owner + LOCK_EXTENSION ), "rw" );
+    lock = lockFile.getChannel().lock();
+
+    adoptOrphanedSegments();
+  }
+
+  /**
+   * Look for segments of processes which no longer hold the lock on their lock file.
+   *
+   * @return The number of segments adopted
+   */
+  public synchronized int adoptOrphanedSegments() throws IOException {
+    File[] files = folder.listFiles( ( dir, name ) -> name.endsWith( SEGMENT_EXTENSION ) && !name.startsWith( owner + "-" ) );
+    if ( files == null || files.length == 0 ) {
+      return 0;
+    }
+    Arrays.sort( files );
+
+    int adopted = 0;
+    for ( File file : files ) {
+      if ( sealedSegments.containsKey( file ) ) {
+        continue;
+      }
+      String fileOwner = file.getName().substring( 0, file.getName().lastIndexOf( '-' ) );
+      if ( !adoptedLocks.containsKey( fileOwner ) ) {
+        FileLock ownerLock = tryLockOwner( fileOwner );
+        if ( ownerLock == null ) {
+          // That process is still running
+          //
+          continue;
+        }
+        adoptedLocks.put( fileOwner, ownerLock );
+      }
+      long segmentRows = countRows( file );
+      sealedSegments.put( file, segmentRows );
+      sizeBytes += file.length();
+      rows += segmentRows;
+      adopted++;
+    }
+    return adopted;
+  }
+
+  private FileLock tryLockOwner( String fileOwner ) throws IOException {
+    File ownerLockFile = new File( folder, fileOwner + LOCK_EXTENSION );
+    FileChannel channel = new RandomAccessFile( ownerLockFile, "rw" ).getChannel();
+    try {
+      FileLock ownerLock = channel.tryLock();
+      if ( ownerLock == null ) {
+        channel.close();
+      }
+      return ownerLock;
+    } catch ( OverlappingFileLockException e ) {
+      channel.close();
+      return null;
+    }
+  }
+
+  private static long countRows( File file ) throws IOException {
+    long count = 0;
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), BUFFER_SIZE ) ) ) {
+      while ( true ) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch ( EOFException e ) {
+          break;
+        }
+        if ( in.skipBytes( length ) < length ) {
+          break;
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Append a row to the current segment. The data is handed to the operating system right away so that it
+   * survives the process, it's not forced to the disk.
+   *
+   * @param statement The statement to execute for the row
+   * @param row       The parameters of the statement
+   * @return false if the spool is full and the row was dropped
+   * @throws IOException In case the row couldn't be written
+   */
+  public boolean append( LoggingStatement statement, Map<String, Object> row ) throws IOException {
+    byte[] record = encode( statement, row );
+
+    synchronized ( this ) {
+      if ( sizeBytes + record.length + 4 > maxSizeBytes ) {
+        droppedRows++;
+        return false;
+      }
+      if ( currentOut == null ) {
+        currentSegment = new File( folder, String.format( "%s-%08d%s", owner, ++sequence, SEGMENT_EXTENSION ) );
+        currentOut = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( currentSegment ), BUFFER_SIZE ) );
+        currentSize = 0L;
+        currentRows = 0L;
+      }
+      currentOut.writeInt( record.length );
+      currentOut.write( record );
+      currentOut.flush();
+
+      currentSize += record.length + 4;
+      currentRows++;
+      sizeBytes += record.length + 4;
+      rows++;
+      appendedRows++;
+
+      if ( currentSize >= SEGMENT_SIZE ) {
+        seal();
+      }
+      notifyAll();
+    }
+    return true;
+  }
+
+  /**
+   * Seal the current segment so that it can be replayed
+   */
+  public synchronized void seal() throws IOException {
+    if ( currentOut == null ) {
+      return;
+    }
+    currentOut.close();
+    sealedSegments.put( currentSegment, currentRows );
+    currentOut = null;
+    currentSegment = null;
+  }
+
+  /**
+   * Gets the oldest sealed segment
+   *
+   * @return The segment to replay or null if there is none
+   */
+  public synchronized File getOldestSegment() {
+    return sealedSegments.isEmpty() ? null : sealedSegments.keySet().iterator().next();
+  }
+
+  /**
+   * Wait until rows are appended to the current segment
+   *
+   * @param timeoutMs The maximum time to wait
+   * @return true if the current segment holds rows
+   */
+  public synchronized boolean waitForRows( long timeoutMs ) throws InterruptedException {
+    if ( currentOut == null ) {
+      wait( timeoutMs );
+    }
+    return currentOut != null;
+  }
+
+  /**
+   * Remove a segment once it's replayed
+   *
+   * @param segment The segment to remove
+   */
+  public synchronized void remove( File segment ) {
+    Long segmentRows = sealedSegments.remove( segment );
+    if ( segmentRows == null ) {
+      return;
+    }
+    sizeBytes -= segment.length();
+    rows -= segmentRows;
+    if ( !segment.delete() ) {
+      segment.deleteOnExit();
+    }
+    releaseFinishedOwners();
+  }
+
+  /**
+   * Once all adopted segments of a stopped process are replayed its lock file can go as well
+   */
+  private void releaseFinishedOwners() {
+    for ( String adoptedOwner : new ArrayList<>( adoptedLocks.keySet() ) ) {
+      boolean done = true;
+      for ( File segment : sealedSegments.keySet() ) {
+        if ( segment.getName().startsWith( adoptedOwner + "-" ) ) {
+          done = false;
+          break;
+        }
+      }
+      if ( done ) {
+        FileLock ownerLock = adoptedLocks.remove( adoptedOwner );
+        try {
+          new File( folder, adoptedOwner + LOCK_EXTENSION ).delete();
+          ownerLock.channel().close();
+        } catch ( IOException e ) {
+          // The lock is released with the channel anyway
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the rows of a segment from where the previous batch ended
+   *
+   * @param segment The segment to read
+   * @param offset  The position to start reading, 0 or the end offset of the previous batch
+   * @param max     The maximum number of rows to read
+   * @return The batch of rows, empty at the end of the segment
+   * @throws IOException In case the segment can't be read
+   */
+  public Batch read( File segment, long offset, int max ) throws IOException {
+    List<Row> list = new ArrayList<>();
+    long position = offset;
+    long length = segment.length();
+    try ( FileInputStream fileIn = new FileInputStream( segment ) ) {
+      fileIn.getChannel().position( offset );
+      DataInputStream in = new DataInputStream( new BufferedInputStream( fileIn, BUFFER_SIZE ) );
+      while ( list.size() < max && position + 4 <= length ) {
+        int recordLength = in.readInt();
+        if ( recordLength < 0 || position + 4 + recordLength > length ) {
+          // The process writing the segment stopped halfway a record
+          //
+          break;
+        }
+        byte[] record = new byte[ recordLength ];
+        in.readFully( record );
+        Row row;
+        try {
+          row = decode( record );
+        } catch ( Exception e ) {
+          if ( list.isEmpty() ) {
+            return new Batch( list, offset, position + 4 + recordLength, e );
+          }
+          // Return the rows before it, the next batch starts with the record which can't be decoded
+          //
+          break;
+        }
+        list.add( row );
+        position += 4 + recordLength;
+      }
+    }
+    return new Batch( list, offset, position, null );
+  }
+
+  /**
+   * Copy the records of a batch to the dead letter folder
+   *
+   * @param segment The segment of the batch
+   * @param batch   The batch to copy
+   * @return The dead letter file
+   * @throws IOException In case the records can't be copied
+   */
+  public synchronized File deadLetter( File segment, Batch batch ) throws IOException {
+    File deadLetterFolder = new File( folder, DEAD_LETTER_FOLDER );
+    if ( !deadLetterFolder.isDirectory() && !deadLetterFolder.mkdirs() ) {
+      throw new IOException( "Unable to create dead letter folder " + deadLetterFolder );
+    }
+    File file = new File( deadLetterFolder, segment.getName() );
+    try ( FileChannel in = new RandomAccessFile( segment, "r" ).getChannel();
+          FileChannel out = new FileOutputStream( file, true ).getChannel() ) {
+      long position = batch.getStartOffset();
+      while ( position < batch.getEndOffset() ) {
+        long transferred = in.transferTo( position, batch.getEndOffset() - position, out );
+        if ( transferred <= 0 ) {
+          break;
+        }
+        position += transferred;
+      }
+    }
+    return file;
+  }
+
+  private static byte[] encode( LoggingStatement statement, Map<String, Object> row ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+    DataOutputStream out = new DataOutputStream( bytes );
+    out.writeInt( statement.getOrder() );
+    writeString( out, statement.getCypher() );
+    out.writeInt( row.size() );
+    for ( Map.Entry<String, Object> entry : row.entrySet() ) {
+      writeString( out, entry.getKey() );
+      Object value = entry.getValue();
+      if ( value == null ) {
+        out.writeByte( TYPE_NULL );
+      } else if ( value instanceof Long ) {
+        out.writeByte( TYPE_LONG );
+        out.writeLong( (Long) value );
+      } else if ( value instanceof Integer ) {
+        out.writeByte( TYPE_INTEGER );
+        out.writeInt( (Integer) value );
+      } else if ( value instanceof Boolean ) {
+        out.writeByte( TYPE_BOOLEAN );
+        out.writeBoolean( (Boolean) value );
+      } else if ( value instanceof Double ) {
+        out.writeByte( TYPE_DOUBLE );
+        out.writeDouble( (Double) value );
+      } else if ( value instanceof byte[] ) {
+        out.writeByte( TYPE_BYTES );
+        out.writeInt( ( (byte[]) value ).length );
+        out.write( (byte[]) value );
+      } else {
+        out.writeByte( TYPE_STRING );
+        writeString( out, value.toString() );
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Row decode( byte[] record ) throws IOException {
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( record ) );
+    int order = in.readInt();
+    String cypher = readString( in );
+    int size = in.readInt();
+    Map<String, Object> row = new HashMap<>();
+    for ( int i = 0; i < size; i++ ) {
+      String key = readString( in );
+      byte type = in.readByte();
+      switch ( type ) {
+        case TYPE_NULL:
+          row.put( key, null );
+          break;
+        case TYPE_LONG:
+          row.put( key, in.readLong() );
+          break;
+        case TYPE_INTEGER:
+          row.put( key, in.readInt() );
+          break;
+        case TYPE_BOOLEAN:
+          row.put( key, in.readBoolean() );
+          break;
+        case TYPE_DOUBLE:
+          row.put( key, in.readDouble() );
+          break;
+        case TYPE_BYTES:
+          byte[] bytes = new byte[ in.readInt() ];
+          in.readFully( bytes );
+          row.put( key, bytes );
+          break;
+        case TYPE_STRING:
+          row.put( key, readString( in ) );
+          break;
+        default:
+          throw new IOException( "Unknown value type " + type + " in logging spool" );
+      }
+    }
+    return new Row( new LoggingStatement( order, cypher ), row );
+  }
+
+  /**
+   * Strings are written with their length as an int: log texts don't fit in writeUTF()
+   */
+  private static void writeString( DataOutputStream out, String string ) throws IOException {
+    byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+    out.writeInt( bytes.length );
+    out.write( bytes );
+  }
+
+  private static String readString( DataInputStream in ) throws IOException {
+    byte[] bytes = new byte[ in.readInt() ];
+    in.readFully( bytes );
+    return new String( bytes, StandardCharsets.UTF_8 );
+  }
+
+  /**
+   * Seal the current segment and release the lock. Segments which are not replayed stay for the next process.
+   */
+  @Override public synchronized void close() throws IOException {
+    seal();
+    for ( FileLock ownerLock : adoptedLocks.values() ) {
+      ownerLock.channel().close();
+    }
+    adoptedLocks.clear();
+    lock.release();
+    lockFile.close();
+    if ( sealedSegments.isEmpty() ) {
+      new File( folder, owner + LOCK_EXTENSION ).delete();
+    }
+  }
+
+  /**
+   * Gets folder
+   *
+   * @return value of folder
+   */
+  public File getFolder() {
+    return folder;
+  }
+
+  /**
+   * Gets sizeBytes
+   *
+   * @return value of sizeBytes, the size of all segments waiting to be replayed
+   */
+  public synchronized long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  /**
+   * Gets maxSizeBytes
+   *
+   * @return value of maxSizeBytes
+   */
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  /**
+   * Gets rows
+   *
+   * @return value of rows, the number of rows waiting to be replayed
+   */
+  public synchronized long getRows() {
+    return rows;
+  }
+
+  /**
+   * Gets appendedRows
+   *
+   * @return value of appendedRows, the number of rows appended by this process
+   */
+  public synchronized long getAppendedRows() {
+    return appendedRows;
+  }
+
+  /**
+   * Gets droppedRows
+   *
+   * @return value of droppedRows, the number of rows dropped because the spool was full
+   */
+  public synchronized long getDroppedRows() {
+    return droppedRows;
+  }
+
+  /**
+   * Rows read from a segment with the position of their records
+   */
+  public static class Batch {
+    private final List<Row> rows;
+    private final long startOffset;
+    private final long endOffset;
+    private final Exception error;
+
+    public Batch( List<Row> rows, long startOffset, long endOffset, Exception error ) {
+      this.rows = rows;
+      this.startOffset = startOffset;
+      this.endOffset = endOffset;
+      this.error = error;
+    }
+
+    /**
+     * Gets rows
+     *
+     * @return value of rows
+     */
+    public List<Row> getRows() {
+      return rows;
+    }
+
+    /**
+     * Gets startOffset
+     *
+     * @return value of startOffset, the position of the first record in the segment
+     */
+    public long getStartOffset() {
+      return startOffset;
+    }
+
+    /**
+     * Gets endOffset
+     *
+     * @return value of endOffset, the position after the last record, where the next batch starts
+     */
+    public long getEndOffset() {
+      return endOffset;
+    }
+
+    /**
+     * Gets error
+     *
+     * @return value of error, the reason the record of this batch can't be decoded or null
+     */
+    public Exception getError() {
+      return error;
+    }
+  }
+
+  /**
+   * A spooled row with its statement
+   */
+  public static class Row {
+    private final LoggingStatement statement;
+    private final Map<String, Object> parameters;
+
+    public Row( LoggingStatement statement, Map<String, Object> parameters ) {
+      this.statement = statement;
+      this.parameters = parameters;
+    }
+
+    /**
+     * Gets statement
+     *
+     * @return value of statement
+     */
+    public LoggingStatement getStatement() {
+      return statement;
+    }
+
+    /**
+     * Gets parameters
+     *
+     * @return value of parameters
+     */
+    public Map<String, Object> getParameters() {
+      return parameters;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.neo4j.hop.logging.util;
+
+import java.util.Objects;
+
+/**
+ * A Cypher statement which logs one row of execution information, referenced as <code>row</code> in the Cypher.
+ * The {@link LoggingSink} runs all queued rows of a statement at once with UNWIND.
+ * <p>
+ * Statements are executed in the order given: a statement which MATCHes nodes needs a higher order than the
+ * statements MERGE-ing them, no matter in which order the rows were queued.
+ */
+public class LoggingStatement implements Comparable<LoggingStatement> {
+
+  public static final int ORDER_METADATA = 10;
+  public static final int ORDER_METADATA_ELEMENT = 20;
+  public static final int ORDER_METADATA_HOP = 30;
+  public static final int ORDER_METADATA_FINGERPRINT = 35;
+  public static final int ORDER_EXECUTION_START = 40;
+  public static final int ORDER_SNAPSHOT = 45;
+  public static final int ORDER_EXECUTION_END = 50;
+  public static final int ORDER_EXECUTION_END_RELATIONSHIP = 55;
+  public static final int ORDER_CHILD_EXECUTION = 60;
+  public static final int ORDER_CHILD_EXECUTION_RELATIONSHIP = 65;
+  public static final int ORDER_USAGE = 70;
+  public static final int ORDER_LOGGING_TEXT = 72;
+  public static final int ORDER_HIERARCHY = 80;
+  public static final int ORDER_HIERARCHY_RELATIONSHIP = 90;
+
+  private final int order;
+  private final String cypher;
+
+  /**
+   * @param order  The order in which the statement is executed relative to the other statements
+   * @param cypher The Cypher to execute for every row, the row is available as <code>row</code>
+   */
+  public LoggingStatement( int order, String cypher ) {
+    this.order = order;
+    this.cypher = cypher;
+  }
+
+  /**
+   * @return The Cypher to execute for a list of rows passed as parameter <code>rows</code>
+   */
+  public String getUnwindCypher() {
+    return "UNWIND $rows AS row " + cypher;
+  }
+
+  @Override public int compareTo( LoggingStatement other ) {
+    int cmp = Integer.compare( order, other.order );
+    if ( cmp != 0 ) {
+      return cmp;
+    }
+    return cypher.compareTo( other.cypher );
+  }
+
+  @Override public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( o == null || getClass() != o.getClass() ) {
+      return false;
+    }
+    LoggingStatement that = (LoggingStatement) o;
+    return order == that.order && cypher.equals( that.cypher );
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash( order, cypher );
+  }
+
+  @Override public String toString() {
+    return cypher;
+  }
+
+  /**
+   * Gets order
+   *
+   * @return value of order
+   */
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * Gets cypher
+   *
+   * @return value of cypher, executed for every row
+   */
+  public String getCypher() {
+    return cypher;
+  }
+}
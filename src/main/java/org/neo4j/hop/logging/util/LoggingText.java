@@ -0,0 +1,121 @@
+package org.neo4j.hop.logging.util;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.variables.IVariables;
+import org.neo4j.hop.logging.Defaults;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Storage of the logging text of executions.
+ * <p>
+ * By default the text is stored as it is in the loggingText property of the execution.
+ * In the compressed mode the text is capped to a maximum length, keeping the head and the tail, and stored as a gzip
+ * byte array in a :LogText node of its own, linked to the execution.
+ * Log lines start with a timestamp and the name of the transform or action so the texts of different executions are
+ * practically never identical, nothing is shared between executions. The :LogText node is merged through the
+ * relationship with its execution so that a row replayed from the spool updates the same node instead of adding one.
+ */
+public class LoggingText {
+
+  public static final String MODE_TEXT = "TEXT";
+  public static final String MODE_COMPRESSED = "COMPRESSED";
+
+  private static final LoggingStatement LOG_TEXT = new LoggingStatement( LoggingStatement.ORDER_LOGGING_TEXT,
+    "MATCH (exec:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "MERGE (exec)-[:HAS_LOGGING_TEXT]->(text:LogText) "
+      + "SET text.data = row.data, text.length = row.length, text.truncated = row.truncated "
+  );
+
+  /**
+   * @param space The variables of the pipeline or workflow
+   * @return true if the logging text is stored compressed in :LogText nodes
+   */
+  public static boolean isCompressed( IVariables space ) {
+    return MODE_COMPRESSED.equalsIgnoreCase( space.getVariable( Defaults.VARIABLE_NEO4J_LOGGING_TEXT_MODE ) );
+  }
+
+  /**
+   * @param space The variables of the pipeline or workflow
+   * @return The maximum number of characters kept of a compressed logging text
+   */
+  public static int getMaxLength( IVariables space ) {
+    return Const.toInt( space.getVariable( Defaults.VARIABLE_NEO4J_LOGGING_TEXT_MAX_LENGTH ), Defaults.DEFAULT_LOGGING_TEXT_MAX_LENGTH );
+  }
+
+  /**
+   * Log the text of an execution as a :LogText node
+   *
+   * @param sink      The sink to log to
+   * @param name      The name of the execution
+   * @param type      The type of the execution
+   * @param id        The ID of the execution
+   * @param text      The logging text, nothing is logged if it's empty
+   * @param maxLength The maximum number of characters to keep
+   */
+  public static void log( LoggingSink sink, String name, String type, String id, String text, int maxLength ) {
+    if ( text == null || text.isEmpty() ) {
+      return;
+    }
+    String truncatedText = truncate( text, maxLength );
+
+    Map<String, Object> textPars = new HashMap<>();
+    textPars.put( "name", name );
+    textPars.put( "type", type );
+    textPars.put( "id", id );
+    textPars.put( "data", compress( truncatedText ) );
+    textPars.put( "length", (long) text.length() );
+    textPars.put( "truncated", truncatedText.length() < text.length() );
+    sink.log( LOG_TEXT, textPars );
+  }
+
+  /**
+   * Keep the head and the tail of a text: the start of an execution and the errors at the end are the interesting parts
+   *
+   * @param text      The text to truncate
+   * @param maxLength The maximum number of characters to keep, the text is kept as it is when this is 0 or less
+   * @return The truncated text with a line saying how much was left out
+   */
+  public static String truncate( String text, int maxLength ) {
+    if ( maxLength <= 0 || text.length() <= maxLength ) {
+      return text;
+    }
+    int head = maxLength / 2;
+    int tail = maxLength - head;
+    return text.substring( 0, head )
+      + Const.CR + "... " + ( text.length() - maxLength ) + " characters left out ..." + Const.CR
+      + text.substring( text.length() - tail );
+  }
+
+  public static byte[] compress( String text ) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( OutputStream out = new GZIPOutputStream( bytes ) ) {
+      out.write( text.getBytes( StandardCharsets.UTF_8 ) );
+    } catch ( IOException e ) {
+      // Not possible writing to memory
+      throw new IllegalStateException( "Unable to compress logging text", e );
+    }
+    return bytes.toByteArray();
+  }
+
+  public static String decompress( byte[] data ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( InputStream in = new GZIPInputStream( new ByteArrayInputStream( data ) ) ) {
+      byte[] buffer = new byte[ 8192 ];
+      int read;
+      while ( ( read = in.read( buffer ) ) >= 0 ) {
+        bytes.write( buffer, 0, read );
+      }
+    }
+    return new String( bytes.toByteArray(), StandardCharsets.UTF_8 );
+  }
+}
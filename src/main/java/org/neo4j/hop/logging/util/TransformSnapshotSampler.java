@@ -0,0 +1,177 @@
+package org.neo4j.hop.logging.util;
+
+import org.apache.hop.core.logging.LoggingObjectType;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.ITransformData;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the metrics of every transform copy of a running pipeline and logs them as :Snapshot nodes.
+ * <p>
+ * All copies are sampled at the same moment and logged with the same statement so the {@link LoggingSink} writes
+ * the snapshots of one interval with a single UNWIND.
+ * The samples are taken by one shared daemon thread, reading the counters of a transform doesn't block it.
+ * A snapshot is only identified by its sequence number within its execution so it's merged through the relationship
+ * with the execution rather than looked up among all the :Snapshot nodes.
+ */
+public class TransformSnapshotSampler {
+
+  private static final LoggingStatement TRANSFORM_SNAPSHOT = new LoggingStatement( LoggingStatement.ORDER_SNAPSHOT,
+    "MATCH (transform:Transform { pipelineName : row.pipelineName, name : row.name } ) "
+      + "MERGE (exec:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  exec.transId = row.transId "
+      + ", exec.copy = row.copy "
+      + ", exec.status = row.status "
+      + "MERGE (exec)-[:EXECUTION_OF_TRANSFORM]->(transform) "
+      + "MERGE (exec)-[:HAS_SNAPSHOT]->(snapshot:Snapshot { sequence : row.sequence } ) "
+      + "SET "
+      + "  snapshot.id = row.id "
+      + ", snapshot.snapshotDate = row.snapshotDate "
+      + ", snapshot.elapsedMs = row.elapsedMs "
+      + ", snapshot.status = row.status "
+      + ", snapshot.errors = row.errors "
+      + ", snapshot.linesRead = row.linesRead "
+      + ", snapshot.linesWritten = row.linesWritten "
+      + ", snapshot.linesInput = row.linesInput "
+      + ", snapshot.linesOutput = row.linesOutput "
+      + ", snapshot.linesRejected = row.linesRejected "
+      + ", snapshot.rowsPerSecond = row.rowsPerSecond "
+      + ", snapshot.inputBufferRows = row.inputBufferRows "
+      + ", snapshot.outputBufferRows = row.outputBufferRows "
+      + ", snapshot.bufferSize = row.bufferSize "
+  );
+
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+    Thread thread = new Thread( runnable, "Neo4j logging snapshots" );
+    thread.setDaemon( true );
+    return thread;
+  } );
+
+  private final LoggingSink sink;
+  private final Pipeline pipeline;
+  private final long intervalMs;
+
+  private final Map<String, Long> previousProcessed;
+  private long sequence;
+  private long previousSampleTime;
+  private long startTime;
+  private ScheduledFuture<?> future;
+
+  /**
+   * @param sink       The sink to log the snapshots to
+   * @param pipeline   The pipeline to sample, its transforms need to be initialized
+   * @param intervalMs The time between two snapshots
+   */
+  public TransformSnapshotSampler( LoggingSink sink, Pipeline pipeline, long intervalMs ) {
+    this.sink = sink;
+    this.pipeline = pipeline;
+    this.intervalMs = intervalMs;
+    this.previousProcessed = new HashMap<>();
+  }
+
+  /**
+   * Start taking snapshots every interval
+   */
+  public synchronized void start() {
+    startTime = System.currentTimeMillis();
+    previousSampleTime = startTime;
+    future = scheduler.scheduleAtFixedRate( () -> {
+      try {
+        sample();
+      } catch ( Exception e ) {
+        // An exception would cancel the sampling altogether, just try again next time
+        //
+        pipeline.getLogChannel().logError( "Error taking a snapshot of the transform metrics", e );
+      }
+    }, intervalMs, intervalMs, TimeUnit.MILLISECONDS );
+  }
+
+  /**
+   * Stop taking snapshots and take a last one with the final metrics.
+   * Pipelines finishing within the first interval get no snapshots at all, their metrics are in the execution.
+   */
+  public synchronized void stop() {
+    if ( future != null ) {
+      future.cancel( false );
+      future = null;
+      if ( sequence > 0 ) {
+        sample();
+      }
+    }
+  }
+
+  /**
+   * Log one snapshot for every transform copy
+   */
+  public synchronized void sample() {
+    long now = System.currentTimeMillis();
+    long sampleTimeMs = now - previousSampleTime;
+    previousSampleTime = now;
+    sequence++;
+
+    String pipelineName = pipeline.getPipelineMeta().getName();
+    String snapshotDate = new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( new Date( now ) );
+    int bufferSize = pipeline.getPipelineMeta().getSizeRowset();
+
+    List<TransformMetaDataCombi<ITransform, ITransformMeta, ITransformData>> combis = pipeline.getTransforms();
+    if ( combis == null ) {
+      return;
+    }
+    for ( TransformMetaDataCombi<ITransform, ITransformMeta, ITransformData> combi : combis ) {
+      ITransform transform = combi.transform;
+      String id = transform.getLogChannel().getLogChannelId();
+
+      // A source only reads input and writes, an output reads and writes output: take the busiest counter
+      //
+      long processed = Math.max( Math.max( transform.getLinesRead(), transform.getLinesWritten() ),
+        Math.max( transform.getLinesInput(), transform.getLinesOutput() ) );
+      Long previous = previousProcessed.put( id, processed );
+      double rowsPerSecond = sampleTimeMs > 0 ? ( processed - ( previous == null ? 0L : previous ) ) * 1000.0 / sampleTimeMs : 0.0;
+
+      Map<String, Object> snapshotPars = new HashMap<>();
+      snapshotPars.put( "pipelineName", pipelineName );
+      snapshotPars.put( "name", combi.transformName );
+      snapshotPars.put( "type", LoggingObjectType.TRANSFORM.name() );
+      snapshotPars.put( "id", id );
+      snapshotPars.put( "transId", pipeline.getLogChannelId() );
+      snapshotPars.put( "copy", Long.valueOf( combi.copy ) );
+      snapshotPars.put( "status", transform.getStatus().getDescription() );
+      snapshotPars.put( "sequence", sequence );
+      snapshotPars.put( "snapshotDate", snapshotDate );
+      snapshotPars.put( "elapsedMs", now - startTime );
+      snapshotPars.put( "errors", transform.getErrors() );
+      snapshotPars.put( "linesRead", transform.getLinesRead() );
+      snapshotPars.put( "linesWritten", transform.getLinesWritten() );
+      snapshotPars.put( "linesInput", transform.getLinesInput() );
+      snapshotPars.put( "linesOutput", transform.getLinesOutput() );
+      snapshotPars.put( "linesRejected", transform.getLinesRejected() );
+      snapshotPars.put( "rowsPerSecond", rowsPerSecond );
+      snapshotPars.put( "inputBufferRows", transform.rowsetInputSize() );
+      snapshotPars.put( "outputBufferRows", transform.rowsetOutputSize() );
+      snapshotPars.put( "bufferSize", bufferSize );
+      sink.log( TRANSFORM_SNAPSHOT, snapshotPars );
+    }
+  }
+
+  /**
+   * Gets intervalMs
+   *
+   * @return value of intervalMs
+   */
+  public long getIntervalMs() {
+    return intervalMs;
+  }
+}
@@ -1,5 +1,6 @@
 package org.neo4j.hop.logging.xp;
 
+import org.apache.hop.core.Const;
 import org.apache.hop.core.Result;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.extension.ExtensionPoint;
@@ -17,14 +18,17 @@ import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.ITransformMeta;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
-import org.neo4j.driver.Session;
-import org.neo4j.driver.Transaction;
-import org.neo4j.driver.TransactionWork;
 import org.neo4j.hop.logging.Defaults;
 import org.neo4j.hop.logging.util.LoggingCore;
+import org.neo4j.hop.logging.util.LoggingSink;
+import org.neo4j.hop.logging.util.LoggingStatement;
+import org.neo4j.hop.logging.util.LoggingText;
+import org.neo4j.hop.logging.util.TransformSnapshotSampler;
 import org.neo4j.hop.shared.NeoConnection;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +48,86 @@ public class PipelineLoggingExtensionPoint implements IExtensionPoint<IPipelineE
   public static final String EXECUTION_TYPE_PIPELINE = LoggingObjectType.PIPELINE.name();
   public static final String EXECUTION_TYPE_TRANSFORM = LoggingObjectType.TRANSFORM.name();
 
+  /**
+   * The topology is only written if the fingerprint of the pipeline in the database is different.
+   * The fingerprint is stored last so that the transforms and hops all see the old one.
+   */
+  private static final LoggingStatement PIPELINE_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA,
+    "MERGE (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "WITH pipeline, row "
+      + "WHERE coalesce( pipeline.topologyHash, '' ) <> row.topologyHash "
+      + "SET pipeline.filename = row.filename, pipeline.description = row.description "
+  );
+
+  private static final LoggingStatement TRANSFORM_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA_ELEMENT,
+    "MATCH (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "WHERE coalesce( pipeline.topologyHash, '' ) <> row.topologyHash "
+      + "MERGE (transform:Transform { pipelineName : row.pipelineName, name : row.transformName } ) "
+      + "SET "
+      + "  transform.description = row.description "
+      + ", transform.pluginId = row.pluginId "
+      + ", transform.copies = row.copies "
+      + ", transform.locationX = row.locationX "
+      + ", transform.locationY = row.locationY "
+      + "MERGE (transform)-[rel:TRANSFORM_OF_PIPELINE]->(pipeline) "
+  );
+
+  private static final LoggingStatement HOP_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA_HOP,
+    "MATCH (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "WHERE coalesce( pipeline.topologyHash, '' ) <> row.topologyHash "
+      + "MATCH (from:Transform { pipelineName : row.pipelineName, name : row.fromTransform }) "
+      + "MATCH (to:Transform { pipelineName : row.pipelineName, name : row.toTransform }) "
+      + "MERGE (from)-[rel:WRITES_TO]->(to) "
+  );
+
+  private static final LoggingStatement PIPELINE_FINGERPRINT = new LoggingStatement( LoggingStatement.ORDER_METADATA_FINGERPRINT,
+    "MATCH (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "SET pipeline.topologyHash = row.topologyHash "
+  );
+
+  private static final LoggingStatement PIPELINE_EXECUTION_START = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_START,
+    "MATCH (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "MERGE (exec:Execution { name : row.pipelineName, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  exec.executionStart = row.executionStart "
+      + ", exec.status = row.status "
+      + "MERGE (exec)-[r:EXECUTION_OF_PIPELINE]->(pipeline) "
+  );
+
+  private static final LoggingStatement PIPELINE_EXECUTION_END = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_END,
+    "MATCH (pipeline:Pipeline { name : row.pipelineName } ) "
+      + "MERGE (exec:Execution { name : row.pipelineName, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  exec.executionEnd = row.executionEnd "
+      + ", exec.durationMs = row.durationMs "
+      + ", exec.status = row.status "
+      + ", exec.errors = row.errors "
+      + ", exec.linesInput = row.linesInput "
+      + ", exec.linesOutput = row.linesOutput "
+      + ", exec.linesRead = row.linesRead "
+      + ", exec.linesWritten = row.linesWritten "
+      + ", exec.linesRejected = row.linesRejected "
+      + ", exec.loggingText = row.loggingText "
+      + "MERGE (exec)-[r:EXECUTION_OF_PIPELINE]->(pipeline) "
+  );
+
+  private static final LoggingStatement TRANSFORM_EXECUTION = new LoggingStatement( LoggingStatement.ORDER_CHILD_EXECUTION,
+    "MATCH (transform:Transform { pipelineName : row.pipelineName, name : row.name } ) "
+      + "MERGE (exec:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  exec.transId = row.transId "
+      + ", exec.copy = row.copy "
+      + ", exec.status = row.status "
+      + ", exec.loggingText = row.loggingText "
+      + ", exec.errors = row.errors "
+      + ", exec.linesRead = row.linesRead "
+      + ", exec.linesWritten = row.linesWritten "
+      + ", exec.linesInput = row.linesInput "
+      + ", exec.linesOutput = row.linesOutput "
+      + ", exec.linesRejected = row.linesRejected "
+      + "MERGE (exec)-[r:EXECUTION_OF_TRANSFORM]->(transform) "
+  );
+
   @Override public void callExtensionPoint( ILogChannel log, IPipelineEngine<PipelineMeta> pipeline ) throws HopException {
 
     // See if logging is enabled
@@ -67,20 +151,29 @@ public class PipelineLoggingExtensionPoint implements IExtensionPoint<IPipelineE
       }
       log.logDetailed( "Logging pipeline information to Neo4j connection : " + connection.getName() );
 
-      Session session = connection.getSession( log );
+      // The logging is written in the background, nothing here waits for Neo4j
+      //
+      LoggingSink sink = LoggingSink.getSink( connection );
+
+      logPipelineMetadata( log, sink, pipeline );
+      logStartOfPipeline( log, sink, pipeline );
 
-      logPipelineMetadata( log, session, connection, pipeline );
-      logStartOfPipeline( log, session, connection, pipeline );
+      // Sample the transform metrics while the pipeline is running
+      //
+      final TransformSnapshotSampler sampler = createSnapshotSampler( log, sink, pipeline );
 
       pipeline.addExecutionFinishedListener( pipelineEngine -> {
-        logEndOfPipeline( log, session, connection, pipelineEngine );
+        if ( sampler != null ) {
+          sampler.stop();
+        }
+        logEndOfPipeline( log, sink, pipelineEngine );
 
         // If there are no other parents, we now have the complete log channel hierarchy
         //
         if ( pipelineEngine.getParentWorkflow() == null && pipelineEngine.getParentPipeline() == null ) {
           String logChannelId = pipelineEngine.getLogChannelId();
           List<LoggingHierarchy> loggingHierarchy = LoggingCore.getLoggingHierarchy( logChannelId );
-          logHierarchy( log, session, connection, loggingHierarchy, logChannelId );
+          LoggingCore.logHierarchies( sink, loggingHierarchy, logChannelId );
         }
       } );
 
@@ -94,278 +187,223 @@ public class PipelineLoggingExtensionPoint implements IExtensionPoint<IPipelineE
 
   }
 
-  private void logPipelineMetadata( final ILogChannel log, final Session session, final NeoConnection connection, final IPipelineEngine<PipelineMeta> pipeline ) throws HopException {
-    log.logDetailed( "Logging pipeline metadata to Neo4j connection : " + connection.getName() );
-
+  private void logPipelineMetadata( final ILogChannel log, final LoggingSink sink, final IPipelineEngine<PipelineMeta> pipeline ) {
     final PipelineMeta pipelineMeta = pipeline.getPipelineMeta();
 
-    synchronized ( session ) {
-      session.writeTransaction( (TransactionWork<Void>) transaction -> {
-        try {
-
-          Map<String, Object> transPars = new HashMap<>();
-          transPars.put( "pipelineName", pipelineMeta.getName() );
-          transPars.put( "description", pipelineMeta.getDescription() );
-          transPars.put( "filename", pipelineMeta.getFilename() );
-          StringBuilder transCypher = new StringBuilder();
-          transCypher.append( "MERGE (pipeline:Pipeline { name : $pipelineName } ) " );
-          transCypher.append( "SET pipeline.filename = $filename, pipeline.description = $description " );
-          transaction.run( transCypher.toString(), transPars );
-
-          log.logDetailed( "Trans cypher : " + transCypher );
-
-          for ( TransformMeta transformMeta : pipelineMeta.getTransforms() ) {
-
-            Map<String, Object> transformPars = new HashMap<>();
-            transformPars.put( "pipelineName", pipelineMeta.getName() );
-            transformPars.put( "transformName", transformMeta.getName() );
-            transformPars.put( "description", transformMeta.getDescription() );
-            transformPars.put( "pluginId", transformMeta.getPluginId() );
-            transformPars.put( "copies", transformMeta.getCopies() );
-            transformPars.put( "locationX", transformMeta.getLocation().x );
-            transformPars.put( "locationY", transformMeta.getLocation().y );
-
-            StringBuilder transformCypher = new StringBuilder();
-            transformCypher.append( "MATCH (pipeline:Pipeline { name : $pipelineName } ) " );
-            transformCypher.append( "MERGE (transform:Transform { pipelineName : $pipelineName, name : $transformName } ) " );
-            transformCypher.append( "SET " );
-            transformCypher.append( "  transform.description = $description " );
-            transformCypher.append( ", transform.pluginId = $pluginId " );
-            transformCypher.append( ", transform.copies = $copies " );
-            transformCypher.append( ", transform.locationX = $locationX " );
-            transformCypher.append( ", transform.locationY = $locationY " );
-
-            // Also MERGE the relationship
-            //
-            transformCypher.append( "MERGE (transform)-[rel:TRANSFORM_OF_PIPELINE]->(pipeline) " );
+    // The pipeline node itself is always merged, the executions are attached to it
+    //
+    String topologyHash = getTopologyHash( pipelineMeta );
+    Map<String, Object> transPars = new HashMap<>();
+    transPars.put( "pipelineName", pipelineMeta.getName() );
+    transPars.put( "description", pipelineMeta.getDescription() );
+    transPars.put( "filename", pipelineMeta.getFilename() );
+    transPars.put( "topologyHash", topologyHash );
+    sink.log( PIPELINE_METADATA, transPars );
+
+    // Skip the transforms and hops if this process already wrote the same topology to Neo4j
+    //
+    String fingerprintKey = "pipeline:" + pipelineMeta.getName();
+    if ( sink.isFingerprintWritten( fingerprintKey, topologyHash ) ) {
+      log.logDetailed( "Pipeline metadata is unchanged since it was last logged to Neo4j" );
+      return;
+    }
+    log.logDetailed( "Logging pipeline metadata to Neo4j" );
+
+    for ( TransformMeta transformMeta : pipelineMeta.getTransforms() ) {
+
+      Map<String, Object> transformPars = new HashMap<>();
+      transformPars.put( "pipelineName", pipelineMeta.getName() );
+      transformPars.put( "topologyHash", topologyHash );
+      transformPars.put( "transformName", transformMeta.getName() );
+      transformPars.put( "description", transformMeta.getDescription() );
+      transformPars.put( "pluginId", transformMeta.getPluginId() );
+      transformPars.put( "copies", transformMeta.getCopies() );
+      transformPars.put( "locationX", transformMeta.getLocation().x );
+      transformPars.put( "locationY", transformMeta.getLocation().y );
+      sink.log( TRANSFORM_METADATA, transformPars );
+    }
 
-            log.logDetailed( "Transform '" + transformMeta.getName() + "' cypher : " + transformCypher );
+    // Save hops
+    //
+    for ( int i = 0; i < pipelineMeta.nrPipelineHops(); i++ ) {
+      PipelineHopMeta hopMeta = pipelineMeta.getPipelineHop( i );
+
+      Map<String, Object> hopPars = new HashMap<>();
+      hopPars.put( "fromTransform", hopMeta.getFromTransform().getName() );
+      hopPars.put( "toTransform", hopMeta.getToTransform().getName() );
+      hopPars.put( "pipelineName", pipelineMeta.getName() );
+      hopPars.put( "topologyHash", topologyHash );
+      sink.log( HOP_METADATA, hopPars );
+    }
 
-            // run it
-            //
-            transaction.run( transformCypher.toString(), transformPars );
-          }
+    Map<String, Object> fingerprintPars = new HashMap<>();
+    fingerprintPars.put( "pipelineName", pipelineMeta.getName() );
+    fingerprintPars.put( "topologyHash", topologyHash );
+    sink.logFingerprint( PIPELINE_FINGERPRINT, fingerprintPars, fingerprintKey, topologyHash );
+  }
 
-          // Save hops
-          //
-          for ( int i = 0; i < pipelineMeta.nrPipelineHops(); i++ ) {
-            PipelineHopMeta hopMeta = pipelineMeta.getPipelineHop( i );
-
-            Map<String, Object> hopPars = new HashMap<>();
-            hopPars.put( "fromTransform", hopMeta.getFromTransform().getName() );
-            hopPars.put( "toTransform", hopMeta.getToTransform().getName() );
-            hopPars.put( "pipelineName", pipelineMeta.getName() );
-
-            StringBuilder hopCypher = new StringBuilder();
-            hopCypher.append( "MATCH (from:Transform { pipelineName : $pipelineName, name : $fromTransform }) " );
-            hopCypher.append( "MATCH (to:Transform { pipelineName : $pipelineName, name : $toTransform }) " );
-            hopCypher.append( "MERGE (from)-[rel:WRITES_TO]->(to) " );
-            transaction.run( hopCypher.toString(), hopPars );
-          }
+  /**
+   * Fingerprint everything logged about the pipeline metadata: the pipeline, its transforms and hops
+   */
+  private String getTopologyHash( PipelineMeta pipelineMeta ) {
+    StringBuilder topology = new StringBuilder();
+    topology.append( pipelineMeta.getName() ).append( '\0' );
+    topology.append( pipelineMeta.getFilename() ).append( '\0' );
+    topology.append( pipelineMeta.getDescription() ).append( '\0' );
+
+    List<String> transforms = new ArrayList<>();
+    for ( TransformMeta transformMeta : pipelineMeta.getTransforms() ) {
+      transforms.add( transformMeta.getName() + '\0' + transformMeta.getDescription() + '\0' + transformMeta.getPluginId() + '\0'
+        + transformMeta.getCopies() + '\0' + transformMeta.getLocation().x + '\0' + transformMeta.getLocation().y );
+    }
+    Collections.sort( transforms );
+    for ( String transform : transforms ) {
+      topology.append( 'T' ).append( transform ).append( '\0' );
+    }
 
-          transaction.commit();
-        } catch ( Exception e ) {
-          transaction.rollback();
-          log.logError( "Error logging pipeline metadata", e );
-        }
-        return null;
-      } );
+    List<String> hops = new ArrayList<>();
+    for ( int i = 0; i < pipelineMeta.nrPipelineHops(); i++ ) {
+      PipelineHopMeta hopMeta = pipelineMeta.getPipelineHop( i );
+      hops.add( hopMeta.getFromTransform().getName() + '\0' + hopMeta.getToTransform().getName() );
+    }
+    Collections.sort( hops );
+    for ( String hop : hops ) {
+      topology.append( 'H' ).append( hop ).append( '\0' );
     }
 
+    return LoggingCore.getFingerprint( topology.toString() );
   }
 
-  private void logStartOfPipeline( final ILogChannel log, final Session session, final NeoConnection connection, final IPipelineEngine<PipelineMeta> pipeline ) throws HopException {
-    log.logDetailed( "Logging execution start of pipeline to Neo4j connection : " + connection.getName() );
+  private TransformSnapshotSampler createSnapshotSampler( final ILogChannel log, final LoggingSink sink, final IPipelineEngine<PipelineMeta> pipeline ) {
+    if ( !( pipeline instanceof Pipeline ) ) {
+      return null;
+    }
+    int intervalSeconds = Const.toInt( pipeline.getVariable( Defaults.VARIABLE_NEO4J_LOGGING_SNAPSHOT_INTERVAL ),
+      Defaults.DEFAULT_SNAPSHOT_INTERVAL_SECONDS );
+    if ( intervalSeconds <= 0 ) {
+      return null;
+    }
+    log.logDetailed( "Logging snapshots of the transform metrics to Neo4j every " + intervalSeconds + " seconds" );
 
-    final PipelineMeta pipelineMeta = pipeline.getPipelineMeta();
+    TransformSnapshotSampler sampler = new TransformSnapshotSampler( sink, (Pipeline) pipeline, intervalSeconds * 1000L );
+    sampler.start();
+    return sampler;
+  }
 
-    synchronized ( session ) {
+  private void logStartOfPipeline( final ILogChannel log, final LoggingSink sink, final IPipelineEngine<PipelineMeta> pipeline ) {
+    log.logDetailed( "Logging execution start of pipeline to Neo4j" );
 
-      session.writeTransaction( new TransactionWork<Void>() {
-        @Override public Void execute( Transaction transaction ) {
-          try {
-            // Create a new node for each log channel and it's owner
-            // Start with the pipeline
-            //
-            ILogChannel channel = pipeline.getLogChannel();
-            Date startDate = (Date) pipeline.getExtensionDataMap().get( PIPELINE_START_DATE );
-
-            Map<String, Object> transPars = new HashMap<>();
-            transPars.put( "pipelineName", pipelineMeta.getName() );
-            transPars.put( "id", channel.getLogChannelId() );
-            transPars.put( "type", EXECUTION_TYPE_PIPELINE );
-            transPars.put( "executionStart", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( startDate ) );
-            transPars.put( "status", pipeline.getStatusDescription() );
-
-            StringBuilder transCypher = new StringBuilder();
-            transCypher.append( "MATCH (pipeline:Pipeline { name : $pipelineName } ) " );
-            transCypher.append( "MERGE (exec:Execution { name : $pipelineName, type : $type, id : $id } ) " );
-            transCypher.append( "SET " );
-            transCypher.append( "  exec.executionStart = $executionStart " );
-            transCypher.append( ", exec.status = $status " );
-            transCypher.append( "MERGE (exec)-[r:EXECUTION_OF_PIPELINE]->(pipeline) " );
-
-            transaction.run( transCypher.toString(), transPars );
-
-            transaction.commit();
-          } catch ( Exception e ) {
-            transaction.rollback();
-            log.logError( "Error logging pipeline start", e );
-          }
+    final PipelineMeta pipelineMeta = pipeline.getPipelineMeta();
 
-          return null;
-        }
-      } );
-    }
+    // Create a new node for each log channel and it's owner
+    // Start with the pipeline
+    //
+    ILogChannel channel = pipeline.getLogChannel();
+    Date startDate = (Date) pipeline.getExtensionDataMap().get( PIPELINE_START_DATE );
+
+    Map<String, Object> transPars = new HashMap<>();
+    transPars.put( "pipelineName", pipelineMeta.getName() );
+    transPars.put( "id", channel.getLogChannelId() );
+    transPars.put( "type", EXECUTION_TYPE_PIPELINE );
+    transPars.put( "executionStart", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( startDate ) );
+    transPars.put( "status", pipeline.getStatusDescription() );
+    sink.log( PIPELINE_EXECUTION_START, transPars );
   }
 
-  private void logEndOfPipeline( final ILogChannel log, final Session session, final NeoConnection connection, final IPipelineEngine<PipelineMeta> pipeline ) throws HopException {
-    log.logDetailed( "Logging execution end of pipeline to Neo4j connection : " + connection.getName() );
+  private void logEndOfPipeline( final ILogChannel log, final LoggingSink sink, final IPipelineEngine<PipelineMeta> pipeline ) {
+    log.logDetailed( "Logging execution end of pipeline to Neo4j" );
 
     final PipelineMeta pipelineMeta = pipeline.getPipelineMeta();
 
-    synchronized ( session ) {
-      session.writeTransaction( new TransactionWork<Void>() {
-        @Override public Void execute( Transaction transaction ) {
-          try {
+    // Create a new node for each log channel and it's owner
+    // Start with the pipeline
+    //
+    ILogChannel channel = pipeline.getLogChannel();
+    Result result = pipeline.getResult();
+    String transLogChannelId = pipeline.getLogChannelId();
+    String transLoggingText = HopLogStore.getAppender().getBuffer( transLogChannelId, false ).toString();
+    boolean compressText = LoggingText.isCompressed( pipeline );
+    int maxTextLength = LoggingText.getMaxLength( pipeline );
+    Date endDate = new Date();
+    pipeline.getExtensionDataMap().put( PIPELINE_END_DATE, endDate );
+    Date startDate = (Date) pipeline.getExtensionDataMap().get( PIPELINE_START_DATE );
+
+    Map<String, Object> transPars = new HashMap<>();
+    transPars.put( "pipelineName", pipelineMeta.getName() );
+    transPars.put( "type", EXECUTION_TYPE_PIPELINE );
+    transPars.put( "id", channel.getLogChannelId() );
+    transPars.put( "executionEnd", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( endDate ) );
+    transPars.put( "durationMs", endDate.getTime() - startDate.getTime() );
+    transPars.put( "errors", result.getNrErrors() );
+    transPars.put( "linesInput", result.getNrLinesInput() );
+    transPars.put( "linesOutput", result.getNrLinesOutput() );
+    transPars.put( "linesRead", result.getNrLinesRead() );
+    transPars.put( "linesWritten", result.getNrLinesWritten() );
+    transPars.put( "linesRejected", result.getNrLinesRejected() );
+    transPars.put( "loggingText", compressText ? null : transLoggingText );
+    transPars.put( "status", pipeline.getStatusDescription() );
+    sink.log( PIPELINE_EXECUTION_END, transPars );
+    if ( compressText ) {
+      LoggingText.log( sink, pipelineMeta.getName(), EXECUTION_TYPE_PIPELINE, channel.getLogChannelId(), transLoggingText, maxTextLength );
+    }
 
-            // Create a new node for each log channel and it's owner
-            // Start with the pipeline
-            //
-            ILogChannel channel = pipeline.getLogChannel();
-            Result result = pipeline.getResult();
-            String transLogChannelId = pipeline.getLogChannelId();
-            String transLoggingText = HopLogStore.getAppender().getBuffer( transLogChannelId, false ).toString();
-            Date endDate = new Date();
-            pipeline.getExtensionDataMap().put( PIPELINE_END_DATE, endDate );
-            Date startDate = (Date) pipeline.getExtensionDataMap().get( PIPELINE_START_DATE );
-
-            Map<String, Object> transPars = new HashMap<>();
-            transPars.put( "pipelineName", pipelineMeta.getName() );
-            transPars.put( "type", EXECUTION_TYPE_PIPELINE );
-            transPars.put( "id", channel.getLogChannelId() );
-            transPars.put( "executionEnd", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( endDate ) );
-            transPars.put( "durationMs", endDate.getTime() - startDate.getTime() );
-            transPars.put( "errors", result.getNrErrors() );
-            transPars.put( "linesInput", result.getNrLinesInput() );
-            transPars.put( "linesOutput", result.getNrLinesOutput() );
-            transPars.put( "linesRead", result.getNrLinesRead() );
-            transPars.put( "linesWritten", result.getNrLinesWritten() );
-            transPars.put( "linesRejected", result.getNrLinesRejected() );
-            transPars.put( "loggingText", transLoggingText );
-            transPars.put( "status", pipeline.getStatusDescription() );
-
-            StringBuilder transCypher = new StringBuilder();
-            transCypher.append( "MATCH (pipeline:Pipeline { name : $pipelineName } ) " );
-            transCypher.append( "MERGE (exec:Execution { name : $pipelineName, type : $type, id : $id } ) " );
-            transCypher.append( "SET " );
-            transCypher.append( "  exec.executionEnd = $executionEnd " );
-            transCypher.append( ", exec.durationMs = $durationMs " );
-            transCypher.append( ", exec.status = $status " );
-            transCypher.append( ", exec.errors = $errors " );
-            transCypher.append( ", exec.linesInput = $linesInput " );
-            transCypher.append( ", exec.linesOutput = $linesOutput " );
-            transCypher.append( ", exec.linesRead = $linesRead " );
-            transCypher.append( ", exec.linesWritten = $linesWritten " );
-            transCypher.append( ", exec.linesRejected = $linesRejected " );
-            transCypher.append( ", exec.loggingText = $loggingText " );
-            transCypher.append( "MERGE (exec)-[r:EXECUTION_OF_PIPELINE]->(pipeline) " );
-
-            transaction.run( transCypher.toString(), transPars );
-
-            // Also log every transform copy
+    // Also log every transform copy
+    //
+    List<TransformMetaDataCombi<ITransform, ITransformMeta, ITransformData>> combis = ( (Pipeline) pipeline ).getTransforms();
+    for ( TransformMetaDataCombi combi : combis ) {
+      String transformLogChannelId = combi.transform.getLogChannel().getLogChannelId();
+      String transformLoggingText = HopLogStore.getAppender().getBuffer( transformLogChannelId, false ).toString();
+      Map<String, Object> transformPars = new HashMap<>();
+      transformPars.put( "pipelineName", pipelineMeta.getName() );
+      transformPars.put( "name", combi.transformName );
+      transformPars.put( "type", EXECUTION_TYPE_TRANSFORM );
+      transformPars.put( "id", transformLogChannelId );
+      transformPars.put( "transId", transLogChannelId );
+      transformPars.put( "copy", Long.valueOf( combi.copy ) );
+      transformPars.put( "status", combi.transform.getStatus().getDescription() );
+      transformPars.put( "loggingText", compressText ? null : transformLoggingText );
+      transformPars.put( "errors", combi.transform.getErrors() );
+      transformPars.put( "linesRead", combi.transform.getLinesRead() );
+      transformPars.put( "linesWritten", combi.transform.getLinesWritten() );
+      transformPars.put( "linesInput", combi.transform.getLinesInput() );
+      transformPars.put( "linesOutput", combi.transform.getLinesOutput() );
+      transformPars.put( "linesRejected", combi.transform.getLinesRejected() );
+      sink.log( TRANSFORM_EXECUTION, transformPars );
+      if ( compressText ) {
+        LoggingText.log( sink, combi.transformName, EXECUTION_TYPE_TRANSFORM, transformLogChannelId, transformLoggingText, maxTextLength );
+      }
+
+      // Log graph usage as well
+      // This Map is left by the Neo4j transform plugins : Neo4j Output and Neo4j Graph Output
+      //
+      Map<String, Map<String, Set<String>>> usageMap = (Map<String, Map<String, Set<String>>>) pipeline.getExtensionDataMap().get( Defaults.TRANS_NODE_UPDATES_GROUP );
+      if ( usageMap != null ) {
+        for ( String graphUsage : usageMap.keySet() ) {
+          Map<String, Set<String>> transformsMap = usageMap.get( graphUsage );
+
+          Set<String> labels = transformsMap.get( combi.transformName );
+          if ( labels != null ) {
+            // The relationship type depends on the usage, that makes it a separate statement
             //
-            List<TransformMetaDataCombi<ITransform, ITransformMeta, ITransformData>> combis = ( (Pipeline) pipeline ).getTransforms();
-            for ( TransformMetaDataCombi combi : combis ) {
-              String transformLogChannelId = combi.transform.getLogChannel().getLogChannelId();
-              String transformLoggingText = HopLogStore.getAppender().getBuffer( transformLogChannelId, false ).toString();
-              Map<String, Object> transformPars = new HashMap<>();
-              transformPars.put( "pipelineName", pipelineMeta.getName() );
-              transformPars.put( "name", combi.transformName );
-              transformPars.put( "type", EXECUTION_TYPE_TRANSFORM );
-              transformPars.put( "id", transformLogChannelId );
-              transformPars.put( "transId", transLogChannelId );
-              transformPars.put( "copy", Long.valueOf( combi.copy ) );
-              transformPars.put( "status", combi.transform.getStatus().getDescription() );
-              transformPars.put( "loggingText", transformLoggingText );
-              transformPars.put( "errors", combi.transform.getErrors() );
-              transformPars.put( "linesRead", combi.transform.getLinesRead() );
-              transformPars.put( "linesWritten", combi.transform.getLinesWritten() );
-              transformPars.put( "linesInput", combi.transform.getLinesInput() );
-              transformPars.put( "linesOutput", combi.transform.getLinesOutput() );
-              transformPars.put( "linesRejected", combi.transform.getLinesRejected() );
-
-              StringBuilder transformCypher = new StringBuilder();
-              transformCypher.append( "MATCH (transform:Transform { pipelineName : $pipelineName, name : $name } ) " );
-              transformCypher.append( "MERGE (exec:Execution { name : $name, type : $type, id : $id } ) " );
-              transformCypher.append( "SET " );
-              transformCypher.append( "  exec.transId = $transId " );
-              transformCypher.append( ", exec.copy = $copy " );
-              transformCypher.append( ", exec.status = $status " );
-              transformCypher.append( ", exec.loggingText = $loggingText " );
-              transformCypher.append( ", exec.errors = $errors " );
-              transformCypher.append( ", exec.linesRead = $linesRead " );
-              transformCypher.append( ", exec.linesWritten = $linesWritten " );
-              transformCypher.append( ", exec.linesInput = $linesInput " );
-              transformCypher.append( ", exec.linesOutput = $linesOutput " );
-              transformCypher.append( ", exec.linesRejected = $linesRejected " );
-              transformCypher.append( "MERGE (exec)-[r:EXECUTION_OF_TRANSFORM]->(transform) " );
-
-              transaction.run( transformCypher.toString(), transformPars );
-
-              // Log graph usage as well
-              // This Map is left by the Neo4j transform plugins : Neo4j Output and Neo4j Graph Output
+            LoggingStatement usageStatement = new LoggingStatement( LoggingStatement.ORDER_USAGE,
+              "MATCH (transform:Execution { name : row.transform, type : row.type, id : row.id } ) "
+                + "MERGE (usage:Usage { usage : row.usage, label : row.label } ) "
+                + "MERGE (transform)-[r:PERFORMS_" + graphUsage + "]->(usage)"
+            );
+            for ( String label : labels ) {
+              // Save relationship to GraphUsage node
               //
-              Map<String, Map<String, Set<String>>> usageMap = (Map<String, Map<String, Set<String>>>) pipeline.getExtensionDataMap().get( Defaults.TRANS_NODE_UPDATES_GROUP );
-              if ( usageMap != null ) {
-                for ( String graphUsage : usageMap.keySet() ) {
-                  Map<String, Set<String>> transformsMap = usageMap.get( graphUsage );
-
-                  Set<String> labels = transformsMap.get( combi.transformName );
-                  if ( labels != null ) {
-                    for ( String label : labels ) {
-                      // Save relationship to GraphUsage node
-                      //
-                      Map<String, Object> usagePars = new HashMap<>();
-                      usagePars.put( "transform", combi.transformName );
-                      usagePars.put( "type", "TRANSFORM" );
-                      usagePars.put( "id", transformLogChannelId );
-                      usagePars.put( "label", label );
-                      usagePars.put( "usage", graphUsage );
-
-                      StringBuilder usageCypher = new StringBuilder();
-                      usageCypher.append( "MATCH (transform:Execution { name : $transform, type : $type, id : $id } ) " );
-                      usageCypher.append( "MERGE (usage:Usage { usage : $usage, label : $label } ) " );
-                      usageCypher.append( "MERGE (transform)-[r:PERFORMS_" + graphUsage + "]->(usage)" );
-
-                      transaction.run( usageCypher.toString(), usagePars );
-                    }
-                  }
-                }
-              }
+              Map<String, Object> usagePars = new HashMap<>();
+              usagePars.put( "transform", combi.transformName );
+              usagePars.put( "type", "TRANSFORM" );
+              usagePars.put( "id", transformLogChannelId );
+              usagePars.put( "label", label );
+              usagePars.put( "usage", graphUsage );
+              sink.log( usageStatement, usagePars );
             }
-
-            transaction.commit();
-          } catch ( Exception e ) {
-            transaction.rollback();
-            log.logError( "Error logging pipeline end", e );
           }
-          return null;
         }
-      } );
-    }
-  }
-
-
-  private void logHierarchy( final ILogChannel log, final Session session, final NeoConnection connection,
-                             final List<LoggingHierarchy> hierarchies, String rootLogChannelId ) {
-    synchronized ( session ) {
-      session.writeTransaction( (TransactionWork<Void>) transaction -> {
-        // Update create the Execution relationships
-        //
-        LoggingCore.writeHierarchies( log, connection, transaction, hierarchies, rootLogChannelId );
-        return null;
-      } );
+      }
     }
   }
 }
@@ -16,15 +16,16 @@ import org.apache.hop.workflow.WorkflowHopMeta;
 import org.apache.hop.workflow.WorkflowMeta;
 import org.apache.hop.workflow.action.ActionMeta;
 import org.apache.hop.workflow.engine.IWorkflowEngine;
-import org.neo4j.driver.Session;
-import org.neo4j.driver.Transaction;
-import org.neo4j.driver.TransactionWork;
 import org.neo4j.hop.logging.Defaults;
 import org.neo4j.hop.logging.util.LoggingCore;
+import org.neo4j.hop.logging.util.LoggingSink;
+import org.neo4j.hop.logging.util.LoggingStatement;
+import org.neo4j.hop.logging.util.LoggingText;
 import org.neo4j.hop.shared.NeoConnection;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -43,6 +44,99 @@ public class WorkflowLoggingExtensionPoint implements IExtensionPoint<IWorkflowE
   public static final String EXECUTION_TYPE_WORKFLOW = LoggingObjectType.WORKFLOW.name();
   public static final String EXECUTION_TYPE_ACTION = LoggingObjectType.ACTION.name();
 
+  /**
+   * The topology is only written if the fingerprint of the workflow in the database is different.
+   * The fingerprint is stored last so that the actions and hops all see the old one.
+   */
+  private static final LoggingStatement WORKFLOW_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA,
+    "MERGE (w:Workflow { name : row.workflowName} ) "
+      + "WITH w, row "
+      + "WHERE coalesce( w.topologyHash, '' ) <> row.topologyHash "
+      + "SET w.filename = row.filename, w.description = row.description "
+  );
+
+  private static final LoggingStatement ACTION_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA_ELEMENT,
+    "MATCH (w:Workflow { name : row.workflowName } ) "
+      + "WHERE coalesce( w.topologyHash, '' ) <> row.topologyHash "
+      + "MERGE (a:Action { workflowName : row.workflowName, name : row.name }) "
+      + "MERGE (a)-[rel:ACTION_OF_WORKFLOW]->(w) "
+      + "SET "
+      + "  a.description = row.description "
+      + ", a.pluginId = row.pluginId "
+      + ", a.evaluation = row.evaluation "
+      + ", a.launchingParallel = row.launchingParallel "
+      + ", a.start = row.start "
+      + ", a.unconditional = row.unconditional "
+      + ", a.copyNr = row.copyNr "
+      + ", a.locationX = row.locationX "
+      + ", a.locationY = row.locationY "
+  );
+
+  private static final LoggingStatement HOP_METADATA = new LoggingStatement( LoggingStatement.ORDER_METADATA_HOP,
+    "MATCH (w:Workflow { name : row.workflowName } ) "
+      + "WHERE coalesce( w.topologyHash, '' ) <> row.topologyHash "
+      + "MATCH (f:Action { workflowName : row.workflowName, name : row.fromAction}) "
+      + "MATCH (t:Action { workflowName : row.workflowName, name : row.toAction}) "
+      + "MERGE (f)-[rel:PRECEDES]->(t) "
+  );
+
+  private static final LoggingStatement WORKFLOW_FINGERPRINT = new LoggingStatement( LoggingStatement.ORDER_METADATA_FINGERPRINT,
+    "MATCH (w:Workflow { name : row.workflowName } ) "
+      + "SET w.topologyHash = row.topologyHash "
+  );
+
+  private static final LoggingStatement WORKFLOW_EXECUTION_START = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_START,
+    "MATCH (w:Workflow { name : row.workflowName} ) "
+      + "MERGE (e:Execution { name : row.workflowName, type : row.type, id : row.id} ) "
+      + "SET "
+      + " e.executionStart = row.executionStart "
+      + "MERGE (e)-[r:EXECUTION_OF_WORKFLOW]->(w) "
+  );
+
+  private static final LoggingStatement WORKFLOW_EXECUTION_END = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_END,
+    "MERGE (e:Execution { name : row.workflowName, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  e.executionEnd = row.executionEnd "
+      + ", e.durationMs = row.durationMs "
+      + ", e.errors = row.errors "
+      + ", e.linesInput = row.linesInput "
+      + ", e.linesOutput = row.linesOutput "
+      + ", e.linesRead = row.linesRead "
+      + ", e.linesWritten = row.linesWritten "
+      + ", e.linesRejected = row.linesRejected "
+      + ", e.loggingText = row.loggingText "
+      + ", e.result = row.result "
+      + ", e.nrResultRows = row.nrResultRows "
+      + ", e.nrResultFiles = row.nrResultFiles "
+  );
+
+  private static final LoggingStatement WORKFLOW_EXECUTION_RELATIONSHIP = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_END_RELATIONSHIP,
+    "MATCH (w:Workflow { name : row.workflowName } ) "
+      + "MATCH (e:Execution { name : row.workflowName, type : row.type, id : row.id } ) "
+      + "MERGE (e)-[r:EXECUTION_OF_WORKFLOW]->(w) "
+  );
+
+  private static final LoggingStatement ACTION_EXECUTION = new LoggingStatement( LoggingStatement.ORDER_CHILD_EXECUTION,
+    "MERGE (e:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "SET "
+      + "  e.workflowId = row.workflowId "
+      + ", e.loggingText = row.loggingText "
+      + ", e.nr = row.nr "
+      + ", e.comment = row.comment "
+      + ", e.reason = row.reason "
+      + ", e.linesRead = row.linesRead "
+      + ", e.linesWritten = row.linesWritten "
+      + ", e.linesInput = row.linesInput "
+      + ", e.linesOutput = row.linesOutput "
+      + ", e.linesRejected = row.linesRejected "
+  );
+
+  private static final LoggingStatement ACTION_EXECUTION_RELATIONSHIP = new LoggingStatement( LoggingStatement.ORDER_CHILD_EXECUTION_RELATIONSHIP,
+    "MATCH (a:Action { workflowName : row.workflowName, name : row.name } ) "
+      + "MATCH (e:Execution { name : row.name, type : row.type, id : row.id } ) "
+      + "MERGE (e)-[r:EXECUTION_OF_ACTION]->(a) "
+  );
+
   @Override public void callExtensionPoint( ILogChannel log, IWorkflowEngine<WorkflowMeta> workflow ) throws HopException {
     // See if logging is enabled
     //
@@ -64,21 +158,23 @@ public class WorkflowLoggingExtensionPoint implements IExtensionPoint<IWorkflowE
       }
       log.logDetailed( "Logging workflow information to Neo4j connection : " + connection.getName() );
 
-      Session session = connection.getSession( log );
+      // The logging is written in the background, nothing here waits for Neo4j
+      //
+      LoggingSink sink = LoggingSink.getSink( connection );
 
-      logWorkflowMetadata( log, session, connection, workflow );
-      logStartOfWorkflow( log, session, connection, workflow );
+      logWorkflowMetadata( log, sink, workflow );
+      logStartOfWorkflow( log, sink, workflow );
 
       workflow.addWorkflowFinishedListener( new IExecutionFinishedListener<IWorkflowEngine<WorkflowMeta>>() {
         @Override public void finished( IWorkflowEngine<WorkflowMeta> workflowMetaIWorkflowEngine ) throws HopException {
-          logEndOfWorkflow( log, session, connection, workflow );
+          logEndOfWorkflow( log, sink, workflow );
 
           // If there are no other parents, we now have the complete log channel hierarchy
           //
           if ( workflow.getParentWorkflow() == null && workflow.getParentPipeline() == null ) {
             String logChannelId = workflow.getLogChannelId();
             List<LoggingHierarchy> loggingHierarchy = LoggingCore.getLoggingHierarchy( logChannelId );
-            logHierarchy( log, session, connection, loggingHierarchy, logChannelId );
+            LoggingCore.logHierarchies( sink, loggingHierarchy, logChannelId );
           }
         }
       });
@@ -91,261 +187,196 @@ public class WorkflowLoggingExtensionPoint implements IExtensionPoint<IWorkflowE
     }
   }
 
-  private void logWorkflowMetadata( final ILogChannel log, final Session session, final NeoConnection connection, final IWorkflowEngine<WorkflowMeta> workflow ) throws HopException {
-    log.logDetailed( "Logging workflow metadata to Neo4j server : " + connection.getName() );
-
+  private void logWorkflowMetadata( final ILogChannel log, final LoggingSink sink, final IWorkflowEngine<WorkflowMeta> workflow ) {
     final WorkflowMeta workflowMeta = workflow.getWorkflowMeta();
 
-    synchronized ( session ) {
-      session.writeTransaction( (TransactionWork<Void>) transaction -> {
-        try {
-
-          Map<String, Object> workflowPars = new HashMap<>();
-          workflowPars.put( "workflowName", workflowMeta.getName() );
-          workflowPars.put( "description", workflowMeta.getDescription() );
-          workflowPars.put( "filename", workflowMeta.getFilename() );
-          StringBuilder workflowCypher = new StringBuilder();
-          workflowCypher.append( "MERGE (w:Workflow { name : $workflowName} ) " );
-          workflowCypher.append( "SET w.filename = $filename, w.description = $description " );
-
-          log.logDetailed( "Workflow metadata cypher : " + workflowCypher );
-          transaction.run( workflowCypher.toString(), workflowPars );
-
-          for ( ActionMeta actionMeta : workflowMeta.getActions() ) {
-
-            Map<String, Object> actionPars = new HashMap<>();
-            actionPars.put( "workflowName", workflowMeta.getName() );
-            actionPars.put( "name", actionMeta.getName() );
-            actionPars.put( "description", actionMeta.getDescription() );
-            actionPars.put( "pluginId", actionMeta.getAction().getPluginId() );
-            actionPars.put( "evaluation", actionMeta.isEvaluation() );
-            actionPars.put( "launchingParallel", actionMeta.isLaunchingInParallel() );
-            actionPars.put( "start", actionMeta.isStart() );
-            actionPars.put( "unconditional", actionMeta.isUnconditional() );
-            actionPars.put( "copyNr", Long.valueOf( actionMeta.getNr() ) );
-            actionPars.put( "locationX", actionMeta.getLocation().x );
-            actionPars.put( "locationY", actionMeta.getLocation().y );
-
-            StringBuilder actionCypher = new StringBuilder();
-            actionCypher.append( "MATCH (w:Workflow { name : $workflowName } ) " );
-            actionCypher.append( "MERGE (a:Action { workflowName : $workflowName, name : $name }) " );
-            actionCypher.append( "MERGE (a)-[rel:ACTION_OF_WORKFLOW]->(w) " );
-            actionCypher.append( "SET " );
-            actionCypher.append( "  a.description = $description " );
-            actionCypher.append( ", a.pluginId = $pluginId " );
-            actionCypher.append( ", a.evaluation = $evaluation " );
-            actionCypher.append( ", a.launchingParallel = $launchingParallel " );
-            actionCypher.append( ", a.start = $start " );
-            actionCypher.append( ", a.unconditional = $unconditional " );
-            actionCypher.append( ", a.copyNr = $copyNr " );
-            actionCypher.append( ", a.locationX = $locationX " );
-            actionCypher.append( ", a.locationY = $locationY " );
-
-            // run it
-            //
-            log.logDetailed( "Action copy '" + actionMeta.getName() + "' cypher : " + actionCypher );
-            transaction.run( actionCypher.toString(), actionPars );
-          }
-
-          // Save hops
-          //
-          for ( int i = 0; i < workflowMeta.nrWorkflowHops(); i++ ) {
-            WorkflowHopMeta hopMeta = workflowMeta.getWorkflowHop( i );
-
-            Map<String, Object> hopPars = new HashMap<>();
-            hopPars.put( "fromAction", hopMeta.getFromAction().getName() );
-            hopPars.put( "toAction", hopMeta.getToAction().getName() );
-            hopPars.put( "workflowName", workflowMeta.getName() );
-
-            StringBuilder hopCypher = new StringBuilder();
-            hopCypher.append( "MATCH (f:Action { workflowName : $workflowName, name : $fromAction}) " );
-            hopCypher.append( "MATCH (t:Action { workflowName : $workflowName, name : $toAction}) " );
-            hopCypher.append( "MERGE (f)-[rel:PRECEDES]->(t) " );
-            transaction.run( hopCypher.toString(), hopPars );
-          }
-
-          transaction.commit();
-        } catch ( Exception e ) {
-          transaction.rollback();
-          log.logError( "Error logging workflow metadata", e );
-        }
-        return null;
-      } );
+    // The workflow node itself is always merged, the executions are attached to it
+    //
+    String topologyHash = getTopologyHash( workflowMeta );
+    Map<String, Object> workflowPars = new HashMap<>();
+    workflowPars.put( "workflowName", workflowMeta.getName() );
+    workflowPars.put( "description", workflowMeta.getDescription() );
+    workflowPars.put( "filename", workflowMeta.getFilename() );
+    workflowPars.put( "topologyHash", topologyHash );
+    sink.log( WORKFLOW_METADATA, workflowPars );
+
+    // Skip the actions and hops if this process already wrote the same topology to Neo4j
+    //
+    String fingerprintKey = "workflow:" + workflowMeta.getName();
+    if ( sink.isFingerprintWritten( fingerprintKey, topologyHash ) ) {
+      log.logDetailed( "Workflow metadata is unchanged since it was last logged to Neo4j" );
+      return;
+    }
+    log.logDetailed( "Logging workflow metadata to Neo4j" );
+
+    for ( ActionMeta actionMeta : workflowMeta.getActions() ) {
+
+      Map<String, Object> actionPars = new HashMap<>();
+      actionPars.put( "workflowName", workflowMeta.getName() );
+      actionPars.put( "topologyHash", topologyHash );
+      actionPars.put( "name", actionMeta.getName() );
+      actionPars.put( "description", actionMeta.getDescription() );
+      actionPars.put( "pluginId", actionMeta.getAction().getPluginId() );
+      actionPars.put( "evaluation", actionMeta.isEvaluation() );
+      actionPars.put( "launchingParallel", actionMeta.isLaunchingInParallel() );
+      actionPars.put( "start", actionMeta.isStart() );
+      actionPars.put( "unconditional", actionMeta.isUnconditional() );
+      actionPars.put( "copyNr", Long.valueOf( actionMeta.getNr() ) );
+      actionPars.put( "locationX", actionMeta.getLocation().x );
+      actionPars.put( "locationY", actionMeta.getLocation().y );
+      sink.log( ACTION_METADATA, actionPars );
     }
-  }
 
-  private void logStartOfWorkflow( final ILogChannel log, final Session session, final NeoConnection connection, final IWorkflowEngine<WorkflowMeta> workflow ) throws HopException {
-    log.logDetailed( "Logging execution start of workflow to Neo4j connection : " + connection.getName() );
+    // Save hops
+    //
+    for ( int i = 0; i < workflowMeta.nrWorkflowHops(); i++ ) {
+      WorkflowHopMeta hopMeta = workflowMeta.getWorkflowHop( i );
+
+      Map<String, Object> hopPars = new HashMap<>();
+      hopPars.put( "fromAction", hopMeta.getFromAction().getName() );
+      hopPars.put( "toAction", hopMeta.getToAction().getName() );
+      hopPars.put( "workflowName", workflowMeta.getName() );
+      hopPars.put( "topologyHash", topologyHash );
+      sink.log( HOP_METADATA, hopPars );
+    }
 
-    final WorkflowMeta workflowMeta = workflow.getWorkflowMeta();
+    Map<String, Object> fingerprintPars = new HashMap<>();
+    fingerprintPars.put( "workflowName", workflowMeta.getName() );
+    fingerprintPars.put( "topologyHash", topologyHash );
+    sink.logFingerprint( WORKFLOW_FINGERPRINT, fingerprintPars, fingerprintKey, topologyHash );
+  }
 
-    synchronized ( session ) {
-      session.writeTransaction( new TransactionWork<Void>() {
-        @Override public Void execute( Transaction transaction ) {
-          try {
-            // Create a new node for each log channel and it's owner
-            // Start with the workflow
-            //
-            ILogChannel channel = workflow.getLogChannel();
-            Date startDate = (Date) workflow.getExtensionDataMap().get( WORKFLOW_START_DATE );
-
-            Map<String, Object> workflowPars = new HashMap<>();
-            workflowPars.put( "workflowName", workflowMeta.getName() );
-            workflowPars.put( "id", channel.getLogChannelId() );
-            workflowPars.put( "type", EXECUTION_TYPE_WORKFLOW );
-            workflowPars.put( "executionStart", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( startDate ) );
-
-            StringBuilder workflowCypher = new StringBuilder();
-            workflowCypher.append( "MATCH (w:Workflow { name : $workflowName} ) " );
-            workflowCypher.append( "MERGE (e:Execution { name : $workflowName, type : $type, id : $id} ) " );
-            workflowCypher.append( "SET " );
-            workflowCypher.append( " e.executionStart = $executionStart " );
-            workflowCypher.append( "MERGE (e)-[r:EXECUTION_OF_WORKFLOW]->(w) " );
-
-            transaction.run( workflowCypher.toString(), workflowPars );
-
-            transaction.commit();
-          } catch ( Exception e ) {
-            transaction.rollback();
-            log.logError( "Error logging workflow start", e );
-          }
+  /**
+   * Fingerprint everything logged about the workflow metadata: the workflow, its actions and hops
+   */
+  private String getTopologyHash( WorkflowMeta workflowMeta ) {
+    StringBuilder topology = new StringBuilder();
+    topology.append( workflowMeta.getName() ).append( '\0' );
+    topology.append( workflowMeta.getFilename() ).append( '\0' );
+    topology.append( workflowMeta.getDescription() ).append( '\0' );
+
+    List<String> actions = new ArrayList<>();
+    for ( ActionMeta actionMeta : workflowMeta.getActions() ) {
+      actions.add( actionMeta.getName() + '\0' + actionMeta.getDescription() + '\0' + actionMeta.getAction().getPluginId() + '\0'
+        + actionMeta.isEvaluation() + '\0' + actionMeta.isLaunchingInParallel() + '\0' + actionMeta.isStart() + '\0'
+        + actionMeta.isUnconditional() + '\0' + actionMeta.getNr() + '\0' + actionMeta.getLocation().x + '\0' + actionMeta.getLocation().y );
+    }
+    Collections.sort( actions );
+    for ( String action : actions ) {
+      topology.append( 'A' ).append( action ).append( '\0' );
+    }
 
-          return null;
-        }
-      } );
+    List<String> hops = new ArrayList<>();
+    for ( int i = 0; i < workflowMeta.nrWorkflowHops(); i++ ) {
+      WorkflowHopMeta hopMeta = workflowMeta.getWorkflowHop( i );
+      hops.add( hopMeta.getFromAction().getName() + '\0' + hopMeta.getToAction().getName() );
     }
+    Collections.sort( hops );
+    for ( String hop : hops ) {
+      topology.append( 'H' ).append( hop ).append( '\0' );
+    }
+
+    return LoggingCore.getFingerprint( topology.toString() );
   }
 
-  private void logEndOfWorkflow( final ILogChannel log, final Session session, final NeoConnection connection, final IWorkflowEngine<WorkflowMeta> workflow ) throws HopException {
-    log.logDetailed( "Logging execution end of workflow to Neo4j connection : " + connection.getName() );
+  private void logStartOfWorkflow( final ILogChannel log, final LoggingSink sink, final IWorkflowEngine<WorkflowMeta> workflow ) {
+    log.logDetailed( "Logging execution start of workflow to Neo4j" );
 
     final WorkflowMeta workflowMeta = workflow.getWorkflowMeta();
 
-    synchronized ( session ) {
-      session.writeTransaction( (TransactionWork<Void>) transaction -> {
-        try {
+    // Create a new node for each log channel and it's owner
+    // Start with the workflow
+    //
+    ILogChannel channel = workflow.getLogChannel();
+    Date startDate = (Date) workflow.getExtensionDataMap().get( WORKFLOW_START_DATE );
+
+    Map<String, Object> workflowPars = new HashMap<>();
+    workflowPars.put( "workflowName", workflowMeta.getName() );
+    workflowPars.put( "id", channel.getLogChannelId() );
+    workflowPars.put( "type", EXECUTION_TYPE_WORKFLOW );
+    workflowPars.put( "executionStart", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( startDate ) );
+    sink.log( WORKFLOW_EXECUTION_START, workflowPars );
+  }
 
-          // Create a new node for each log channel and it's owner
-          // Start with the workflow
-          //
-          ILogChannel channel = workflow.getLogChannel();
-          Result workflowResult = workflow.getResult();
-          String workflowLogChannelId = workflow.getLogChannelId();
-          String workflowLoggingText = HopLogStore.getAppender().getBuffer( workflowLogChannelId, true ).toString();
-
-          Date endDate = new Date();
-          workflow.getExtensionDataMap().put( WORKFLOW_END_DATE, new Date() );
-          Date startDate = (Date) workflow.getExtensionDataMap().get( WORKFLOW_START_DATE );
-
-          Map<String, Object> workflowPars = new HashMap<>();
-          workflowPars.put( "workflowName", workflowMeta.getName() );
-          workflowPars.put( "type", EXECUTION_TYPE_WORKFLOW );
-          workflowPars.put( "id", channel.getLogChannelId() );
-          workflowPars.put( "executionEnd", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( endDate ) );
-          workflowPars.put( "durationMs", endDate.getTime() - startDate.getTime() );
-          workflowPars.put( "errors", workflowResult.getNrErrors() );
-          workflowPars.put( "linesInput", workflowResult.getNrLinesInput() );
-          workflowPars.put( "linesOutput", workflowResult.getNrLinesOutput() );
-          workflowPars.put( "linesRead", workflowResult.getNrLinesRead() );
-          workflowPars.put( "linesWritten", workflowResult.getNrLinesWritten() );
-          workflowPars.put( "linesRejected", workflowResult.getNrLinesRejected() );
-          workflowPars.put( "loggingText", workflowLoggingText );
-          workflowPars.put( "result", workflowResult.getResult() );
-          workflowPars.put( "nrResultRows", workflowResult.getRows().size() );
-          workflowPars.put( "nrResultFiles", workflowResult.getResultFilesList().size() );
-
-          StringBuilder execCypher = new StringBuilder();
-          execCypher.append( "MERGE (e:Execution { name : $workflowName, type : $type, id : $id } ) " );
-          execCypher.append( "SET " );
-          execCypher.append( "  e.executionEnd = $executionEnd " );
-          execCypher.append( ", e.durationMs = $durationMs " );
-          execCypher.append( ", e.errors = $errors " );
-          execCypher.append( ", e.linesInput = $linesInput " );
-          execCypher.append( ", e.linesOutput = $linesOutput " );
-          execCypher.append( ", e.linesRead = $linesRead " );
-          execCypher.append( ", e.linesWritten = $linesWritten " );
-          execCypher.append( ", e.linesRejected = $linesRejected " );
-          execCypher.append( ", e.loggingText = $loggingText " );
-          execCypher.append( ", e.result = $result " );
-          execCypher.append( ", e.nrResultRows = $nrResultRows " );
-          execCypher.append( ", e.nrResultFiles = $nrResultFiles " );
-          transaction.run( execCypher.toString(), workflowPars );
-
-          StringBuilder relCypher = new StringBuilder();
-          relCypher.append( "MATCH (w:Workflow { name : $workflowName } ) " );
-          relCypher.append( "MATCH (e:Execution { name : $workflowName, type : $type, id : $id } ) " );
-          relCypher.append( "MERGE (e)-[r:EXECUTION_OF_WORKFLOW]->(w) " );
-          transaction.run( relCypher.toString(), workflowPars );
-
-          // Also log every workflow action execution results.
-          //
-          List<ActionResult> actionResults = workflow.getActionResults();
-          for ( ActionResult actionResult : actionResults ) {
-            String actionLogChannelId = actionResult.getLogChannelId();
-            String transformLoggingText = HopLogStore.getAppender().getBuffer( actionLogChannelId, true ).toString();
-            Result result = actionResult.getResult();
-            Map<String, Object> actionPars = new HashMap<>();
-            actionPars.put( "workflowName", workflowMeta.getName() );
-            actionPars.put( "name", actionResult.getActionName() );
-            actionPars.put( "type", EXECUTION_TYPE_ACTION );
-            actionPars.put( "id", actionLogChannelId );
-            actionPars.put( "workflowId", workflowLogChannelId );
-            actionPars.put( "nr", actionResult.getActionNr() );
-            actionPars.put( "comment", actionResult.getComment() );
-            actionPars.put( "reason", actionResult.getReason() );
-            actionPars.put( "loggingText", transformLoggingText );
-            actionPars.put( "errors", result.getNrErrors() );
-            actionPars.put( "linesRead", result.getNrLinesRead() );
-            actionPars.put( "linesWritten", result.getNrLinesWritten() );
-            actionPars.put( "linesInput", result.getNrLinesInput() );
-            actionPars.put( "linesOutput", result.getNrLinesOutput() );
-            actionPars.put( "linesRejected", result.getNrLinesRejected() );
-
-            StringBuilder actionExecCypher = new StringBuilder();
-            actionExecCypher.append( "MERGE (e:Execution { name : $name, type : $type, id : $id } ) " );
-            actionExecCypher.append( "SET " );
-            actionExecCypher.append( "  e.workflowId = $workflowId " );
-            actionExecCypher.append( ", e.loggingText = $loggingText " );
-            actionExecCypher.append( ", e.nr = $nr " );
-            actionExecCypher.append( ", e.comment = $comment " );
-            actionExecCypher.append( ", e.reason = $reason " );
-            actionExecCypher.append( ", e.linesRead = $linesRead " );
-            actionExecCypher.append( ", e.linesWritten = $linesWritten " );
-            actionExecCypher.append( ", e.linesInput = $linesInput " );
-            actionExecCypher.append( ", e.linesOutput = $linesOutput " );
-            actionExecCypher.append( ", e.linesRejected = $linesRejected " );
-            transaction.run( actionExecCypher.toString(), actionPars );
-
-            StringBuilder actionRelCypher = new StringBuilder();
-            actionRelCypher.append( "MATCH (a:Action { workflowName : $workflowName, name : $name } ) " );
-            actionRelCypher.append( "MATCH (e:Execution { name : $name, type : $type, id : $id } ) " );
-            actionRelCypher.append( "MERGE (e)-[r:EXECUTION_OF_ACTION]->(a) " );
-            transaction.run( actionRelCypher.toString(), actionPars );
-          }
+  private void logEndOfWorkflow( final ILogChannel log, final LoggingSink sink, final IWorkflowEngine<WorkflowMeta> workflow ) {
+    log.logDetailed( "Logging execution end of workflow to Neo4j" );
 
-          transaction.commit();
-        } catch ( Exception e ) {
-          log.logError( "Error logging workflow end", e );
-          transaction.rollback();
-        }
-        return null;
-      } );
+    final WorkflowMeta workflowMeta = workflow.getWorkflowMeta();
+
+    // Create a new node for each log channel and it's owner
+    // Start with the workflow
+    //
+    ILogChannel channel = workflow.getLogChannel();
+    Result workflowResult = workflow.getResult();
+    String workflowLogChannelId = workflow.getLogChannelId();
+    String workflowLoggingText = HopLogStore.getAppender().getBuffer( workflowLogChannelId, true ).toString();
+    boolean compressText = LoggingText.isCompressed( workflow );
+    int maxTextLength = LoggingText.getMaxLength( workflow );
+
+    Date endDate = new Date();
+    workflow.getExtensionDataMap().put( WORKFLOW_END_DATE, new Date() );
+    Date startDate = (Date) workflow.getExtensionDataMap().get( WORKFLOW_START_DATE );
+
+    Map<String, Object> workflowPars = new HashMap<>();
+    workflowPars.put( "workflowName", workflowMeta.getName() );
+    workflowPars.put( "type", EXECUTION_TYPE_WORKFLOW );
+    workflowPars.put( "id", channel.getLogChannelId() );
+    workflowPars.put( "executionEnd", new SimpleDateFormat( "yyyy/MM/dd'T'HH:mm:ss" ).format( endDate ) );
+    workflowPars.put( "durationMs", endDate.getTime() - startDate.getTime() );
+    workflowPars.put( "errors", workflowResult.getNrErrors() );
+    workflowPars.put( "linesInput", workflowResult.getNrLinesInput() );
+    workflowPars.put( "linesOutput", workflowResult.getNrLinesOutput() );
+    workflowPars.put( "linesRead", workflowResult.getNrLinesRead() );
+    workflowPars.put( "linesWritten", workflowResult.getNrLinesWritten() );
+    workflowPars.put( "linesRejected", workflowResult.getNrLinesRejected() );
+    workflowPars.put( "loggingText", compressText ? null : workflowLoggingText );
+    workflowPars.put( "result", workflowResult.getResult() );
+    workflowPars.put( "nrResultRows", workflowResult.getRows().size() );
+    workflowPars.put( "nrResultFiles", workflowResult.getResultFilesList().size() );
+    sink.log( WORKFLOW_EXECUTION_END, workflowPars );
+    if ( compressText ) {
+      LoggingText.log( sink, workflowMeta.getName(), EXECUTION_TYPE_WORKFLOW, channel.getLogChannelId(), workflowLoggingText, maxTextLength );
     }
-  }
 
+    Map<String, Object> relPars = new HashMap<>();
+    relPars.put( "workflowName", workflowMeta.getName() );
+    relPars.put( "type", EXECUTION_TYPE_WORKFLOW );
+    relPars.put( "id", channel.getLogChannelId() );
+    sink.log( WORKFLOW_EXECUTION_RELATIONSHIP, relPars );
 
-  private void logHierarchy( final ILogChannel log, final Session session, final NeoConnection connection,
-                             final List<LoggingHierarchy> hierarchies, String rootLogChannelId ) {
+    // Also log every workflow action execution results.
+    //
+    List<ActionResult> actionResults = workflow.getActionResults();
+    for ( ActionResult actionResult : actionResults ) {
+      String actionLogChannelId = actionResult.getLogChannelId();
+      String transformLoggingText = HopLogStore.getAppender().getBuffer( actionLogChannelId, true ).toString();
+      Result result = actionResult.getResult();
+      Map<String, Object> actionPars = new HashMap<>();
+      actionPars.put( "name", actionResult.getActionName() );
+      actionPars.put( "type", EXECUTION_TYPE_ACTION );
+      actionPars.put( "id", actionLogChannelId );
+      actionPars.put( "workflowId", workflowLogChannelId );
+      actionPars.put( "nr", actionResult.getActionNr() );
+      actionPars.put( "comment", actionResult.getComment() );
+      actionPars.put( "reason", actionResult.getReason() );
+      actionPars.put( "loggingText", compressText ? null : transformLoggingText );
+      actionPars.put( "errors", result.getNrErrors() );
+      actionPars.put( "linesRead", result.getNrLinesRead() );
+      actionPars.put( "linesWritten", result.getNrLinesWritten() );
+      actionPars.put( "linesInput", result.getNrLinesInput() );
+      actionPars.put( "linesOutput", result.getNrLinesOutput() );
+      actionPars.put( "linesRejected", result.getNrLinesRejected() );
+      sink.log( ACTION_EXECUTION, actionPars );
+      if ( compressText ) {
+        LoggingText.log( sink, actionResult.getActionName(), EXECUTION_TYPE_ACTION, actionLogChannelId, transformLoggingText, maxTextLength );
+      }
 
-    synchronized ( session ) {
-      session.writeTransaction( new TransactionWork<Void>() {
-        @Override public Void execute( Transaction transaction ) {
-          // Update create the Execution relationships
-          //
-          LoggingCore.writeHierarchies( log, connection, transaction, hierarchies, rootLogChannelId );
-          return null;
-        }
-      } );
+      Map<String, Object> actionRelPars = new HashMap<>();
+      actionRelPars.put( "workflowName", workflowMeta.getName() );
+      actionRelPars.put( "name", actionResult.getActionName() );
+      actionRelPars.put( "type", EXECUTION_TYPE_ACTION );
+      actionRelPars.put( "id", actionLogChannelId );
+      sink.log( ACTION_EXECUTION_RELATIONSHIP, actionRelPars );
     }
   }
 }
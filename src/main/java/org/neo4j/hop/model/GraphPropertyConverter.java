@@ -0,0 +1,22 @@
+package org.neo4j.hop.model;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+
+/**
+ * Converts a Hop value to a Neo4j property value.
+ * Get one with {@link GraphPropertyType#getConverter(IValueMeta)} once per column and use it for every row.
+ */
+@FunctionalInterface
+public interface GraphPropertyConverter {
+
+  /**
+   * Convert the given Hop value to a Neo4j property value
+   *
+   * @param valueMeta The metadata of the value, the one the converter was created for
+   * @param valueData The value to convert
+   * @return The Neo4j value or null if the Hop value is null
+   * @throws HopValueException In case the value can't be converted
+   */
+  Object convert( IValueMeta valueMeta, Object valueData ) throws HopValueException;
+}
@@ -0,0 +1,202 @@
+package org.neo4j.hop.model;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * Creates the converters from Hop values to Neo4j property values.
+ * The work which only depends on the Hop type, the storage type and the Neo4j type is done once, when the converter is created.
+ */
+public class GraphPropertyConverters {
+
+  public static final int SRID_CARTESIAN = 7203;
+  public static final int SRID_CARTESIAN_3D = 9157;
+  public static final int SRID_WGS84 = 4326;
+  public static final int SRID_WGS84_3D = 4979;
+
+  private GraphPropertyConverters() {
+  }
+
+  /**
+   * Get a converter for values of the given metadata to the given Neo4j type.
+   *
+   * @param type      The Neo4j property type to convert to
+   * @param valueMeta The metadata of the Hop values to convert
+   * @return The converter
+   */
+  public static GraphPropertyConverter getConverter( GraphPropertyType type, IValueMeta valueMeta ) {
+    boolean normalStorage = valueMeta.getStorageType() == IValueMeta.STORAGE_TYPE_NORMAL;
+    int hopType = valueMeta.getType();
+    ZoneId zoneId = ZoneId.systemDefault();
+
+    switch ( type ) {
+      case String:
+        if ( normalStorage && hopType == IValueMeta.TYPE_STRING && valueMeta.getTrimType() == IValueMeta.TRIM_TYPE_NONE ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : data;
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : meta.getString( data );
+      case Boolean:
+        if ( normalStorage && hopType == IValueMeta.TYPE_BOOLEAN ) {
+          return ( meta, data ) -> data;
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : meta.getBoolean( data );
+      case Float:
+        if ( normalStorage && hopType == IValueMeta.TYPE_NUMBER ) {
+          return ( meta, data ) -> data;
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : meta.getNumber( data );
+      case Integer:
+        if ( normalStorage && hopType == IValueMeta.TYPE_INTEGER ) {
+          return ( meta, data ) -> data;
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : meta.getInteger( data );
+      case ByteArray:
+        if ( normalStorage && hopType == IValueMeta.TYPE_BINARY ) {
+          return ( meta, data ) -> data;
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : meta.getBinary( data );
+      case Date:
+        return ( meta, data ) -> meta.isNull( data ) ? null : toInstant( meta.getDate( data ) ).atZone( zoneId ).toLocalDate();
+      case LocalDateTime:
+        if ( hopType == IValueMeta.TYPE_TIMESTAMP && normalStorage ) {
+          return ( meta, data ) -> data == null ? null : ( (Timestamp) data ).toLocalDateTime();
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : LocalDateTime.ofInstant( toInstant( meta.getDate( data ) ), zoneId );
+      case DateTime:
+        if ( hopType == IValueMeta.TYPE_STRING ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : ZonedDateTime.parse( meta.getString( data ) );
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : toInstant( meta.getDate( data ) ).atZone( zoneId );
+      case LocalTime:
+        if ( hopType == IValueMeta.TYPE_STRING ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : LocalTime.parse( meta.getString( data ) );
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : LocalDateTime.ofInstant( toInstant( meta.getDate( data ) ), zoneId ).toLocalTime();
+      case Time:
+        if ( hopType == IValueMeta.TYPE_STRING ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : OffsetTime.parse( meta.getString( data ) );
+        }
+        return ( meta, data ) -> meta.isNull( data ) ? null : toInstant( meta.getDate( data ) ).atZone( zoneId ).toOffsetDateTime().toOffsetTime();
+      case Duration:
+        if ( hopType == IValueMeta.TYPE_STRING ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : parseDuration( meta.getString( data ) );
+        }
+        if ( hopType == IValueMeta.TYPE_INTEGER || hopType == IValueMeta.TYPE_NUMBER || hopType == IValueMeta.TYPE_BIGNUMBER ) {
+          // Numbers are considered to be a number of milliseconds
+          //
+          return ( meta, data ) -> meta.isNull( data ) ? null : java.time.Duration.ofMillis( meta.getInteger( data ) );
+        }
+        break;
+      case Point:
+        if ( hopType == IValueMeta.TYPE_STRING ) {
+          return ( meta, data ) -> meta.isNull( data ) ? null : parsePoint( meta.getString( data ) );
+        }
+        break;
+      default:
+        break;
+    }
+    return ( meta, data ) -> {
+      if ( meta.isNull( data ) ) {
+        return null;
+      }
+      throw new HopValueException( "Data conversion to Neo4j type '" + type.name() + "' from value '" + meta.toStringMeta() + "' is not supported yet" );
+    };
+  }
+
+  /**
+   * Timestamps keep their nanoseconds, java.sql.Date doesn't support toInstant()
+   */
+  private static Instant toInstant( Date date ) {
+    if ( date instanceof Timestamp ) {
+      return ( (Timestamp) date ).toInstant();
+    }
+    return Instant.ofEpochMilli( date.getTime() );
+  }
+
+  /**
+   * Parse an ISO-8601 duration like P1Y2M10DT2H30M15.5S
+   *
+   * @param string The duration
+   * @return The Neo4j duration value
+   * @throws HopValueException In case the duration can't be parsed
+   */
+  public static Value parseDuration( String string ) throws HopValueException {
+    try {
+      String iso = string.trim().toUpperCase();
+      boolean negative = iso.startsWith( "-" );
+      if ( negative ) {
+        iso = iso.substring( 1 );
+      }
+      Period period = Period.ZERO;
+      java.time.Duration duration = java.time.Duration.ZERO;
+      int timeIndex = iso.indexOf( 'T' );
+      if ( timeIndex < 0 ) {
+        period = Period.parse( iso );
+      } else {
+        if ( timeIndex > 1 ) {
+          period = Period.parse( iso.substring( 0, timeIndex ) );
+        }
+        duration = java.time.Duration.parse( "P" + iso.substring( timeIndex ) );
+      }
+      if ( negative ) {
+        period = period.negated();
+        duration = duration.negated();
+      }
+      return Values.isoDuration( period.toTotalMonths(), period.getDays(), duration.getSeconds(), duration.getNano() );
+    } catch ( RuntimeException e ) {
+      throw new HopValueException( "Unable to convert '" + string + "' to an ISO-8601 duration", e );
+    }
+  }
+
+  /**
+   * Parse a point in WKT or EWKT notation like POINT(4.35 50.85), POINT Z(1 2 3) or SRID=4326;POINT(4.35 50.85)
+   * Without SRID the point is cartesian.
+   *
+   * @param string The point
+   * @return The Neo4j point value
+   * @throws HopValueException In case the point can't be parsed
+   */
+  public static Value parsePoint( String string ) throws HopValueException {
+    try {
+      String wkt = string.trim();
+      int srid = -1;
+      if ( wkt.regionMatches( true, 0, "SRID=", 0, 5 ) ) {
+        int semicolon = wkt.indexOf( ';' );
+        srid = java.lang.Integer.parseInt( wkt.substring( 5, semicolon ).trim() );
+        wkt = wkt.substring( semicolon + 1 ).trim();
+      }
+      int open = wkt.indexOf( '(' );
+      int close = wkt.lastIndexOf( ')' );
+      if ( !wkt.regionMatches( true, 0, "POINT", 0, 5 ) || open < 0 || close < open ) {
+        throw new HopValueException( "Unable to convert '" + string + "' to a point, use the WKT notation: POINT(x y)" );
+      }
+      String[] coordinates = wkt.substring( open + 1, close ).trim().split( "\\s+" );
+      double x = Double.parseDouble( coordinates[ 0 ] );
+      double y = Double.parseDouble( coordinates[ 1 ] );
+      if ( coordinates.length == 2 ) {
+        return Values.point( srid < 0 ? SRID_CARTESIAN : srid, x, y );
+      }
+      double z = Double.parseDouble( coordinates[ 2 ] );
+      if ( srid < 0 ) {
+        srid = SRID_CARTESIAN_3D;
+      } else if ( srid == SRID_WGS84 ) {
+        srid = SRID_WGS84_3D;
+      }
+      return Values.point( srid, x, y, z );
+    } catch ( RuntimeException e ) {
+      throw new HopValueException( "Unable to convert '" + string + "' to a point, use the WKT notation: POINT(x y)", e );
+    }
+  }
+}
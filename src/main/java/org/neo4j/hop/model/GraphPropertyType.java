@@ -3,8 +3,6 @@ package org.neo4j.hop.model;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IValueMeta;
 
-import java.time.ZoneId;
-
 public enum GraphPropertyType {
   String,
   Integer,
@@ -60,41 +58,25 @@ public enum GraphPropertyType {
 
 
   /**
-   * Convert the given Hop value to a Neo4j data type
+   * Convert the given Hop value to a Neo4j data type.
+   * To convert a lot of values, get a converter once with {@link #getConverter(IValueMeta)} instead.
    *
    * @param valueMeta
    * @param valueData
    * @return
    */
   public Object convertFromHop( IValueMeta valueMeta, Object valueData ) throws HopValueException {
+    return getConverter( valueMeta ).convert( valueMeta, valueData );
+  }
 
-    if ( valueMeta.isNull( valueData ) ) {
-      return null;
-    }
-    switch ( this ) {
-      case String:
-        return valueMeta.getString( valueData );
-      case Boolean:
-        return valueMeta.getBoolean( valueData );
-      case Float:
-        return valueMeta.getNumber( valueData );
-      case Integer:
-        return valueMeta.getInteger( valueData );
-      case Date:
-        return valueMeta.getDate( valueData ).toInstant().atZone( ZoneId.systemDefault() ).toLocalDate();
-      case LocalDateTime:
-        return valueMeta.getDate( valueData ).toInstant().atZone( ZoneId.systemDefault() ).toLocalDateTime();
-      case ByteArray:
-        return valueMeta.getBinary( valueData );
-      case Duration:
-      case DateTime:
-      case Time:
-      case Point:
-      case LocalTime:
-      default:
-        throw new HopValueException(
-          "Data conversion to Neo4j type '" + name() + "' from value '" + valueMeta.toStringMeta() + "' is not supported yet" );
-    }
+  /**
+   * Get a converter from values with the given metadata to this Neo4j data type
+   *
+   * @param valueMeta The metadata of the values to convert
+   * @return The converter
+   */
+  public GraphPropertyConverter getConverter( IValueMeta valueMeta ) {
+    return GraphPropertyConverters.getConverter( this, valueMeta );
   }
 
   public static final GraphPropertyType getTypeFromHop( IValueMeta valueMeta ) {
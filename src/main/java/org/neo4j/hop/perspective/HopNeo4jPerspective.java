@@ -83,8 +83,10 @@ import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Path;
 import org.neo4j.hop.logging.Defaults;
 import org.neo4j.hop.logging.util.LoggingCore;
+import org.neo4j.hop.logging.util.LoggingText;
 import org.neo4j.hop.shared.NeoConnection;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -111,6 +113,7 @@ public class HopNeo4jPerspective implements IHopPerspective {
   private CTabFolder tabFolder;
   private TableView wResults;
   private Text wLogging;
+  private Button wbLogging;
   private Tree wTree;
   private Text wCypher;
   private Image lineageImage;
@@ -120,6 +123,9 @@ public class HopNeo4jPerspective implements IHopPerspective {
   private Font defaultTabFont;
   private Text wUsedConnection;
 
+  /** The execution to show the logging text of when it's asked for */
+  private Map<String, Object> pendingLoggingParameters;
+
   public HopNeo4jPerspective() {}
 
   @Override
@@ -365,10 +371,30 @@ public class HopNeo4jPerspective implements IHopPerspective {
     CTabItem loggingTab = new CTabItem(tabFolder, SWT.NONE);
     loggingTab.setImage(GuiResource.getInstance().getImageShowLog());
     loggingTab.setText("Logging");
-    wLogging = new Text(tabFolder, SWT.MULTI | SWT.V_SCROLL | SWT.H_SCROLL);
+    Composite loggingComposite = new Composite(tabFolder, SWT.NONE);
+    props.setLook(loggingComposite);
+    loggingComposite.setLayout(new FormLayout());
+    // The logging text can be large, it's only fetched when asked for
+    //
+    wbLogging = new Button(loggingComposite, SWT.PUSH);
+    props.setLook(wbLogging);
+    wbLogging.setText("  Show logging  ");
+    wbLogging.setEnabled(false);
+    FormData fdbLogging = new FormData();
+    fdbLogging.left = new FormAttachment(0, 0);
+    fdbLogging.top = new FormAttachment(0, margin);
+    wbLogging.setLayoutData(fdbLogging);
+    wbLogging.addListener(SWT.Selection, this::fetchLogging);
+    wLogging = new Text(loggingComposite, SWT.MULTI | SWT.V_SCROLL | SWT.H_SCROLL);
     props.setLook(wLogging);
     wLogging.setFont(GuiResource.getInstance().getFontFixed());
-    loggingTab.setControl(wLogging);
+    FormData fdLogging = new FormData();
+    fdLogging.left = new FormAttachment(0, 0);
+    fdLogging.top = new FormAttachment(wbLogging, margin);
+    fdLogging.right = new FormAttachment(100, 0);
+    fdLogging.bottom = new FormAttachment(100, 0);
+    wLogging.setLayoutData(fdLogging);
+    loggingTab.setControl(loggingComposite);
 
     CTabItem lineageTab = new CTabItem(tabFolder, SWT.NONE);
     lineageTab.setImage(lineageImage);
@@ -459,7 +485,14 @@ public class HopNeo4jPerspective implements IHopPerspective {
       try {
         session = connection.getSession(log);
 
-        analyzeLogging(session, id, name, type);
+        // The logging text can be large, only fetch it when the user asks for it
+        //
+        wLogging.setText("");
+        pendingLoggingParameters = new HashMap<>();
+        pendingLoggingParameters.put("name", name);
+        pendingLoggingParameters.put("id", id);
+        pendingLoggingParameters.put("type", type);
+        wbLogging.setEnabled(true);
         List<List<HistoryResult>> shortestPaths = analyzeErrorLineage( session, id, name, type, errors );
         analyzeCypherStatements(connection, session, id, name, type, errors, shortestPaths);
 
@@ -473,20 +506,50 @@ public class HopNeo4jPerspective implements IHopPerspective {
     }
   }
 
-  private void analyzeLogging(Session session, String id, String name, String type) {
+  /**
+   * Fetch the logging text of the selected execution when the show logging button is pressed
+   *
+   * @param event
+   */
+  private void fetchLogging(Event event) {
+    if (pendingLoggingParameters == null) {
+      return;
+    }
+    try {
+      final NeoConnection connection = findLoggingConnection();
+      if (connection == null) {
+        return;
+      }
+      Session session = null;
+      try {
+        session = connection.getSession(hopGui.getLog());
+        analyzeLogging(session);
+      } finally {
+        if (session != null) {
+          session.close();
+        }
+      }
+    } catch (Exception e) {
+      new ErrorDialog(hopGui.getShell(), "Error", "Error reading execution logging", e);
+    }
+  }
+
+  private void analyzeLogging(Session session) {
     // Read the logging data for the selected execution
     //
-    Map<String, Object> loggingParameters = new HashMap<>();
-    loggingParameters.put("name", name);
-    loggingParameters.put("id", id);
-    loggingParameters.put("type", type);
+    final Map<String, Object> loggingParameters = pendingLoggingParameters;
+    pendingLoggingParameters = null;
+    wbLogging.setEnabled(false);
 
+    // The logging text is either stored in the execution or compressed in a LogText node of its own
+    //
     final StringBuilder loggingCypher = new StringBuilder();
     loggingCypher.append("MATCH(e:Execution) ");
     loggingCypher.append("WHERE e.id = $id ");
     loggingCypher.append("AND   e.name = $name ");
     loggingCypher.append("AND   e.type = $type ");
-    loggingCypher.append("RETURN e.loggingText ");
+    loggingCypher.append("OPTIONAL MATCH (e)-[:HAS_LOGGING_TEXT]->(t:LogText) ");
+    loggingCypher.append("RETURN e.loggingText, t.data ");
 
     session.readTransaction(
         tx -> {
@@ -494,7 +557,15 @@ public class HopNeo4jPerspective implements IHopPerspective {
           while (result.hasNext()) {
             Record record = result.next();
             Value value = record.get(0);
-            String loggingText = value.asString();
+            Value data = record.get(1);
+            String loggingText = value.isNull() ? null : value.asString();
+            if (!data.isNull()) {
+              try {
+                loggingText = LoggingText.decompress(data.asByteArray());
+              } catch (IOException e) {
+                loggingText = "<unable to decompress logging: " + e.getMessage() + ">";
+              }
+            }
             wLogging.setText(Const.NVL(loggingText, "<no logging found>"));
           }
           return null;
@@ -1,73 +1,274 @@
 package org.neo4j.hop.shared;
 
+import org.apache.hop.core.Const;
+import org.apache.hop.core.encryption.Encr;
 import org.apache.hop.core.logging.ILogChannel;
 import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.async.AsyncSession;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Process wide registry of Neo4j drivers.
+ * Drivers are shared between all users of the same effective connection configuration.
+ * Every session handed out holds a lease on its driver which is given back when the session is closed.
+ * Drivers without leases are closed after they've been idle for a while.
+ */
 public class DriverSingleton {
 
+  /**
+   * System property to set the number of milliseconds an unused driver is kept around
+   */
+  public static final String PROPERTY_IDLE_EVICTION_MS = "NEO4J_DRIVER_IDLE_EVICTION_MS";
+
+  public static final long DEFAULT_IDLE_EVICTION_MS = 300000L;
+
   private static DriverSingleton singleton;
 
-  private Map<String, Driver> driverMap;
+  private final Map<String, DriverEntry> driverMap;
+
+  private final long idleEvictionMs;
+
+  private final ScheduledExecutorService evictionService;
 
   private DriverSingleton() {
     driverMap = new HashMap<>();
+    idleEvictionMs = Const.toLong( System.getProperty( PROPERTY_IDLE_EVICTION_MS ), DEFAULT_IDLE_EVICTION_MS );
+
+    evictionService = Executors.newSingleThreadScheduledExecutor( runnable -> {
+      Thread thread = new Thread( runnable, "Neo4j driver eviction" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    long period = Math.max( 1000L, idleEvictionMs / 2 );
+    evictionService.scheduleWithFixedDelay( this::evictIdleDrivers, period, period, TimeUnit.MILLISECONDS );
   }
 
-  public static DriverSingleton getInstance() {
+  public static synchronized DriverSingleton getInstance() {
     if ( singleton == null ) {
       singleton = new DriverSingleton();
     }
     return singleton;
   }
 
-  public static Driver getDriver( ILogChannel log, NeoConnection connection ) {
+  /**
+   * Open a session on the shared driver for the given connection.
+   * Closing the session gives back the lease on the driver.
+   *
+   * @param log           The log channel to log to
+   * @param connection    The connection to get a driver for
+   * @param sessionConfig The configuration of the session
+   * @return A new session on the shared driver
+   */
+  public static Session getSession( ILogChannel log, NeoConnection connection, SessionConfig sessionConfig ) {
     DriverSingleton ds = getInstance();
+    String key = getDriverKey( connection );
+
+    Driver driver = ds.acquire( log, key, connection );
+    try {
+      return new PooledSession( driver.session( sessionConfig ), key );
+    } catch ( RuntimeException e ) {
+      release( key );
+      throw e;
+    }
+  }
 
+  /**
+   * Open an asynchronous session on the shared driver for the given connection.
+   * Closing the session gives back the lease on the driver.
+   *
+   * @param log           The log channel to log to
+   * @param connection    The connection to get a driver for
+   * @param sessionConfig The configuration of the session
+   * @return A new asynchronous session on the shared driver
+   */
+  public static AsyncSession getAsyncSession( ILogChannel log, NeoConnection connection, SessionConfig sessionConfig ) {
+    DriverSingleton ds = getInstance();
     String key = getDriverKey( connection );
 
-    Driver driver = ds.driverMap.get( key );
-    if ( driver == null ) {
-      driver = connection.getDriver( log );
-      ds.driverMap.put( key, driver );
+    Driver driver = ds.acquire( log, key, connection );
+    try {
+      return new PooledAsyncSession( driver.asyncSession( sessionConfig ), key );
+    } catch ( RuntimeException e ) {
+      release( key );
+      throw e;
+    }
+  }
+
+  private Driver acquire( ILogChannel log, String key, NeoConnection connection ) {
+    synchronized ( driverMap ) {
+      DriverEntry entry = driverMap.get( key );
+      if ( entry == null ) {
+        if ( log != null ) {
+          log.logDetailed( "Creating shared Neo4j driver for connection '" + connection.getName() + "'" );
+        }
+        entry = new DriverEntry( connection.getDriver( log ) );
+        driverMap.put( key, entry );
+      }
+      entry.leases++;
+      return entry.driver;
     }
+  }
+
+  /**
+   * Give back a lease on the driver with the given key
+   *
+   * @param key The driver key
+   */
+  static void release( String key ) {
+    DriverSingleton ds = getInstance();
+    synchronized ( ds.driverMap ) {
+      DriverEntry entry = ds.driverMap.get( key );
+      if ( entry != null && entry.leases > 0 ) {
+        entry.leases--;
+        entry.lastReleased = System.currentTimeMillis();
+      }
+    }
+  }
 
-    return driver;
+  /**
+   * Close all drivers which have no leases and which have been idle longer than the eviction time
+   */
+  public void evictIdleDrivers() {
+    List<Driver> idleDrivers = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    synchronized ( driverMap ) {
+      Iterator<DriverEntry> iterator = driverMap.values().iterator();
+      while ( iterator.hasNext() ) {
+        DriverEntry entry = iterator.next();
+        if ( entry.leases == 0 && now - entry.lastReleased >= idleEvictionMs ) {
+          idleDrivers.add( entry.driver );
+          iterator.remove();
+        }
+      }
+    }
+    // Closing a driver can take a while so don't keep the registry locked
+    //
+    for ( Driver driver : idleDrivers ) {
+      closeQuietly( driver );
+    }
   }
 
+  /**
+   * Close all drivers, leased or not.
+   */
   public static void closeAll() {
     DriverSingleton ds = getInstance();
 
-    List<String> keys = new ArrayList<>( ds.getDriverMap().keySet() );
-    for ( String key : keys ) {
-      synchronized ( ds.getDriverMap() ) {
-        Driver driver = ds.driverMap.get( key );
-        driver.close();
-        ds.driverMap.remove( key );
+    List<Driver> drivers;
+    synchronized ( ds.driverMap ) {
+      drivers = new ArrayList<>();
+      for ( DriverEntry entry : ds.driverMap.values() ) {
+        drivers.add( entry.driver );
       }
+      ds.driverMap.clear();
+    }
+    for ( Driver driver : drivers ) {
+      closeQuietly( driver );
     }
   }
 
+  private static void closeQuietly( Driver driver ) {
+    try {
+      driver.close();
+    } catch ( Exception e ) {
+      // Nothing left to do with this driver
+    }
+  }
+
+  /**
+   * The key covers everything which ends up in the driver configuration.
+   * Connections with the same name but different settings (variables) get their own driver.
+   *
+   * @param connection The connection
+   * @return The key of the driver in the registry
+   */
   private static String getDriverKey( NeoConnection connection ) {
-    String hostname = connection.environmentSubstitute( connection.getServer() );
-    String boltPort = connection.environmentSubstitute( connection.getBoltPort() );
-    String username = connection.environmentSubstitute( connection.getUsername() );
+    StringBuilder key = new StringBuilder();
+    key.append( connection.getUrl() );
+    key.append( "|routing=" ).append( connection.isUsingRouting() );
+    key.append( "|user=" ).append( connection.environmentSubstitute( connection.getUsername() ) );
+    key.append( "|password=" ).append( hashPassword( Encr.decryptPasswordOptionallyEncrypted( connection.environmentSubstitute( connection.getPassword() ) ) ) );
+    key.append( "|encryption=" ).append( connection.encryptionVariableSet() || connection.isUsingEncryption() );
+    key.append( "|trustAll=" ).append( connection.trustAllCertificatesVariableSet() || connection.isTrustAllCertificates() );
+    key.append( "|liveness=" ).append( connection.environmentSubstitute( connection.getConnectionLivenessCheckTimeout() ) );
+    key.append( "|lifetime=" ).append( connection.environmentSubstitute( connection.getMaxConnectionLifetime() ) );
+    key.append( "|poolSize=" ).append( connection.environmentSubstitute( connection.getMaxConnectionPoolSize() ) );
+    key.append( "|acquisition=" ).append( connection.environmentSubstitute( connection.getConnectionAcquisitionTimeout() ) );
+    key.append( "|timeout=" ).append( connection.environmentSubstitute( connection.getConnectionTimeout() ) );
+    key.append( "|retry=" ).append( connection.environmentSubstitute( connection.getMaxTransactionRetryTime() ) );
+    key.append( "|database=" ).append( connection.environmentSubstitute( connection.getDatabaseName() ) );
+    return key.toString();
+  }
 
-    return hostname + ":" + boltPort + "@" + username;
+  /**
+   * The driver keys live as long as the drivers and end up in the sessions: keep the password itself out of them
+   *
+   * @param password The plain text password
+   * @return The SHA-256 hash of the password as a hexadecimal string
+   */
+  private static String hashPassword( String password ) {
+    if ( password == null ) {
+      return null;
+    }
+    try {
+      byte[] hash = MessageDigest.getInstance( "SHA-256" ).digest( password.getBytes( StandardCharsets.UTF_8 ) );
+      StringBuilder hex = new StringBuilder();
+      for ( byte b : hash ) {
+        hex.append( String.format( "%02x", b ) );
+      }
+      return hex.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( "SHA-256 is not available", e );
+    }
   }
 
   /**
-   * Gets driverMap
+   * Gets the number of leases on all the drivers in the registry
    *
-   * @return value of driverMap
+   * @return The total number of open sessions on shared drivers
    */
-  public Map<String, Driver> getDriverMap() {
-    return driverMap;
+  public int getNrLeases() {
+    synchronized ( driverMap ) {
+      int leases = 0;
+      for ( DriverEntry entry : driverMap.values() ) {
+        leases += entry.leases;
+      }
+      return leases;
+    }
   }
 
+  /**
+   * Gets the number of drivers in the registry
+   *
+   * @return The number of shared drivers
+   */
+  public int getNrDrivers() {
+    synchronized ( driverMap ) {
+      return driverMap.size();
+    }
+  }
 
+  private static class DriverEntry {
+    private final Driver driver;
+    private int leases;
+    private long lastReleased;
+
+    private DriverEntry( Driver driver ) {
+      this.driver = driver;
+      this.lastReleased = System.currentTimeMillis();
+    }
+  }
 }
@@ -21,6 +21,7 @@ import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.SessionConfig;
 import org.neo4j.driver.Value;
+import org.neo4j.driver.async.AsyncSession;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -171,13 +172,57 @@ public class NeoConnection extends Variables implements IHopMetadata {
   }
 
   /**
-   * Get a Neo4j session to work with
+   * Get a Neo4j session to work with.
+   * The session runs on a driver which is shared with all other users of the same connection settings.
+   * Always close the session when you're done with it.
    *
    * @param log The logchannel to log to
    * @return The Neo4j session
    */
   public Session getSession( ILogChannel log ) {
-    Driver driver = getDriver( log );
+    return DriverSingleton.getSession( log, this, getSessionConfig() );
+  }
+
+  /**
+   * Get a Neo4j session with a specific configuration, for example with a different fetch size.
+   * The session runs on a driver which is shared with all other users of the same connection settings.
+   * Always close the session when you're done with it.
+   *
+   * @param log           The logchannel to log to
+   * @param sessionConfig The session configuration, start from {@link #getSessionConfigBuilder()}
+   * @return The Neo4j session
+   */
+  public Session getSession( ILogChannel log, SessionConfig sessionConfig ) {
+    return DriverSingleton.getSession( log, this, sessionConfig );
+  }
+
+  /**
+   * Get an asynchronous Neo4j session to work with.
+   * The session runs on a driver which is shared with all other users of the same connection settings.
+   * Always close the session when you're done with it.
+   *
+   * @param log The logchannel to log to
+   * @return The asynchronous Neo4j session
+   */
+  public AsyncSession getAsyncSession( ILogChannel log ) {
+    return DriverSingleton.getAsyncSession( log, this, getSessionConfig() );
+  }
+
+  /**
+   * Get the session configuration for this connection, the database to use in particular.
+   *
+   * @return The session configuration
+   */
+  public SessionConfig getSessionConfig() {
+    return getSessionConfigBuilder().build();
+  }
+
+  /**
+   * Get a session configuration builder for this connection with the database to use already set.
+   *
+   * @return The session configuration builder
+   */
+  public SessionConfig.Builder getSessionConfigBuilder() {
     SessionConfig.Builder cfgBuilder = SessionConfig.builder();
     if ( StringUtils.isNotEmpty( databaseName ) ) {
       String realDatabaseName = environmentSubstitute( databaseName );
@@ -185,7 +230,7 @@ public class NeoConnection extends Variables implements IHopMetadata {
         cfgBuilder.withDatabase( realDatabaseName );
       }
     }
-    return driver.session( cfgBuilder.build() );
+    return cfgBuilder;
   }
 
   /**
@@ -197,12 +242,7 @@ public class NeoConnection extends Variables implements IHopMetadata {
 
     Session session = null;
     try {
-      Driver driver = getDriver( LogChannel.GENERAL );
-      SessionConfig.Builder builder = SessionConfig.builder();
-      if ( StringUtils.isNotEmpty( databaseName ) ) {
-        builder = builder.withDatabase( environmentSubstitute( databaseName ) );
-      }
-      session = driver.session( builder.build() );
+      session = getSession( LogChannel.GENERAL );
       // Do something with the session otherwise it doesn't test the connection
       //
       Result result = session.run( "RETURN 0" );
@@ -343,7 +383,13 @@ public class NeoConnection extends Variables implements IHopMetadata {
   }
 
 
-
+  /**
+   * Create a new driver for this connection.
+   * The caller owns the driver and needs to close it.  Use {@link #getSession(ILogChannel)} to work with a shared driver.
+   *
+   * @param log The logchannel to log to
+   * @return A new driver
+   */
   public Driver getDriver( ILogChannel log ) {
 
     try {
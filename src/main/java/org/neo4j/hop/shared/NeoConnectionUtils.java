@@ -1,13 +1,27 @@
 package org.neo4j.hop.shared;
 
 import org.apache.hop.core.logging.ILogChannel;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.exceptions.ClientException;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class NeoConnectionUtils {
   private static Class<?> PKG = NeoConnectionUtils.class; // for i18n purposes, needed by Translator2!!
 
+  /**
+   * The description of a constraint in db.constraints() before Neo4j 4.2, e.g.
+   * CONSTRAINT ON ( person:Person ) ASSERT (person.name) IS UNIQUE
+   */
+  private static final Pattern CONSTRAINT_DESCRIPTION = Pattern.compile( "ON \\( *(`[^`]+`|\\w+):`?(.+?)`? *\\) ASSERT \\(?(.+?)\\)? IS (UNIQUE|NODE KEY)" );
+
   public static final void createNodeIndex( ILogChannel log, Session session, List<String> labels, List<String> keyProperties ) {
 
     // If we have no properties or labels, we have nothing to do here
@@ -60,4 +74,55 @@ public class NeoConnectionUtils {
     session.run( indexCypher );
   }
 
+  /**
+   * See if there is a uniqueness or node key constraint on exactly the given properties of a label.
+   * With such a constraint concurrent sessions can MERGE the same node without creating duplicates.
+   *
+   * @param session    The session to use
+   * @param label      The node label
+   * @param properties The key properties of the node
+   * @return true if there is a uniqueness or node key constraint on the label and properties
+   */
+  public static boolean hasUniqueConstraint( Session session, String label, List<String> properties ) {
+    HashSet<String> propertySet = new HashSet<>( properties );
+    try {
+      return session.readTransaction( tx -> {
+        Result result = tx.run( "SHOW CONSTRAINTS YIELD labelsOrTypes, properties, type" );
+        while ( result.hasNext() ) {
+          Record record = result.next();
+          String type = record.get( "type" ).asString();
+          if ( ( type.startsWith( "UNIQUENESS" ) || type.startsWith( "NODE_KEY" ) )
+            && record.get( "labelsOrTypes" ).asList( Value::asString ).contains( label )
+            && propertySet.equals( new HashSet<>( record.get( "properties" ).asList( Value::asString ) ) ) ) {
+            return true;
+          }
+        }
+        return false;
+      } );
+    } catch ( ClientException e ) {
+      // SHOW CONSTRAINTS needs Neo4j 4.2 or later, parse the descriptions of db.constraints() instead
+      //
+      return session.readTransaction( tx -> {
+        Result result = tx.run( "CALL db.constraints()" );
+        while ( result.hasNext() ) {
+          Matcher matcher = CONSTRAINT_DESCRIPTION.matcher( result.next().get( "description" ).asString() );
+          if ( matcher.find() && label.equals( matcher.group( 2 ) ) ) {
+            String variablePrefix = matcher.group( 1 ) + ".";
+            List<String> constraintProperties = new ArrayList<>();
+            for ( String property : matcher.group( 3 ).split( "," ) ) {
+              property = property.trim();
+              if ( property.startsWith( variablePrefix ) ) {
+                property = property.substring( variablePrefix.length() );
+              }
+              constraintProperties.add( property.replace( "`", "" ) );
+            }
+            if ( propertySet.equals( new HashSet<>( constraintProperties ) ) ) {
+              return true;
+            }
+          }
+        }
+        return false;
+      } );
+    }
+  }
 }
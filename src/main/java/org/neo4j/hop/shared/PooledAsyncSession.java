@@ -0,0 +1,100 @@
+package org.neo4j.hop.shared;
+
+import org.neo4j.driver.Bookmark;
+import org.neo4j.driver.Query;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransaction;
+import org.neo4j.driver.async.AsyncTransactionWork;
+import org.neo4j.driver.async.ResultCursor;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An asynchronous session on a driver shared through {@link DriverSingleton}.
+ * Closing it gives back the lease on the driver, exactly once.
+ */
+public class PooledAsyncSession implements AsyncSession {
+
+  private final AsyncSession session;
+  private final String driverKey;
+  private final AtomicBoolean released;
+
+  PooledAsyncSession( AsyncSession session, String driverKey ) {
+    this.session = session;
+    this.driverKey = driverKey;
+    this.released = new AtomicBoolean( false );
+  }
+
+  @Override public CompletionStage<AsyncTransaction> beginTransactionAsync() {
+    return session.beginTransactionAsync();
+  }
+
+  @Override public CompletionStage<AsyncTransaction> beginTransactionAsync( TransactionConfig config ) {
+    return session.beginTransactionAsync( config );
+  }
+
+  @Override public <T> CompletionStage<T> readTransactionAsync( AsyncTransactionWork<CompletionStage<T>> work ) {
+    return session.readTransactionAsync( work );
+  }
+
+  @Override public <T> CompletionStage<T> readTransactionAsync( AsyncTransactionWork<CompletionStage<T>> work, TransactionConfig config ) {
+    return session.readTransactionAsync( work, config );
+  }
+
+  @Override public <T> CompletionStage<T> writeTransactionAsync( AsyncTransactionWork<CompletionStage<T>> work ) {
+    return session.writeTransactionAsync( work );
+  }
+
+  @Override public <T> CompletionStage<T> writeTransactionAsync( AsyncTransactionWork<CompletionStage<T>> work, TransactionConfig config ) {
+    return session.writeTransactionAsync( work, config );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query, TransactionConfig config ) {
+    return session.runAsync( query, config );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query, Map<String, Object> parameters, TransactionConfig config ) {
+    return session.runAsync( query, parameters, config );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( Query query, TransactionConfig config ) {
+    return session.runAsync( query, config );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query, Value parameters ) {
+    return session.runAsync( query, parameters );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query, Map<String, Object> parameters ) {
+    return session.runAsync( query, parameters );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query, Record parameters ) {
+    return session.runAsync( query, parameters );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( String query ) {
+    return session.runAsync( query );
+  }
+
+  @Override public CompletionStage<ResultCursor> runAsync( Query query ) {
+    return session.runAsync( query );
+  }
+
+  @Override public Bookmark lastBookmark() {
+    return session.lastBookmark();
+  }
+
+  @Override public CompletionStage<Void> closeAsync() {
+    return session.closeAsync().whenComplete( ( ignored, error ) -> {
+      if ( released.compareAndSet( false, true ) ) {
+        DriverSingleton.release( driverKey );
+      }
+    } );
+  }
+}
@@ -0,0 +1,119 @@
+package org.neo4j.hop.shared;
+
+import org.neo4j.driver.Bookmark;
+import org.neo4j.driver.Query;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.TransactionWork;
+import org.neo4j.driver.Value;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A session on a driver shared through {@link DriverSingleton}.
+ * Closing it gives back the lease on the driver, exactly once.
+ */
+public class PooledSession implements Session {
+
+  private final Session session;
+  private final String driverKey;
+  private final AtomicBoolean released;
+
+  PooledSession( Session session, String driverKey ) {
+    this.session = session;
+    this.driverKey = driverKey;
+    this.released = new AtomicBoolean( false );
+  }
+
+  @Override public Transaction beginTransaction() {
+    return session.beginTransaction();
+  }
+
+  @Override public Transaction beginTransaction( TransactionConfig config ) {
+    return session.beginTransaction( config );
+  }
+
+  @Override public <T> T readTransaction( TransactionWork<T> work ) {
+    return session.readTransaction( work );
+  }
+
+  @Override public <T> T readTransaction( TransactionWork<T> work, TransactionConfig config ) {
+    return session.readTransaction( work, config );
+  }
+
+  @Override public <T> T writeTransaction( TransactionWork<T> work ) {
+    return session.writeTransaction( work );
+  }
+
+  @Override public <T> T writeTransaction( TransactionWork<T> work, TransactionConfig config ) {
+    return session.writeTransaction( work, config );
+  }
+
+  @Override public Result run( String query, TransactionConfig config ) {
+    return session.run( query, config );
+  }
+
+  @Override public Result run( String query, Map<String, Object> parameters, TransactionConfig config ) {
+    return session.run( query, parameters, config );
+  }
+
+  @Override public Result run( Query query, TransactionConfig config ) {
+    return session.run( query, config );
+  }
+
+  @Override public Result run( String query, Value parameters ) {
+    return session.run( query, parameters );
+  }
+
+  @Override public Result run( String query, Map<String, Object> parameters ) {
+    return session.run( query, parameters );
+  }
+
+  @Override public Result run( String query, Record parameters ) {
+    return session.run( query, parameters );
+  }
+
+  @Override public Result run( String query ) {
+    return session.run( query );
+  }
+
+  @Override public Result run( Query query ) {
+    return session.run( query );
+  }
+
+  @Override public Bookmark lastBookmark() {
+    return session.lastBookmark();
+  }
+
+  @Deprecated
+  @Override public void reset() {
+    session.reset();
+  }
+
+  @Override public boolean isOpen() {
+    return session.isOpen();
+  }
+
+  @Override public void close() {
+    try {
+      session.close();
+    } finally {
+      if ( released.compareAndSet( false, true ) ) {
+        DriverSingleton.release( driverKey );
+      }
+    }
+  }
+
+  /**
+   * Gets the wrapped driver session
+   *
+   * @return value of session
+   */
+  public Session getSession() {
+    return session;
+  }
+}
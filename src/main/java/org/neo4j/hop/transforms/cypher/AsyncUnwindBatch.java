@@ -0,0 +1,104 @@
+package org.neo4j.hop.transforms.cypher;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransactionWork;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A batch of UNWIND parameters which is being executed asynchronously.
+ * The result records and summary are kept until the transform emits them, in the order the batches were sent.
+ */
+public class AsyncUnwindBatch {
+
+  private final int size;
+  private final String cypher;
+  private final Map<String, Object> unwindMap;
+
+  private CompletableFuture<AsyncUnwindBatch> future;
+  private List<Record> records;
+  private ResultSummary summary;
+
+  public AsyncUnwindBatch( int size, String cypher, Map<String, Object> unwindMap ) {
+    this.size = size;
+    this.cypher = cypher;
+    this.unwindMap = unwindMap;
+  }
+
+  /**
+   * Send the batch to the server on the given session.  This method doesn't wait for the result.
+   *
+   * @param session  The asynchronous session to use, it shouldn't have any other transaction in flight
+   * @param readOnly true if we need a read transaction, false for a write transaction
+   */
+  public void execute( AsyncSession session, boolean readOnly ) {
+    AsyncTransactionWork<CompletionStage<AsyncUnwindBatch>> work = transaction ->
+      transaction.runAsync( cypher, unwindMap ).thenCompose( cursor ->
+        cursor.listAsync().thenCompose( list ->
+          cursor.consumeAsync().thenApply( resultSummary -> {
+            records = list;
+            summary = resultSummary;
+            return this;
+          } )
+        )
+      );
+
+    CompletionStage<AsyncUnwindBatch> stage;
+    if ( readOnly ) {
+      stage = session.readTransactionAsync( work );
+    } else {
+      stage = session.writeTransactionAsync( work );
+    }
+    future = stage.toCompletableFuture();
+  }
+
+  /**
+   * Gets size
+   *
+   * @return value of size
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Gets cypher
+   *
+   * @return value of cypher
+   */
+  public String getCypher() {
+    return cypher;
+  }
+
+  /**
+   * Gets future
+   *
+   * @return value of future
+   */
+  public CompletableFuture<AsyncUnwindBatch> getFuture() {
+    return future;
+  }
+
+  /**
+   * Gets records
+   *
+   * @return value of records
+   */
+  public List<Record> getRecords() {
+    return records;
+  }
+
+  /**
+   * Gets summary
+   *
+   * @return value of summary
+   */
+  public ResultSummary getSummary() {
+    return summary;
+  }
+}
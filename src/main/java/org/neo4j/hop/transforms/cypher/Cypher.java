@@ -13,28 +13,29 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
-import org.json.simple.JSONValue;
+import org.neo4j.driver.AccessMode;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.Transaction;
 import org.neo4j.driver.TransactionWork;
-import org.neo4j.driver.Value;
+import org.neo4j.driver.async.AsyncSession;
 import org.neo4j.driver.exceptions.ServiceUnavailableException;
 import org.neo4j.driver.summary.Notification;
 import org.neo4j.driver.summary.ResultSummary;
 import org.neo4j.hop.core.data.GraphData;
 import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.model.GraphPropertyType;
 import org.neo4j.hop.shared.NeoConnection;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITransform<CypherMeta, CypherData> {
 
@@ -72,6 +73,30 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
 
     data.batchSize = Const.toLong( environmentSubstitute( meta.getBatchSize() ), 1 );
 
+    data.streaming = meta.isStreaming();
+    if ( data.streaming ) {
+      data.fetchSize = Const.toLong( environmentSubstitute( meta.getFetchSize() ), 1000L );
+      if ( data.fetchSize < 1 ) {
+        log.logError( "The fetch size needs to be at least 1" );
+        return false;
+      }
+      if ( meta.isUsingUnwind() && meta.isAsyncUnwind() ) {
+        log.logError( "Streaming the results can't be combined with sending UNWIND batches asynchronously" );
+        return false;
+      }
+    }
+
+    data.asyncUnwind = meta.isUsingUnwind() && meta.isAsyncUnwind();
+    if ( data.asyncUnwind ) {
+      data.maxBatchesInFlight = Const.toInt( environmentSubstitute( meta.getMaxBatchesInFlight() ), 2 );
+      if ( data.maxBatchesInFlight < 1 ) {
+        log.logError( "The maximum number of batches in flight needs to be at least 1" );
+        return false;
+      }
+      data.asyncSessions = new ArrayList<>();
+      data.asyncBatches = new ArrayDeque<>();
+    }
+
     try {
       createDriverSession();
     } catch ( Exception e ) {
@@ -94,10 +119,24 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
     if ( data.session != null ) {
       data.session.close();
     }
+    if ( data.asyncSessions != null ) {
+      for ( AsyncSession asyncSession : data.asyncSessions ) {
+        asyncSession.closeAsync().toCompletableFuture().join();
+      }
+      data.asyncSessions.clear();
+    }
   }
 
   private void createDriverSession() {
-    data.session = data.neoConnection.getSession( log );
+    if ( data.streaming ) {
+      SessionConfig sessionConfig = data.neoConnection.getSessionConfigBuilder()
+        .withFetchSize( data.fetchSize )
+        .withDefaultAccessMode( meta.isReadOnly() ? AccessMode.READ : AccessMode.WRITE )
+        .build();
+      data.session = data.neoConnection.getSession( log, sessionConfig );
+    } else {
+      data.session = data.neoConnection.getSession( log );
+    }
   }
 
   private void reconnect() {
@@ -150,10 +189,6 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
       data.outputRowMeta = data.hasInput ? getInputRowMeta().clone() : new RowMeta();
       meta.getFields( data.outputRowMeta, getTransformName(), null, getTransformMeta(), this, metadataProvider );
 
-      // Create a session
-      //
-      createDriverSession();
-
       // Get parameter field indexes
       data.fieldIndexes = new int[ meta.getParameterMappings().size() ];
       for ( int i = 0; i < meta.getParameterMappings().size(); i++ ) {
@@ -164,6 +199,46 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
         }
       }
 
+      // Resolve the parameter types once so that the work per row is only the value conversion
+      //
+      int nrParameters = meta.getParameterMappings().size();
+      data.parameterNames = new String[ nrParameters ];
+      data.parameterValueMetas = new IValueMeta[ nrParameters ];
+      data.parameterTypes = new GraphPropertyType[ nrParameters ];
+      data.parameterConverters = new GraphPropertyConverter[ nrParameters ];
+      for ( int i = 0; i < nrParameters; i++ ) {
+        ParameterMapping mapping = meta.getParameterMappings().get( i );
+        data.parameterNames[ i ] = mapping.getParameter();
+        data.parameterValueMetas[ i ] = getInputRowMeta().getValueMeta( data.fieldIndexes[ i ] );
+        data.parameterTypes[ i ] = GraphPropertyType.parseCode( mapping.getNeoType() );
+        if ( data.parameterTypes[ i ] == null ) {
+          throw new HopException( "Unable to convert to unknown property type for field '" + data.parameterValueMetas[ i ].toStringMeta() + "'" );
+        }
+        data.parameterConverters[ i ] = data.parameterTypes[ i ].getConverter( data.parameterValueMetas[ i ] );
+      }
+      // Size the parameter maps so they never need to grow
+      //
+      data.parameterMapCapacity = (int) ( nrParameters / 0.75f ) + 1;
+
+      // Keep the source type of the return values so we can do the appropriate mapping later...
+      //
+      int nrReturnValues = meta.getReturnValues().size();
+      data.returnNames = new String[ nrReturnValues ];
+      data.returnSourceTypes = new GraphPropertyDataType[ nrReturnValues ];
+      for ( int i = 0; i < nrReturnValues; i++ ) {
+        ReturnValue returnValue = meta.getReturnValues().get( i );
+        data.returnNames[ i ] = returnValue.getName();
+        if ( StringUtils.isNotEmpty( returnValue.getSourceType() ) ) {
+          data.returnSourceTypes[ i ] = GraphPropertyDataType.parseCode( returnValue.getSourceType() );
+        }
+      }
+      int returnIndex = data.hasInput && !meta.isUsingUnwind() ? getInputRowMeta().size() : 0;
+      data.returnValueMetas = new IValueMeta[ nrReturnValues ];
+      for ( int i = 0; i < nrReturnValues; i++ ) {
+        data.returnValueMetas[ i ] = data.outputRowMeta.getValueMeta( returnIndex + i );
+      }
+      data.recordDecoder = null;
+
       data.cypherFieldIndex = -1;
       if ( data.hasInput ) {
         data.cypherFieldIndex = getInputRowMeta().indexOfValue( meta.getCypherField() );
@@ -185,28 +260,10 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
 
     // Do the value mapping and conversion to the parameters
     //
-    Map<String, Object> parameters = new HashMap<>();
-    for ( int i = 0; i < meta.getParameterMappings().size(); i++ ) {
-      ParameterMapping mapping = meta.getParameterMappings().get( i );
-      IValueMeta valueMeta = getInputRowMeta().getValueMeta( data.fieldIndexes[ i ] );
-      Object valueData = row[ data.fieldIndexes[ i ] ];
-      GraphPropertyType propertyType = GraphPropertyType.parseCode( mapping.getNeoType() );
-      if ( propertyType == null ) {
-        throw new HopException( "Unable to convert to unknown property type for field '" + valueMeta.toStringMeta() + "'" );
-      }
-      Object neoValue = propertyType.convertFromHop( valueMeta, valueData );
-      parameters.put( mapping.getParameter(), neoValue );
-    }
-
-    // Create a map between the return value and the source type so we can do the appropriate mapping later...
-    //
-    data.returnSourceTypeMap = new HashMap<>();
-    for ( ReturnValue returnValue : meta.getReturnValues() ) {
-      if ( StringUtils.isNotEmpty( returnValue.getSourceType() ) ) {
-        String name = returnValue.getName();
-        GraphPropertyDataType type = GraphPropertyDataType.parseCode( returnValue.getSourceType() );
-        data.returnSourceTypeMap.put( name, type );
-      }
+    Map<String, Object> parameters = new HashMap<>( data.parameterMapCapacity );
+    for ( int i = 0; i < data.parameterNames.length; i++ ) {
+      Object neoValue = data.parameterConverters[ i ].convert( data.parameterValueMetas[ i ], row[ data.fieldIndexes[ i ] ] );
+      parameters.put( data.parameterNames[ i ], neoValue );
     }
 
     if ( meta.isUsingUnwind() ) {
@@ -222,16 +279,6 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
       //
       try {
         runCypherStatement( row, data.cypher, parameters );
-      } catch ( ServiceUnavailableException e ) {
-        // retry once after reconnecting.
-        // This can fix certain time-out issues
-        //
-        if ( meta.isRetrying() ) {
-          reconnect();
-          runCypherStatement( row, data.cypher, parameters );
-        } else {
-          throw e;
-        }
       } catch ( HopException e ) {
         setErrors( 1 );
         stopAll();
@@ -250,6 +297,15 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
   }
 
   private void runCypherStatement( Object[] row, String cypher, Map<String, Object> parameters ) throws HopException {
+    if ( data.streaming ) {
+      runStreamingStatementWithRetry( row, cypher, parameters, false );
+      if ( meta.isReadOnly() ) {
+        incrementLinesInput();
+      } else {
+        incrementLinesOutput();
+      }
+      return;
+    }
     data.cypherStatements.add( new CypherStatement( row, cypher, parameters ) );
     if ( data.cypherStatements.size() >= data.batchSize || !data.hasInput ) {
       runCypherStatementsBatch();
@@ -267,6 +323,9 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
     //
     TransactionWork<Integer> transactionWork = transaction -> {
 
+      // The driver can run this more than once, only the rows of the attempt which is committed are passed on
+      //
+      startBufferingRows();
       for ( CypherStatement cypherStatement : data.cypherStatements ) {
         Result result = transaction.run( cypherStatement.getCypher(), cypherStatement.getParameters() );
         try {
@@ -288,6 +347,7 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
         nrProcessed = data.session.writeTransaction( transactionWork );
         setLinesOutput( getLinesOutput() + data.cypherStatements.size() );
       }
+      passBufferedRows();
 
       if ( log.isDebug() ) {
         logDebug( "Processed " + nrProcessed + " statements" );
@@ -298,38 +358,121 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
       data.cypherStatements.clear();
 
     } catch ( Exception e ) {
+      data.bufferedRows = null;
       throw new HopException( "Unable to execute batch of cypher statements (" + data.cypherStatements.size() + ")", e );
     }
   }
 
+  /**
+   * Run a single statement in its own transaction and pass on the result rows while the records arrive.
+   * The driver pulls the records from the server in chunks of the fetch size so the result is never kept in memory as a whole.
+   * The transaction isn't retried by the driver since result rows could already have been passed on.
+   *
+   * @param row        The input row
+   * @param cypher     The statement to run
+   * @param parameters The parameters of the statement
+   * @param unwind     true if the parameters contain an UNWIND list
+   * @throws HopException
+   */
+  private void runStreamingStatement( Object[] row, String cypher, Map<String, Object> parameters, boolean unwind ) throws HopException {
+    data.bufferedRows = null;
+    try ( Transaction transaction = data.session.beginTransaction() ) {
+      Result result = transaction.run( cypher, parameters );
+      getResultRows( result, row, unwind );
+      transaction.commit();
+    }
+  }
+
+  /**
+   * Run a streaming statement and retry it once after reconnecting if the database becomes unavailable, if that's enabled.
+   * Result rows which are passed on can't be taken back: once they are the statement isn't retried.
+   * Only read-only statements are retried, a write could have been committed before the connection was lost.
+   *
+   * @param row        The input row
+   * @param cypher     The statement to run
+   * @param parameters The parameters of the statement
+   * @param unwind     true if the parameters contain an UNWIND list
+   * @throws HopException
+   */
+  private void runStreamingStatementWithRetry( Object[] row, String cypher, Map<String, Object> parameters, boolean unwind ) throws HopException {
+    long passedRows = data.passedRows;
+    try {
+      runStreamingStatement( row, cypher, parameters, unwind );
+    } catch ( ServiceUnavailableException e ) {
+      if ( !meta.isRetrying() || !meta.isReadOnly() || data.passedRows != passedRows ) {
+        throw e;
+      }
+      // This can fix certain time-out issues
+      //
+      reconnect();
+      runStreamingStatement( row, cypher, parameters, unwind );
+    }
+  }
+
+  /**
+   * Keep the result rows instead of passing them on, used at the start of every attempt of a transaction function.
+   * Rows of earlier attempts are dropped.
+   */
+  void startBufferingRows() {
+    data.bufferedRows = new ArrayList<>();
+  }
+
+  /**
+   * Pass on the result rows of the transaction which was committed
+   *
+   * @throws HopException
+   */
+  private void passBufferedRows() throws HopException {
+    List<Object[]> rows = data.bufferedRows;
+    data.bufferedRows = null;
+    if ( rows != null ) {
+      for ( Object[] outputRow : rows ) {
+        passRow( outputRow );
+      }
+    }
+  }
+
+  private void passRow( Object[] outputRow ) throws HopException {
+    if ( data.bufferedRows != null ) {
+      data.bufferedRows.add( outputRow );
+    } else {
+      data.passedRows++;
+      putRow( data.outputRowMeta, outputRow );
+    }
+  }
+
   private List<Object[]> writeUnwindList() throws HopException {
+    if ( data.asyncUnwind ) {
+      sendAsyncUnwindList();
+      return null;
+    }
     HashMap<String, Object> unwindMap = new HashMap<>();
     unwindMap.put( data.unwindMapName, data.unwindList );
     List<Object[]> resultRows = null;
     CypherTransactionWork cypherTransactionWork = new CypherTransactionWork( this, new Object[ 0 ], true, data.cypher, unwindMap );
     try {
-      try {
-        if ( meta.isReadOnly() ) {
-          data.session.readTransaction( cypherTransactionWork );
-        } else {
-          data.session.writeTransaction( cypherTransactionWork );
-        }
-      } catch ( ServiceUnavailableException e ) {
-        // retry once after reconnecting.
-        // This can fix certain time-out issues
+      if ( data.streaming ) {
+        runStreamingStatementWithRetry( new Object[ 0 ], data.cypher, unwindMap, true );
+      } else {
+        // The result rows are only passed on once the transaction is committed so retrying doesn't pass them on twice
         //
-        if ( meta.isRetrying() ) {
-          reconnect();
-          if ( meta.isReadOnly() ) {
-            data.session.readTransaction( cypherTransactionWork );
+        try {
+          runUnwindTransaction( cypherTransactionWork );
+        } catch ( ServiceUnavailableException e ) {
+          // retry once after reconnecting.
+          // This can fix certain time-out issues
+          //
+          if ( meta.isRetrying() ) {
+            reconnect();
+            runUnwindTransaction( cypherTransactionWork );
           } else {
-            data.session.writeTransaction( cypherTransactionWork );
+            throw e;
           }
-        } else {
-          throw e;
         }
+        passBufferedRows();
       }
     } catch ( Exception e ) {
+      data.bufferedRows = null;
       data.session.close();
       stopAll();
       setErrors( 1L );
@@ -342,27 +485,114 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
     return resultRows;
   }
 
+  private void runUnwindTransaction( CypherTransactionWork cypherTransactionWork ) {
+    if ( meta.isReadOnly() ) {
+      data.session.readTransaction( cypherTransactionWork );
+    } else {
+      data.session.writeTransaction( cypherTransactionWork );
+    }
+  }
+
+  /**
+   * Keep up to the maximum number of UNWIND batches in flight.
+   * The results of the batches are passed on in the order in which the batches were sent.
+   * If the window is full we wait for the oldest batch to complete.
+   *
+   * @throws HopException
+   */
+  private void sendAsyncUnwindList() throws HopException {
+    // Pass on the results of the batches which are already done
+    //
+    while ( !data.asyncBatches.isEmpty() && data.asyncBatches.peekFirst().getFuture().isDone() ) {
+      emitAsyncUnwindBatch( data.asyncBatches.pollFirst() );
+    }
+
+    // Back-pressure: wait until there's room in the window
+    //
+    while ( data.asyncBatches.size() >= data.maxBatchesInFlight ) {
+      emitAsyncUnwindBatch( data.asyncBatches.pollFirst() );
+    }
+
+    // Every batch in flight needs its own session since a session only runs one transaction at a time.
+    // Because we always emit the oldest batch first the session we pick here is free.
+    //
+    int sessionIndex = (int) ( data.asyncBatchNr++ % data.maxBatchesInFlight );
+    while ( data.asyncSessions.size() <= sessionIndex ) {
+      data.asyncSessions.add( data.neoConnection.getAsyncSession( log ) );
+    }
+
+    Map<String, Object> unwindMap = new HashMap<>();
+    unwindMap.put( data.unwindMapName, data.unwindList );
+    AsyncUnwindBatch batch = new AsyncUnwindBatch( data.unwindList.size(), data.cypher, unwindMap );
+    batch.execute( data.asyncSessions.get( sessionIndex ), meta.isReadOnly() );
+    data.asyncBatches.addLast( batch );
+
+    // The list we just sent is now owned by the batch
+    //
+    data.unwindList = new ArrayList<>( (int) Math.min( data.batchSize, Integer.MAX_VALUE ) );
+    data.outputCount = 0;
+  }
+
+  /**
+   * Wait for all UNWIND batches in flight and pass on their results
+   *
+   * @throws HopException
+   */
+  private void drainAsyncUnwindBatches() throws HopException {
+    while ( data.asyncBatches != null && !data.asyncBatches.isEmpty() ) {
+      emitAsyncUnwindBatch( data.asyncBatches.pollFirst() );
+    }
+  }
+
+  private void emitAsyncUnwindBatch( AsyncUnwindBatch batch ) throws HopException {
+    try {
+      batch.getFuture().get();
+    } catch ( Exception e ) {
+      Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+      stopAll();
+      setErrors( 1L );
+      setOutputDone();
+      throw new HopException( "Unexpected error writing unwind list to Neo4j", cause );
+    }
+
+    if ( meta.isReturningGraph() ) {
+      putGraphRow( new GraphData( batch.getRecords() ), new Object[ 0 ], true );
+    } else if ( meta.getReturnValues().isEmpty() ) {
+      putRow( data.outputRowMeta, new Object[ 0 ] );
+    } else {
+      for ( Record record : batch.getRecords() ) {
+        putRecordRow( record, new Object[ 0 ], true );
+      }
+    }
+    if ( processSummary( batch.getSummary() ) ) {
+      setErrors( 1L );
+      stopAll();
+      setOutputDone();
+      throw new HopException( "Error found in executing cypher statement" );
+    }
+
+    if ( meta.isReadOnly() ) {
+      setLinesInput( getLinesInput() + batch.getSize() );
+    } else {
+      setLinesOutput( getLinesOutput() + batch.getSize() );
+    }
+  }
+
   public void getResultRows( Result result, Object[] row, boolean unwind ) throws HopException {
 
     if ( result != null ) {
 
       if ( meta.isReturningGraph() ) {
 
-        GraphData graphData = new GraphData( result );
-        graphData.setSourcePipelineName( getPipelineMeta().getName() );
-        graphData.setSourceTransformName( getTransformName() );
-
-        // Create output row
-        Object[] outputRowData;
-        if ( unwind ) {
-          outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+        if ( data.streaming ) {
+          // Pass on a graph per record instead of collecting the whole result in one graph
+          //
+          while ( result.hasNext() ) {
+            putGraphRow( new GraphData( Collections.singletonList( result.next() ) ), row, unwind );
+          }
         } else {
-          outputRowData = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
+          putGraphRow( new GraphData( result ), row, unwind );
         }
-        int index = data.hasInput && !unwind ? getInputRowMeta().size() : 0;
-
-        outputRowData[ index ] = graphData;
-        putRow( data.outputRowMeta, outputRowData );
 
       } else {
         // Are we returning values?
@@ -371,100 +601,20 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
           // If we're not returning any values then we simply need to pass the input rows without
           // We're consuming any optional results below
           //
-          putRow( data.outputRowMeta, row );
+          passRow( row );
         } else {
           // If we're returning values we pass all result records per input row.
           // This can be 0, 1 or more per input row
           //
           while ( result.hasNext() ) {
-            Record record = result.next();
-
-            // Create output row
-            Object[] outputRow;
-            if ( unwind ) {
-              outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-            } else {
-              outputRow = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
-            }
-
-            // add result values...
-            //
-            int index = data.hasInput && !unwind ? getInputRowMeta().size() : 0;
-            for ( ReturnValue returnValue : meta.getReturnValues() ) {
-              Value recordValue = record.get( returnValue.getName() );
-              IValueMeta targetValueMeta = data.outputRowMeta.getValueMeta( index );
-              Object value = null;
-              GraphPropertyDataType neoType = data.returnSourceTypeMap.get( returnValue.getName() );
-              if ( recordValue != null && !recordValue.isNull() ) {
-                try {
-                  switch ( targetValueMeta.getType() ) {
-                    case IValueMeta.TYPE_STRING:
-                      value = convertToString( recordValue, neoType );
-                      break;
-                    case IValueMeta.TYPE_INTEGER:
-                      value = recordValue.asLong();
-                      break;
-                    case IValueMeta.TYPE_NUMBER:
-                      value = recordValue.asDouble();
-                      break;
-                    case IValueMeta.TYPE_BOOLEAN:
-                      value = recordValue.asBoolean();
-                      break;
-                    case IValueMeta.TYPE_BIGNUMBER:
-                      value = new BigDecimal( recordValue.asString() );
-                      break;
-                    case IValueMeta.TYPE_DATE:
-                      if ( neoType != null ) {
-                        // Standard...
-                        switch ( neoType ) {
-                          case LocalDateTime: {
-                            LocalDateTime localDateTime = recordValue.asLocalDateTime();
-                            value = java.sql.Date.valueOf( localDateTime.toLocalDate() );
-                            break;
-                          }
-                          case Date: {
-                            LocalDate localDate = recordValue.asLocalDate();
-                            value = java.sql.Date.valueOf( localDate );
-                            break;
-                          }
-                          case DateTime: {
-                            ZonedDateTime zonedDateTime = recordValue.asZonedDateTime();
-                            value =Date.from(zonedDateTime.toInstant());
-                            break;
-                          }
-                          default:
-                            throw new HopException( "Conversion from Neo4j daa type " + neoType.name() + " to a Kettle Date isn't supported yet" );
-                        }
-                      } else {
-                        LocalDate localDate = recordValue.asLocalDate();
-                        value = java.sql.Date.valueOf( localDate );
-                      }
-                      break;
-                    case IValueMeta.TYPE_TIMESTAMP:
-                      LocalDateTime localDateTime = recordValue.asLocalDateTime();
-                      value = java.sql.Timestamp.valueOf( localDateTime );
-                      break;
-                    default:
-                      throw new HopException( "Unable to convert Neo4j data to type " + targetValueMeta.toStringMeta() );
-                  }
-                } catch ( Exception e ) {
-                  throw new HopException(
-                    "Unable to convert Neo4j record value '" + returnValue.getName() + "' to type : " + targetValueMeta.getTypeDesc(), e );
-                }
-              }
-              outputRow[ index++ ] = value;
-            }
-
-            // Pass the rows to the next transform
-            //
-            putRow( data.outputRowMeta, outputRow );
+            putRecordRow( result.next(), row, unwind );
           }
         }
       }
 
       // Now that all result rows are consumed we can evaluate the result summary.
       //
-      if ( processSummary( result ) ) {
+      if ( processSummary( result.consume() ) ) {
         setErrors( 1L );
         stopAll();
         setOutputDone();
@@ -473,32 +623,48 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
     }
   }
 
-  /**
-   * Convert the given record value to String.
-   * For complex data types it's a conversion to JSON.
-   *
-   * @param recordValue
-   * @param sourceType
-   * @return
-   */
-  private String convertToString( Value recordValue, GraphPropertyDataType sourceType ) {
-    if ( recordValue == null ) {
-      return null;
+  private void putGraphRow( GraphData graphData, Object[] row, boolean unwind ) throws HopException {
+    graphData.setSourcePipelineName( getPipelineMeta().getName() );
+    graphData.setSourceTransformName( getTransformName() );
+
+    // Create output row
+    Object[] outputRowData;
+    if ( unwind ) {
+      outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    } else {
+      outputRowData = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
     }
-    if ( sourceType == null ) {
-      return JSONValue.toJSONString( recordValue.asObject() );
+    int index = data.hasInput && !unwind ? getInputRowMeta().size() : 0;
+
+    outputRowData[ index ] = graphData;
+    passRow( outputRowData );
+  }
+
+  private void putRecordRow( Record record, Object[] row, boolean unwind ) throws HopException {
+    // Create output row
+    Object[] outputRow;
+    if ( unwind ) {
+      outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    } else {
+      outputRow = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
     }
-    switch ( sourceType ) {
-      case String:
-        return recordValue.asString();
-      default:
-        return JSONValue.toJSONString( recordValue.asObject() );
+
+    // add result values...
+    // The decoder is compiled for the keys of the first record and only needs to be replaced if the keys change
+    //
+    if ( data.recordDecoder == null || !data.recordDecoder.isCompiledFor( record.keys() ) ) {
+      data.recordDecoder = new RecordDecoder( record.keys(), data.returnNames, data.returnSourceTypes, data.returnValueMetas );
     }
+    int index = data.hasInput && !unwind ? getInputRowMeta().size() : 0;
+    data.recordDecoder.decode( record, outputRow, index );
+
+    // Pass the rows to the next transform
+    //
+    passRow( outputRow );
   }
 
-  private boolean processSummary( Result result ) {
+  private boolean processSummary( ResultSummary summary ) {
     boolean error = false;
-    ResultSummary summary = result.consume();
     for ( Notification notification : summary.notifications() ) {
       log.logError( notification.title() + " (" + notification.severity() + ")" );
       log.logError( notification.code() + " : " + notification.description() + ", position " + notification.position() );
@@ -526,6 +692,9 @@ public class Cypher extends BaseTransform<CypherMeta, CypherData> implements ITr
           if ( data.unwindList.size() > 0 ) {
             writeUnwindList();
           }
+          if ( data.asyncUnwind ) {
+            drainAsyncUnwindBatches();
+          }
         } else {
           // See if there are statements left to execute...
           //
@@ -2,12 +2,17 @@ package org.neo4j.hop.transforms.cypher;
 
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
+import org.neo4j.driver.async.AsyncSession;
 import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.model.GraphPropertyConverter;
+import org.neo4j.hop.model.GraphPropertyType;
 import org.neo4j.hop.shared.NeoConnection;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +23,11 @@ public class CypherData extends BaseTransformData implements ITransformData {
   public String url;
   public Session session;
   public int[] fieldIndexes;
+  public String[] parameterNames;
+  public IValueMeta[] parameterValueMetas;
+  public GraphPropertyType[] parameterTypes;
+  public GraphPropertyConverter[] parameterConverters;
+  public int parameterMapCapacity;
   public String cypher;
   public long batchSize;
   public Transaction transaction;
@@ -28,7 +38,22 @@ public class CypherData extends BaseTransformData implements ITransformData {
   public String unwindMapName;
   public List<Map<String, Object>> unwindList;
 
+  public boolean asyncUnwind;
+  public int maxBatchesInFlight;
+  public List<AsyncSession> asyncSessions;
+  public Deque<AsyncUnwindBatch> asyncBatches;
+  public long asyncBatchNr;
+
+  public boolean streaming;
+  public long fetchSize;
+  public long passedRows;
+
+  public List<Object[]> bufferedRows;
+
   public List<CypherStatement> cypherStatements;
 
-  public Map<String, GraphPropertyDataType> returnSourceTypeMap;
+  public String[] returnNames;
+  public GraphPropertyDataType[] returnSourceTypes;
+  public IValueMeta[] returnValueMetas;
+  public RecordDecoder recordDecoder;
 }
@@ -44,7 +44,6 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
-import org.neo4j.driver.Driver;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
@@ -72,11 +71,18 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
   private TextVar wBatchSize;
   private Button wReadOnly;
   private Button wRetry;
+  private Button wStreaming;
+  private Label wlFetchSize;
+  private TextVar wFetchSize;
   private Button wCypherFromField;
   private CCombo wCypherField;
   private Button wUnwind;
   private Label wlUnwindMap;
   private TextVar wUnwindMap;
+  private Label wlAsyncUnwind;
+  private Button wAsyncUnwind;
+  private Label wlMaxBatchesInFlight;
+  private TextVar wMaxBatchesInFlight;
   private Button wReturnGraph;
   private Label wlReturnGraphField;
   private TextVar wReturnGraphField;
@@ -226,6 +232,50 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
     wRetry.setLayoutData( fdRetry );
     lastControl = wRetry;
 
+    Label wlStreaming = new Label( wComposite, SWT.RIGHT );
+    wlStreaming.setText( "Stream the results? " );
+    String streamingTooltipText = "Run every statement in its own transaction and pass on the result rows while the records arrive from the server";
+    wlStreaming.setToolTipText( streamingTooltipText );
+    props.setLook( wlStreaming );
+    FormData fdlStreaming = new FormData();
+    fdlStreaming.left = new FormAttachment( 0, 0 );
+    fdlStreaming.right = new FormAttachment( middle, -margin );
+    fdlStreaming.top = new FormAttachment( lastControl, 2 * margin );
+    wlStreaming.setLayoutData( fdlStreaming );
+    wStreaming = new Button( wComposite, SWT.CHECK | SWT.BORDER );
+    wStreaming.setToolTipText( streamingTooltipText );
+    props.setLook( wStreaming );
+    FormData fdStreaming = new FormData();
+    fdStreaming.left = new FormAttachment( middle, 0 );
+    fdStreaming.right = new FormAttachment( 100, 0 );
+    fdStreaming.top = new FormAttachment( wlStreaming, 0, SWT.CENTER );
+    wStreaming.setLayoutData( fdStreaming );
+    lastControl = wStreaming;
+    wStreaming.addSelectionListener( new SelectionAdapter() {
+      @Override public void widgetSelected( SelectionEvent selectionEvent ) {
+        enableFields();
+      }
+    } );
+
+    wlFetchSize = new Label( wComposite, SWT.RIGHT );
+    wlFetchSize.setText( "Fetch size" );
+    wlFetchSize.setToolTipText( "The number of records to pull from the server at a time when streaming (default 1000)" );
+    props.setLook( wlFetchSize );
+    FormData fdlFetchSize = new FormData();
+    fdlFetchSize.left = new FormAttachment( 0, 0 );
+    fdlFetchSize.right = new FormAttachment( middle, -margin );
+    fdlFetchSize.top = new FormAttachment( lastControl, 2 * margin );
+    wlFetchSize.setLayoutData( fdlFetchSize );
+    wFetchSize = new TextVar( pipelineMeta, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wFetchSize );
+    wFetchSize.addModifyListener( lsMod );
+    FormData fdFetchSize = new FormData();
+    fdFetchSize.left = new FormAttachment( middle, 0 );
+    fdFetchSize.right = new FormAttachment( 100, 0 );
+    fdFetchSize.top = new FormAttachment( wlFetchSize, 0, SWT.CENTER );
+    wFetchSize.setLayoutData( fdFetchSize );
+    lastControl = wFetchSize;
+
 
     Label wlCypherFromField = new Label( wComposite, SWT.RIGHT );
     wlCypherFromField.setText( "Get Cypher from input field? " );
@@ -310,6 +360,50 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
     wUnwindMap.setLayoutData( fdUnwindMap );
     lastControl = wUnwindMap;
 
+    wlAsyncUnwind = new Label( wComposite, SWT.RIGHT );
+    wlAsyncUnwind.setText( "Send batches asynchronously?" );
+    String asyncUnwindTooltipText = "Keep sending UNWIND batches to the server while the next batch is being collected";
+    wlAsyncUnwind.setToolTipText( asyncUnwindTooltipText );
+    props.setLook( wlAsyncUnwind );
+    FormData fdlAsyncUnwind = new FormData();
+    fdlAsyncUnwind.left = new FormAttachment( 0, 0 );
+    fdlAsyncUnwind.right = new FormAttachment( middle, -margin );
+    fdlAsyncUnwind.top = new FormAttachment( lastControl, 2 * margin );
+    wlAsyncUnwind.setLayoutData( fdlAsyncUnwind );
+    wAsyncUnwind = new Button( wComposite, SWT.CHECK | SWT.BORDER );
+    wAsyncUnwind.setToolTipText( asyncUnwindTooltipText );
+    props.setLook( wAsyncUnwind );
+    FormData fdAsyncUnwind = new FormData();
+    fdAsyncUnwind.left = new FormAttachment( middle, 0 );
+    fdAsyncUnwind.right = new FormAttachment( 100, 0 );
+    fdAsyncUnwind.top = new FormAttachment( wlAsyncUnwind, 0, SWT.CENTER );
+    wAsyncUnwind.setLayoutData( fdAsyncUnwind );
+    lastControl = wAsyncUnwind;
+    wAsyncUnwind.addSelectionListener( new SelectionAdapter() {
+      @Override public void widgetSelected( SelectionEvent selectionEvent ) {
+        enableFields();
+      }
+    } );
+
+    wlMaxBatchesInFlight = new Label( wComposite, SWT.RIGHT );
+    wlMaxBatchesInFlight.setText( "Maximum batches in flight" );
+    wlMaxBatchesInFlight.setToolTipText( "The number of batches sent to the server before waiting for the oldest one to complete (default 2)" );
+    props.setLook( wlMaxBatchesInFlight );
+    FormData fdlMaxBatchesInFlight = new FormData();
+    fdlMaxBatchesInFlight.left = new FormAttachment( 0, 0 );
+    fdlMaxBatchesInFlight.right = new FormAttachment( middle, -margin );
+    fdlMaxBatchesInFlight.top = new FormAttachment( lastControl, 2 * margin );
+    wlMaxBatchesInFlight.setLayoutData( fdlMaxBatchesInFlight );
+    wMaxBatchesInFlight = new TextVar( pipelineMeta, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wMaxBatchesInFlight );
+    wMaxBatchesInFlight.addModifyListener( lsMod );
+    FormData fdMaxBatchesInFlight = new FormData();
+    fdMaxBatchesInFlight.left = new FormAttachment( middle, 0 );
+    fdMaxBatchesInFlight.right = new FormAttachment( 100, 0 );
+    fdMaxBatchesInFlight.top = new FormAttachment( wlMaxBatchesInFlight, 0, SWT.CENTER );
+    wMaxBatchesInFlight.setLayoutData( fdMaxBatchesInFlight );
+    lastControl = wMaxBatchesInFlight;
+
     Label wlReturnGraph = new Label( wComposite, SWT.RIGHT );
     wlReturnGraph.setText( "Return graph data?" );
     String returnGraphTooltipText = "Returns the whole result of a query as a Graph Hop data type";
@@ -507,10 +601,12 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
     wBatchSize.addSelectionListener( lsDef );
     wReadOnly.addSelectionListener( lsDef );
     wRetry.addSelectionListener( lsDef );
+    wFetchSize.addSelectionListener( lsDef );
     wCypherFromField.addSelectionListener( lsDef );
     wCypherField.addSelectionListener( lsDef );
     wUnwind.addSelectionListener( lsDef );
     wUnwindMap.addSelectionListener( lsDef );
+    wMaxBatchesInFlight.addSelectionListener( lsDef );
     wReturnGraphField.addSelectionListener( lsDef );
 
 
@@ -547,6 +643,19 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
 
     wlUnwindMap.setEnabled( usingUnwind );
     wUnwindMap.setEnabled( usingUnwind );
+    boolean streaming = wStreaming.getSelection();
+
+    wlFetchSize.setEnabled( streaming );
+    wFetchSize.setEnabled( streaming );
+
+    // Asynchronous batches are collected in memory so they don't combine with streaming
+    //
+    wlAsyncUnwind.setEnabled( usingUnwind && !streaming );
+    wAsyncUnwind.setEnabled( usingUnwind && !streaming );
+
+    boolean asyncUnwind = usingUnwind && !streaming && wAsyncUnwind.getSelection();
+    wlMaxBatchesInFlight.setEnabled( asyncUnwind );
+    wMaxBatchesInFlight.setEnabled( asyncUnwind );
 
     boolean returningGraph = wReturnGraph.getSelection();
 
@@ -567,6 +676,8 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
 
     wReadOnly.setSelection( input.isReadOnly() );
     wRetry.setSelection( input.isRetrying() );
+    wStreaming.setSelection( input.isStreaming() );
+    wFetchSize.setText( Const.NVL( input.getFetchSize(), "" ) );
     wCypherFromField.setSelection( input.isCypherFromField() );
     wCypherField.setText( Const.NVL( input.getCypherField(), "" ) );
     try {
@@ -577,6 +688,8 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
 
     wUnwind.setSelection( input.isUsingUnwind() );
     wUnwindMap.setText( Const.NVL( input.getUnwindMapName(), "" ) );
+    wAsyncUnwind.setSelection( input.isAsyncUnwind() );
+    wMaxBatchesInFlight.setText( Const.NVL( input.getMaxBatchesInFlight(), "" ) );
     wReturnGraph.setSelection( input.isReturningGraph() );
     wReturnGraphField.setText( Const.NVL( input.getReturnGraphField(), "" ) );
     wBatchSize.setText( Const.NVL( input.getBatchSize(), "" ) );
@@ -623,11 +736,15 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
 
     meta.setReadOnly( wReadOnly.getSelection() );
     meta.setRetrying( wRetry.getSelection() );
+    meta.setStreaming( wStreaming.getSelection() );
+    meta.setFetchSize( wFetchSize.getText() );
     meta.setCypherFromField( wCypherFromField.getSelection() );
     meta.setCypherField( wCypherField.getText() );
 
     meta.setUsingUnwind( wUnwind.getSelection() );
     meta.setUnwindMapName( wUnwindMap.getText() );
+    meta.setAsyncUnwind( wAsyncUnwind.getSelection() );
+    meta.setMaxBatchesInFlight( wMaxBatchesInFlight.getText() );
 
     meta.setReturningGraph( wReturnGraph.getSelection() );
     meta.setReturnGraphField( wReturnGraphField.getText() );
@@ -681,7 +798,6 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
   private void getReturnValues() {
 
     IHopMetadataProvider metadataProvider = HopGui.getInstance().getMetadataProvider();
-    Driver driver = null;
     Session session = null;
     Transaction transaction = null;
 
@@ -691,8 +807,7 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
     try {
       NeoConnection neoConnection = metadataProvider.getSerializer( NeoConnection.class ).load( meta.getConnectionName() );
       neoConnection.initializeVariablesFrom( pipelineMeta );
-      driver = neoConnection.getDriver( log );
-      session = driver.session();
+      session = neoConnection.getSession( log );
       transaction = session.beginTransaction();
       Map<String, Object> parameters = new HashMap<>();
       for ( ParameterMapping mapping : meta.getParameterMappings() ) {
@@ -734,9 +849,6 @@ public class CypherDialog extends BaseTransformDialog implements ITransformDialo
       if ( session != null ) {
         session.close();
       }
-      if ( driver != null ) {
-        driver.close();
-      }
     }
   }
 }
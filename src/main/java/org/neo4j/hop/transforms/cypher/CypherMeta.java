@@ -47,6 +47,10 @@ public class CypherMeta extends BaseTransformMeta implements ITransformMeta<Cyph
   public static final String CYPHER_FIELD = "cypher_field";
   public static final String UNWIND = "unwind";
   public static final String UNWIND_MAP = "unwind_map";
+  public static final String ASYNC_UNWIND = "async_unwind";
+  public static final String MAX_BATCHES_IN_FLIGHT = "max_batches_in_flight";
+  public static final String STREAMING = "streaming";
+  public static final String FETCH_SIZE = "fetch_size";
   public static final String RETURNING_GRAPH = "returning_graph";
   public static final String RETURN_GRAPH_FIELD = "return_graph_field";
   public static final String MAPPINGS = "mappings";
@@ -94,6 +98,18 @@ public class CypherMeta extends BaseTransformMeta implements ITransformMeta<Cyph
   @Injection( name = UNWIND_MAP )
   private String unwindMapName;
 
+  @Injection( name = ASYNC_UNWIND )
+  private boolean asyncUnwind;
+
+  @Injection( name = MAX_BATCHES_IN_FLIGHT )
+  private String maxBatchesInFlight;
+
+  @Injection( name = STREAMING )
+  private boolean streaming;
+
+  @Injection( name = FETCH_SIZE )
+  private String fetchSize;
+
   @Injection( name = RETURNING_GRAPH )
   private boolean returningGraph;
 
@@ -170,6 +186,10 @@ public class CypherMeta extends BaseTransformMeta implements ITransformMeta<Cyph
     xml.append( XmlHandler.addTagValue( CYPHER_FIELD, cypherField ) );
     xml.append( XmlHandler.addTagValue( UNWIND, usingUnwind ) );
     xml.append( XmlHandler.addTagValue( UNWIND_MAP, unwindMapName ) );
+    xml.append( XmlHandler.addTagValue( ASYNC_UNWIND, asyncUnwind ) );
+    xml.append( XmlHandler.addTagValue( MAX_BATCHES_IN_FLIGHT, maxBatchesInFlight ) );
+    xml.append( XmlHandler.addTagValue( STREAMING, streaming ) );
+    xml.append( XmlHandler.addTagValue( FETCH_SIZE, fetchSize ) );
     xml.append( XmlHandler.addTagValue( RETURNING_GRAPH, returningGraph ) );
     xml.append( XmlHandler.addTagValue( RETURN_GRAPH_FIELD, returnGraphField) );
 
@@ -208,6 +228,10 @@ public class CypherMeta extends BaseTransformMeta implements ITransformMeta<Cyph
     cypherField = XmlHandler.getTagValue( transformNode, CYPHER_FIELD );
     usingUnwind = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, UNWIND ) );
     unwindMapName = XmlHandler.getTagValue( transformNode, UNWIND_MAP );
+    asyncUnwind = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, ASYNC_UNWIND ) );
+    maxBatchesInFlight = XmlHandler.getTagValue( transformNode, MAX_BATCHES_IN_FLIGHT );
+    streaming = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, STREAMING ) );
+    fetchSize = XmlHandler.getTagValue( transformNode, FETCH_SIZE );
     returningGraph = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, RETURNING_GRAPH ) );
     returnGraphField = XmlHandler.getTagValue( transformNode, RETURN_GRAPH_FIELD);
 
@@ -378,6 +402,70 @@ public class CypherMeta extends BaseTransformMeta implements ITransformMeta<Cyph
     return unwindMapName;
   }
 
+  /**
+   * Gets asyncUnwind
+   *
+   * @return value of asyncUnwind
+   */
+  public boolean isAsyncUnwind() {
+    return asyncUnwind;
+  }
+
+  /**
+   * @param asyncUnwind The asyncUnwind to set
+   */
+  public void setAsyncUnwind( boolean asyncUnwind ) {
+    this.asyncUnwind = asyncUnwind;
+  }
+
+  /**
+   * Gets maxBatchesInFlight
+   *
+   * @return value of maxBatchesInFlight
+   */
+  public String getMaxBatchesInFlight() {
+    return maxBatchesInFlight;
+  }
+
+  /**
+   * @param maxBatchesInFlight The maxBatchesInFlight to set
+   */
+  public void setMaxBatchesInFlight( String maxBatchesInFlight ) {
+    this.maxBatchesInFlight = maxBatchesInFlight;
+  }
+
+  /**
+   * Gets streaming
+   *
+   * @return value of streaming
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * @param streaming The streaming to set
+   */
+  public void setStreaming( boolean streaming ) {
+    this.streaming = streaming;
+  }
+
+  /**
+   * Gets fetchSize
+   *
+   * @return value of fetchSize
+   */
+  public String getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * @param fetchSize The fetchSize to set
+   */
+  public void setFetchSize( String fetchSize ) {
+    this.fetchSize = fetchSize;
+  }
+
   /**
    * Gets returningGraph
    *
@@ -23,6 +23,9 @@ public class CypherTransactionWork implements TransactionWork<Void> {
   }
 
   @Override public Void execute( Transaction tx ) {
+    // The driver can run this more than once, only the rows of the attempt which is committed are passed on
+    //
+    transform.startBufferingRows();
     Result result = tx.run( cypher, unwindMap );
     try {
       transform.getResultRows( result, currentRow, unwind );
@@ -0,0 +1,251 @@
+package org.neo4j.hop.transforms.cypher;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IValueMeta;
+import org.json.simple.JSONValue;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decodes the values of result records into Hop values.
+ * A decoder is compiled for the keys of a result: values are accessed by index and the conversion of every
+ * return value is resolved once instead of for every record.
+ */
+public class RecordDecoder {
+
+  /**
+   * Converts a non-null Neo4j value to a Hop value
+   */
+  @FunctionalInterface
+  public interface ValueDecoder {
+    Object decode( Value value ) throws Exception;
+  }
+
+  private final List<String> keys;
+  private final String[] names;
+  private final IValueMeta[] valueMetas;
+  private final int[] keyIndexes;
+  private final ValueDecoder[] decoders;
+  private final StringBuilder json;
+
+  /**
+   * Compile a decoder for records with the given keys
+   *
+   * @param keys        The keys of the records to decode
+   * @param names       The names of the return values
+   * @param sourceTypes The Neo4j data types of the return values, elements can be null if unknown
+   * @param valueMetas  The Hop value metadata of the return values
+   */
+  public RecordDecoder( List<String> keys, String[] names, GraphPropertyDataType[] sourceTypes, IValueMeta[] valueMetas ) {
+    this.keys = keys;
+    this.names = names;
+    this.valueMetas = valueMetas;
+    this.keyIndexes = new int[ names.length ];
+    this.decoders = new ValueDecoder[ names.length ];
+    this.json = new StringBuilder();
+
+    for ( int r = 0; r < names.length; r++ ) {
+      keyIndexes[ r ] = keys.indexOf( names[ r ] );
+      decoders[ r ] = createDecoder( sourceTypes[ r ], valueMetas[ r ] );
+    }
+  }
+
+  /**
+   * See if this decoder can be used for records with the given keys.
+   * The records of the same result share their keys so usually this is a reference comparison.
+   *
+   * @param recordKeys The keys of the record
+   * @return true if the decoder was compiled for these keys
+   */
+  public boolean isCompiledFor( List<String> recordKeys ) {
+    return keys == recordKeys || keys.equals( recordKeys );
+  }
+
+  /**
+   * Decode the return values of a record into an output row
+   *
+   * @param record     The record to decode
+   * @param outputRow  The output row
+   * @param startIndex The index of the first return value in the output row
+   * @throws HopException In case a value can't be converted
+   */
+  public void decode( Record record, Object[] outputRow, int startIndex ) throws HopException {
+    int index = startIndex;
+    for ( int r = 0; r < decoders.length; r++ ) {
+      Object value = null;
+      if ( keyIndexes[ r ] >= 0 ) {
+        Value recordValue = record.get( keyIndexes[ r ] );
+        if ( !recordValue.isNull() ) {
+          try {
+            value = decoders[ r ].decode( recordValue );
+          } catch ( Exception e ) {
+            throw new HopException( "Unable to convert Neo4j record value '" + names[ r ] + "' to type : " + valueMetas[ r ].getTypeDesc(), e );
+          }
+        }
+      }
+      outputRow[ index++ ] = value;
+    }
+  }
+
+  private ValueDecoder createDecoder( GraphPropertyDataType neoType, IValueMeta targetValueMeta ) {
+    switch ( targetValueMeta.getType() ) {
+      case IValueMeta.TYPE_STRING:
+        if ( neoType == GraphPropertyDataType.String ) {
+          return Value::asString;
+        }
+        // Complex data types are converted to JSON
+        //
+        return this::toJson;
+      case IValueMeta.TYPE_INTEGER:
+        return Value::asLong;
+      case IValueMeta.TYPE_NUMBER:
+        return Value::asDouble;
+      case IValueMeta.TYPE_BOOLEAN:
+        return Value::asBoolean;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return value -> new BigDecimal( value.asString() );
+      case IValueMeta.TYPE_DATE:
+        if ( neoType == null ) {
+          return value -> java.sql.Date.valueOf( value.asLocalDate() );
+        }
+        switch ( neoType ) {
+          case LocalDateTime:
+            return value -> java.sql.Date.valueOf( value.asLocalDateTime().toLocalDate() );
+          case Date:
+            return value -> java.sql.Date.valueOf( value.asLocalDate() );
+          case DateTime:
+            return value -> Date.from( value.asZonedDateTime().toInstant() );
+          default:
+            return value -> {
+              throw new HopException( "Conversion from Neo4j daa type " + neoType.name() + " to a Kettle Date isn't supported yet" );
+            };
+        }
+      case IValueMeta.TYPE_TIMESTAMP:
+        return value -> java.sql.Timestamp.valueOf( value.asLocalDateTime() );
+      default:
+        return value -> {
+          throw new HopException( "Unable to convert Neo4j data to type " + targetValueMeta.toStringMeta() );
+        };
+    }
+  }
+
+  /**
+   * Convert a value to JSON using a reused buffer.
+   * The output is the same as JSONValue.toJSONString( value.asObject() ) without converting the value to Java objects first.
+   */
+  private String toJson( Value value ) {
+    json.setLength( 0 );
+    appendJson( json, value );
+    return json.toString();
+  }
+
+  private static void appendJson( StringBuilder builder, Value value ) {
+    String typeName = value.type().name();
+    switch ( typeName ) {
+      case "NULL":
+        builder.append( "null" );
+        break;
+      case "STRING":
+        builder.append( '"' );
+        appendEscaped( builder, value.asString() );
+        builder.append( '"' );
+        break;
+      case "INTEGER":
+        builder.append( value.asLong() );
+        break;
+      case "FLOAT":
+        double d = value.asDouble();
+        if ( Double.isNaN( d ) || Double.isInfinite( d ) ) {
+          builder.append( "null" );
+        } else {
+          builder.append( d );
+        }
+        break;
+      case "BOOLEAN":
+        builder.append( value.asBoolean() );
+        break;
+      case "MAP":
+        builder.append( '{' );
+        boolean firstKey = true;
+        for ( String key : value.keys() ) {
+          if ( !firstKey ) {
+            builder.append( ',' );
+          }
+          firstKey = false;
+          builder.append( '"' );
+          appendEscaped( builder, key );
+          builder.append( "\":" );
+          appendJson( builder, value.get( key ) );
+        }
+        builder.append( '}' );
+        break;
+      default:
+        if ( typeName.startsWith( "LIST" ) ) {
+          builder.append( '[' );
+          for ( int i = 0; i < value.size(); i++ ) {
+            if ( i > 0 ) {
+              builder.append( ',' );
+            }
+            appendJson( builder, value.get( i ) );
+          }
+          builder.append( ']' );
+        } else {
+          // Nodes, relationships, paths, temporal and spatial values
+          //
+          builder.append( JSONValue.toJSONString( value.asObject() ) );
+        }
+        break;
+    }
+  }
+
+  /**
+   * The same escaping as JSONValue.escape()
+   */
+  private static void appendEscaped( StringBuilder builder, String string ) {
+    for ( int i = 0; i < string.length(); i++ ) {
+      char ch = string.charAt( i );
+      switch ( ch ) {
+        case '"':
+          builder.append( "\\\"" );
+          break;
+        case '\\':
+          builder.append( "\\\\" );
+          break;
+        case '\b':
+          builder.append( "\\b" );
+          break;
+        case '\f':
+          builder.append( "\\f" );
+          break;
+        case '\n':
+          builder.append( "\\n" );
+          break;
+        case '\r':
+          builder.append( "\\r" );
+          break;
+        case '\t':
+          builder.append( "\\t" );
+          break;
+        case '/':
+          builder.append( "\\/" );
+          break;
+        default:
+          if ( ( ch <= '\u001F' ) || ( ch >= '\u007F' && ch <= '\u009F' ) || ( ch >= '\u2000' && ch <= '\u20FF' ) ) {
+            String hex = Integer.toHexString( ch ).toUpperCase();
+            builder.append( "\\u" );
+            for ( int k = 0; k < 4 - hex.length(); k++ ) {
+              builder.append( '0' );
+            }
+            builder.append( hex );
+          } else {
+            builder.append( ch );
+          }
+      }
+    }
+  }
+}
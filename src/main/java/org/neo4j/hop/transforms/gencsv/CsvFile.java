@@ -1,7 +1,5 @@
 package org.neo4j.hop.transforms.gencsv;
 
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -21,10 +19,12 @@ public class CsvFile {
 
   private transient Map<String, Integer> propsIndexes;
 
-  private transient FileOutputStream outputStream;
+  private transient CsvWriter writer;
 
   private transient String idFieldName;
 
+  private transient List<CsvFile> dataFiles;
+
   public CsvFile() {
     propsList = new ArrayList<>();
     propsIndexes = new HashMap<>();
@@ -37,31 +37,36 @@ public class CsvFile {
     this.fileType = fileType;
   }
 
-  public void openFile() throws FileNotFoundException {
-    outputStream = new FileOutputStream( filename );
+  /**
+   * Create the file
+   *
+   * @param compressing true if the file needs to be compressed with gzip
+   * @throws IOException In case the file can't be created
+   */
+  public void openFile( boolean compressing ) throws IOException {
+    writer = new CsvWriter( filename, compressing );
   }
 
   public void closeFile() throws IOException {
-    if ( outputStream != null ) {
-      outputStream.flush();
-      outputStream.close();
+    if ( writer != null ) {
+      writer.close();
     }
   }
 
   /**
-   * Gets outputStream
+   * Gets writer
    *
-   * @return value of outputStream
+   * @return value of writer
    */
-  public FileOutputStream getOutputStream() {
-    return outputStream;
+  public CsvWriter getWriter() {
+    return writer;
   }
 
   /**
-   * @param outputStream The outputStream to set
+   * @param writer The writer to set
    */
-  public void setOutputStream( FileOutputStream outputStream ) {
-    this.outputStream = outputStream;
+  public void setWriter( CsvWriter writer ) {
+    this.writer = writer;
   }
 
   @Override public boolean equals( Object o ) {
@@ -174,4 +179,20 @@ public class CsvFile {
   public void setIdFieldName( String idFieldName ) {
     this.idFieldName = idFieldName;
   }
+
+  /**
+   * Gets dataFiles, the data files of the partitions when this is a separate header file
+   *
+   * @return value of dataFiles
+   */
+  public List<CsvFile> getDataFiles() {
+    return dataFiles;
+  }
+
+  /**
+   * @param dataFiles The dataFiles to set
+   */
+  public void setDataFiles( List<CsvFile> dataFiles ) {
+    this.dataFiles = dataFiles;
+  }
 }
@@ -0,0 +1,193 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import org.apache.hop.core.exception.HopException;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes the nodes and relationships of one partition to CSV on its own thread.
+ * Every partition writes its own data file for every property set, the header is in a separate file shared by all partitions.
+ * Since the records are partitioned on ID all versions of a node or relationship end up in the same partition.
+ * This means that the uniqueness strategy can be applied per partition.
+ */
+public class CsvPartitionWriter {
+
+  private static final long CLOSE_TIMEOUT_SECONDS = 60L;
+
+  private final int partition;
+  private final boolean compressing;
+  private final SpillingGraphStore store;
+  private final List<CsvFile> openedFiles;
+  private final ExecutorService executorService;
+
+  private Future<Void> pending;
+
+  /**
+   * @param threadName  The name of the encoding thread
+   * @param partition   The partition number
+   * @param compressing true if the files need to be compressed with gzip
+   * @param store       The store to keep the records in until the end for the uniqueness strategy or null to write right away
+   */
+  public CsvPartitionWriter( String threadName, int partition, boolean compressing, SpillingGraphStore store ) {
+    this.partition = partition;
+    this.compressing = compressing;
+    this.store = store;
+    this.openedFiles = new ArrayList<>();
+    this.executorService = Executors.newSingleThreadExecutor( runnable -> {
+      Thread thread = new Thread( runnable, threadName );
+      thread.setDaemon( true );
+      return thread;
+    } );
+  }
+
+  /**
+   * Encode a batch of records in the background.
+   * If the previous batch of this partition is still being encoded we wait for it first.
+   *
+   * @param records The records, owned by the writer from now on
+   * @throws HopException In case the previous batch failed
+   */
+  public void submit( List<PartitionRecord> records ) throws HopException {
+    waitForPending();
+    pending = executorService.submit( () -> {
+      for ( PartitionRecord record : records ) {
+        if ( store != null ) {
+          if ( record.node != null ) {
+            store.addNode( record.node );
+          } else {
+            store.addRelationship( record.relationship );
+          }
+        } else {
+          if ( record.node != null ) {
+            writeNode( record.csvFile, record.node );
+          } else {
+            writeRelationship( record.csvFile, record.relationship );
+          }
+        }
+      }
+      return null;
+    } );
+  }
+
+  /**
+   * Write the unique records kept for the uniqueness strategy, if any, and close the files of this partition in the background.
+   * Use {@link #waitForPending()} to wait for it to finish.
+   *
+   * @param fileMap The header files per property set key. They're no longer modified at this point.
+   * @throws HopException In case the previous batch failed
+   */
+  public void submitFinish( Map<String, CsvFile> fileMap ) throws HopException {
+    waitForPending();
+    pending = executorService.submit( () -> {
+      if ( store != null ) {
+        store.mergeNodes( node -> writeNode( fileMap.get( GenerateCsvData.getPropertySetKey( null, null, node.getPropertySetId() ) ), node ) );
+        store.mergeRelationships( relationship -> writeRelationship( fileMap.get( GenerateCsvData.getPropertySetKey( null, null, relationship.getPropertySetId() ) ), relationship ) );
+      }
+      for ( CsvFile csvFile : openedFiles ) {
+        csvFile.closeFile();
+      }
+      return null;
+    } );
+  }
+
+  /**
+   * Wait for the work in flight, if any.
+   *
+   * @throws HopException In case the work failed
+   */
+  public void waitForPending() throws HopException {
+    if ( pending == null ) {
+      return;
+    }
+    try {
+      pending.get();
+    } catch ( ExecutionException e ) {
+      throw new HopException( "Error encoding CSV data of partition " + partition, e.getCause() );
+    } catch ( InterruptedException e ) {
+      throw new HopException( "Interrupted while encoding CSV data of partition " + partition, e );
+    } finally {
+      pending = null;
+    }
+  }
+
+  /**
+   * Stop the encoding thread, close the files and remove the sorted runs.  Call {@link #waitForPending()} first to not lose any work.
+   * When the pipeline is stopped the thread is given some time to stop using the files and the store before these are closed.
+   */
+  public void close() {
+    executorService.shutdownNow();
+    try {
+      executorService.awaitTermination( CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    for ( CsvFile csvFile : openedFiles ) {
+      try {
+        csvFile.closeFile();
+      } catch ( IOException e ) {
+        // Already reported by the encoding thread
+      }
+    }
+    if ( store != null ) {
+      store.close();
+    }
+  }
+
+  private CsvFile getPartitionFile( CsvFile headerFile ) throws IOException {
+    CsvFile csvFile = headerFile.getDataFiles().get( partition );
+    if ( csvFile.getWriter() == null ) {
+      csvFile.openFile( compressing );
+      openedFiles.add( csvFile );
+    }
+    return csvFile;
+  }
+
+  private void writeNode( CsvFile headerFile, GraphNodeData node ) throws HopException {
+    try {
+      CsvFile csvFile = getPartitionFile( headerFile );
+      GenerateCsv.writeNodeCsvRow( csvFile.getWriter(), node, csvFile.getPropsList(), csvFile.getPropsIndexes(), csvFile.getIdFieldName() );
+    } catch ( IOException e ) {
+      throw new HopException( "Unable to write node to partition " + partition + " of file '" + headerFile.getFilename() + "'", e );
+    }
+  }
+
+  private void writeRelationship( CsvFile headerFile, GraphRelationshipData relationship ) throws HopException {
+    try {
+      CsvFile csvFile = getPartitionFile( headerFile );
+      GenerateCsv.writeRelsCsvRow( csvFile.getWriter(), relationship, csvFile.getPropsList(), csvFile.getPropsIndexes() );
+    } catch ( IOException e ) {
+      throw new HopException( "Unable to write relationship to partition " + partition + " of file '" + headerFile.getFilename() + "'", e );
+    }
+  }
+
+  /**
+   * A node or relationship to encode with the header file of its property set
+   */
+  public static class PartitionRecord {
+    private final CsvFile csvFile;
+    private final GraphNodeData node;
+    private final GraphRelationshipData relationship;
+
+    public PartitionRecord( CsvFile csvFile, GraphNodeData node ) {
+      this.csvFile = csvFile;
+      this.node = node;
+      this.relationship = null;
+    }
+
+    public PartitionRecord( CsvFile csvFile, GraphRelationshipData relationship ) {
+      this.csvFile = csvFile;
+      this.node = null;
+      this.relationship = relationship;
+    }
+  }
+}
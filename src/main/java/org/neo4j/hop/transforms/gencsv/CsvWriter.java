@@ -0,0 +1,333 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes CSV data to a file channel.
+ * Characters are encoded as UTF-8 straight into a large buffer which is only written to the channel when it's full.
+ * The direct buffers are pooled so that opening many files doesn't allocate new native memory every time.
+ * Numbers, booleans and temporal values are formatted straight into the buffer without creating Strings.
+ * Optionally the output is compressed with gzip, something neo4j-admin import reads natively.
+ */
+public class CsvWriter implements AutoCloseable {
+
+  public static final int BUFFER_SIZE = 256 * 1024;
+
+  private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+
+  private final FileChannel channel;
+  private final OutputStream gzipStream;
+  private ByteBuffer buffer;
+
+  /**
+   * Create a new file to write CSV data to
+   *
+   * @param filename    The name of the file to create or overwrite
+   * @param compressing true if the file needs to be compressed with gzip
+   * @throws IOException In case the file can't be created
+   */
+  public CsvWriter( String filename, boolean compressing ) throws IOException {
+    channel = FileChannel.open( Paths.get( filename ), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING );
+    if ( compressing ) {
+      // The deflater works on heap arrays so there's no point in using a direct buffer
+      //
+      gzipStream = new GZIPOutputStream( Channels.newOutputStream( channel ), BUFFER_SIZE );
+      buffer = ByteBuffer.allocate( BUFFER_SIZE );
+    } else {
+      gzipStream = null;
+      buffer = BUFFER_POOL.poll();
+      if ( buffer == null ) {
+        buffer = ByteBuffer.allocateDirect( BUFFER_SIZE );
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Write a string encoded as UTF-8
+   *
+   * @param string The string to write, nothing is written for null
+   * @throws IOException In case of an error writing to the file
+   */
+  public void write( String string ) throws IOException {
+    if ( string == null ) {
+      return;
+    }
+    write( string, 0, string.length() );
+  }
+
+  /**
+   * Write a single character encoded as UTF-8
+   *
+   * @param ch The character to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void write( char ch ) throws IOException {
+    if ( ch < 0x80 ) {
+      if ( !buffer.hasRemaining() ) {
+        flushBuffer();
+      }
+      buffer.put( (byte) ch );
+    } else {
+      writeCodePoint( ch );
+    }
+  }
+
+  /**
+   * Write a string as a quoted field as described in RFC 4180: double quotes in the string are doubled.
+   *
+   * @param string The string to write, an empty quoted field is written for null
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeQuoted( String string ) throws IOException {
+    write( '"' );
+    writeQuotedContent( string );
+    write( '"' );
+  }
+
+  /**
+   * Write the content of a quoted field without the surrounding quotes: double quotes in the string are doubled.
+   * This allows a number of values to be written into the same quoted field.
+   *
+   * @param string The string to write, nothing is written for null
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeQuotedContent( String string ) throws IOException {
+    if ( string == null ) {
+      return;
+    }
+    int start = 0;
+    int quote = string.indexOf( '"' );
+    while ( quote >= 0 ) {
+      write( string, start, quote + 1 );
+      write( '"' );
+      start = quote + 1;
+      quote = string.indexOf( '"', start );
+    }
+    write( string, start, string.length() );
+  }
+
+  /**
+   * Write the decimal representation of a long without creating a String
+   *
+   * @param value The value to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeLong( long value ) throws IOException {
+    if ( buffer.remaining() < 20 ) {
+      flushBuffer();
+    }
+    if ( value == Long.MIN_VALUE ) {
+      // Can't be negated
+      //
+      write( Long.toString( value ) );
+      return;
+    }
+    if ( value < 0 ) {
+      buffer.put( (byte) '-' );
+      value = -value;
+    }
+    int digits = 1;
+    for ( long limit = 10; digits < 19 && value >= limit; limit *= 10 ) {
+      digits++;
+    }
+    int position = buffer.position();
+    for ( int i = digits - 1; i >= 0; i-- ) {
+      buffer.put( position + i, (byte) ( '0' + ( value % 10 ) ) );
+      value /= 10;
+    }
+    buffer.position( position + digits );
+  }
+
+  /**
+   * Write a double. Values without a fraction are written as a long followed by ".0", like Double.toString() does.
+   * Other values aren't as common in the data we import and fall back to Double.toString().
+   *
+   * @param value The value to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeDouble( double value ) throws IOException {
+    if ( value == Math.rint( value ) && Math.abs( value ) < 1.0E7 && !( value == 0.0 && 1.0 / value < 0 ) ) {
+      writeLong( (long) value );
+      write( ".0" );
+    } else {
+      write( Double.toString( value ) );
+    }
+  }
+
+  /**
+   * Write a boolean as true or false
+   *
+   * @param value The value to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeBoolean( boolean value ) throws IOException {
+    write( value ? "true" : "false" );
+  }
+
+  /**
+   * Write a date as yyyy-MM-dd
+   *
+   * @param date The date to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeDate( LocalDate date ) throws IOException {
+    int year = date.getYear();
+    if ( year < 0 || year > 9999 ) {
+      // Extended years have a sign
+      //
+      write( date.toString() );
+      return;
+    }
+    writePadded( year, 4 );
+    write( '-' );
+    writePadded( date.getMonthValue(), 2 );
+    write( '-' );
+    writePadded( date.getDayOfMonth(), 2 );
+  }
+
+  /**
+   * Write a time as HH:mm:ss with the fraction of a second if there is one, the same as LocalTime.toString() except that seconds are always included.
+   *
+   * @param time The time to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeTime( LocalTime time ) throws IOException {
+    writePadded( time.getHour(), 2 );
+    write( ':' );
+    writePadded( time.getMinute(), 2 );
+    write( ':' );
+    writePadded( time.getSecond(), 2 );
+    int nano = time.getNano();
+    if ( nano > 0 ) {
+      write( '.' );
+      if ( nano % 1000000 == 0 ) {
+        writePadded( nano / 1000000, 3 );
+      } else if ( nano % 1000 == 0 ) {
+        writePadded( nano / 1000, 6 );
+      } else {
+        writePadded( nano, 9 );
+      }
+    }
+  }
+
+  /**
+   * Write a local date time as yyyy-MM-ddTHH:mm:ss with the fraction of a second if there is one
+   *
+   * @param dateTime The date time to write
+   * @throws IOException In case of an error writing to the file
+   */
+  public void writeDateTime( LocalDateTime dateTime ) throws IOException {
+    writeDate( dateTime.toLocalDate() );
+    write( 'T' );
+    writeTime( dateTime.toLocalTime() );
+  }
+
+  private void writePadded( int value, int digits ) throws IOException {
+    if ( buffer.remaining() < digits ) {
+      flushBuffer();
+    }
+    int position = buffer.position();
+    for ( int i = digits - 1; i >= 0; i-- ) {
+      buffer.put( position + i, (byte) ( '0' + ( value % 10 ) ) );
+      value /= 10;
+    }
+    buffer.position( position + digits );
+  }
+
+  private void write( String string, int start, int end ) throws IOException {
+    for ( int i = start; i < end; i++ ) {
+      char ch = string.charAt( i );
+      if ( ch < 0x80 ) {
+        if ( !buffer.hasRemaining() ) {
+          flushBuffer();
+        }
+        buffer.put( (byte) ch );
+      } else if ( Character.isHighSurrogate( ch ) && i + 1 < end && Character.isLowSurrogate( string.charAt( i + 1 ) ) ) {
+        writeCodePoint( Character.toCodePoint( ch, string.charAt( ++i ) ) );
+      } else {
+        writeCodePoint( ch );
+      }
+    }
+  }
+
+  private void writeCodePoint( int codePoint ) throws IOException {
+    if ( buffer.remaining() < 4 ) {
+      flushBuffer();
+    }
+    if ( Character.isSurrogate( (char) codePoint ) && codePoint <= 0xFFFF ) {
+      // An unpaired surrogate can't be encoded
+      //
+      buffer.put( (byte) '?' );
+    } else if ( codePoint < 0x800 ) {
+      buffer.put( (byte) ( 0xC0 | ( codePoint >> 6 ) ) );
+      buffer.put( (byte) ( 0x80 | ( codePoint & 0x3F ) ) );
+    } else if ( codePoint < 0x10000 ) {
+      buffer.put( (byte) ( 0xE0 | ( codePoint >> 12 ) ) );
+      buffer.put( (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) ) );
+      buffer.put( (byte) ( 0x80 | ( codePoint & 0x3F ) ) );
+    } else {
+      buffer.put( (byte) ( 0xF0 | ( codePoint >> 18 ) ) );
+      buffer.put( (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) ) );
+      buffer.put( (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) ) );
+      buffer.put( (byte) ( 0x80 | ( codePoint & 0x3F ) ) );
+    }
+  }
+
+  /**
+   * Write the content of the buffer to the file
+   *
+   * @throws IOException In case of an error writing to the file
+   */
+  private void flushBuffer() throws IOException {
+    if ( gzipStream != null ) {
+      gzipStream.write( buffer.array(), 0, buffer.position() );
+      buffer.clear();
+    } else {
+      buffer.flip();
+      while ( buffer.hasRemaining() ) {
+        channel.write( buffer );
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Write the remaining data, close the file and give the buffer back to the pool.
+   *
+   * @throws IOException In case of an error writing to or closing the file
+   */
+  @Override public void close() throws IOException {
+    if ( buffer == null ) {
+      return;
+    }
+    try {
+      flushBuffer();
+      if ( gzipStream != null ) {
+        // Also closes the channel
+        //
+        gzipStream.close();
+      }
+    } finally {
+      if ( channel.isOpen() ) {
+        channel.close();
+      }
+      if ( buffer.isDirect() ) {
+        BUFFER_POOL.offer( buffer );
+      }
+      buffer = null;
+    }
+  }
+}
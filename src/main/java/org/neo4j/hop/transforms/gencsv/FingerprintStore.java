@@ -0,0 +1,443 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import org.apache.hop.core.exception.HopException;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers a fingerprint of every node and relationship of an import so that the next run only needs to write what changed.
+ * <p>
+ * Both the ID and the content (labels or type, start and end node and properties) are hashed to 64 bits.
+ * That keeps the store at 16 bytes per node or relationship, the previous run is kept in sorted arrays and looked up with a binary search.
+ * A new store is only saved as a pending file: the Importer promotes it once the changes are imported.
+ * Otherwise a failed import would make the next run skip the changes it didn't import.
+ * <p>
+ * New and updated records are counted separately: neo4j-admin can only add new records to an existing database,
+ * updates need to be merged. The counts are saved in the header of the pending store for the Importer.
+ * The first label and ID property of the nodes of this run are kept as well so that the relationship files can tell
+ * how to look up their start and end nodes.
+ */
+public class FingerprintStore {
+
+  public static final String PENDING_EXTENSION = ".new";
+
+  private static final int MAGIC = 0x4E484650; // NHFP
+  private static final int VERSION = 2;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final long[] previousKeys;
+  private final long[] previousFingerprints;
+
+  private long[] nodeKeys;
+  private long[] nodeFingerprints;
+  private int[] nodeEndpoints;
+  private int nodeSize;
+
+  /**
+   * Open addressing hash table of the node keys, the slots hold the index of the node plus one
+   */
+  private int[] nodeTable;
+
+  private long[] relationshipKeys;
+  private long[] relationshipFingerprints;
+  private int relationshipSize;
+
+  /**
+   * The distinct first labels and ID properties of the nodes, referenced by index from nodeEndpoints
+   */
+  private final List<String[]> endpoints;
+  private final Map<String, Integer> endpointIndexes;
+
+  private long added;
+  private long updated;
+  private long unchanged;
+
+  private FingerprintStore( long[] previousKeys, long[] previousFingerprints ) {
+    this.previousKeys = previousKeys;
+    this.previousFingerprints = previousFingerprints;
+    nodeKeys = new long[ 1024 ];
+    nodeFingerprints = new long[ 1024 ];
+    nodeEndpoints = new int[ 1024 ];
+    nodeTable = new int[ 2048 ];
+    relationshipKeys = new long[ 1024 ];
+    relationshipFingerprints = new long[ 1024 ];
+    endpoints = new ArrayList<>();
+    endpointIndexes = new HashMap<>();
+  }
+
+  /**
+   * Load the fingerprints of the previous run
+   *
+   * @param file The store of the previous run. If it doesn't exist everything is considered to be changed.
+   * @return The fingerprint store
+   * @throws HopException In case the file can't be read
+   */
+  public static FingerprintStore load( File file ) throws HopException {
+    if ( !file.exists() ) {
+      return new FingerprintStore( new long[ 0 ], new long[ 0 ] );
+    }
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), CsvWriter.BUFFER_SIZE ) ) ) {
+      int[] header = readHeader( in, file );
+      int count = header[ 0 ];
+      if ( header[ 1 ] >= 2 ) {
+        // Skip the number of new and updated records
+        //
+        in.readLong();
+        in.readLong();
+      }
+      long[] keys = new long[ count ];
+      long[] fingerprints = new long[ count ];
+      for ( int i = 0; i < count; i++ ) {
+        keys[ i ] = in.readLong();
+        fingerprints[ i ] = in.readLong();
+      }
+      return new FingerprintStore( keys, fingerprints );
+    } catch ( HopException e ) {
+      throw e;
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to read fingerprint store '" + file + "'", e );
+    }
+  }
+
+  /**
+   * Read the counts of new and updated records from the header of a pending store
+   *
+   * @param pendingFile The pending store written by {@link #savePending(File)}
+   * @return The number of new records and the number of updated records
+   * @throws HopException In case the file can't be read
+   */
+  public static long[] readChangeCounts( File pendingFile ) throws HopException {
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( pendingFile ) ) ) ) {
+      int[] header = readHeader( in, pendingFile );
+      if ( header[ 1 ] < 2 ) {
+        throw new HopException( "Fingerprint store '" + pendingFile + "' doesn't have the number of new and updated records" );
+      }
+      return new long[] { in.readLong(), in.readLong() };
+    } catch ( HopException e ) {
+      throw e;
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to read fingerprint store '" + pendingFile + "'", e );
+    }
+  }
+
+  /**
+   * @return the number of records and the version. Version 2 has the number of new and updated records after the header.
+   */
+  private static int[] readHeader( DataInputStream in, File file ) throws IOException, HopException {
+    if ( in.readInt() != MAGIC ) {
+      throw new HopException( "File '" + file + "' is not a fingerprint store" );
+    }
+    int version = in.readInt();
+    if ( version < 1 || version > VERSION ) {
+      throw new HopException( "File '" + file + "' is a fingerprint store of unknown version " + version );
+    }
+    int count = in.readInt();
+    return new int[] { count, version };
+  }
+
+  /**
+   * Register the node for the next run and see if it changed since the previous run
+   *
+   * @param node The node to register. Every node ID should only be registered once.
+   * @return true if the node is new or changed
+   */
+  public boolean registerNode( GraphNodeData node ) {
+    long key = getNodeKey( node.getId() );
+    long fingerprint = FNV_OFFSET_BASIS;
+    for ( String label : node.getLabels() ) {
+      fingerprint = hash( fingerprint, label );
+    }
+    fingerprint = hashProperties( fingerprint, node.getProperties() );
+
+    if ( nodeSize == nodeKeys.length ) {
+      nodeKeys = Arrays.copyOf( nodeKeys, nodeSize * 2 );
+      nodeFingerprints = Arrays.copyOf( nodeFingerprints, nodeSize * 2 );
+      nodeEndpoints = Arrays.copyOf( nodeEndpoints, nodeSize * 2 );
+    }
+    nodeKeys[ nodeSize ] = key;
+    nodeFingerprints[ nodeSize ] = fingerprint;
+    nodeEndpoints[ nodeSize ] = getEndpointIndex( node );
+    nodeSize++;
+    if ( nodeSize * 2 > nodeTable.length ) {
+      nodeTable = new int[ nodeTable.length * 2 ];
+      for ( int i = 0; i < nodeSize; i++ ) {
+        addToNodeTable( i );
+      }
+    } else {
+      addToNodeTable( nodeSize - 1 );
+    }
+
+    return compare( key, fingerprint );
+  }
+
+  /**
+   * Find the first label and ID property of a node registered in this run.
+   * The relationship files need these to look up their start and end nodes with an index.
+   *
+   * @param nodeId The ID of the node
+   * @return The first label and the ID property of the node or null if the node wasn't registered
+   */
+  public String[] findEndpoint( String nodeId ) {
+    long key = getNodeKey( nodeId );
+    int mask = nodeTable.length - 1;
+    for ( int slot = getSlot( key, mask ); nodeTable[ slot ] != 0; slot = ( slot + 1 ) & mask ) {
+      int index = nodeTable[ slot ] - 1;
+      if ( nodeKeys[ index ] == key ) {
+        return endpoints.get( nodeEndpoints[ index ] );
+      }
+    }
+    return null;
+  }
+
+  private void addToNodeTable( int index ) {
+    int mask = nodeTable.length - 1;
+    int slot = getSlot( nodeKeys[ index ], mask );
+    while ( nodeTable[ slot ] != 0 ) {
+      slot = ( slot + 1 ) & mask;
+    }
+    nodeTable[ slot ] = index + 1;
+  }
+
+  private static int getSlot( long key, int mask ) {
+    return (int) ( key ^ ( key >>> 32 ) ) & mask;
+  }
+
+  private int getEndpointIndex( GraphNodeData node ) {
+    String label = node.getLabels().isEmpty() ? "" : node.getLabels().get( 0 );
+    String idProperty = "id";
+    for ( GraphPropertyData property : node.getProperties() ) {
+      if ( property.isPrimary() ) {
+        idProperty = property.getId();
+        break;
+      }
+    }
+    String endpointKey = label + '\0' + idProperty;
+    Integer index = endpointIndexes.get( endpointKey );
+    if ( index == null ) {
+      index = endpoints.size();
+      endpoints.add( new String[] { label, idProperty } );
+      endpointIndexes.put( endpointKey, index );
+    }
+    return index;
+  }
+
+  private static long getNodeKey( String nodeId ) {
+    return hash( hash( FNV_OFFSET_BASIS, "N" ), nodeId );
+  }
+
+  /**
+   * Register the relationship for the next run and see if it changed since the previous run
+   *
+   * @param relationship The relationship to register. Every relationship ID should only be registered once.
+   * @return true if the relationship is new or changed
+   */
+  public boolean registerRelationship( GraphRelationshipData relationship ) {
+    long key = hash( hash( FNV_OFFSET_BASIS, "R" ), relationship.getId() );
+    long fingerprint = hash( FNV_OFFSET_BASIS, relationship.getLabel() );
+    fingerprint = hash( fingerprint, relationship.getSourceNodeId() );
+    fingerprint = hash( fingerprint, relationship.getTargetNodeId() );
+    fingerprint = hashProperties( fingerprint, relationship.getProperties() );
+
+    if ( relationshipSize == relationshipKeys.length ) {
+      relationshipKeys = Arrays.copyOf( relationshipKeys, relationshipSize * 2 );
+      relationshipFingerprints = Arrays.copyOf( relationshipFingerprints, relationshipSize * 2 );
+    }
+    relationshipKeys[ relationshipSize ] = key;
+    relationshipFingerprints[ relationshipSize ] = fingerprint;
+    relationshipSize++;
+
+    return compare( key, fingerprint );
+  }
+
+  private boolean compare( long key, long fingerprint ) {
+    int index = Arrays.binarySearch( previousKeys, key );
+    if ( index < 0 ) {
+      added++;
+      return true;
+    }
+    if ( previousFingerprints[ index ] == fingerprint ) {
+      unchanged++;
+      return false;
+    }
+    updated++;
+    return true;
+  }
+
+  private static long hashProperties( long hash, List<GraphPropertyData> properties ) {
+    for ( GraphPropertyData property : properties ) {
+      hash = hash( hash, property.getId() );
+      hash = hash( hash, property.getType() == null ? null : property.getType().name() );
+      Object value = property.getValue();
+      if ( value instanceof Object[] ) {
+        value = Arrays.asList( (Object[]) value );
+      }
+      hash = hash( hash, value == null ? null : value.toString() );
+    }
+    return hash;
+  }
+
+  /**
+   * 64 bit FNV-1a over the characters of the string. A separator keeps ("ab","c") apart from ("a","bc").
+   */
+  private static long hash( long hash, String string ) {
+    if ( string == null ) {
+      hash ^= 0xFFFF;
+      return hash * FNV_PRIME;
+    }
+    for ( int i = 0; i < string.length(); i++ ) {
+      char ch = string.charAt( i );
+      hash ^= ch & 0xFF;
+      hash *= FNV_PRIME;
+      hash ^= ch >>> 8;
+      hash *= FNV_PRIME;
+    }
+    hash ^= 0xFFFE;
+    return hash * FNV_PRIME;
+  }
+
+  /**
+   * Save the fingerprints registered in this run as a pending store next to the given file.
+   *
+   * @param file The store to replace once the import succeeded
+   * @return The pending file
+   * @throws HopException In case the file couldn't be written
+   */
+  public File savePending( File file ) throws HopException {
+    // Node and relationship keys don't collide, the hash starts with N or R.
+    //
+    int size = nodeSize + relationshipSize;
+    long[] keys = Arrays.copyOf( nodeKeys, size );
+    long[] fingerprints = Arrays.copyOf( nodeFingerprints, size );
+    System.arraycopy( relationshipKeys, 0, keys, nodeSize, relationshipSize );
+    System.arraycopy( relationshipFingerprints, 0, fingerprints, nodeSize, relationshipSize );
+    sort( keys, fingerprints, 0, size - 1 );
+
+    File pendingFile = new File( file.getPath() + PENDING_EXTENSION );
+    try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( pendingFile ), CsvWriter.BUFFER_SIZE ) ) ) {
+      out.writeInt( MAGIC );
+      out.writeInt( VERSION );
+      out.writeInt( size );
+      out.writeLong( added );
+      out.writeLong( updated );
+      for ( int i = 0; i < size; i++ ) {
+        out.writeLong( keys[ i ] );
+        out.writeLong( fingerprints[ i ] );
+      }
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to write fingerprint store '" + pendingFile + "'", e );
+    }
+    return pendingFile;
+  }
+
+  /**
+   * Replace the store with the pending store written by {@link #savePending(File)}
+   *
+   * @param pendingFile The pending file
+   * @throws HopException In case the file couldn't be moved
+   */
+  public static void promotePending( File pendingFile ) throws HopException {
+    String path = pendingFile.getPath();
+    if ( !path.endsWith( PENDING_EXTENSION ) ) {
+      throw new HopException( "File '" + pendingFile + "' is not a pending fingerprint store" );
+    }
+    File file = new File( path.substring( 0, path.length() - PENDING_EXTENSION.length() ) );
+    try {
+      Files.move( pendingFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to replace fingerprint store '" + file + "' with '" + pendingFile + "'", e );
+    }
+  }
+
+  /**
+   * Sort the keys with their fingerprints. Recurse into the smallest part to keep the stack small.
+   */
+  private static void sort( long[] keys, long[] fingerprints, int low, int high ) {
+    while ( low < high ) {
+      long pivot = keys[ ( low + high ) >>> 1 ];
+      int i = low;
+      int j = high;
+      while ( i <= j ) {
+        while ( keys[ i ] < pivot ) {
+          i++;
+        }
+        while ( keys[ j ] > pivot ) {
+          j--;
+        }
+        if ( i <= j ) {
+          swap( keys, fingerprints, i++, j-- );
+        }
+      }
+      if ( j - low < high - i ) {
+        sort( keys, fingerprints, low, j );
+        low = i;
+      } else {
+        sort( keys, fingerprints, i, high );
+        high = j;
+      }
+    }
+  }
+
+  private static void swap( long[] keys, long[] fingerprints, int i, int j ) {
+    long key = keys[ i ];
+    keys[ i ] = keys[ j ];
+    keys[ j ] = key;
+    long fingerprint = fingerprints[ i ];
+    fingerprints[ i ] = fingerprints[ j ];
+    fingerprints[ j ] = fingerprint;
+  }
+
+  /**
+   * Gets changed
+   *
+   * @return value of changed, the number of new or changed nodes and relationships
+   */
+  public long getChanged() {
+    return added + updated;
+  }
+
+  /**
+   * Gets added
+   *
+   * @return value of added, the number of nodes and relationships which are new since the previous run
+   */
+  public long getAdded() {
+    return added;
+  }
+
+  /**
+   * Gets updated
+   *
+   * @return value of updated, the number of nodes and relationships which exist but changed since the previous run
+   */
+  public long getUpdated() {
+    return updated;
+  }
+
+  /**
+   * Gets unchanged
+   *
+   * @return value of unchanged, the number of nodes and relationships which didn't change since the previous run
+   */
+  public long getUnchanged() {
+    return unchanged;
+  }
+}
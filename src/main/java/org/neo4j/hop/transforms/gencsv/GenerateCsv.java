@@ -18,14 +18,26 @@ import org.neo4j.hop.core.value.ValueMetaGraph;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData> implements ITransform<GenerateCsvMeta, GenerateCsvData> {
 
+  private static final int PARTITION_BATCH_SIZE = 10000;
+
+  /**
+   * In changes only mode the relationship files tell how to look up their start and end nodes, and which property is
+   * the key of the relationship. neo4j-admin ignores these columns, the Importer uses them to merge changes.
+   */
+  public static final String[] RELATIONSHIP_MERGE_COLUMNS = { "~startLabel", "~startIdProperty", "~endLabel", "~endIdProperty", "~keyProperty" };
+
   /**
    * This is the base transform that forms that basis for all transform. You can derive from this class to implement your own
    * transform.
@@ -47,6 +59,14 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
 
     Object[] row = getRow();
     if ( row == null ) {
+      if ( data.partitionWriters != null ) {
+        // Let the partitions finish encoding and pass the file groups to the next transform
+        //
+        writePartitionsToCsv();
+        setOutputDone();
+        return false;
+      }
+
       // Write data in the buffer to CSV files...
       //
       writeBufferToCsv();
@@ -71,6 +91,22 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
         }
       }
 
+      if ( data.fingerprintStore != null && getErrors() == 0 ) {
+        // The Importer replaces the fingerprints of the previous run once the changes are imported
+        //
+        File pendingFile = data.fingerprintStore.savePending( data.fingerprintFile );
+        log.logBasic( "Wrote " + data.fingerprintStore.getChanged() + " new or changed nodes and relationships, skipped "
+          + data.fingerprintStore.getUnchanged() + " unchanged ones" );
+
+        Object[] fingerprintRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+        fingerprintRow[ 0 ] = calculateFingerprintShortFilename() + FingerprintStore.PENDING_EXTENSION;
+        fingerprintRow[ 1 ] = "Fingerprints";
+        putRow( data.outputRowMeta, fingerprintRow );
+        if ( log.isDetailed() ) {
+          log.logDetailed( "Fingerprints of this run are pending in '" + pendingFile + "'" );
+        }
+      }
+
       if ( getErrors() > 0 ) {
         stopAll();
       }
@@ -95,11 +131,6 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
         throw new HopException( "Field " + meta.getGraphFieldName() + "' needs to be of type Graph" );
       }
 
-      if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
-        data.indexedGraphData = new IndexedGraphData( meta.getUniquenessStrategy(), meta.getUniquenessStrategy() );
-      } else {
-        data.indexedGraphData = null;
-      }
       data.filesPrefix = environmentSubstitute( meta.getFilesPrefix() );
 
       data.filenameField = environmentSubstitute( meta.getFilenameField() );
@@ -111,6 +142,52 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
       }
 
       data.importFolder = data.baseFolder + "import/";
+
+      data.compressingFiles = meta.isCompressingFiles();
+      data.fileExtension = data.compressingFiles ? ".csv.gz" : ".csv";
+
+      int maxBufferedRecords = Const.toInt( environmentSubstitute( meta.getMaxBufferedRecords() ), SpillingGraphStore.DEFAULT_MAX_BUFFERED_RECORDS );
+      int encodingThreads = Const.toInt( environmentSubstitute( meta.getEncodingThreads() ), 1 );
+      data.maxBufferedRecords = meta.isSpillingToDisk() ? maxBufferedRecords : Integer.MAX_VALUE;
+
+      data.indexedGraphData = null;
+      data.graphStore = null;
+      data.partitionWriters = null;
+      if ( encodingThreads > 1 ) {
+        // Partition the nodes and relationships on ID over a number of encoding threads.
+        // All versions of a node or relationship end up in the same partition so every partition can keep its own unique records.
+        //
+        data.partitionWriters = new CsvPartitionWriter[ encodingThreads ];
+        data.partitionBatches = new ArrayList<>();
+        for ( int p = 0; p < encodingThreads; p++ ) {
+          SpillingGraphStore store = null;
+          if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
+            store = new SpillingGraphStore( meta.getUniquenessStrategy(), data.maxBufferedRecords, new File( data.baseFolder ) );
+          }
+          String threadName = getTransformName() + " CSV encoder " + getCopy() + "." + p;
+          data.partitionWriters[ p ] = new CsvPartitionWriter( threadName, p, data.compressingFiles, store );
+          data.partitionBatches.add( new ArrayList<>( PARTITION_BATCH_SIZE ) );
+        }
+      } else if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
+        if ( meta.isSpillingToDisk() ) {
+          // Keep the nodes and relationships in sorted runs on disk instead of all in memory
+          //
+          data.graphStore = new SpillingGraphStore( meta.getUniquenessStrategy(), maxBufferedRecords, new File( data.baseFolder ) );
+        } else {
+          data.indexedGraphData = new IndexedGraphData( meta.getUniquenessStrategy(), meta.getUniquenessStrategy() );
+        }
+      }
+
+      data.fingerprintStore = null;
+      if ( meta.isWritingChangesOnly() ) {
+        // Only the unique version of a node or relationship can be compared with the previous run
+        //
+        if ( meta.getUniquenessStrategy() == UniquenessStrategy.None || data.partitionWriters != null ) {
+          throw new HopException( "Only writing changes needs a uniqueness strategy and can't be combined with more than one encoding thread" );
+        }
+        data.fingerprintFile = new File( calculateFingerprintFilename() );
+        data.fingerprintStore = FingerprintStore.load( data.fingerprintFile );
+      }
     }
 
     if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
@@ -144,6 +221,20 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
     return true;
   }
 
+  @Override public void dispose() {
+    // Remove any sorted runs which are left behind after an error
+    //
+    if ( data.graphStore != null ) {
+      data.graphStore.close();
+    }
+    if ( data.partitionWriters != null ) {
+      for ( CsvPartitionWriter partitionWriter : data.partitionWriters ) {
+        partitionWriter.close();
+      }
+    }
+    super.dispose();
+  }
+
   protected void writeGraphDataToCsvFiles( GraphData graphData ) throws HopException {
 
     if ( graphData == null ) {
@@ -161,131 +252,305 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
 
   protected void writeNodesToCsvFiles( GraphData graphData ) throws HopException {
     for ( GraphNodeData nodeData : graphData.getNodes() ) {
+      if ( data.fingerprintStore != null && !data.fingerprintStore.registerNode( nodeData ) ) {
+        continue;
+      }
+      writeNodeToCsvFile( graphData.getSourcePipelineName(), graphData.getSourceTransformName(), nodeData );
+    }
+  }
 
-      // The files we're generating for import need to have the same sets of properties
-      // This set of properties is the same for every transform generating the graph data types.
-      // So we can use the name of the property transform given by the transform in combination with the
-      // pipeline and transform name.
+  protected void writeNodeToCsvFile( String sourcePipelineName, String sourceTransformName, GraphNodeData nodeData ) throws HopException {
+    CsvFile csvFile = getNodeCsvFile( sourcePipelineName, sourceTransformName, nodeData );
+
+    if ( data.partitionWriters != null ) {
+      // Let the partition of the node write it
       //
-      String propertySetKey = GenerateCsvData.getPropertySetKey(
-        graphData.getSourcePipelineName(),
-        graphData.getSourceTransformName(),
-        nodeData.getPropertySetId()
-      );
+      addToPartition( nodeData.getId(), new CsvPartitionWriter.PartitionRecord( csvFile, nodeData ) );
+      return;
+    }
+
+    // Write a node data row to the CSV file...
+    //
+    try {
+      writeNodeCsvRow( csvFile.getWriter(), nodeData, csvFile.getPropsList(), csvFile.getPropsIndexes(), csvFile.getIdFieldName() );
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to write node header to file '" + csvFile.getFilename() + "'", e );
+    }
+  }
 
-      // See if we have this set already?
+  protected CsvFile getNodeCsvFile( String sourcePipelineName, String sourceTransformName, GraphNodeData nodeData ) throws HopException {
+    // The files we're generating for import need to have the same sets of properties
+    // This set of properties is the same for every transform generating the graph data types.
+    // So we can use the name of the property transform given by the transform in combination with the
+    // pipeline and transform name.
+    //
+    String propertySetKey = GenerateCsvData.getPropertySetKey(
+      sourcePipelineName,
+      sourceTransformName,
+      nodeData.getPropertySetId()
+    );
+
+    // See if we have this set already?
+    //
+    CsvFile csvFile = data.fileMap.get( propertySetKey );
+    if ( csvFile == null ) {
+      // Create a new file and write the header for the node...
+      // When partitioning the header goes into a separate file
       //
-      CsvFile csvFile = data.fileMap.get( propertySetKey );
-      if ( csvFile == null ) {
-        // Create a new file and write the header for the node...
-        //
-        String filename = calculateNodeFilename( propertySetKey );
-        String shortFilename = calculateNodeShortFilename( propertySetKey );
-        csvFile = new CsvFile( filename, shortFilename, "Nodes" );
-        data.fileMap.put( propertySetKey, csvFile );
-
-        try {
-          csvFile.openFile();
-        } catch ( Exception e ) {
-          throw new HopException( "Unable to create nodes CSV file '" + csvFile.getFilename() + "'", e );
-        }
+      String suffix = isSeparatingHeaders() ? "-header" : "";
+      String filename = calculateNodeFilename( propertySetKey, suffix );
+      String shortFilename = calculateNodeShortFilename( propertySetKey, suffix );
+      csvFile = new CsvFile( filename, shortFilename, "Nodes" );
+      data.fileMap.put( propertySetKey, csvFile );
 
-        // Calculate the unique list of node properties
-        //
-        List<GraphPropertyData> properties = nodeData.getProperties();
-        for ( int i = 0; i < properties.size(); i++ ) {
-          csvFile.getPropsList().add( new IdType( properties.get( i ).getId(), properties.get( i ).getType() ) );
-        }
-        for ( int i = 0; i < properties.size(); i++ ) {
-          csvFile.getPropsIndexes().put( properties.get( i ).getId(), i );
-        }
-        csvFile.setIdFieldName( "id" );
-        for ( GraphPropertyData property : properties ) {
-          if ( property.isPrimary() ) {
-            csvFile.setIdFieldName( property.getId() );
-            break; // First ID found
-          }
-        }
+      try {
+        csvFile.openFile( data.compressingFiles );
+      } catch ( Exception e ) {
+        throw new HopException( "Unable to create nodes CSV file '" + csvFile.getFilename() + "'", e );
+      }
 
-        try {
-          writeNodeCsvHeader( csvFile.getOutputStream(), csvFile.getPropsList(), csvFile.getIdFieldName() );
-        } catch ( Exception e ) {
-          throw new HopException( "Unable to write node header to file '" + csvFile.getFilename() + "'", e );
+      // Calculate the unique list of node properties
+      //
+      List<GraphPropertyData> properties = nodeData.getProperties();
+      for ( int i = 0; i < properties.size(); i++ ) {
+        IdType idType = new IdType( properties.get( i ).getId(), properties.get( i ).getType() );
+        idType.setArray( isArray( properties.get( i ).getValue() ) );
+        csvFile.getPropsList().add( idType );
+      }
+      for ( int i = 0; i < properties.size(); i++ ) {
+        csvFile.getPropsIndexes().put( properties.get( i ).getId(), i );
+      }
+      csvFile.setIdFieldName( "id" );
+      for ( GraphPropertyData property : properties ) {
+        if ( property.isPrimary() ) {
+          csvFile.setIdFieldName( property.getId() );
+          break; // First ID found
         }
       }
 
-      // Write a node data row to the CSV file...
-      //
       try {
-        writeNodeCsvRows( csvFile.getOutputStream(), Arrays.asList( nodeData ), csvFile.getPropsList(), csvFile.getPropsIndexes(), csvFile.getIdFieldName() );
+        writeNodeCsvHeader( csvFile.getWriter(), csvFile.getPropsList(), csvFile.getIdFieldName() );
       } catch ( Exception e ) {
         throw new HopException( "Unable to write node header to file '" + csvFile.getFilename() + "'", e );
       }
+
+      if ( isSeparatingHeaders() ) {
+        closeHeaderFile( csvFile );
+        csvFile.setDataFiles( createDataFiles( csvFile, propertySetKey ) );
+      }
     }
+    return csvFile;
   }
 
   protected void writeRelationshipsToCsvFiles( GraphData graphData ) throws HopException {
     for ( GraphRelationshipData relationshipData : graphData.getRelationships() ) {
+      if ( data.fingerprintStore != null && !data.fingerprintStore.registerRelationship( relationshipData ) ) {
+        continue;
+      }
+      writeRelationshipToCsvFile( graphData.getSourcePipelineName(), graphData.getSourceTransformName(), relationshipData );
+    }
+  }
 
-      // The files we're generating for import need to have the same sets of properties
-      // This set of properties is the same for every transform generating the graph data types.
-      // So we can use the name of the property transform given by the transform in combination with the
-      // pipeline and transform name.
+  protected void writeRelationshipToCsvFile( String sourcePipelineName, String sourceTransformName, GraphRelationshipData relationshipData ) throws HopException {
+    CsvFile csvFile = getRelationshipCsvFile( sourcePipelineName, sourceTransformName, relationshipData );
+
+    if ( data.partitionWriters != null ) {
+      // Let the partition of the relationship write it
       //
-      String propertySetKey = GenerateCsvData.getPropertySetKey(
-        graphData.getSourcePipelineName(),
-        graphData.getSourceTransformName(),
-        relationshipData.getPropertySetId()
-      );
+      addToPartition( relationshipData.getId(), new CsvPartitionWriter.PartitionRecord( csvFile, relationshipData ) );
+      return;
+    }
 
-      // See if we have this set already?
+    // Write a relationships data row to the CSV file...
+    //
+    try {
+      if ( data.fingerprintStore != null ) {
+        writeRelsCsvRow( csvFile.getWriter(), relationshipData, csvFile.getPropsList(), csvFile.getPropsIndexes(), getMergeColumns( relationshipData ) );
+      } else {
+        writeRelsCsvRow( csvFile.getWriter(), relationshipData, csvFile.getPropsList(), csvFile.getPropsIndexes() );
+      }
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to write relationships header to file '" + csvFile.getFilename() + "'", e );
+    }
+  }
+
+  protected CsvFile getRelationshipCsvFile( String sourcePipelineName, String sourceTransformName, GraphRelationshipData relationshipData ) throws HopException {
+    // The files we're generating for import need to have the same sets of properties
+    // This set of properties is the same for every transform generating the graph data types.
+    // So we can use the name of the property transform given by the transform in combination with the
+    // pipeline and transform name.
+    //
+    String propertySetKey = GenerateCsvData.getPropertySetKey(
+      sourcePipelineName,
+      sourceTransformName,
+      relationshipData.getPropertySetId()
+    );
+
+    // See if we have this set already?
+    //
+    CsvFile csvFile = data.fileMap.get( propertySetKey );
+    if ( csvFile == null ) {
+      // Create a new file and write the header for the node...
+      // When partitioning the header goes into a separate file
       //
-      CsvFile csvFile = data.fileMap.get( propertySetKey );
-      if ( csvFile == null ) {
-        // Create a new file and write the header for the node...
-        //
-        String filename = calculateRelatiohshipsFilename( propertySetKey );
-        String shortFilename = calculateRelatiohshipsShortFilename( propertySetKey );
-        csvFile = new CsvFile( filename, shortFilename, "Relationships" );
-        data.fileMap.put( propertySetKey, csvFile );
-
-        try {
-          csvFile.openFile();
-        } catch ( Exception e ) {
-          throw new HopException( "Unable to create relationships CSV file '" + csvFile.getFilename() + "'", e );
-        }
+      String suffix = isSeparatingHeaders() ? "-header" : "";
+      String filename = calculateRelatiohshipsFilename( propertySetKey, suffix );
+      String shortFilename = calculateRelatiohshipsShortFilename( propertySetKey, suffix );
+      csvFile = new CsvFile( filename, shortFilename, "Relationships" );
+      data.fileMap.put( propertySetKey, csvFile );
 
-        // Calculate the unique list of node properties
-        //
-        List<GraphPropertyData> properties = relationshipData.getProperties();
-        for ( int i = 0; i < properties.size(); i++ ) {
-          csvFile.getPropsList().add( new IdType( properties.get( i ).getId(), properties.get( i ).getType() ) );
-        }
-        for ( int i = 0; i < properties.size(); i++ ) {
-          csvFile.getPropsIndexes().put( properties.get( i ).getId(), i );
-        }
-        csvFile.setIdFieldName( "id" );
-        for ( GraphPropertyData property : properties ) {
-          if ( property.isPrimary() ) {
-            csvFile.setIdFieldName( property.getId() );
-            break; // First ID found
-          }
-        }
+      try {
+        csvFile.openFile( data.compressingFiles );
+      } catch ( Exception e ) {
+        throw new HopException( "Unable to create relationships CSV file '" + csvFile.getFilename() + "'", e );
+      }
 
-        try {
-          writeRelsCsvHeader( csvFile.getOutputStream(), csvFile.getPropsList(), csvFile.getPropsIndexes() );
-        } catch ( Exception e ) {
-          throw new HopException( "Unable to write relationships header to file '" + csvFile.getFilename() + "'", e );
+      // Calculate the unique list of node properties
+      //
+      List<GraphPropertyData> properties = relationshipData.getProperties();
+      for ( int i = 0; i < properties.size(); i++ ) {
+        IdType idType = new IdType( properties.get( i ).getId(), properties.get( i ).getType() );
+        idType.setArray( isArray( properties.get( i ).getValue() ) );
+        csvFile.getPropsList().add( idType );
+      }
+      for ( int i = 0; i < properties.size(); i++ ) {
+        csvFile.getPropsIndexes().put( properties.get( i ).getId(), i );
+      }
+      csvFile.setIdFieldName( "id" );
+      for ( GraphPropertyData property : properties ) {
+        if ( property.isPrimary() ) {
+          csvFile.setIdFieldName( property.getId() );
+          break; // First ID found
         }
       }
 
-      // Write a relationships data row to the CSV file...
-      //
       try {
-        writeRelsCsvRows( csvFile.getOutputStream(), Arrays.asList( relationshipData ), csvFile.getPropsList(), csvFile.getPropsIndexes() );
+        writeRelsCsvHeader( csvFile.getWriter(), csvFile.getPropsList(), csvFile.getPropsIndexes(), data.fingerprintStore != null );
       } catch ( Exception e ) {
         throw new HopException( "Unable to write relationships header to file '" + csvFile.getFilename() + "'", e );
       }
+
+      if ( isSeparatingHeaders() ) {
+        closeHeaderFile( csvFile );
+        csvFile.setDataFiles( createDataFiles( csvFile, propertySetKey ) );
+      }
+    }
+    return csvFile;
+  }
+
+  /**
+   * The values of the {@link #RELATIONSHIP_MERGE_COLUMNS}: the first label and ID property of the start and end node and the key property.
+   * These are left empty for nodes which weren't registered in this run and for relationships without a key property.
+   */
+  private String[] getMergeColumns( GraphRelationshipData relationshipData ) {
+    String[] start = data.fingerprintStore.findEndpoint( relationshipData.getSourceNodeId() );
+    String[] end = data.fingerprintStore.findEndpoint( relationshipData.getTargetNodeId() );
+    String keyProperty = null;
+    for ( GraphPropertyData property : relationshipData.getProperties() ) {
+      if ( property.isPrimary() ) {
+        keyProperty = property.getId();
+        break;
+      }
+    }
+    return new String[] {
+      start == null ? null : start[ 0 ],
+      start == null ? null : start[ 1 ],
+      end == null ? null : end[ 0 ],
+      end == null ? null : end[ 1 ],
+      keyProperty
+    };
+  }
+
+  private void closeHeaderFile( CsvFile csvFile ) throws HopException {
+    try {
+      csvFile.closeFile();
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to close header file '" + csvFile.getFilename() + "'", e );
+    }
+  }
+
+  /**
+   * The header goes into a separate file when there are several data files per property set.
+   */
+  private boolean isSeparatingHeaders() {
+    return data.partitionWriters != null;
+  }
+
+  /**
+   * Create the data files for a separate header file: one per partition.
+   * The data files share the properties of the header file. Partition files are only created when the partition has data for them.
+   */
+  private List<CsvFile> createDataFiles( CsvFile headerFile, String propertySetKey ) throws HopException {
+    boolean nodes = "Nodes".equals( headerFile.getFileType() );
+    int nrFiles = data.partitionWriters.length;
+    List<CsvFile> dataFiles = new ArrayList<>( nrFiles );
+    for ( int p = 0; p < nrFiles; p++ ) {
+      String suffix = "-" + p;
+      String filename = nodes ? calculateNodeFilename( propertySetKey, suffix ) : calculateRelatiohshipsFilename( propertySetKey, suffix );
+      String shortFilename = nodes ? calculateNodeShortFilename( propertySetKey, suffix ) : calculateRelatiohshipsShortFilename( propertySetKey, suffix );
+      CsvFile dataFile = new CsvFile( filename, shortFilename, headerFile.getFileType() );
+      dataFile.setPropsList( headerFile.getPropsList() );
+      dataFile.setPropsIndexes( headerFile.getPropsIndexes() );
+      dataFile.setIdFieldName( headerFile.getIdFieldName() );
+      dataFiles.add( dataFile );
+    }
+    return dataFiles;
+  }
+
+  /**
+   * Add a node or relationship to the batch of the partition of its ID.
+   * Full batches are handed to the encoding thread of the partition.
+   */
+  private void addToPartition( String id, CsvPartitionWriter.PartitionRecord record ) throws HopException {
+    int partition = ( Objects.hashCode( id ) & Integer.MAX_VALUE ) % data.partitionWriters.length;
+    List<CsvPartitionWriter.PartitionRecord> batch = data.partitionBatches.get( partition );
+    batch.add( record );
+    if ( batch.size() >= PARTITION_BATCH_SIZE ) {
+      data.partitionWriters[ partition ].submit( batch );
+      data.partitionBatches.set( partition, new ArrayList<>( PARTITION_BATCH_SIZE ) );
+    }
+  }
+
+  /**
+   * Hand the last batches to the partitions, wait for them to finish and pass the file groups to the next transform.
+   * Every file group is a comma separated list of the header file followed by the data files of the partitions.
+   * This is the format neo4j-admin import expects for the --nodes and --relationships options.
+   */
+  protected void writePartitionsToCsv() throws HopException {
+    try {
+      for ( int p = 0; p < data.partitionWriters.length; p++ ) {
+        List<CsvPartitionWriter.PartitionRecord> batch = data.partitionBatches.get( p );
+        if ( !batch.isEmpty() ) {
+          data.partitionWriters[ p ].submit( batch );
+          data.partitionBatches.set( p, new ArrayList<>() );
+        }
+      }
+      // The partitions finish in parallel
+      //
+      for ( CsvPartitionWriter partitionWriter : data.partitionWriters ) {
+        partitionWriter.submitFinish( data.fileMap );
+      }
+      for ( CsvPartitionWriter partitionWriter : data.partitionWriters ) {
+        partitionWriter.waitForPending();
+      }
+    } catch ( Exception e ) {
+      setErrors( 1L );
+      stopAll();
+      throw new HopException( "Unable to generate CSV data for Neo4j import", e );
+    }
+
+    for ( CsvFile csvFile : data.fileMap.values() ) {
+      StringBuilder fileGroup = new StringBuilder( csvFile.getShortFilename() );
+      for ( CsvFile partitionFile : csvFile.getDataFiles() ) {
+        if ( partitionFile.getWriter() != null ) {
+          fileGroup.append( "," ).append( partitionFile.getShortFilename() );
+        }
+      }
+
+      Object[] fileRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      fileRow[ 0 ] = fileGroup.toString();
+      fileRow[ 1 ] = csvFile.getFileType();
+      putRow( data.outputRowMeta, fileRow );
     }
   }
 
@@ -293,7 +558,22 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
 
     try {
 
-      if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
+      if ( data.graphStore != null ) {
+
+        // Merge the sorted runs, only the first or last version of every node and relationship comes out
+        //
+        data.graphStore.mergeNodes( node -> {
+          if ( data.fingerprintStore == null || data.fingerprintStore.registerNode( node ) ) {
+            writeNodeToCsvFile( null, null, node );
+          }
+        } );
+        data.graphStore.mergeRelationships( relationship -> {
+          if ( data.fingerprintStore == null || data.fingerprintStore.registerRelationship( relationship ) ) {
+            writeRelationshipToCsvFile( null, null, relationship );
+          }
+        } );
+
+      } else if ( meta.getUniquenessStrategy() != UniquenessStrategy.None ) {
 
         // Same logic
         //
@@ -302,31 +582,43 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
 
     } catch ( Exception e ) {
       throw new HopException( "Unable to generate CSV data for Neo4j import", e );
+    } finally {
+      if ( data.graphStore != null ) {
+        data.graphStore.close();
+      }
     }
 
   }
 
-  private String calculateNodeShortFilename( String propertySetKey ) {
-    return "import/" + Const.NVL( data.filesPrefix + "-", "" ) + "nodes-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".csv";
+  private String calculateNodeShortFilename( String propertySetKey, String suffix ) {
+    return "import/" + Const.NVL( data.filesPrefix + "-", "" ) + "nodes-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + suffix + data.fileExtension;
   }
 
-  private String calculateNodeFilename( String propertySetKey ) {
-    return data.importFolder + Const.NVL( data.filesPrefix + "-", "" ) + "nodes-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".csv";
+  private String calculateNodeFilename( String propertySetKey, String suffix ) {
+    return data.importFolder + Const.NVL( data.filesPrefix + "-", "" ) + "nodes-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + suffix + data.fileExtension;
   }
 
-  private String calculateRelatiohshipsShortFilename( String propertySetKey ) {
-    return "import/" + Const.NVL( data.filesPrefix + "-", "" ) + "rels-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".csv";
+  private String calculateRelatiohshipsShortFilename( String propertySetKey, String suffix ) {
+    return "import/" + Const.NVL( data.filesPrefix + "-", "" ) + "rels-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + suffix + data.fileExtension;
   }
 
-  private String calculateRelatiohshipsFilename( String propertySetKey ) {
-    return data.importFolder + Const.NVL( data.filesPrefix + "-", "" ) + "rels-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".csv";
+  private String calculateRelatiohshipsFilename( String propertySetKey, String suffix ) {
+    return data.importFolder + Const.NVL( data.filesPrefix + "-", "" ) + "rels-" + propertySetKey + "-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + suffix + data.fileExtension;
   }
 
-  private void writeNodeCsvHeader( OutputStream os, List<IdType> props, String idFieldName ) throws HopException, IOException {
+  private String calculateFingerprintShortFilename() {
+    return "import/" + Const.NVL( data.filesPrefix + "-", "" ) + "fingerprints-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".bin";
+  }
+
+  private String calculateFingerprintFilename() {
+    return data.importFolder + Const.NVL( data.filesPrefix + "-", "" ) + "fingerprints-" + environmentSubstitute( "${" + Const.INTERNAL_VARIABLE_TRANSFORM_COPYNR + "}" ) + ".bin";
+  }
+
+  static void writeNodeCsvHeader( CsvWriter writer, List<IdType> props, String idFieldName ) throws HopException, IOException {
     // Write the values to the file...
     //
 
-    StringBuffer header = new StringBuffer();
+    StringBuilder header = new StringBuilder();
 
     // The id...
     //
@@ -338,141 +630,224 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
         header.append( "," );
 
         header.append( prop.getId() );
-        if ( prop.getType() == null ) {
-          throw new HopException( "This transform doesn't support importing data type '" + prop.getType().name() + "' yet." );
-        }
-        header.append( ":" ).append( prop.getType().getImportType() );
+        appendImportType( header, prop );
       }
-      // GraphPropertyDataType type = prop.getType();
     }
     header.append( ",:LABEL" );
     header.append( Const.CR );
 
-    System.out.println( "NODES HEADER: '" + header + "'" );
-    os.write( header.toString().getBytes( "UTF-8" ) );
+    writer.write( header.toString() );
   }
 
 
-  private void writeNodeCsvRows( OutputStream os, List<GraphNodeData> nodes, List<IdType> props, Map<String, Integer> propertyIndexes, String idFieldName ) throws IOException {
-    // Now we serialize the data...
+  static void writeNodeCsvRow( CsvWriter writer, GraphNodeData node, List<IdType> props, Map<String, Integer> propertyIndexes, String idFieldName ) throws IOException {
+    // Get the properties in the right order of list props...
     //
-    for ( GraphNodeData node : nodes ) {
-
-      StringBuffer row = new StringBuffer();
+    GraphPropertyData[] sortedProperties = new GraphPropertyData[ props.size() ];
+    for ( GraphPropertyData prop : node.getProperties() ) {
+      int index = propertyIndexes.get( prop.getId() );
+      sortedProperties[ index ] = prop;
+    }
 
-      // Get the properties in the right order of list props...
-      //
-      GraphPropertyData[] sortedProperties = new GraphPropertyData[ props.size() ];
-      for ( GraphPropertyData prop : node.getProperties() ) {
-        int index = propertyIndexes.get( prop.getId() );
-        sortedProperties[ index ] = prop;
+    // First write the index field...
+    //
+    boolean indexFound = false;
+    for ( int i = 0; i < sortedProperties.length; i++ ) {
+      GraphPropertyData prop = sortedProperties[ i ];
+      if ( prop != null && prop.isPrimary() ) {
+        writeProperty( writer, prop );
+        indexFound = true;
+        break;
       }
+    }
+    // No index field? Take the node index
+    //
+    if ( !indexFound ) {
+      writer.writeQuoted( node.getId() );
+    }
 
-      // First write the index field...
-      //
-      boolean indexFound = false;
-      for ( int i = 0; i < sortedProperties.length; i++ ) {
-        GraphPropertyData prop = sortedProperties[ i ];
-        if ( prop.isPrimary() ) {
-          if ( prop.getType() == GraphPropertyDataType.String ) {
-            row.append( '"' ).append( prop.toString() ).append( '"' );
-          } else {
-            row.append( prop.toString() );
-          }
-          indexFound = true;
-          break;
+    // Now write the other properties to the file
+    //
+    for ( int i = 0; i < sortedProperties.length; i++ ) {
+      GraphPropertyData prop = sortedProperties[ i ];
+      if ( prop == null || !prop.isPrimary() ) {
+        writer.write( ',' );
+        if ( prop != null ) {
+          writeProperty( writer, prop );
         }
       }
-      // No index field? Take the node index
-      //
-      if ( !indexFound ) {
-        row.append( '"' ).append( GraphPropertyData.escapeString( node.getId() ) ).append( '"' );
-      }
+    }
 
-      // Now write the other properties to the file
-      //
-      for ( int i = 0; i < sortedProperties.length; i++ ) {
-        GraphPropertyData prop = sortedProperties[ i ];
-        if ( !prop.isPrimary() ) {
-          row.append( "," );
-          if ( prop != null ) {
-            if ( prop.getType() == GraphPropertyDataType.String ) {
-              row.append( '"' ).append( prop.toString() ).append( '"' );
-            } else {
-              row.append( prop.toString() );
-            }
-          }
-        }
+    // Now write the labels for this node, separated by semicolons in the same field
+    //
+    writer.write( ',' );
+    List<String> labels = node.getLabels();
+    boolean quoting = false;
+    for ( String label : labels ) {
+      quoting = quoting || needsQuoting( label );
+    }
+    if ( quoting ) {
+      writer.write( '"' );
+    }
+    for ( int i = 0; i < labels.size(); i++ ) {
+      if ( i > 0 ) {
+        writer.write( ';' );
       }
-
-      // Now write the labels for this node
-      //
-      for ( int i = 0; i < node.getLabels().size(); i++ ) {
-        if ( i == 0 ) {
-          row.append( "," );
-        } else {
-          row.append( ";" );
-        }
-        String label = node.getLabels().get( i );
-        row.append( label );
+      if ( quoting ) {
+        writer.writeQuotedContent( labels.get( i ) );
+      } else {
+        writer.write( labels.get( i ) );
       }
-      row.append( Const.CR );
-
-      // Write it out
-      //
-      os.write( row.toString().getBytes( "UTF-8" ) );
     }
+    if ( quoting ) {
+      writer.write( '"' );
+    }
+    writer.write( Const.CR );
   }
 
+  static void writeRelsCsvRow( CsvWriter writer, GraphRelationshipData relationship, List<IdType> props, Map<String, Integer> propertyIndexes ) throws IOException {
+    writeRelsCsvRow( writer, relationship, props, propertyIndexes, null );
+  }
 
-  private void writeRelsCsvRows( OutputStream os, List<GraphRelationshipData> relationships, List<IdType> props, Map<String, Integer> propertyIndexes ) throws IOException {
+  /**
+   * @param mergeColumns The values of the {@link #RELATIONSHIP_MERGE_COLUMNS} or null if the file doesn't have these
+   */
+  static void writeRelsCsvRow( CsvWriter writer, GraphRelationshipData relationship, List<IdType> props, Map<String, Integer> propertyIndexes,
+                               String[] mergeColumns ) throws IOException {
+    writer.writeQuoted( relationship.getSourceNodeId() );
 
-    // Now write the actual rows of data...
+    // Get the properties in the right order of list props...
     //
-    for ( GraphRelationshipData relationship : relationships ) {
-
-      StringBuffer row = new StringBuffer();
-      row.append( '"' ).append( GraphPropertyData.escapeString( relationship.getSourceNodeId() ) ).append( '"' );
+    GraphPropertyData[] sortedProperties = new GraphPropertyData[ props.size() ];
+    for ( GraphPropertyData prop : relationship.getProperties() ) {
+      int index = propertyIndexes.get( prop.getId() );
+      sortedProperties[ index ] = prop;
+    }
 
-      // Get the properties in the right order of list props...
-      //
-      GraphPropertyData[] sortedProperties = new GraphPropertyData[ props.size() ];
-      for ( GraphPropertyData prop : relationship.getProperties() ) {
-        int index = propertyIndexes.get( prop.getId() );
-        sortedProperties[ index ] = prop;
+    // Now write the list of properties to the file starting with the ID.
+    //
+    for ( int i = 0; i < sortedProperties.length; i++ ) {
+      GraphPropertyData prop = sortedProperties[ i ];
+      writer.write( ',' );
+      if ( prop != null ) {
+        writeProperty( writer, prop );
       }
+    }
 
-      // Now write the list of properties to the file starting with the ID.
-      //
-      for ( int i = 0; i < sortedProperties.length; i++ ) {
-        GraphPropertyData prop = sortedProperties[ i ];
-        row.append( "," );
-        if ( prop != null ) {
+    writer.write( ',' );
+    writer.writeQuoted( relationship.getTargetNodeId() );
 
-          if ( prop.getType() == GraphPropertyDataType.String ) {
-            row.append( '"' ).append( prop.toString() ).append( '"' );
-          } else {
-            row.append( prop.toString() );
-          }
+    // Now write the type of the relationship
+    //
+    writer.write( ',' );
+    if ( needsQuoting( relationship.getLabel() ) ) {
+      writer.writeQuoted( relationship.getLabel() );
+    } else {
+      writer.write( relationship.getLabel() );
+    }
+    if ( mergeColumns != null ) {
+      for ( String value : mergeColumns ) {
+        writer.write( ',' );
+        if ( value != null ) {
+          writer.writeQuoted( value );
         }
       }
+    }
+    writer.write( Const.CR );
+  }
 
-      row.append( "," ).append( '"' ).append( GraphPropertyData.escapeString( relationship.getTargetNodeId() ) ).append( '"' );
+  /**
+   * Write a property value in the format of its import type.
+   * Strings are quoted, other values are formatted straight into the buffer of the writer.
+   * The elements of arrays are separated by semicolons in the same field. Null values are left empty.
+   */
+  static void writeProperty( CsvWriter writer, GraphPropertyData prop ) throws IOException {
+    Object value = prop.getValue();
+    if ( value == null ) {
+      return;
+    }
+    boolean quoting = prop.getType() == GraphPropertyDataType.String;
+    if ( isArray( value ) ) {
+      List<?> elements = value instanceof List ? (List<?>) value : Arrays.asList( (Object[]) value );
+      if ( quoting ) {
+        writer.write( '"' );
+      }
+      for ( int i = 0; i < elements.size(); i++ ) {
+        if ( i > 0 ) {
+          writer.write( ';' );
+        }
+        Object element = elements.get( i );
+        if ( element == null ) {
+          continue;
+        }
+        if ( quoting ) {
+          writer.writeQuotedContent( element.toString() );
+        } else {
+          writeValue( writer, element );
+        }
+      }
+      if ( quoting ) {
+        writer.write( '"' );
+      }
+    } else if ( quoting ) {
+      writer.writeQuoted( value.toString() );
+    } else {
+      writeValue( writer, value );
+    }
+  }
 
-      // Now write the labels for this node
+  private static void writeValue( CsvWriter writer, Object value ) throws IOException {
+    if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+      writer.writeLong( ( (Number) value ).longValue() );
+    } else if ( value instanceof Double || value instanceof Float ) {
+      writer.writeDouble( ( (Number) value ).doubleValue() );
+    } else if ( value instanceof Boolean ) {
+      writer.writeBoolean( (Boolean) value );
+    } else if ( value instanceof LocalDate ) {
+      writer.writeDate( (LocalDate) value );
+    } else if ( value instanceof LocalDateTime ) {
+      writer.writeDateTime( (LocalDateTime) value );
+    } else if ( value instanceof LocalTime ) {
+      writer.writeTime( (LocalTime) value );
+    } else {
+      // Zoned temporal values, durations, points and big numbers
       //
-      row.append( "," ).append( relationship.getLabel() );
-      row.append( Const.CR );
+      writer.write( value.toString() );
+    }
+  }
 
-      // Write it out
-      //
-      os.write( row.toString().getBytes( "UTF-8" ) );
+  static boolean isArray( Object value ) {
+    return value instanceof List || value instanceof Object[];
+  }
+
+  private static boolean needsQuoting( String string ) {
+    if ( string == null ) {
+      return false;
+    }
+    for ( int i = 0; i < string.length(); i++ ) {
+      char ch = string.charAt( i );
+      if ( ch == ',' || ch == '"' || ch == '\r' || ch == '\n' ) {
+        return true;
+      }
     }
+    return false;
+  }
 
+  private static void appendImportType( StringBuilder header, IdType prop ) throws HopException {
+    if ( prop.getType() == null || prop.getType().getImportType() == null ) {
+      throw new HopException( "This transform doesn't support importing data type '" + GraphPropertyDataType.getCode( prop.getType() ) + "' of property '" + prop.getId() + "' yet." );
+    }
+    header.append( ":" ).append( prop.getType().getImportType() );
+    if ( prop.isArray() ) {
+      header.append( "[]" );
+    }
   }
 
-  private void writeRelsCsvHeader( OutputStream os, List<IdType> props, Map<String, Integer> propertyIndexes ) throws HopException, IOException {
-    StringBuffer header = new StringBuffer();
+  /**
+   * @param mergeColumns Add the {@link #RELATIONSHIP_MERGE_COLUMNS} as columns ignored by neo4j-admin
+   */
+  static void writeRelsCsvHeader( CsvWriter writer, List<IdType> props, Map<String, Integer> propertyIndexes, boolean mergeColumns ) throws HopException, IOException {
+    StringBuilder header = new StringBuilder();
 
     header.append( ":START_ID" );
 
@@ -481,17 +856,18 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
       header.append( "," );
 
       header.append( prop.getId() );
-      if ( prop.getType() == null ) {
-        throw new HopException( "This transform doesn't support importing data type '" + prop.getType().name() + "' yet." );
-      }
-      header.append( ":" ).append( prop.getType().getImportType() );
-
-      GraphPropertyDataType type = prop.getType();
+      appendImportType( header, prop );
     }
 
-    header.append( ",:END_ID,:TYPE" ).append( Const.CR );
+    header.append( ",:END_ID,:TYPE" );
+    if ( mergeColumns ) {
+      for ( String column : RELATIONSHIP_MERGE_COLUMNS ) {
+        header.append( "," ).append( column ).append( ":IGNORE" );
+      }
+    }
+    header.append( Const.CR );
 
-    os.write( header.toString().getBytes( "UTF-8" ) );
+    writer.write( header.toString() );
   }
 
   protected void addRowToBuffer( IRowMeta inputRowMeta, Object[] row ) throws HopException {
@@ -510,7 +886,13 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
         GraphNodeData nodeCopy = new GraphNodeData( node );
         nodeCopy.setPropertySetId( graphData.getSourcePipelineName() + "-" + graphData.getSourceTransformName() + "-" + node.getPropertySetId() );
 
-        data.indexedGraphData.addAndIndexNode( nodeCopy );
+        if ( data.partitionWriters != null ) {
+          writeNodeToCsvFile( null, null, nodeCopy );
+        } else if ( data.graphStore != null ) {
+          data.graphStore.addNode( nodeCopy );
+        } else {
+          data.indexedGraphData.addAndIndexNode( nodeCopy );
+        }
       }
 
       for ( GraphRelationshipData relationship : graphData.getRelationships() ) {
@@ -520,7 +902,13 @@ public class GenerateCsv extends BaseTransform<GenerateCsvMeta, GenerateCsvData>
         GraphRelationshipData relationshipCopy = new GraphRelationshipData( relationship );
         relationshipCopy.setPropertySetId( graphData.getSourcePipelineName() + "-" + graphData.getSourceTransformName() + "-" + relationship.getPropertySetId() );
 
-        data.indexedGraphData.addAndIndexRelationship( relationshipCopy );
+        if ( data.partitionWriters != null ) {
+          writeRelationshipToCsvFile( null, null, relationshipCopy );
+        } else if ( data.graphStore != null ) {
+          data.graphStore.addRelationship( relationshipCopy );
+        } else {
+          data.indexedGraphData.addAndIndexRelationship( relationshipCopy );
+        }
       }
 
     } catch ( Exception e ) {
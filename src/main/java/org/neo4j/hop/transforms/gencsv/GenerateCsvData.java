@@ -5,14 +5,24 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.io.File;
+import java.util.List;
 import java.util.Map;
 
 public class GenerateCsvData extends BaseTransformData implements ITransformData {
 
   public IRowMeta outputRowMeta;
   public String importFolder;
+  public boolean compressingFiles;
+  public int maxBufferedRecords;
+  public String fileExtension;
   public int graphFieldIndex;
   public IndexedGraphData indexedGraphData;
+  public SpillingGraphStore graphStore;
+  public CsvPartitionWriter[] partitionWriters;
+  public List<List<CsvPartitionWriter.PartitionRecord>> partitionBatches;
+  public FingerprintStore fingerprintStore;
+  public File fingerprintFile;
   public String baseFolder;
 
   public String filesPrefix;
@@ -44,6 +44,11 @@ public class GenerateCsvDialog extends BaseTransformDialog implements ITransform
   private TextVar wFilesPrefix;
   private TextVar wFilenameField;
   private TextVar wFileTypeField;
+  private Button wCompressingFiles;
+  private Button wSpillingToDisk;
+  private TextVar wMaxBufferedRecords;
+  private TextVar wEncodingThreads;
+  private Button wWritingChangesOnly;
 
   private GenerateCsvMeta input;
 
@@ -234,6 +239,95 @@ public class GenerateCsvDialog extends BaseTransformDialog implements ITransform
     fdFileTypeField.top = new FormAttachment( wlFileTypeField, 0, SWT.CENTER );
     wFileTypeField.setLayoutData( fdFileTypeField );
     lastControl = wFileTypeField;
+
+    Label wlCompressingFiles = new Label( wComposite, SWT.RIGHT );
+    wlCompressingFiles.setText( "Compress files (gzip)? " );
+    props.setLook( wlCompressingFiles );
+    FormData fdlCompressingFiles = new FormData();
+    fdlCompressingFiles.left = new FormAttachment( 0, 0 );
+    fdlCompressingFiles.right = new FormAttachment( middle, -margin );
+    fdlCompressingFiles.top = new FormAttachment( lastControl, 2 * margin );
+    wlCompressingFiles.setLayoutData( fdlCompressingFiles );
+    wCompressingFiles = new Button( wComposite, SWT.CHECK | SWT.LEFT );
+    props.setLook( wCompressingFiles );
+    FormData fdCompressingFiles = new FormData();
+    fdCompressingFiles.left = new FormAttachment( middle, 0 );
+    fdCompressingFiles.right = new FormAttachment( 100, 0 );
+    fdCompressingFiles.top = new FormAttachment( wlCompressingFiles, 0, SWT.CENTER );
+    wCompressingFiles.setLayoutData( fdCompressingFiles );
+    lastControl = wCompressingFiles;
+
+    Label wlSpillingToDisk = new Label( wComposite, SWT.RIGHT );
+    wlSpillingToDisk.setText( "Spill to disk while de-duplicating? " );
+    props.setLook( wlSpillingToDisk );
+    FormData fdlSpillingToDisk = new FormData();
+    fdlSpillingToDisk.left = new FormAttachment( 0, 0 );
+    fdlSpillingToDisk.right = new FormAttachment( middle, -margin );
+    fdlSpillingToDisk.top = new FormAttachment( lastControl, 2 * margin );
+    wlSpillingToDisk.setLayoutData( fdlSpillingToDisk );
+    wSpillingToDisk = new Button( wComposite, SWT.CHECK | SWT.LEFT );
+    props.setLook( wSpillingToDisk );
+    FormData fdSpillingToDisk = new FormData();
+    fdSpillingToDisk.left = new FormAttachment( middle, 0 );
+    fdSpillingToDisk.right = new FormAttachment( 100, 0 );
+    fdSpillingToDisk.top = new FormAttachment( wlSpillingToDisk, 0, SWT.CENTER );
+    wSpillingToDisk.setLayoutData( fdSpillingToDisk );
+    wSpillingToDisk.addListener( SWT.Selection, e -> enableFields() );
+    lastControl = wSpillingToDisk;
+
+    Label wlMaxBufferedRecords = new Label( wComposite, SWT.RIGHT );
+    wlMaxBufferedRecords.setText( "Nodes/relationships kept in memory " );
+    props.setLook( wlMaxBufferedRecords );
+    FormData fdlMaxBufferedRecords = new FormData();
+    fdlMaxBufferedRecords.left = new FormAttachment( 0, 0 );
+    fdlMaxBufferedRecords.right = new FormAttachment( middle, -margin );
+    fdlMaxBufferedRecords.top = new FormAttachment( lastControl, 2 * margin );
+    wlMaxBufferedRecords.setLayoutData( fdlMaxBufferedRecords );
+    wMaxBufferedRecords = new TextVar( pipelineMeta, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wMaxBufferedRecords );
+    wMaxBufferedRecords.addModifyListener( lsMod );
+    FormData fdMaxBufferedRecords = new FormData();
+    fdMaxBufferedRecords.left = new FormAttachment( middle, 0 );
+    fdMaxBufferedRecords.right = new FormAttachment( 100, 0 );
+    fdMaxBufferedRecords.top = new FormAttachment( wlMaxBufferedRecords, 0, SWT.CENTER );
+    wMaxBufferedRecords.setLayoutData( fdMaxBufferedRecords );
+    lastControl = wMaxBufferedRecords;
+
+    Label wlEncodingThreads = new Label( wComposite, SWT.RIGHT );
+    wlEncodingThreads.setText( "Number of encoding threads " );
+    props.setLook( wlEncodingThreads );
+    FormData fdlEncodingThreads = new FormData();
+    fdlEncodingThreads.left = new FormAttachment( 0, 0 );
+    fdlEncodingThreads.right = new FormAttachment( middle, -margin );
+    fdlEncodingThreads.top = new FormAttachment( lastControl, 2 * margin );
+    wlEncodingThreads.setLayoutData( fdlEncodingThreads );
+    wEncodingThreads = new TextVar( pipelineMeta, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wEncodingThreads );
+    wEncodingThreads.addModifyListener( lsMod );
+    FormData fdEncodingThreads = new FormData();
+    fdEncodingThreads.left = new FormAttachment( middle, 0 );
+    fdEncodingThreads.right = new FormAttachment( 100, 0 );
+    fdEncodingThreads.top = new FormAttachment( wlEncodingThreads, 0, SWT.CENTER );
+    wEncodingThreads.setLayoutData( fdEncodingThreads );
+    lastControl = wEncodingThreads;
+
+    Label wlWritingChangesOnly = new Label( wComposite, SWT.RIGHT );
+    wlWritingChangesOnly.setText( "Only write changes since the last run? " );
+    props.setLook( wlWritingChangesOnly );
+    FormData fdlWritingChangesOnly = new FormData();
+    fdlWritingChangesOnly.left = new FormAttachment( 0, 0 );
+    fdlWritingChangesOnly.right = new FormAttachment( middle, -margin );
+    fdlWritingChangesOnly.top = new FormAttachment( lastControl, 2 * margin );
+    wlWritingChangesOnly.setLayoutData( fdlWritingChangesOnly );
+    wWritingChangesOnly = new Button( wComposite, SWT.CHECK | SWT.LEFT );
+    wWritingChangesOnly.setToolTipText( "Keep fingerprints of the nodes and relationships in the import folder and only write the ones which are new or changed. Needs a uniqueness strategy." );
+    props.setLook( wWritingChangesOnly );
+    FormData fdWritingChangesOnly = new FormData();
+    fdWritingChangesOnly.left = new FormAttachment( middle, 0 );
+    fdWritingChangesOnly.right = new FormAttachment( 100, 0 );
+    fdWritingChangesOnly.top = new FormAttachment( wlWritingChangesOnly, 0, SWT.CENTER );
+    wWritingChangesOnly.setLayoutData( fdWritingChangesOnly );
+    lastControl = wWritingChangesOnly;
     
     // Some buttons
     wOk = new Button( wComposite, SWT.PUSH );
@@ -272,6 +366,8 @@ public class GenerateCsvDialog extends BaseTransformDialog implements ITransform
     wFilesPrefix.addSelectionListener( lsDef );
     wFilenameField.addSelectionListener( lsDef );
     wFileTypeField.addSelectionListener( lsDef );
+    wMaxBufferedRecords.addSelectionListener( lsDef );
+    wEncodingThreads.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -315,6 +411,17 @@ public class GenerateCsvDialog extends BaseTransformDialog implements ITransform
     wFilesPrefix.setText(Const.NVL(input.getFilesPrefix(), ""));
     wFilenameField.setText(Const.NVL(input.getFilenameField(), ""));
     wFileTypeField.setText(Const.NVL(input.getFileTypeField(), ""));
+    wCompressingFiles.setSelection( input.isCompressingFiles() );
+    wSpillingToDisk.setSelection( input.isSpillingToDisk() );
+    wMaxBufferedRecords.setText( Const.NVL( input.getMaxBufferedRecords(), "" ) );
+    wEncodingThreads.setText( Const.NVL( input.getEncodingThreads(), "" ) );
+    wWritingChangesOnly.setSelection( input.isWritingChangesOnly() );
+
+    enableFields();
+  }
+
+  private void enableFields() {
+    wMaxBufferedRecords.setEnabled( wSpillingToDisk.getSelection() );
   }
 
   private void ok() {
@@ -333,5 +440,10 @@ public class GenerateCsvDialog extends BaseTransformDialog implements ITransform
     meta.setFilesPrefix( wFilesPrefix.getText() );
     meta.setFilenameField(wFilenameField.getText());
     meta.setFileTypeField( wFileTypeField.getText() );
+    meta.setCompressingFiles( wCompressingFiles.getSelection() );
+    meta.setSpillingToDisk( wSpillingToDisk.getSelection() );
+    meta.setMaxBufferedRecords( wMaxBufferedRecords.getText() );
+    meta.setEncodingThreads( wEncodingThreads.getText() );
+    meta.setWritingChangesOnly( wWritingChangesOnly.getSelection() );
   }
 }
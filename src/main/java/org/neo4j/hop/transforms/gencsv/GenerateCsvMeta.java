@@ -32,6 +32,11 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
   public static final String FILES_PREFIX = "files_prefix";
   public static final String FILENAME_FIELD = "filename_field";
   public static final String FILE_TYPE_FIELD = "file_type_field";
+  public static final String COMPRESSING_FILES = "compressing_files";
+  public static final String SPILLING_TO_DISK = "spilling_to_disk";
+  public static final String MAX_BUFFERED_RECORDS = "max_buffered_records";
+  public static final String ENCODING_THREADS = "encoding_threads";
+  public static final String WRITING_CHANGES_ONLY = "writing_changes_only";
 
   protected String graphFieldName;
   protected String baseFolder;
@@ -40,6 +45,11 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
   protected String filesPrefix;
   protected String filenameField;
   protected String fileTypeField;
+  protected boolean compressingFiles;
+  protected boolean spillingToDisk;
+  protected String maxBufferedRecords;
+  protected String encodingThreads;
+  protected boolean writingChangesOnly;
 
   @Override public void setDefault() {
     baseFolder = "/var/lib/neo4j/";
@@ -47,6 +57,11 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
     filesPrefix = "prefix";
     filenameField = "filename";
     fileTypeField = "fileType";
+    compressingFiles = false;
+    spillingToDisk = false;
+    maxBufferedRecords = Integer.toString( SpillingGraphStore.DEFAULT_MAX_BUFFERED_RECORDS );
+    encodingThreads = "1";
+    writingChangesOnly = false;
   }
 
   @Override public void getFields( IRowMeta inputRowMeta, String name, IRowMeta[] info, TransformMeta nextStep, IVariables space, IHopMetadataProvider metadataProvider ) {
@@ -72,6 +87,11 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
     xml.append( XmlHandler.addTagValue( FILES_PREFIX, filesPrefix ) );
     xml.append( XmlHandler.addTagValue( FILENAME_FIELD, filenameField ) );
     xml.append( XmlHandler.addTagValue( FILE_TYPE_FIELD, fileTypeField ) );
+    xml.append( XmlHandler.addTagValue( COMPRESSING_FILES, compressingFiles ) );
+    xml.append( XmlHandler.addTagValue( SPILLING_TO_DISK, spillingToDisk ) );
+    xml.append( XmlHandler.addTagValue( MAX_BUFFERED_RECORDS, maxBufferedRecords ) );
+    xml.append( XmlHandler.addTagValue( ENCODING_THREADS, encodingThreads ) );
+    xml.append( XmlHandler.addTagValue( WRITING_CHANGES_ONLY, writingChangesOnly ) );
     return xml.toString();
   }
 
@@ -82,6 +102,11 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
     filesPrefix = XmlHandler.getTagValue( transformNode, FILES_PREFIX );
     filenameField = XmlHandler.getTagValue( transformNode, FILENAME_FIELD );
     fileTypeField = XmlHandler.getTagValue( transformNode, FILE_TYPE_FIELD );
+    compressingFiles = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, COMPRESSING_FILES ) );
+    spillingToDisk = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, SPILLING_TO_DISK ) );
+    maxBufferedRecords = XmlHandler.getTagValue( transformNode, MAX_BUFFERED_RECORDS );
+    encodingThreads = XmlHandler.getTagValue( transformNode, ENCODING_THREADS );
+    writingChangesOnly = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, WRITING_CHANGES_ONLY ) );
   }
 
   @Override public GenerateCsv createTransform( TransformMeta transformMeta, GenerateCsvData data, int copyNr, PipelineMeta pipelineMeta, Pipeline pipeline ) {
@@ -188,4 +213,84 @@ public class GenerateCsvMeta extends BaseTransformMeta implements ITransformMeta
   public void setFileTypeField( String fileTypeField ) {
     this.fileTypeField = fileTypeField;
   }
+
+  /**
+   * Gets compressingFiles
+   *
+   * @return value of compressingFiles
+   */
+  public boolean isCompressingFiles() {
+    return compressingFiles;
+  }
+
+  /**
+   * @param compressingFiles The compressingFiles to set
+   */
+  public void setCompressingFiles( boolean compressingFiles ) {
+    this.compressingFiles = compressingFiles;
+  }
+
+  /**
+   * Gets spillingToDisk
+   *
+   * @return value of spillingToDisk
+   */
+  public boolean isSpillingToDisk() {
+    return spillingToDisk;
+  }
+
+  /**
+   * @param spillingToDisk The spillingToDisk to set
+   */
+  public void setSpillingToDisk( boolean spillingToDisk ) {
+    this.spillingToDisk = spillingToDisk;
+  }
+
+  /**
+   * Gets maxBufferedRecords
+   *
+   * @return value of maxBufferedRecords
+   */
+  public String getMaxBufferedRecords() {
+    return maxBufferedRecords;
+  }
+
+  /**
+   * @param maxBufferedRecords The maxBufferedRecords to set
+   */
+  public void setMaxBufferedRecords( String maxBufferedRecords ) {
+    this.maxBufferedRecords = maxBufferedRecords;
+  }
+
+  /**
+   * Gets encodingThreads
+   *
+   * @return value of encodingThreads
+   */
+  public String getEncodingThreads() {
+    return encodingThreads;
+  }
+
+  /**
+   * @param encodingThreads The encodingThreads to set
+   */
+  public void setEncodingThreads( String encodingThreads ) {
+    this.encodingThreads = encodingThreads;
+  }
+
+  /**
+   * Gets writingChangesOnly
+   *
+   * @return value of writingChangesOnly
+   */
+  public boolean isWritingChangesOnly() {
+    return writingChangesOnly;
+  }
+
+  /**
+   * @param writingChangesOnly The writingChangesOnly to set
+   */
+  public void setWritingChangesOnly( boolean writingChangesOnly ) {
+    this.writingChangesOnly = writingChangesOnly;
+  }
 }
@@ -8,6 +8,7 @@ public class IdType {
 
   private String id;
   private GraphPropertyDataType type;
+  private boolean array;
 
   public IdType() {
   }
@@ -65,4 +66,20 @@ public class IdType {
   public void setType( GraphPropertyDataType type ) {
     this.type = type;
   }
+
+  /**
+   * Gets array
+   *
+   * @return value of array
+   */
+  public boolean isArray() {
+    return array;
+  }
+
+  /**
+   * @param array The array to set
+   */
+  public void setArray( boolean array ) {
+    this.array = array;
+  }
 }
@@ -0,0 +1,545 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import org.apache.hop.core.exception.HopException;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.IsoDuration;
+import org.neo4j.driver.types.Point;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+import org.neo4j.hop.core.data.GraphSymbols;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Keeps the nodes and relationships to deduplicate without holding all of them in memory.
+ * Records are buffered until a maximum is reached. The buffer is then sorted on ID and written to disk as a sorted run.
+ * At the end the runs are merged: records with the same ID come together and the first or last version wins.
+ * The runs are written in the order the records arrived so the run number tells which version came first.
+ */
+public class SpillingGraphStore implements AutoCloseable {
+
+  public static final int DEFAULT_MAX_BUFFERED_RECORDS = 1000000;
+
+  private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+  private static final Comparator<String> ID_COMPARATOR = Comparator.nullsFirst( Comparator.naturalOrder() );
+
+  // The types of property values in the sorted runs
+  //
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_DOUBLE = 3;
+  private static final byte VALUE_BOOLEAN = 4;
+  private static final byte VALUE_OTHER = 5;
+  private static final byte VALUE_LIST = 6;
+  private static final byte VALUE_BIG_DECIMAL = 7;
+  private static final byte VALUE_LOCAL_DATE = 8;
+  private static final byte VALUE_LOCAL_DATE_TIME = 9;
+  private static final byte VALUE_LOCAL_TIME = 10;
+  private static final byte VALUE_ZONED_DATE_TIME = 11;
+  private static final byte VALUE_OFFSET_TIME = 12;
+  private static final byte VALUE_DURATION = 13;
+  private static final byte VALUE_ISO_DURATION = 14;
+  private static final byte VALUE_POINT = 15;
+  private static final byte VALUE_NEO4J = 16;
+
+  /**
+   * Receives the unique records after the merge
+   */
+  @FunctionalInterface
+  public interface RecordHandler<T> {
+    void handle( T record ) throws HopException;
+  }
+
+  private interface RecordCodec<T> {
+    void write( DataOutputStream out, T record ) throws IOException;
+
+    T read( DataInputStream in ) throws IOException;
+  }
+
+  private final UniquenessStrategy strategy;
+  private final int maxBufferedRecords;
+  private final File parentFolder;
+  private File spillFolder;
+
+  private final SortedRuns<GraphNodeData> nodes;
+  private final SortedRuns<GraphRelationshipData> relationships;
+
+  /**
+   * The labels, relationship types and property IDs read back from the sorted runs, only shared within this store
+   */
+  private final GraphSymbols symbols;
+
+  /**
+   * @param strategy           First or Last: which version of a node or relationship to keep
+   * @param maxBufferedRecords The maximum number of nodes or relationships to keep in memory before spilling them to disk
+   * @param parentFolder       The folder to create the temporary folder with the sorted runs in
+   */
+  public SpillingGraphStore( UniquenessStrategy strategy, int maxBufferedRecords, File parentFolder ) {
+    this.strategy = strategy;
+    this.maxBufferedRecords = Math.max( 1, maxBufferedRecords );
+    this.parentFolder = parentFolder;
+    this.symbols = new GraphSymbols();
+    this.nodes = new SortedRuns<>( "nodes", GraphNodeData::getId, new NodeCodec() );
+    this.relationships = new SortedRuns<>( "rels", GraphRelationshipData::getId, new RelationshipCodec() );
+  }
+
+  public void addNode( GraphNodeData node ) throws HopException {
+    nodes.add( node );
+  }
+
+  public void addRelationship( GraphRelationshipData relationship ) throws HopException {
+    relationships.add( relationship );
+  }
+
+  /**
+   * Pass every unique node to the handler, sorted by ID
+   *
+   * @param handler The handler of the nodes
+   * @throws HopException In case of an error reading the sorted runs or handling a node
+   */
+  public void mergeNodes( RecordHandler<GraphNodeData> handler ) throws HopException {
+    nodes.merge( handler );
+  }
+
+  /**
+   * Pass every unique relationship to the handler, sorted by ID
+   *
+   * @param handler The handler of the relationships
+   * @throws HopException In case of an error reading the sorted runs or handling a relationship
+   */
+  public void mergeRelationships( RecordHandler<GraphRelationshipData> handler ) throws HopException {
+    relationships.merge( handler );
+  }
+
+  /**
+   * Remove the sorted runs from disk
+   */
+  @Override public void close() {
+    nodes.clear();
+    relationships.clear();
+    if ( spillFolder != null ) {
+      spillFolder.delete();
+      spillFolder = null;
+    }
+  }
+
+  private File createRunFile( String name, int runNr ) throws IOException {
+    if ( spillFolder == null ) {
+      spillFolder = Files.createTempDirectory( parentFolder.toPath(), "gencsv-" ).toFile();
+    }
+    return new File( spillFolder, name + "-" + runNr + ".run" );
+  }
+
+  private class SortedRuns<T> {
+    private final String name;
+    private final Function<T, String> idFunction;
+    private final RecordCodec<T> codec;
+    private final Comparator<T> comparator;
+
+    private List<T> buffer;
+    private final List<File> runFiles;
+
+    SortedRuns( String name, Function<T, String> idFunction, RecordCodec<T> codec ) {
+      this.name = name;
+      this.idFunction = idFunction;
+      this.codec = codec;
+      this.comparator = Comparator.comparing( idFunction, ID_COMPARATOR );
+      this.buffer = new ArrayList<>();
+      this.runFiles = new ArrayList<>();
+    }
+
+    void add( T record ) throws HopException {
+      buffer.add( record );
+      if ( buffer.size() >= maxBufferedRecords ) {
+        spill();
+      }
+    }
+
+    /**
+     * Sort the buffer on ID and only keep one record per ID.
+     * The sort is stable so records with the same ID stay in the order they arrived.
+     */
+    private List<T> sortAndDeduplicate() {
+      buffer.sort( comparator );
+      List<T> unique = new ArrayList<>( buffer.size() );
+      for ( T record : buffer ) {
+        int last = unique.size() - 1;
+        if ( last >= 0 && Objects.equals( idFunction.apply( unique.get( last ) ), idFunction.apply( record ) ) ) {
+          if ( strategy == UniquenessStrategy.Last ) {
+            unique.set( last, record );
+          }
+        } else {
+          unique.add( record );
+        }
+      }
+      buffer = new ArrayList<>();
+      return unique;
+    }
+
+    private void spill() throws HopException {
+      List<T> sorted = sortAndDeduplicate();
+      File runFile = null;
+      try {
+        runFile = createRunFile( name, runFiles.size() );
+        runFiles.add( runFile );
+        try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( runFile ), IO_BUFFER_SIZE ) ) ) {
+          for ( T record : sorted ) {
+            out.writeBoolean( true );
+            codec.write( out, record );
+          }
+          out.writeBoolean( false );
+        }
+      } catch ( IOException e ) {
+        throw new HopException( "Error writing sorted run of " + name + " to file '" + runFile + "'", e );
+      }
+    }
+
+    void merge( RecordHandler<T> handler ) throws HopException {
+      if ( runFiles.isEmpty() ) {
+        // Everything fits in memory
+        //
+        for ( T record : sortAndDeduplicate() ) {
+          handler.handle( record );
+        }
+        return;
+      }
+      if ( !buffer.isEmpty() ) {
+        spill();
+      }
+
+      // The runs are sorted on ID, for the same ID the run with the lowest number has the first version
+      //
+      PriorityQueue<RunReader<T>> queue = new PriorityQueue<>( runFiles.size(),
+        Comparator.<RunReader<T>, String>comparing( reader -> idFunction.apply( reader.current ), ID_COMPARATOR )
+          .thenComparingInt( reader -> reader.runNr ) );
+      List<RunReader<T>> readers = new ArrayList<>();
+      try {
+        for ( int runNr = 0; runNr < runFiles.size(); runNr++ ) {
+          RunReader<T> reader = new RunReader<>( runNr, runFiles.get( runNr ), codec );
+          readers.add( reader );
+          if ( reader.next() ) {
+            queue.add( reader );
+          }
+        }
+
+        while ( !queue.isEmpty() ) {
+          RunReader<T> reader = queue.poll();
+          T chosen = reader.current;
+          String id = idFunction.apply( chosen );
+          if ( reader.next() ) {
+            queue.add( reader );
+          }
+          while ( !queue.isEmpty() && Objects.equals( id, idFunction.apply( queue.peek().current ) ) ) {
+            reader = queue.poll();
+            if ( strategy == UniquenessStrategy.Last ) {
+              chosen = reader.current;
+            }
+            if ( reader.next() ) {
+              queue.add( reader );
+            }
+          }
+          handler.handle( chosen );
+        }
+      } catch ( IOException e ) {
+        throw new HopException( "Error merging sorted runs of " + name, e );
+      } finally {
+        for ( RunReader<T> reader : readers ) {
+          reader.close();
+        }
+      }
+    }
+
+    void clear() {
+      buffer = new ArrayList<>();
+      for ( File runFile : runFiles ) {
+        runFile.delete();
+      }
+      runFiles.clear();
+    }
+  }
+
+  private static class RunReader<T> {
+    private final int runNr;
+    private final DataInputStream in;
+    private final RecordCodec<T> codec;
+    private T current;
+
+    RunReader( int runNr, File file, RecordCodec<T> codec ) throws IOException {
+      this.runNr = runNr;
+      this.in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), IO_BUFFER_SIZE ) );
+      this.codec = codec;
+    }
+
+    boolean next() throws IOException {
+      if ( in.readBoolean() ) {
+        current = codec.read( in );
+        return true;
+      }
+      current = null;
+      return false;
+    }
+
+    void close() {
+      try {
+        in.close();
+      } catch ( IOException e ) {
+        // Nothing more we can do here
+      }
+    }
+  }
+
+  private class NodeCodec implements RecordCodec<GraphNodeData> {
+    @Override public void write( DataOutputStream out, GraphNodeData node ) throws IOException {
+      writeString( out, node.getId() );
+      out.writeInt( node.getLabels().size() );
+      for ( String label : node.getLabels() ) {
+        writeString( out, label );
+      }
+      writeString( out, node.getPropertySetId() );
+      writeProperties( out, node.getProperties() );
+    }
+
+    @Override public GraphNodeData read( DataInputStream in ) throws IOException {
+      GraphNodeData node = new GraphNodeData();
+      node.setId( readString( in ) );
+      int nrLabels = in.readInt();
+      for ( int i = 0; i < nrLabels; i++ ) {
+        node.getLabels().add( symbols.intern( readString( in ) ) );
+      }
+      node.setPropertySetId( readString( in ) );
+      node.setProperties( readProperties( in ) );
+      return node;
+    }
+  }
+
+  private class RelationshipCodec implements RecordCodec<GraphRelationshipData> {
+    @Override public void write( DataOutputStream out, GraphRelationshipData relationship ) throws IOException {
+      writeString( out, relationship.getId() );
+      writeString( out, relationship.getLabel() );
+      writeString( out, relationship.getSourceNodeId() );
+      writeString( out, relationship.getTargetNodeId() );
+      writeString( out, relationship.getPropertySetId() );
+      writeProperties( out, relationship.getProperties() );
+    }
+
+    @Override public GraphRelationshipData read( DataInputStream in ) throws IOException {
+      GraphRelationshipData relationship = new GraphRelationshipData();
+      relationship.setId( readString( in ) );
+      relationship.setLabel( symbols.intern( readString( in ) ) );
+      relationship.setSourceNodeId( readString( in ) );
+      relationship.setTargetNodeId( readString( in ) );
+      relationship.setPropertySetId( readString( in ) );
+      relationship.setProperties( readProperties( in ) );
+      return relationship;
+    }
+  }
+
+  private static void writeProperties( DataOutputStream out, List<GraphPropertyData> properties ) throws IOException {
+    out.writeInt( properties.size() );
+    for ( GraphPropertyData property : properties ) {
+      writeString( out, property.getId() );
+      out.writeByte( property.getType() == null ? -1 : property.getType().ordinal() );
+      out.writeBoolean( property.isPrimary() );
+      writeValue( out, property.getValue() );
+    }
+  }
+
+  private static void writeValue( DataOutputStream out, Object value ) throws IOException {
+    if ( value == null ) {
+      out.writeByte( VALUE_NULL );
+    } else if ( value instanceof String ) {
+      out.writeByte( VALUE_STRING );
+      writeString( out, (String) value );
+    } else if ( value instanceof Long ) {
+      out.writeByte( VALUE_LONG );
+      out.writeLong( (Long) value );
+    } else if ( value instanceof Double ) {
+      out.writeByte( VALUE_DOUBLE );
+      out.writeDouble( (Double) value );
+    } else if ( value instanceof Boolean ) {
+      out.writeByte( VALUE_BOOLEAN );
+      out.writeBoolean( (Boolean) value );
+    } else if ( GenerateCsv.isArray( value ) ) {
+      // Arrays are written to the CSV files element by element
+      //
+      List<?> elements = value instanceof List ? (List<?>) value : Arrays.asList( (Object[]) value );
+      out.writeByte( VALUE_LIST );
+      out.writeInt( elements.size() );
+      for ( Object element : elements ) {
+        writeValue( out, element );
+      }
+    } else if ( value instanceof BigDecimal ) {
+      out.writeByte( VALUE_BIG_DECIMAL );
+      writeString( out, value.toString() );
+    } else if ( value instanceof LocalDate ) {
+      out.writeByte( VALUE_LOCAL_DATE );
+      out.writeLong( ( (LocalDate) value ).toEpochDay() );
+    } else if ( value instanceof LocalDateTime ) {
+      out.writeByte( VALUE_LOCAL_DATE_TIME );
+      out.writeLong( ( (LocalDateTime) value ).toLocalDate().toEpochDay() );
+      out.writeLong( ( (LocalDateTime) value ).toLocalTime().toNanoOfDay() );
+    } else if ( value instanceof LocalTime ) {
+      out.writeByte( VALUE_LOCAL_TIME );
+      out.writeLong( ( (LocalTime) value ).toNanoOfDay() );
+    } else if ( value instanceof ZonedDateTime ) {
+      // The ISO text keeps the offset and the zone ID
+      //
+      out.writeByte( VALUE_ZONED_DATE_TIME );
+      writeString( out, value.toString() );
+    } else if ( value instanceof OffsetTime ) {
+      out.writeByte( VALUE_OFFSET_TIME );
+      writeString( out, value.toString() );
+    } else if ( value instanceof Duration ) {
+      out.writeByte( VALUE_DURATION );
+      out.writeLong( ( (Duration) value ).getSeconds() );
+      out.writeInt( ( (Duration) value ).getNano() );
+    } else if ( value instanceof IsoDuration ) {
+      IsoDuration duration = (IsoDuration) value;
+      out.writeByte( VALUE_ISO_DURATION );
+      out.writeLong( duration.months() );
+      out.writeLong( duration.days() );
+      out.writeLong( duration.seconds() );
+      out.writeInt( duration.nanoseconds() );
+    } else if ( value instanceof Point ) {
+      Point point = (Point) value;
+      out.writeByte( VALUE_POINT );
+      out.writeInt( point.srid() );
+      out.writeDouble( point.x() );
+      out.writeDouble( point.y() );
+      out.writeDouble( point.z() );
+    } else if ( value instanceof Value ) {
+      // Durations and points parsed from strings are driver values, keep them that way
+      //
+      out.writeByte( VALUE_NEO4J );
+      writeValue( out, ( (Value) value ).asObject() );
+    } else {
+      // None of the conversions produce other types, they end up in the CSV files as their string representation
+      //
+      out.writeByte( VALUE_OTHER );
+      writeString( out, value.toString() );
+    }
+  }
+
+  private static Object readValue( DataInputStream in ) throws IOException {
+    byte valueType = in.readByte();
+    switch ( valueType ) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_LONG:
+        return in.readLong();
+      case VALUE_DOUBLE:
+        return in.readDouble();
+      case VALUE_BOOLEAN:
+        return in.readBoolean();
+      case VALUE_LIST:
+        int size = in.readInt();
+        List<Object> elements = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ ) {
+          elements.add( readValue( in ) );
+        }
+        return elements;
+      case VALUE_BIG_DECIMAL:
+        return new BigDecimal( readString( in ) );
+      case VALUE_LOCAL_DATE:
+        return LocalDate.ofEpochDay( in.readLong() );
+      case VALUE_LOCAL_DATE_TIME:
+        LocalDate date = LocalDate.ofEpochDay( in.readLong() );
+        return LocalDateTime.of( date, LocalTime.ofNanoOfDay( in.readLong() ) );
+      case VALUE_LOCAL_TIME:
+        return LocalTime.ofNanoOfDay( in.readLong() );
+      case VALUE_ZONED_DATE_TIME:
+        return ZonedDateTime.parse( readString( in ) );
+      case VALUE_OFFSET_TIME:
+        return OffsetTime.parse( readString( in ) );
+      case VALUE_DURATION:
+        long seconds = in.readLong();
+        return Duration.ofSeconds( seconds, in.readInt() );
+      case VALUE_ISO_DURATION:
+        return readIsoDuration( in ).asIsoDuration();
+      case VALUE_POINT:
+        return readPoint( in ).asPoint();
+      case VALUE_NEO4J:
+        return Values.value( readValue( in ) );
+      default:
+        return readString( in );
+    }
+  }
+
+  private static Value readIsoDuration( DataInputStream in ) throws IOException {
+    long months = in.readLong();
+    long days = in.readLong();
+    long seconds = in.readLong();
+    return Values.isoDuration( months, days, seconds, in.readInt() );
+  }
+
+  private static Value readPoint( DataInputStream in ) throws IOException {
+    int srid = in.readInt();
+    double x = in.readDouble();
+    double y = in.readDouble();
+    double z = in.readDouble();
+    return Double.isNaN( z ) ? Values.point( srid, x, y ) : Values.point( srid, x, y, z );
+  }
+
+  private List<GraphPropertyData> readProperties( DataInputStream in ) throws IOException {
+    int nrProperties = in.readInt();
+    List<GraphPropertyData> properties = new ArrayList<>( nrProperties );
+    GraphPropertyDataType[] types = GraphPropertyDataType.values();
+    for ( int i = 0; i < nrProperties; i++ ) {
+      String id = symbols.intern( readString( in ) );
+      byte typeIndex = in.readByte();
+      GraphPropertyDataType type = typeIndex < 0 ? null : types[ typeIndex ];
+      boolean primary = in.readBoolean();
+      Object value = readValue( in );
+      properties.add( new GraphPropertyData( id, value, type, primary ) );
+    }
+    return properties;
+  }
+
+  private static void writeString( DataOutputStream out, String string ) throws IOException {
+    if ( string == null ) {
+      out.writeInt( -1 );
+    } else {
+      byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+      out.writeInt( bytes.length );
+      out.write( bytes );
+    }
+  }
+
+  private static String readString( DataInputStream in ) throws IOException {
+    int length = in.readInt();
+    if ( length < 0 ) {
+      return null;
+    }
+    byte[] bytes = new byte[ length ];
+    in.readFully( bytes );
+    return new String( bytes, StandardCharsets.UTF_8 );
+  }
+}
@@ -7,18 +7,31 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.function.Consumer;
 
 public class StreamConsumer extends Thread {
 
   private ILogChannel log;
   private InputStream inputStream;
   private final LogLevel logLevel;
+  private final Consumer<String> lineListener;
 
   public StreamConsumer( ILogChannel log, InputStream inputStream, LogLevel logLevel ) {
+    this( log, inputStream, logLevel, null );
+  }
+
+  /**
+   * @param log          The log channel to write the lines to
+   * @param inputStream  The stream to consume
+   * @param logLevel     The level to log the lines at
+   * @param lineListener Receives every line before it's logged, can be null
+   */
+  public StreamConsumer( ILogChannel log, InputStream inputStream, LogLevel logLevel, Consumer<String> lineListener ) {
     super();
     this.log = log;
     this.inputStream = inputStream;
     this.logLevel = logLevel;
+    this.lineListener = lineListener;
   }
 
   @Override public void run() {
@@ -28,6 +41,9 @@ public class StreamConsumer extends Thread {
       BufferedReader bufferedReader = new BufferedReader( inputStreamReader );
       String line = null;
       while ((line=bufferedReader.readLine())!=null) {
+        if ( lineListener != null ) {
+          lineListener.accept( line );
+        }
         switch(logLevel){
           case MINIMAL: log.logMinimal(line); break;
           case BASIC: log.logBasic(line); break;
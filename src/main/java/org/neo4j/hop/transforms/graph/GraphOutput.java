@@ -24,6 +24,7 @@ import org.neo4j.hop.core.data.GraphRelationshipData;
 import org.neo4j.hop.model.GraphModel;
 import org.neo4j.hop.model.GraphNode;
 import org.neo4j.hop.model.GraphProperty;
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.model.GraphPropertyType;
 import org.neo4j.hop.model.GraphRelationship;
 import org.neo4j.hop.model.validation.ModelValidator;
@@ -34,8 +35,10 @@ import org.neo4j.hop.transforms.BaseNeoTransform;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -81,6 +84,7 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
         }
 
         data.batchSize = Const.toLong( environmentSubstitute( meta.getBatchSize() ), 1 );
+        data.usingUnwind = meta.isUsingUnwind();
       }
 
       if ( StringUtils.isEmpty( meta.getModel() ) ) {
@@ -150,6 +154,9 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
     if ( data.cypherMap != null ) {
       data.cypherMap.clear();
     }
+    if ( data.unwindRowsMap != null ) {
+      data.unwindRowsMap.clear();
+    }
 
     super.dispose();
   }
@@ -231,7 +238,21 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
 
       }
 
+      // The converters only depend on the field metadata and the target type: create them once, not for every row
+      //
+      data.propertyConverters = new GraphPropertyConverter[ getInputRowMeta().size() ][];
+      if ( meta.isReturningGraph() ) {
+        data.graphPropertyTypes = new GraphPropertyDataType[ getInputRowMeta().size() ];
+        data.graphPropertyConverters = new GraphPropertyConverter[ getInputRowMeta().size() ];
+        for ( int i = 0; i < getInputRowMeta().size(); i++ ) {
+          IValueMeta valueMeta = getInputRowMeta().getValueMeta( i );
+          data.graphPropertyTypes[ i ] = GraphPropertyDataType.getTypeFromHop( valueMeta );
+          data.graphPropertyConverters[ i ] = GraphPropertyType.parseCode( data.graphPropertyTypes[ i ].name() ).getConverter( valueMeta );
+        }
+      }
+
       data.cypherMap = new HashMap<>();
+      data.unwindRowsMap = new LinkedHashMap<>();
     }
 
     if ( meta.isReturningGraph() ) {
@@ -255,7 +276,12 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
         logDebug( "Merge statement : " + cypher );
       }
 
-      boolean errors = executeStatement( data, cypher, parameters );
+      boolean errors;
+      if ( data.usingUnwind ) {
+        errors = addUnwindRow( cypher, parameters );
+      } else {
+        errors = executeStatement( data, cypher, parameters );
+      }
       if ( errors ) {
         // Stop processing on error
         //
@@ -355,9 +381,58 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
     return errors;
   }
 
+  /**
+   * Buffer the parameters of a row together with the other rows with the same statement, the same null pattern.
+   * Once the batch size is reached the rows are sent to Neo4j in a single UNWIND statement.
+   *
+   * @param cypher     The UNWIND statement for the row
+   * @param parameters The parameters of the row
+   * @return true if there were errors
+   */
+  private boolean addUnwindRow( String cypher, Map<String, Object> parameters ) {
+    if ( StringUtils.isEmpty( cypher ) ) {
+      // Nothing to update for this row
+      //
+      return false;
+    }
+    List<Map<String, Object>> unwindRows = data.unwindRowsMap.get( cypher );
+    if ( unwindRows == null ) {
+      unwindRows = new ArrayList<>();
+      data.unwindRowsMap.put( cypher, unwindRows );
+    }
+    unwindRows.add( parameters );
+
+    if ( unwindRows.size() >= data.batchSize ) {
+      data.unwindRowsMap.put( cypher, new ArrayList<>() );
+      return executeUnwindStatement( cypher, unwindRows );
+    }
+    return false;
+  }
+
+  private boolean executeUnwindStatement( String cypher, List<Map<String, Object>> unwindRows ) {
+    if ( log.isDebug() ) {
+      logDebug( "Sending " + unwindRows.size() + " rows to statement : " + cypher );
+    }
+    Map<String, Object> parameters = Collections.singletonMap( "rows", unwindRows );
+    ResultSummary summary = data.session.writeTransaction( tx -> tx.run( cypher, parameters ).consume() );
+    boolean errors = processSummary( summary );
+
+    setLinesOutput( getLinesOutput() + unwindRows.size() );
+
+    if ( errors ) {
+      setErrors( 1L );
+      stopAll();
+      setOutputDone();
+    }
+    return errors;
+  }
+
   private boolean processSummary( Result result ) {
+    return processSummary( result.consume() );
+  }
+
+  private boolean processSummary( ResultSummary summary ) {
     boolean errors = false;
-    ResultSummary summary = result.consume();
     for ( Notification notification : summary.notifications() ) {
       log.logError( notification.title() + " (" + notification.severity() + ")" );
       log.logError( notification.code() + " : " + notification.description() + ", position " + notification.position() );
@@ -578,7 +653,7 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
               if ( isNull ) {
                 cypher.append( "NULL" );
               } else {
-                Object neoValue = relProp.getType().convertFromHop( sourceFieldMeta, sourceFieldValue );
+                Object neoValue = getConverter( relProp.getType(), rowMeta, propFieldIndex ).convert( sourceFieldMeta, sourceFieldValue );
                 parameters.put( parameterName, neoValue );
                 cypher.append( buildParameterClause( parameterName ) );
 
@@ -595,10 +670,30 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
       cypher.append( ";" + Const.CR );
     }
 
-    cypherParameters.setCypher( cypher.toString() );
+    String statement = cypher.toString();
+    if ( data.usingUnwind ) {
+      statement = getUnwindCypher( statement );
+    }
+
+    cypherParameters.setCypher( statement );
     data.cypherMap.put( pattern.toString(), cypherParameters );
 
-    return cypher.toString();
+    return statement;
+  }
+
+  /**
+   * Turn the statement for a single row into one for a list of rows.
+   * The parameter references are already generated as keys of the row map.
+   *
+   * @param cypher The statement for a single row
+   * @return The UNWIND statement or an empty String if there's nothing to update
+   */
+  private String getUnwindCypher( String cypher ) {
+    if ( StringUtils.isBlank( cypher.replace( ";", "" ) ) ) {
+      return "";
+    }
+    String rowsParameter = data.version4 ? "$rows" : "{rows}";
+    return "UNWIND " + rowsParameter + " AS row " + Const.CR + cypher;
   }
 
   private void setParameters( IRowMeta rowMeta, Object[] row, Map<String, Object> parameters, CypherParameters cypherParameters ) throws HopValueException {
@@ -607,16 +702,42 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
       IValueMeta valueMeta = rowMeta.getValueMeta( fieldIndex );
       Object valueData = row[ fieldIndex ];
       String parameterName = targetParameter.getParameterName();
-      GraphPropertyType parameterType = targetParameter.getParameterType();
 
-      // Convert to the neo type
+      // Convert to the neo type, the converter only needs to be resolved once for the cached statement
       //
-      Object neoObject = parameterType.convertFromHop( valueMeta, valueData );
+      GraphPropertyConverter converter = targetParameter.getConverter();
+      if ( converter == null ) {
+        converter = getConverter( targetParameter.getParameterType(), rowMeta, fieldIndex );
+        targetParameter.setConverter( converter );
+      }
+      Object neoObject = converter.convert( valueMeta, valueData );
 
       parameters.put( parameterName, neoObject );
     }
   }
 
+  /**
+   * Get the converter of an input field to a property type, it's created the first time it's needed
+   *
+   * @param type       The property type to convert to
+   * @param rowMeta    The input row metadata
+   * @param fieldIndex The index of the input field
+   * @return The converter
+   */
+  private GraphPropertyConverter getConverter( GraphPropertyType type, IRowMeta rowMeta, int fieldIndex ) {
+    GraphPropertyConverter[] converters = data.propertyConverters[ fieldIndex ];
+    if ( converters == null ) {
+      converters = new GraphPropertyConverter[ GraphPropertyType.values().length ];
+      data.propertyConverters[ fieldIndex ] = converters;
+    }
+    GraphPropertyConverter converter = converters[ type.ordinal() ];
+    if ( converter == null ) {
+      converter = type.getConverter( rowMeta.getValueMeta( fieldIndex ) );
+      converters[ type.ordinal() ] = converter;
+    }
+    return converter;
+  }
+
   private void addNodeCypher( StringBuilder cypher, GraphNode node,
                               Set<GraphNode> handled, Set<GraphNode> ignored,
                               AtomicInteger parameterIndex, AtomicInteger nodeIndex,
@@ -703,7 +824,8 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
           // NULL parameters are better set with NULL directly
           //
           if ( !isNull ) {
-            parameters.put( parameterName, napd.property.getType().convertFromHop( napd.sourceValueMeta, napd.sourceValueData ) );
+            GraphPropertyConverter converter = getConverter( napd.property.getType(), getInputRowMeta(), napd.sourceFieldIndex );
+            parameters.put( parameterName, converter.convert( napd.sourceValueMeta, napd.sourceValueData ) );
             TargetParameter targetParameter = new TargetParameter( napd.sourceValueMeta.getName(), napd.sourceFieldIndex, parameterName, napd.property.getType() );
             cypherParameters.getTargetParameters().add( targetParameter );
           }
@@ -720,6 +842,11 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
   }
 
   private String buildParameterClause( String parameterName ) {
+    if ( data.usingUnwind ) {
+      // Every row in the UNWIND list is a map with the parameters of the row
+      //
+      return "row." + parameterName;
+    }
     if ( data.version4 ) {
       return "$" + parameterName;
     } else {
@@ -732,6 +859,18 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
   }
 
   private void wrapUpTransaction() {
+    if ( data.unwindRowsMap != null && !isStopped() ) {
+      for ( Map.Entry<String, List<Map<String, Object>>> entry : data.unwindRowsMap.entrySet() ) {
+        List<Map<String, Object>> unwindRows = entry.getValue();
+        if ( !unwindRows.isEmpty() ) {
+          entry.setValue( new ArrayList<>() );
+          if ( executeUnwindStatement( entry.getKey(), unwindRows ) ) {
+            break;
+          }
+        }
+      }
+    }
+
     if ( data.outputCount > 0 ) {
       data.transaction.commit();
       data.transaction.close();
@@ -878,7 +1017,7 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
 
       GraphNodeData nodeData = getGraphNodeData( node, handled, ignored, nodeIndex, nodeIndexMap, nodeProperties );
       if ( nodeData != null ) {
-        graphData.getNodes().add( nodeData );
+        graphData.addNode( nodeData );
       }
     } else {
       for ( GraphRelationship relationship : relationships ) {
@@ -888,7 +1027,7 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
         for ( GraphNode node : new GraphNode[] { nodeSource, nodeTarget } ) {
           GraphNodeData nodeData = getGraphNodeData( node, handled, ignored, nodeIndex, nodeIndexMap, nodeProperties );
           if ( nodeData != null ) {
-            graphData.getNodes().add( nodeData );
+            graphData.addNode( nodeData );
           }
         }
 
@@ -935,15 +1074,15 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
               Object sourceFieldValue = row[ propFieldIndex ];
 
               String propId = relProp.getName();
-              GraphPropertyDataType relPropType = GraphPropertyDataType.getTypeFromHop( sourceFieldMeta );
-              Object neoValue = relPropType.convertFromHop( sourceFieldMeta, sourceFieldValue );
+              GraphPropertyDataType relPropType = data.graphPropertyTypes[ propFieldIndex ];
+              Object neoValue = data.graphPropertyConverters[ propFieldIndex ].convert( sourceFieldMeta, sourceFieldValue );
               boolean primary = false; // TODO: implement this
 
               relationshipData.getProperties().add( new GraphPropertyData( propId, neoValue, relPropType, primary ) );
             }
           }
 
-          graphData.getRelationships().add( relationshipData );
+          graphData.addRelationship( relationshipData );
         }
       }
     }
@@ -967,9 +1106,9 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
       handled.add( node );
       nodeIndexMap.put( node, nodeIndex.incrementAndGet() );
 
-      // Calculate the node labels
+      // Calculate the node labels, the model's label strings are shared by all nodes.
       //
-      graphNodeData.getLabels().addAll( node.getLabels() );
+      graphNodeData.setLabels( new ArrayList<>( node.getLabels() ) );
 
       // Look up the properties to update in the node
       //
@@ -995,9 +1134,8 @@ public class GraphOutput extends BaseNeoTransform<GraphOutputMeta, GraphOutputDa
           if ( !isNull ) {
             GraphPropertyData propertyData = new GraphPropertyData();
             propertyData.setId( napd.property.getName() );
-            GraphPropertyDataType type = GraphPropertyDataType.getTypeFromHop( napd.sourceValueMeta );
-            propertyData.setType( type );
-            propertyData.setValue( type.convertFromHop( napd.sourceValueMeta, napd.sourceValueData ) );
+            propertyData.setType( data.graphPropertyTypes[ napd.sourceFieldIndex ] );
+            propertyData.setValue( data.graphPropertyConverters[ napd.sourceFieldIndex ].convert( napd.sourceValueMeta, napd.sourceValueData ) );
             propertyData.setPrimary( napd.property.isPrimary() );
 
             graphNodeData.getProperties().add( propertyData );
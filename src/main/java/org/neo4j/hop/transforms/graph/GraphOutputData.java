@@ -4,13 +4,16 @@ import org.neo4j.hop.model.validation.ModelValidator;
 import org.neo4j.hop.transforms.BaseNeoTransformData;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
 import org.neo4j.hop.model.GraphModel;
 import org.neo4j.hop.model.GraphProperty;
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.shared.NeoConnection;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.ITransformData;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class GraphOutputData extends BaseNeoTransformData implements ITransformData {
@@ -27,7 +30,12 @@ public class GraphOutputData extends BaseNeoTransformData implements ITransformD
   public GraphModel graphModel;
   public int nodeCount;
   public Map<String, CypherParameters> cypherMap;
+  public boolean usingUnwind;
+  public Map<String, List<Map<String, Object>>> unwindRowsMap;
   public HashMap<String, Map<GraphProperty, Integer>> relationshipPropertyIndexMap;
   public boolean version4;
   public ModelValidator modelValidator;
+  public GraphPropertyConverter[][] propertyConverters;
+  public GraphPropertyDataType[] graphPropertyTypes;
+  public GraphPropertyConverter[] graphPropertyConverters;
 }
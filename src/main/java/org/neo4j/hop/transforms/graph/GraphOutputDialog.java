@@ -61,6 +61,8 @@ public class GraphOutputDialog extends BaseTransformDialog implements ITransform
   private TextVar wBatchSize;
   private Label wlCreateIndexes;
   private Button wCreateIndexes;
+  private Label wlUsingUnwind;
+  private Button wUsingUnwind;
   private Button wReturnGraph;
   private Label wlReturnGraphField;
   private TextVar wReturnGraphField;
@@ -190,6 +192,26 @@ public class GraphOutputDialog extends BaseTransformDialog implements ITransform
     wCreateIndexes.setLayoutData( fdCreateIndexes );
     lastControl = wCreateIndexes;
 
+    wlUsingUnwind = new Label( shell, SWT.RIGHT );
+    wlUsingUnwind.setText( "Use UNWIND batches? " );
+    String usingUnwindTooltipText = "Group the rows with the same statement and send them in one UNWIND statement per batch instead of one statement per row";
+    wlUsingUnwind.setToolTipText( usingUnwindTooltipText );
+    props.setLook( wlUsingUnwind );
+    FormData fdlUsingUnwind = new FormData();
+    fdlUsingUnwind.left = new FormAttachment( 0, 0 );
+    fdlUsingUnwind.right = new FormAttachment( middle, -margin );
+    fdlUsingUnwind.top = new FormAttachment( lastControl, 2 * margin );
+    wlUsingUnwind.setLayoutData( fdlUsingUnwind );
+    wUsingUnwind = new Button( shell, SWT.CHECK | SWT.BORDER );
+    wUsingUnwind.setToolTipText( usingUnwindTooltipText );
+    props.setLook( wUsingUnwind );
+    FormData fdUsingUnwind = new FormData();
+    fdUsingUnwind.left = new FormAttachment( middle, 0 );
+    fdUsingUnwind.right = new FormAttachment( 100, 0 );
+    fdUsingUnwind.top = new FormAttachment( wlUsingUnwind, 0, SWT.CENTER );
+    wUsingUnwind.setLayoutData( fdUsingUnwind );
+    lastControl = wUsingUnwind;
+
     Label wlReturnGraph = new Label( shell, SWT.RIGHT );
     wlReturnGraph.setText( "Return graph data?" );
     String returnGraphTooltipText = "The update data to be updated in the form of Graph a value in the output of this transform";
@@ -351,6 +373,8 @@ public class GraphOutputDialog extends BaseTransformDialog implements ITransform
     wBatchSize.setEnabled( toNeo );
     wlCreateIndexes.setEnabled( toNeo );
     wCreateIndexes.setEnabled( toNeo );
+    wlUsingUnwind.setEnabled( toNeo );
+    wUsingUnwind.setEnabled( toNeo );
 
     wlReturnGraphField.setEnabled( !toNeo );
     wReturnGraphField.setEnabled( !toNeo );
@@ -464,6 +488,7 @@ public class GraphOutputDialog extends BaseTransformDialog implements ITransform
 
     wBatchSize.setText( Const.NVL( input.getBatchSize(), "" ) );
     wCreateIndexes.setSelection( input.isCreatingIndexes() );
+    wUsingUnwind.setSelection( input.isUsingUnwind() );
 
     for ( int i = 0; i < input.getFieldModelMappings().size(); i++ ) {
       FieldModelMapping mapping = input.getFieldModelMappings().get( i );
@@ -495,6 +520,7 @@ public class GraphOutputDialog extends BaseTransformDialog implements ITransform
     input.setConnectionName( wConnection.getText() );
     input.setBatchSize( wBatchSize.getText() );
     input.setCreatingIndexes( wCreateIndexes.getSelection() );
+    input.setUsingUnwind( wUsingUnwind.getSelection() );
     input.setModel( wModel.getText() );
 
     input.setReturningGraph( wReturnGraph.getSelection() );
@@ -41,6 +41,7 @@ public class GraphOutputMeta extends BaseTransformMeta implements ITransformMeta
   public static final String MODEL = "model";
   public static final String BATCH_SIZE = "batch_size";
   public static final String CREATE_INDEXES = "create_indexes";
+  public static final String USING_UNWIND = "using_unwind";
   public static final String MAPPINGS = "mappings";
   public static final String MAPPING = "mapping";
   public static final String SOURCE_FIELD = "source_field";
@@ -61,6 +62,9 @@ public class GraphOutputMeta extends BaseTransformMeta implements ITransformMeta
   @Injection( name = CREATE_INDEXES )
   private boolean creatingIndexes;
 
+  @Injection( name = USING_UNWIND )
+  private boolean usingUnwind;
+
   @Injection( name = RETURNING_GRAPH )
   private boolean returningGraph;
 
@@ -114,6 +118,7 @@ public class GraphOutputMeta extends BaseTransformMeta implements ITransformMeta
     xml.append( XmlHandler.addTagValue( MODEL, model ) );
     xml.append( XmlHandler.addTagValue( BATCH_SIZE, batchSize ) );
     xml.append( XmlHandler.addTagValue( CREATE_INDEXES, creatingIndexes ) );
+    xml.append( XmlHandler.addTagValue( USING_UNWIND, usingUnwind ) );
     xml.append( XmlHandler.addTagValue( RETURNING_GRAPH, returningGraph ) );
     xml.append( XmlHandler.addTagValue( RETURN_GRAPH_FIELD, returnGraphField ) );
     xml.append( XmlHandler.addTagValue( VALIDATE_AGAINST_MODEL, validatingAgainstModel ) );
@@ -137,6 +142,7 @@ public class GraphOutputMeta extends BaseTransformMeta implements ITransformMeta
     model = XmlHandler.getTagValue( transformNode, MODEL );
     batchSize = XmlHandler.getTagValue( transformNode, BATCH_SIZE );
     creatingIndexes = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, CREATE_INDEXES ) );
+    usingUnwind = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, USING_UNWIND ) );
     returningGraph = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, RETURNING_GRAPH ) );
     returnGraphField = XmlHandler.getTagValue( transformNode, RETURN_GRAPH_FIELD );
     validatingAgainstModel = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, VALIDATE_AGAINST_MODEL ) );
@@ -222,6 +228,22 @@ public class GraphOutputMeta extends BaseTransformMeta implements ITransformMeta
     this.creatingIndexes = creatingIndexes;
   }
 
+  /**
+   * Gets usingUnwind
+   *
+   * @return value of usingUnwind
+   */
+  public boolean isUsingUnwind() {
+    return usingUnwind;
+  }
+
+  /**
+   * @param usingUnwind The usingUnwind to set
+   */
+  public void setUsingUnwind( boolean usingUnwind ) {
+    this.usingUnwind = usingUnwind;
+  }
+
   /**
    * Gets fieldModelMappings
    *
@@ -1,5 +1,6 @@
 package org.neo4j.hop.transforms.graph;
 
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.model.GraphPropertyType;
 
 public class TargetParameter {
@@ -9,6 +10,8 @@ public class TargetParameter {
   private String parameterName;
   private GraphPropertyType parameterType;
 
+  private GraphPropertyConverter converter;
+
   public TargetParameter() {
   }
 
@@ -82,4 +85,20 @@ public class TargetParameter {
   public void setParameterType( GraphPropertyType parameterType ) {
     this.parameterType = parameterType;
   }
+
+  /**
+   * Gets converter
+   *
+   * @return value of converter, null if it wasn't resolved yet
+   */
+  public GraphPropertyConverter getConverter() {
+    return converter;
+  }
+
+  /**
+   * @param converter The converter to set
+   */
+  public void setConverter( GraphPropertyConverter converter ) {
+    this.converter = converter;
+  }
 }
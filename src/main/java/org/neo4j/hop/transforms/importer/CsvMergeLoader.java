@@ -0,0 +1,542 @@
+package org.neo4j.hop.transforms.importer;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
+import org.neo4j.driver.Session;
+import org.neo4j.hop.transforms.gencsv.GenerateCsv;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Applies neo4j-admin import CSV files to a running database with batched UNWIND MERGE statements.
+ * This is used for incremental imports with updates, neo4j-admin can only add new records. It's meant for change sets.
+ * <p>
+ * Nodes are merged on their first label and ID property. Relationships match their start and end node on the first
+ * label and ID property of the node as well so the index of the node can be used. These come from the extra columns
+ * Generate CSV writes in changes only mode or else from the node files merged before.
+ * Relationships are merged on their key property. Without one there is one relationship per start node, type and end
+ * node, like the relationship IDs of the graph data.
+ * Properties are set from every column so empty values remove the property.
+ */
+public class CsvMergeLoader {
+
+  public static final int BATCH_SIZE = 1000;
+
+  private static final String DEFAULT_ID_PROPERTY = "id";
+
+  private final ILogChannel log;
+  private final Session session;
+  private final String baseFolder;
+  private final boolean skippingBadRelationships;
+  private final BooleanSupplier stopped;
+
+  /**
+   * The first label and ID property of the merged nodes
+   */
+  private final Map<String, String[]> nodeEndpoints;
+
+  private long mergedNodes;
+  private long mergedRelationships;
+  private long skippedRelationships;
+
+  /**
+   * @param log                      The log channel to use
+   * @param session                  The session to run the statements in, the caller owns the session
+   * @param baseFolder               The folder the file names are relative to
+   * @param skippingBadRelationships Skip relationships of which the start or end node can't be found instead of failing
+   * @param stopped                  Tells us to stop loading
+   */
+  public CsvMergeLoader( ILogChannel log, Session session, String baseFolder, boolean skippingBadRelationships, BooleanSupplier stopped ) {
+    this.log = log;
+    this.session = session;
+    this.baseFolder = baseFolder;
+    this.skippingBadRelationships = skippingBadRelationships;
+    this.stopped = stopped;
+    this.nodeEndpoints = new HashMap<>();
+  }
+
+  /**
+   * Merge the nodes of a file group
+   *
+   * @param fileGroup The header file followed by the data files, separated by commas
+   * @throws HopException In case of an error reading the files or merging the nodes
+   */
+  public void mergeNodes( String fileGroup ) throws HopException {
+    mergeFileGroup( fileGroup, true );
+  }
+
+  /**
+   * Merge the relationships of a file group. Merge all the nodes first so that the start and end nodes can be found.
+   *
+   * @param fileGroup The header file followed by the data files, separated by commas
+   * @throws HopException In case of an error reading the files or merging the relationships
+   */
+  public void mergeRelationships( String fileGroup ) throws HopException {
+    mergeFileGroup( fileGroup, false );
+  }
+
+  private void mergeFileGroup( String fileGroup, boolean nodes ) throws HopException {
+    String[] filenames = fileGroup.split( "," );
+    List<Column> columns = null;
+    String idProperty = DEFAULT_ID_PROPERTY;
+
+    // The rows are grouped on the statement they need: the labels or type are part of it
+    //
+    Map<String, Batch> batches = new LinkedHashMap<>();
+
+    for ( String filename : filenames ) {
+      File file = new File( baseFolder, filename.trim() );
+      try ( CsvRecordReader reader = new CsvRecordReader( openFile( file ) ) ) {
+        List<String> record = reader.readRecord();
+        if ( columns == null ) {
+          // The first line of the first file of the group is the header
+          //
+          if ( record == null ) {
+            throw new HopException( "File '" + file + "' doesn't have a header" );
+          }
+          columns = parseHeader( record );
+          for ( Column column : columns ) {
+            if ( "ID".equals( column.type ) && !column.name.isEmpty() ) {
+              idProperty = column.name;
+            }
+          }
+          record = reader.readRecord();
+        }
+        while ( record != null ) {
+          if ( stopped.getAsBoolean() ) {
+            return;
+          }
+          if ( nodes ) {
+            addNodeRecord( batches, columns, idProperty, record );
+          } else {
+            addRelationshipRecord( batches, columns, record );
+          }
+          record = reader.readRecord();
+        }
+      } catch ( HopException e ) {
+        throw e;
+      } catch ( Exception e ) {
+        throw new HopException( "Error reading file '" + file + "' to merge", e );
+      }
+    }
+
+    for ( Batch batch : batches.values() ) {
+      flush( batch, nodes );
+    }
+  }
+
+  private void addNodeRecord( Map<String, Batch> batches, List<Column> columns, String idProperty, List<String> record ) throws HopException {
+    Map<String, Object> row = new HashMap<>();
+    String labels = null;
+    for ( int i = 0; i < columns.size() && i < record.size(); i++ ) {
+      Column column = columns.get( i );
+      String value = record.get( i );
+      if ( "LABEL".equals( column.type ) ) {
+        labels = value;
+      } else if ( "ID".equals( column.type ) ) {
+        row.put( column.type, value );
+      } else if ( column.isProperty() ) {
+        row.put( "p" + i, column.convert( value ) );
+      }
+    }
+    if ( labels == null || labels.isEmpty() ) {
+      throw new HopException( "Found a node without labels to merge" );
+    }
+    String firstLabel = labels.split( ";" )[ 0 ];
+    nodeEndpoints.put( (String) row.get( "ID" ), new String[] { firstLabel, idProperty } );
+
+    Batch batch = batches.get( labels );
+    if ( batch == null ) {
+      batch = new Batch( getNodeCypher( labels, columns, idProperty ) );
+      batches.put( labels, batch );
+    }
+    add( batch, row, true );
+  }
+
+  private void addRelationshipRecord( Map<String, Batch> batches, List<Column> columns, List<String> record ) throws HopException {
+    Map<String, Object> row = new HashMap<>();
+    String type = null;
+    String[] mergeColumns = new String[ GenerateCsv.RELATIONSHIP_MERGE_COLUMNS.length ];
+    for ( int i = 0; i < columns.size() && i < record.size(); i++ ) {
+      Column column = columns.get( i );
+      String value = record.get( i );
+      switch ( column.type ) {
+        case "TYPE":
+          type = value;
+          break;
+        case "START_ID":
+        case "END_ID":
+          row.put( column.type, value );
+          break;
+        case "IGNORE":
+          int mergeColumn = Arrays.asList( GenerateCsv.RELATIONSHIP_MERGE_COLUMNS ).indexOf( column.name );
+          if ( mergeColumn >= 0 ) {
+            mergeColumns[ mergeColumn ] = value;
+          }
+          break;
+        default:
+          if ( column.isProperty() ) {
+            row.put( "p" + i, column.convert( value ) );
+          }
+          break;
+      }
+    }
+    if ( type == null || type.isEmpty() ) {
+      throw new HopException( "Found a relationship without a type to merge" );
+    }
+
+    String[] start = findEndpoint( (String) row.get( "START_ID" ), mergeColumns[ 0 ], mergeColumns[ 1 ] );
+    String[] end = findEndpoint( (String) row.get( "END_ID" ), mergeColumns[ 2 ], mergeColumns[ 3 ] );
+    if ( start == null || end == null ) {
+      String message = "Unable to find how to look up the " + ( start == null ? "start node " + row.get( "START_ID" ) : "end node " + row.get( "END_ID" ) )
+        + " of a relationship of type " + type;
+      if ( !skippingBadRelationships ) {
+        throw new HopException( message );
+      }
+      if ( log.isDetailed() ) {
+        log.logDetailed( message + ", skipping it" );
+      }
+      skippedRelationships++;
+      return;
+    }
+    String keyProperty = mergeColumns[ 4 ];
+
+    String key = type + '\0' + start[ 0 ] + '\0' + start[ 1 ] + '\0' + end[ 0 ] + '\0' + end[ 1 ] + '\0' + keyProperty;
+    Batch batch = batches.get( key );
+    if ( batch == null ) {
+      batch = new Batch( getRelationshipCypher( type, columns, start, end, keyProperty ) );
+      batches.put( key, batch );
+    }
+    add( batch, row, false );
+  }
+
+  /**
+   * @return The first label and ID property of a node from the extra columns of the relationship file or from the merged node files
+   */
+  private String[] findEndpoint( String id, String label, String idProperty ) {
+    if ( label != null && !label.isEmpty() && idProperty != null && !idProperty.isEmpty() ) {
+      return new String[] { label, idProperty };
+    }
+    return nodeEndpoints.get( id );
+  }
+
+  private void add( Batch batch, Map<String, Object> row, boolean nodes ) {
+    batch.rows.add( row );
+    if ( batch.rows.size() >= BATCH_SIZE ) {
+      flush( batch, nodes );
+    }
+  }
+
+  private void flush( Batch batch, boolean nodes ) {
+    if ( batch.rows.isEmpty() ) {
+      return;
+    }
+    if ( log.isDebug() ) {
+      log.logDebug( "Merging " + batch.rows.size() + " rows with statement : " + batch.cypher );
+    }
+    Map<String, Object> parameters = Collections.singletonMap( "rows", new ArrayList<>( batch.rows ) );
+    session.writeTransaction( tx -> tx.run( batch.cypher, parameters ).consume() );
+    if ( nodes ) {
+      mergedNodes += batch.rows.size();
+    } else {
+      mergedRelationships += batch.rows.size();
+    }
+    batch.rows.clear();
+  }
+
+  private static String getNodeCypher( String labels, List<Column> columns, String idProperty ) {
+    String[] labelList = labels.split( ";" );
+    StringBuilder cypher = new StringBuilder( "UNWIND $rows AS row MERGE (n:" );
+    cypher.append( quote( labelList[ 0 ] ) );
+    cypher.append( " { " ).append( quote( idProperty ) ).append( " : row.ID })" );
+    String separator = " SET ";
+    for ( int i = 1; i < labelList.length; i++ ) {
+      cypher.append( separator ).append( "n:" ).append( quote( labelList[ i ] ) );
+      separator = ", ";
+    }
+    for ( int i = 0; i < columns.size(); i++ ) {
+      Column column = columns.get( i );
+      if ( column.isProperty() && !column.name.equals( idProperty ) ) {
+        cypher.append( separator ).append( "n." ).append( quote( column.name ) ).append( " = " ).append( column.getExpression( "row.p" + i ) );
+        separator = ", ";
+      }
+    }
+    return cypher.toString();
+  }
+
+  static String getRelationshipCypher( String type, List<Column> columns, String[] start, String[] end, String keyProperty ) {
+    StringBuilder cypher = new StringBuilder( "UNWIND $rows AS row " );
+    cypher.append( "MATCH (a:" ).append( quote( start[ 0 ] ) ).append( " { " ).append( quote( start[ 1 ] ) ).append( " : row.START_ID }) " );
+    cypher.append( "MATCH (b:" ).append( quote( end[ 0 ] ) ).append( " { " ).append( quote( end[ 1 ] ) ).append( " : row.END_ID }) " );
+    cypher.append( "MERGE (a)-[r:" ).append( quote( type ) );
+    int keyIndex = -1;
+    if ( keyProperty != null && !keyProperty.isEmpty() ) {
+      for ( int i = 0; i < columns.size(); i++ ) {
+        if ( columns.get( i ).isProperty() && columns.get( i ).name.equals( keyProperty ) ) {
+          keyIndex = i;
+          cypher.append( " { " ).append( quote( keyProperty ) ).append( " : " ).append( columns.get( i ).getExpression( "row.p" + i ) ).append( " }" );
+          break;
+        }
+      }
+    }
+    cypher.append( "]->(b)" );
+    String separator = " SET ";
+    for ( int i = 0; i < columns.size(); i++ ) {
+      Column column = columns.get( i );
+      if ( column.isProperty() && i != keyIndex ) {
+        cypher.append( separator ).append( "r." ).append( quote( column.name ) ).append( " = " ).append( column.getExpression( "row.p" + i ) );
+        separator = ", ";
+      }
+    }
+    return cypher.toString();
+  }
+
+  private static String quote( String name ) {
+    return "`" + name.replace( "`", "``" ) + "`";
+  }
+
+  private static InputStream openFile( File file ) throws IOException {
+    InputStream inputStream = new FileInputStream( file );
+    if ( file.getName().endsWith( ".gz" ) ) {
+      inputStream = new GZIPInputStream( inputStream, 64 * 1024 );
+    }
+    return inputStream;
+  }
+
+  /**
+   * Parse a header like "id:ID,name:string,tags:string[],:LABEL"
+   */
+  static List<Column> parseHeader( List<String> header ) {
+    List<Column> columns = new ArrayList<>( header.size() );
+    for ( String field : header ) {
+      int colon = field.lastIndexOf( ':' );
+      String name = colon < 0 ? field : field.substring( 0, colon );
+      String type = colon < 0 ? "string" : field.substring( colon + 1 );
+      boolean array = type.endsWith( "[]" );
+      if ( array ) {
+        type = type.substring( 0, type.length() - 2 );
+      }
+      // Drop the ID space
+      //
+      int bracket = type.indexOf( '(' );
+      if ( bracket >= 0 ) {
+        type = type.substring( 0, bracket );
+      }
+      boolean special;
+      switch ( type.toUpperCase() ) {
+        case "ID":
+        case "START_ID":
+        case "END_ID":
+        case "LABEL":
+        case "TYPE":
+        case "IGNORE":
+          type = type.toUpperCase();
+          special = true;
+          break;
+        default:
+          type = type.toLowerCase();
+          special = false;
+          break;
+      }
+      columns.add( new Column( name, type, array, special ) );
+    }
+    return columns;
+  }
+
+  /**
+   * The rows to merge with the same statement
+   */
+  private static class Batch {
+    final String cypher;
+    final List<Map<String, Object>> rows;
+
+    Batch( String cypher ) {
+      this.cypher = cypher;
+      this.rows = new ArrayList<>();
+    }
+  }
+
+  /**
+   * A column of an import CSV file
+   */
+  static class Column {
+    final String name;
+    final String type;
+    final boolean array;
+    final boolean special;
+
+    Column( String name, String type, boolean array, boolean special ) {
+      this.name = name;
+      this.type = type;
+      this.array = array;
+      this.special = special;
+    }
+
+    boolean isProperty() {
+      return !special && !name.isEmpty();
+    }
+
+    /**
+     * Numbers and booleans are converted here, temporal values are converted by Cypher
+     */
+    Object convert( String value ) {
+      if ( value == null ) {
+        return null;
+      }
+      if ( array ) {
+        List<Object> elements = new ArrayList<>();
+        for ( String element : value.split( ";", -1 ) ) {
+          elements.add( convertElement( element ) );
+        }
+        return elements;
+      }
+      return convertElement( value );
+    }
+
+    private Object convertElement( String value ) {
+      if ( value.isEmpty() && !"string".equals( type ) ) {
+        return null;
+      }
+      switch ( type ) {
+        case "long":
+        case "int":
+        case "short":
+        case "byte":
+          return Long.valueOf( value.trim() );
+        case "double":
+        case "float":
+          return Double.valueOf( value.trim() );
+        case "boolean":
+          return Boolean.valueOf( value.trim() );
+        default:
+          return value;
+      }
+    }
+
+    String getExpression( String parameter ) {
+      switch ( type ) {
+        case "date":
+        case "localdatetime":
+        case "localtime":
+        case "datetime":
+        case "time":
+        case "duration":
+          if ( array ) {
+            return "[ v IN " + parameter + " | " + type + "( v ) ]";
+          }
+          return type + "( " + parameter + " )";
+        default:
+          return parameter;
+      }
+    }
+  }
+
+  /**
+   * Reads the records of an RFC 4180 CSV file. Empty fields which aren't quoted are returned as null.
+   */
+  static class CsvRecordReader implements AutoCloseable {
+    private final Reader reader;
+    private int next;
+
+    CsvRecordReader( InputStream inputStream ) throws IOException {
+      reader = new BufferedReader( new InputStreamReader( inputStream, StandardCharsets.UTF_8 ), 64 * 1024 );
+      next = reader.read();
+    }
+
+    /**
+     * @return The fields of the next record or null at the end of the file
+     */
+    List<String> readRecord() throws IOException {
+      // Skip empty lines
+      //
+      while ( next == '\r' || next == '\n' ) {
+        next = reader.read();
+      }
+      if ( next < 0 ) {
+        return null;
+      }
+      List<String> record = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      boolean inQuotes = false;
+      while ( true ) {
+        int ch = next;
+        next = ch < 0 ? -1 : reader.read();
+        if ( inQuotes ) {
+          if ( ch < 0 ) {
+            throw new IOException( "Unexpected end of file in a quoted field" );
+          }
+          if ( ch == '"' ) {
+            if ( next == '"' ) {
+              field.append( '"' );
+              next = reader.read();
+            } else {
+              inQuotes = false;
+            }
+          } else {
+            field.append( (char) ch );
+          }
+        } else if ( ch == '"' ) {
+          inQuotes = true;
+          quoted = true;
+        } else if ( ch == ',' ) {
+          record.add( quoted || field.length() > 0 ? field.toString() : null );
+          field.setLength( 0 );
+          quoted = false;
+        } else if ( ch == '\r' || ch == '\n' || ch < 0 ) {
+          record.add( quoted || field.length() > 0 ? field.toString() : null );
+          return record;
+        } else {
+          field.append( (char) ch );
+        }
+      }
+    }
+
+    @Override public void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  /**
+   * Gets mergedNodes
+   *
+   * @return value of mergedNodes
+   */
+  public long getMergedNodes() {
+    return mergedNodes;
+  }
+
+  /**
+   * Gets mergedRelationships
+   *
+   * @return value of mergedRelationships
+   */
+  public long getMergedRelationships() {
+    return mergedRelationships;
+  }
+
+  /**
+   * Gets skippedRelationships
+   *
+   * @return value of skippedRelationships, the relationships of which the start or end node couldn't be found
+   */
+  public long getSkippedRelationships() {
+    return skippedRelationships;
+  }
+}
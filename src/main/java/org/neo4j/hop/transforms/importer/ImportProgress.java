@@ -0,0 +1,115 @@
+package org.neo4j.hop.transforms.importer;
+
+/**
+ * The progress of neo4j-admin import at one point in time
+ */
+public class ImportProgress {
+
+  private final String stage;
+  private final int stageNr;
+  private final int stageCount;
+  private final int percentage;
+  private final Double nodesPerSecond;
+  private final Double relationshipsPerSecond;
+  private final String memory;
+  private final long elapsedMs;
+
+  public ImportProgress( String stage, int stageNr, int stageCount, int percentage, Double nodesPerSecond, Double relationshipsPerSecond, String memory,
+                         long elapsedMs ) {
+    this.stage = stage;
+    this.stageNr = stageNr;
+    this.stageCount = stageCount;
+    this.percentage = percentage;
+    this.nodesPerSecond = nodesPerSecond;
+    this.relationshipsPerSecond = relationshipsPerSecond;
+    this.memory = memory;
+    this.elapsedMs = elapsedMs;
+  }
+
+  @Override public String toString() {
+    StringBuilder string = new StringBuilder();
+    string.append( "Import stage " ).append( stageNr ).append( "/" ).append( stageCount ).append( " '" ).append( stage ).append( "' at " ).append( percentage ).append( "%" );
+    if ( nodesPerSecond != null ) {
+      string.append( ", " ).append( Math.round( nodesPerSecond ) ).append( " nodes/s" );
+    }
+    if ( relationshipsPerSecond != null ) {
+      string.append( ", " ).append( Math.round( relationshipsPerSecond ) ).append( " relationships/s" );
+    }
+    if ( memory != null ) {
+      string.append( ", memory " ).append( memory );
+    }
+    return string.toString();
+  }
+
+  /**
+   * Gets stage
+   *
+   * @return value of stage
+   */
+  public String getStage() {
+    return stage;
+  }
+
+  /**
+   * Gets stageNr
+   *
+   * @return value of stageNr
+   */
+  public int getStageNr() {
+    return stageNr;
+  }
+
+  /**
+   * Gets stageCount
+   *
+   * @return value of stageCount
+   */
+  public int getStageCount() {
+    return stageCount;
+  }
+
+  /**
+   * Gets percentage
+   *
+   * @return value of percentage
+   */
+  public int getPercentage() {
+    return percentage;
+  }
+
+  /**
+   * Gets nodesPerSecond
+   *
+   * @return value of nodesPerSecond or null if no nodes are imported in this stage
+   */
+  public Double getNodesPerSecond() {
+    return nodesPerSecond;
+  }
+
+  /**
+   * Gets relationshipsPerSecond
+   *
+   * @return value of relationshipsPerSecond or null if no relationships are imported in this stage
+   */
+  public Double getRelationshipsPerSecond() {
+    return relationshipsPerSecond;
+  }
+
+  /**
+   * Gets memory
+   *
+   * @return value of memory, the estimated or peak memory usage as reported by neo4j-admin
+   */
+  public String getMemory() {
+    return memory;
+  }
+
+  /**
+   * Gets elapsedMs
+   *
+   * @return value of elapsedMs since the start of the import
+   */
+  public long getElapsedMs() {
+    return elapsedMs;
+  }
+}
@@ -0,0 +1,280 @@
+package org.neo4j.hop.transforms.importer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the progress output of neo4j-admin import (4.x) into progress updates.
+ * Lines are parsed on the thread consuming the output of the process, the updates are picked up by the transform.
+ * <p>
+ * The output looks like this:
+ * <pre>
+ * (1/4) Node import 2020-06-19 10:10:10.123+0000
+ *   Estimated number of nodes: 10.00 M
+ *   Estimated required memory usage: 1.01GiB
+ * .......... .......... .......... .......... ..........   5% ...
+ * ...
+ * IMPORT DONE in 11s 20ms.
+ * Imported:
+ *   1000 nodes
+ *   2000 relationships
+ *   3000 properties
+ * Peak memory usage: 1.03GiB
+ * </pre>
+ */
+public class ImportProgressParser {
+
+  private static final Pattern STAGE = Pattern.compile( "^\\((\\d+)/(\\d+)\\)\\s+(.+?)(\\s+\\d{4}-\\d{2}-\\d{2}.*)?$" );
+  private static final Pattern PERCENTAGE = Pattern.compile( "^[.\\s]*\\.[.\\s]*?(\\d{1,3})%" );
+  private static final Pattern ESTIMATED_COUNT = Pattern.compile( "Estimated number of (nodes|relationships):\\s*([\\d.,]+)\\s*([kKMGT]?)" );
+  private static final Pattern MEMORY = Pattern.compile( "(?:Estimated required memory usage|Peak memory usage):\\s*(\\S+)" );
+  private static final Pattern IMPORTED = Pattern.compile( "^\\s*(\\d+) (nodes|relationships|properties)\\s*$" );
+  private static final Pattern DONE = Pattern.compile( "IMPORT DONE" );
+
+  private final long startTime;
+  private final Queue<ImportProgress> updates;
+
+  private volatile String stage;
+  private int stageNr;
+  private int stageCount;
+  private int percentage;
+  private long percentageTime;
+  private String memory;
+  private long estimatedNodes;
+  private long estimatedRelationships;
+
+  private volatile long lastProgressTime;
+  private volatile long processedNodes;
+  private volatile long processedRelationships;
+  private volatile long importedNodes;
+  private volatile long importedRelationships;
+  private volatile long importedProperties;
+  private volatile boolean done;
+
+  public ImportProgressParser() {
+    startTime = System.currentTimeMillis();
+    updates = new ConcurrentLinkedQueue<>();
+    lastProgressTime = startTime;
+  }
+
+  /**
+   * Parse a line of output of neo4j-admin import
+   *
+   * @param line The line to parse
+   */
+  public void parseLine( String line ) {
+    long now = System.currentTimeMillis();
+
+    Matcher matcher = STAGE.matcher( line );
+    if ( matcher.matches() ) {
+      stageNr = Integer.parseInt( matcher.group( 1 ) );
+      stageCount = Integer.parseInt( matcher.group( 2 ) );
+      stage = matcher.group( 3 ).trim();
+      percentage = 0;
+      percentageTime = now;
+      lastProgressTime = now;
+      updateProcessedCounts();
+      updates.offer( createProgress( null, null, now ) );
+      return;
+    }
+
+    matcher = PERCENTAGE.matcher( line );
+    if ( matcher.find() && stage != null ) {
+      int newPercentage = Integer.parseInt( matcher.group( 1 ) );
+      double seconds = ( now - percentageTime ) / 1000.0;
+      Double nodesPerSecond = null;
+      Double relationshipsPerSecond = null;
+      if ( seconds > 0 ) {
+        // The rate is estimated from the part of the estimated total that was processed since the previous update
+        //
+        double processedFraction = ( newPercentage - percentage ) / 100.0;
+        if ( stage.startsWith( "Node" ) ) {
+          nodesPerSecond = estimatedNodes * processedFraction / seconds;
+        } else if ( stage.startsWith( "Relationship" ) ) {
+          relationshipsPerSecond = estimatedRelationships * processedFraction / seconds;
+        }
+      }
+      percentage = newPercentage;
+      percentageTime = now;
+      lastProgressTime = now;
+      updateProcessedCounts();
+      updates.offer( createProgress( nodesPerSecond, relationshipsPerSecond, now ) );
+      return;
+    }
+
+    matcher = ESTIMATED_COUNT.matcher( line );
+    if ( matcher.find() ) {
+      long count = parseCount( matcher.group( 2 ), matcher.group( 3 ) );
+      if ( "nodes".equals( matcher.group( 1 ) ) ) {
+        estimatedNodes = count;
+      } else {
+        estimatedRelationships = count;
+      }
+      return;
+    }
+
+    matcher = MEMORY.matcher( line );
+    if ( matcher.find() ) {
+      memory = matcher.group( 1 );
+      return;
+    }
+
+    matcher = IMPORTED.matcher( line );
+    if ( matcher.matches() ) {
+      long count = Long.parseLong( matcher.group( 1 ) );
+      switch ( matcher.group( 2 ) ) {
+        case "nodes":
+          importedNodes = count;
+          break;
+        case "relationships":
+          importedRelationships = count;
+          break;
+        default:
+          importedProperties = count;
+          break;
+      }
+      return;
+    }
+
+    if ( DONE.matcher( line ).find() ) {
+      done = true;
+      lastProgressTime = now;
+      if ( stage != null ) {
+        percentage = 100;
+        updates.offer( createProgress( null, null, now ) );
+      }
+    }
+  }
+
+  /**
+   * Estimate the number of nodes and relationships processed so far from the progress of the stages
+   */
+  private void updateProcessedCounts() {
+    if ( stage.startsWith( "Node" ) ) {
+      processedNodes = Math.max( processedNodes, estimatedNodes * percentage / 100 );
+      return;
+    }
+    // The nodes are done once a later stage starts, the relationships once the post processing starts
+    //
+    processedNodes = Math.max( processedNodes, estimatedNodes );
+    if ( stage.startsWith( "Relationship" ) ) {
+      processedRelationships = Math.max( processedRelationships, estimatedRelationships * percentage / 100 );
+    } else {
+      processedRelationships = Math.max( processedRelationships, estimatedRelationships );
+    }
+  }
+
+  private ImportProgress createProgress( Double nodesPerSecond, Double relationshipsPerSecond, long now ) {
+    return new ImportProgress( stage, stageNr, stageCount, percentage, nodesPerSecond, relationshipsPerSecond, memory, now - startTime );
+  }
+
+  private static long parseCount( String number, String unit ) {
+    double value;
+    try {
+      value = Double.parseDouble( number.replace( ",", "" ) );
+    } catch ( NumberFormatException e ) {
+      return 0L;
+    }
+    switch ( unit ) {
+      case "k":
+      case "K":
+        value *= 1000.0;
+        break;
+      case "M":
+        value *= 1000000.0;
+        break;
+      case "G":
+        value *= 1000000000.0;
+        break;
+      case "T":
+        value *= 1000000000000.0;
+        break;
+      default:
+        break;
+    }
+    return Math.round( value );
+  }
+
+  /**
+   * Get the next progress update
+   *
+   * @return The next update or null if there are none
+   */
+  public ImportProgress poll() {
+    return updates.poll();
+  }
+
+  /**
+   * Gets lastProgressTime
+   *
+   * @return value of lastProgressTime, the time of the last stage change or progress update
+   */
+  public long getLastProgressTime() {
+    return lastProgressTime;
+  }
+
+  /**
+   * Gets stage
+   *
+   * @return value of stage, the last stage reported
+   */
+  public String getStage() {
+    return stage;
+  }
+
+  /**
+   * Gets the number of nodes processed so far: the number imported once that's reported, an estimate before that
+   *
+   * @return The number of processed nodes
+   */
+  public long getProcessedNodes() {
+    return importedNodes > 0 ? importedNodes : processedNodes;
+  }
+
+  /**
+   * Gets the number of relationships processed so far: the number imported once that's reported, an estimate before that
+   *
+   * @return The number of processed relationships
+   */
+  public long getProcessedRelationships() {
+    return importedRelationships > 0 ? importedRelationships : processedRelationships;
+  }
+
+  /**
+   * Gets importedNodes
+   *
+   * @return value of importedNodes
+   */
+  public long getImportedNodes() {
+    return importedNodes;
+  }
+
+  /**
+   * Gets importedRelationships
+   *
+   * @return value of importedRelationships
+   */
+  public long getImportedRelationships() {
+    return importedRelationships;
+  }
+
+  /**
+   * Gets importedProperties
+   *
+   * @return value of importedProperties
+   */
+  public long getImportedProperties() {
+    return importedProperties;
+  }
+
+  /**
+   * Gets done
+   *
+   * @return value of done, true if neo4j-admin reported the import as done
+   */
+  public boolean isDone() {
+    return done;
+  }
+}
@@ -1,10 +1,15 @@
 package org.neo4j.hop.transforms.importer;
 
+import org.neo4j.driver.Session;
+import org.neo4j.hop.shared.NeoConnection;
+import org.neo4j.hop.transforms.gencsv.FingerprintStore;
 import org.neo4j.hop.transforms.gencsv.StreamConsumer;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
@@ -15,9 +20,19 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 public class Importer extends BaseTransform<ImporterMeta, ImporterData> implements ITransform<ImporterMeta, ImporterData> {
 
+  private static final long PROGRESS_INTERVAL_MS = 500L;
+
+  /**
+   * The errors of a neo4j-admin version or edition which doesn't know the incremental import command
+   */
+  private static final Pattern UNSUPPORTED = Pattern.compile( "(?i)unmatched argument|unknown option|unrecognized|enterprise edition" );
+
   public Importer( TransformMeta transformMeta, ImporterMeta meta, ImporterData data, int copyNr, PipelineMeta pipelineMeta,
                    Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
@@ -27,8 +42,12 @@ public class Importer extends BaseTransform<ImporterMeta, ImporterData> implemen
 
     Object[] row = getRow();
     if ( row == null ) {
+      boolean written = true;
       if ( ( data.nodesFiles!=null && !data.nodesFiles.isEmpty() ) || ( data.relsFiles!=null && !data.relsFiles.isEmpty() ) ) {
-        runImport();
+        written = runImport();
+      }
+      if ( written && !isStopped() ) {
+        promoteFingerprints();
       }
       setOutputDone();
       return false;
@@ -39,6 +58,7 @@ public class Importer extends BaseTransform<ImporterMeta, ImporterData> implemen
 
       data.nodesFiles = new ArrayList<>();
       data.relsFiles = new ArrayList<>();
+      data.fingerprintFiles = new ArrayList<>();
 
       data.filenameFieldIndex = getInputRowMeta().indexOfValue( meta.getFilenameField() );
       if ( data.filenameFieldIndex < 0 ) {
@@ -69,6 +89,10 @@ public class Importer extends BaseTransform<ImporterMeta, ImporterData> implemen
 
       data.maxMemory = environmentSubstitute( meta.getMaxMemory() );
 
+      data.stallTimeoutMs = Const.toLong( environmentSubstitute( meta.getStallTimeout() ), 0L ) * 1000L;
+
+      data.outputRowMeta = getInputRowMeta().clone();
+      meta.getFields( data.outputRowMeta, getTransformName(), null, null, this, metadataProvider );
     }
 
     String filename = getInputRowMeta().getString( row, data.filenameFieldIndex );
@@ -91,30 +115,156 @@ public class Importer extends BaseTransform<ImporterMeta, ImporterData> implemen
         "E".equalsIgnoreCase( fileType ) ) {
         data.relsFiles.add( filename );
       }
+      if ( "Fingerprints".equalsIgnoreCase( fileType ) ) {
+        data.fingerprintFiles.add( filename );
+      }
     }
 
     // Pay it forward
     //
-    putRow( getInputRowMeta(), row );
+    putRow( data.outputRowMeta, RowDataUtil.resizeArray( row, data.outputRowMeta.size() ) );
 
     return true;
   }
 
 
-  private void runImport() throws HopException {
+  /**
+   * @return true if all the files are confirmed to be in the database
+   */
+  private boolean runImport() throws HopException {
 
-    // See if we need to delete the existing database folder...
-    //
-    String targetDbFolder = data.baseFolder + "data/databases/" + data.databaseFilename;
+    List<String> arguments;
+    if ( meta.isIncrementalImport() ) {
+      // neo4j-admin can only add nodes and relationships, the updated ones need to be merged
+      //
+      long updated = getUpdatedCount();
+      if ( updated > 0 ) {
+        if ( StringUtils.isEmpty( meta.getMergeConnection() ) ) {
+          throw new HopException( "The files contain " + updated + " updated nodes or relationships, neo4j-admin can only add them in an incremental import. "
+            + "Specify a merge connection to merge the changes." );
+        }
+        log.logBasic( "Merging " + updated + " updated nodes and relationships with batches of " + CsvMergeLoader.BATCH_SIZE + " rows" );
+        return mergeFiles();
+      }
+      arguments = getIncrementalImportArguments();
+    } else {
+      if ( !data.fingerprintFiles.isEmpty() ) {
+        throw new HopException( "The CSV files only contain the changes since the last run, these need an incremental import" );
+      }
+
+      // See if we need to delete the existing database folder...
+      //
+      String targetDbFolder = data.baseFolder + "data/databases/" + data.databaseFilename;
+      try {
+        if ( new File( targetDbFolder ).exists() ) {
+          log.logBasic( "Removing exsting folder: " + targetDbFolder );
+          FileUtils.deleteDirectory( new File( targetDbFolder ) );
+        }
+      } catch ( Exception e ) {
+        throw new HopException( "Unable to remove old database files from '" + targetDbFolder + "'", e );
+      }
+
+      arguments = getImportArguments();
+    }
+
+    StringBuffer command = new StringBuffer();
+    for ( String argument : arguments ) {
+      command.append( argument ).append( " " );
+    }
+    log.logBasic( "Running command : " + command );
+    log.logBasic( "Running from base folder: " + data.baseFolder );
+
+    ProcessBuilder pb = new ProcessBuilder( arguments );
+    pb.directory( new File( data.baseFolder ) );
+    ImportProgressParser progressParser = new ImportProgressParser();
+    AtomicReference<String> lastError = new AtomicReference<>();
+    AtomicBoolean unsupported = new AtomicBoolean( false );
+    int exitCode;
     try {
-      if ( new File( targetDbFolder ).exists() ) {
-        log.logBasic( "Removing exsting folder: " + targetDbFolder );
-        FileUtils.deleteDirectory( new File( targetDbFolder ) );
+      Process process = pb.start();
+
+      StreamConsumer errorConsumer = new StreamConsumer( getLogChannel(), process.getErrorStream(), LogLevel.ERROR, line -> {
+        lastError.set( line );
+        if ( UNSUPPORTED.matcher( line ).find() ) {
+          unsupported.set( true );
+        }
+      } );
+      errorConsumer.start();
+      StreamConsumer outputConsumer = new StreamConsumer( getLogChannel(), process.getInputStream(), LogLevel.BASIC, line -> {
+        progressParser.parseLine( line );
+        if ( UNSUPPORTED.matcher( line ).find() ) {
+          unsupported.set( true );
+        }
+      } );
+      outputConsumer.start();
+
+      boolean stalled = false;
+      boolean exited = process.waitFor( PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS );
+      while ( !exited && !isStopped() ) {
+        putProgressRows( progressParser );
+        setLinesOutput( progressParser.getProcessedNodes() + progressParser.getProcessedRelationships() );
+
+        // Report it once when the import doesn't move anymore
+        //
+        long idleMs = System.currentTimeMillis() - progressParser.getLastProgressTime();
+        if ( data.stallTimeoutMs > 0 && idleMs > data.stallTimeoutMs ) {
+          if ( !stalled ) {
+            log.logError( "neo4j-admin import made no progress for " + ( idleMs / 1000 ) + " seconds in stage '" + Const.NVL( progressParser.getStage(), "start" ) + "'" );
+            stalled = true;
+          }
+        } else {
+          stalled = false;
+        }
+
+        exited = process.waitFor( PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS );
       }
+      if ( !exited ) {
+        process.destroyForcibly();
+        return false;
+      }
+
+      // Make sure we have all the output
+      //
+      errorConsumer.join();
+      outputConsumer.join();
+      exitCode = process.exitValue();
     } catch ( Exception e ) {
-      throw new HopException( "Unable to remove old database files from '" + targetDbFolder + "'", e );
+      throw new HopException( "Error running command: " + arguments, e );
+    }
+
+    putProgressRows( progressParser );
+    setLinesOutput( progressParser.getImportedNodes() + progressParser.getImportedRelationships() );
+    log.logBasic( "Imported " + progressParser.getImportedNodes() + " nodes, " + progressParser.getImportedRelationships() + " relationships and "
+      + progressParser.getImportedProperties() + " properties" );
+
+    if ( exitCode != 0 && meta.isIncrementalImport() && unsupported.get() && StringUtils.isNotEmpty( meta.getMergeConnection() ) ) {
+      log.logBasic( "neo4j-admin can't do an incremental import, merging the files with batches of " + CsvMergeLoader.BATCH_SIZE + " rows instead" );
+      return mergeFiles();
+    }
+
+    if ( exitCode != 0 ) {
+      setErrors( 1L );
+      throw new HopException( "neo4j-admin import failed with exit code " + exitCode
+        + ( lastError.get() == null ? "" : ", last error: " + lastError.get() ) );
     }
+    return true;
+  }
 
+  /**
+   * @return The number of updated nodes and relationships in the change sets of the fingerprint files
+   */
+  private long getUpdatedCount() throws HopException {
+    long updated = 0L;
+    for ( String fingerprintFile : data.fingerprintFiles ) {
+      updated += FingerprintStore.readChangeCounts( new File( data.baseFolder, fingerprintFile ) )[ 1 ];
+    }
+    return updated;
+  }
+
+  /**
+   * The arguments for a full import into a new database
+   */
+  private List<String> getImportArguments() {
     List<String> arguments = new ArrayList<>();
 
     arguments.add( data.adminCommand );
@@ -140,33 +290,119 @@ public class Importer extends BaseTransform<ImporterMeta, ImporterData> implemen
     if (StringUtils.isNotEmpty( data.maxMemory)) {
       arguments.add("--max-memory="+data.maxMemory);
     }
+    return arguments;
+  }
 
-    StringBuffer command = new StringBuffer();
-    for ( String argument : arguments ) {
-      command.append( argument ).append( " " );
+  /**
+   * The arguments of neo4j-admin database import incremental (Neo4j 5) to add the files to the existing database.
+   * The options without an equivalent in this command are left out.
+   */
+  private List<String> getIncrementalImportArguments() {
+    List<String> arguments = new ArrayList<>();
+
+    arguments.add( data.adminCommand );
+    arguments.add( "database" );
+    arguments.add( "import" );
+    arguments.add( "incremental" );
+    arguments.add( "--force" );
+    arguments.add( "--stage=all" );
+    arguments.add( "--id-type=string" );
+    for ( String nodesFile : data.nodesFiles ) {
+      arguments.add( "--nodes=" + nodesFile );
     }
-    log.logBasic( "Running command : " + command );
-    log.logBasic( "Running from base folder: " + data.baseFolder );
+    for ( String relsFile : data.relsFiles ) {
+      arguments.add( "--relationships=" + relsFile );
+    }
+    arguments.add( "--report-file=" + data.reportFile );
+    arguments.add( "--high-parallel-io=" + ( meta.isHighIo() ? "on" : "off" ) );
+    arguments.add( "--skip-duplicate-nodes=" + ( meta.isIgnoringDuplicateNodes() ? "true" : "false" ) );
+    arguments.add( "--skip-bad-relationships=" + ( meta.isSkippingBadRelationships() ? "true" : "false" ) );
+    arguments.add( "--multiline-fields=" + ( meta.isMultiLine() ? "true" : "false" ) );
+    if ( StringUtils.isNotEmpty( data.readBufferSize ) ) {
+      arguments.add( "--read-buffer-size=" + data.readBufferSize );
+    }
+    if ( StringUtils.isNotEmpty( data.maxMemory ) ) {
+      arguments.add( "--max-off-heap-memory=" + data.maxMemory );
+    }
+    arguments.add( data.databaseFilename );
+    return arguments;
+  }
 
-    ProcessBuilder pb = new ProcessBuilder( arguments );
-    pb.directory( new File( data.baseFolder ) );
+  /**
+   * Merge the node files and then the relationship files into the database through the merge connection
+   *
+   * @return true if all the files were merged
+   */
+  private boolean mergeFiles() throws HopException {
+    NeoConnection connection;
+    String connectionName = environmentSubstitute( meta.getMergeConnection() );
     try {
-      Process process = pb.start();
-
-      StreamConsumer errorConsumer = new StreamConsumer( getLogChannel(), process.getErrorStream(), LogLevel.ERROR );
-      errorConsumer.start();
-      StreamConsumer outputConsumer = new StreamConsumer( getLogChannel(), process.getInputStream(), LogLevel.BASIC );
-      outputConsumer.start();
+      connection = metadataProvider.getSerializer( NeoConnection.class ).load( connectionName );
+    } catch ( Exception e ) {
+      throw new HopException( "Unable to load Neo4j connection '" + connectionName + "'", e );
+    }
+    if ( connection == null ) {
+      throw new HopException( "Neo4j connection '" + connectionName + "' could not be found in the metadata : " + metadataProvider.getDescription() );
+    }
+    connection.initializeVariablesFrom( this );
 
-      boolean exited = process.waitFor( 10, TimeUnit.MILLISECONDS );
-      while ( !exited && !isStopped() ) {
-        exited = process.waitFor( 10, TimeUnit.MILLISECONDS );
+    try ( Session session = connection.getSession( log ) ) {
+      CsvMergeLoader loader = new CsvMergeLoader( log, session, data.baseFolder, meta.isSkippingBadRelationships(), this::isStopped );
+      for ( String nodesFile : data.nodesFiles ) {
+        loader.mergeNodes( nodesFile );
       }
-      if ( !exited && isStopped() ) {
-        process.destroyForcibly();
+      for ( String relsFile : data.relsFiles ) {
+        loader.mergeRelationships( relsFile );
+      }
+      setLinesOutput( loader.getMergedNodes() + loader.getMergedRelationships() );
+      log.logBasic( "Merged " + loader.getMergedNodes() + " nodes and " + loader.getMergedRelationships() + " relationships" );
+      if ( loader.getSkippedRelationships() > 0 ) {
+        log.logBasic( "Skipped " + loader.getSkippedRelationships() + " relationships of which the start or end node couldn't be found" );
       }
+      return !isStopped();
+    } catch ( HopException e ) {
+      setErrors( 1L );
+      throw e;
     } catch ( Exception e ) {
-      throw new HopException( "Error running command: " + arguments, e );
+      setErrors( 1L );
+      throw new HopException( "Error merging the files through Neo4j connection '" + connectionName + "'", e );
+    }
+  }
+
+  /**
+   * The changes are in the database: the next run can compare with the fingerprints of this run
+   */
+  private void promoteFingerprints() throws HopException {
+    for ( String fingerprintFile : data.fingerprintFiles ) {
+      FingerprintStore.promotePending( new File( data.baseFolder, fingerprintFile ) );
+      if ( log.isDetailed() ) {
+        log.logDetailed( "Promoted fingerprint store '" + fingerprintFile + "'" );
+      }
+    }
+  }
+
+  /**
+   * Log the progress updates and pass them to the next transforms if needed
+   */
+  private void putProgressRows( ImportProgressParser progressParser ) throws HopException {
+    ImportProgress progress = progressParser.poll();
+    while ( progress != null ) {
+      if ( log.isDetailed() ) {
+        log.logDetailed( progress.toString() );
+      }
+      if ( meta.isOutputtingProgress() ) {
+        Object[] progressRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+        int index = getInputRowMeta().size();
+        progressRow[ index++ ] = progress.getStage();
+        progressRow[ index++ ] = (long) progress.getStageNr();
+        progressRow[ index++ ] = (long) progress.getPercentage();
+        progressRow[ index++ ] = progress.getNodesPerSecond();
+        progressRow[ index++ ] = progress.getRelationshipsPerSecond();
+        progressRow[ index++ ] = progress.getMemory();
+        progressRow[ index ] = progress.getElapsedMs();
+        putRow( data.outputRowMeta, progressRow );
+      }
+      progress = progressParser.poll();
     }
   }
 }
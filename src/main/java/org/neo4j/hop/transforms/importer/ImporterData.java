@@ -1,5 +1,6 @@
 package org.neo4j.hop.transforms.importer;
 
+import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
@@ -9,6 +10,7 @@ public class ImporterData extends BaseTransformData implements ITransformData {
 
   public List<String> nodesFiles;
   public List<String> relsFiles;
+  public List<String> fingerprintFiles;
 
   public String importFolder;
   public String adminCommand;
@@ -21,4 +23,7 @@ public class ImporterData extends BaseTransformData implements ITransformData {
   public int fileTypeFieldIndex;
   public String readBufferSize;
   public String maxMemory;
+
+  public IRowMeta outputRowMeta;
+  public long stallTimeoutMs;
 }
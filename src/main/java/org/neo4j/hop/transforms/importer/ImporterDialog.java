@@ -7,6 +7,8 @@ import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransformMeta;
 import org.apache.hop.pipeline.transform.ITransformDialog;
+import org.apache.hop.ui.core.dialog.ErrorDialog;
+import org.apache.hop.ui.core.widget.MetaSelectionLine;
 import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.hopgui.HopGui;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
@@ -29,6 +31,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
+import org.neo4j.hop.shared.NeoConnection;
 import org.neo4j.hop.transforms.importer.ImporterMeta;
 
 public class ImporterDialog extends BaseTransformDialog implements ITransformDialog {
@@ -50,6 +53,10 @@ public class ImporterDialog extends BaseTransformDialog implements ITransformDia
   private Button wMultiLine;
   private Button wSkipBadRelationships;
   private TextVar wReadBufferSize;
+  private Button wOutputtingProgress;
+  private TextVar wStallTimeout;
+  private Button wIncrementalImport;
+  private MetaSelectionLine<NeoConnection> wMergeConnection;
 
   private ImporterMeta input;
 
@@ -384,6 +391,84 @@ public class ImporterDialog extends BaseTransformDialog implements ITransformDia
     wReadBufferSize.setLayoutData( fdReadBufferSize );
     lastControl = wReadBufferSize;
 
+    // Pass the progress of the import to the next transforms
+    //
+    Label wlOutputtingProgress = new Label( wComposite, SWT.RIGHT );
+    wlOutputtingProgress.setText( "Output progress rows? " );
+    props.setLook( wlOutputtingProgress );
+    FormData fdlOutputtingProgress = new FormData();
+    fdlOutputtingProgress.left = new FormAttachment( 0, 0 );
+    fdlOutputtingProgress.right = new FormAttachment( middle, -margin );
+    fdlOutputtingProgress.top = new FormAttachment( lastControl, 2 * margin );
+    wlOutputtingProgress.setLayoutData( fdlOutputtingProgress );
+    wOutputtingProgress = new Button( wComposite, SWT.CHECK | SWT.LEFT );
+    props.setLook( wOutputtingProgress );
+    FormData fdOutputtingProgress = new FormData();
+    fdOutputtingProgress.left = new FormAttachment( middle, 0 );
+    fdOutputtingProgress.right = new FormAttachment( 100, 0 );
+    fdOutputtingProgress.top = new FormAttachment( wlOutputtingProgress, 0, SWT.CENTER );
+    wOutputtingProgress.setLayoutData( fdOutputtingProgress );
+    lastControl = wOutputtingProgress;
+
+    // Report an error when the import doesn't make progress for this many seconds
+    //
+    Label wlStallTimeout = new Label( wComposite, SWT.RIGHT );
+    wlStallTimeout.setText( "Report stall after (seconds) " );
+    props.setLook( wlStallTimeout );
+    FormData fdlStallTimeout = new FormData();
+    fdlStallTimeout.left = new FormAttachment( 0, 0 );
+    fdlStallTimeout.right = new FormAttachment( middle, -margin );
+    fdlStallTimeout.top = new FormAttachment( lastControl, 2 * margin );
+    wlStallTimeout.setLayoutData( fdlStallTimeout );
+    wStallTimeout = new TextVar( pipelineMeta, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wStallTimeout );
+    wStallTimeout.addModifyListener( lsMod );
+    FormData fdStallTimeout = new FormData();
+    fdStallTimeout.left = new FormAttachment( middle, 0 );
+    fdStallTimeout.right = new FormAttachment( 100, 0 );
+    fdStallTimeout.top = new FormAttachment( wlStallTimeout, 0, SWT.CENTER );
+    wStallTimeout.setLayoutData( fdStallTimeout );
+    lastControl = wStallTimeout;
+
+    // Add the files to the existing database instead of replacing it
+    //
+    Label wlIncrementalImport = new Label( wComposite, SWT.RIGHT );
+    wlIncrementalImport.setText( "Incremental import? " );
+    props.setLook( wlIncrementalImport );
+    FormData fdlIncrementalImport = new FormData();
+    fdlIncrementalImport.left = new FormAttachment( 0, 0 );
+    fdlIncrementalImport.right = new FormAttachment( middle, -margin );
+    fdlIncrementalImport.top = new FormAttachment( lastControl, 2 * margin );
+    wlIncrementalImport.setLayoutData( fdlIncrementalImport );
+    wIncrementalImport = new Button( wComposite, SWT.CHECK | SWT.LEFT );
+    wIncrementalImport.setToolTipText( "Run neo4j-admin database import incremental on the existing database instead of replacing it with a full import" );
+    props.setLook( wIncrementalImport );
+    FormData fdIncrementalImport = new FormData();
+    fdIncrementalImport.left = new FormAttachment( middle, 0 );
+    fdIncrementalImport.right = new FormAttachment( 100, 0 );
+    fdIncrementalImport.top = new FormAttachment( wlIncrementalImport, 0, SWT.CENTER );
+    wIncrementalImport.setLayoutData( fdIncrementalImport );
+    wIncrementalImport.addListener( SWT.Selection, e -> enableFields() );
+    lastControl = wIncrementalImport;
+
+    // When neo4j-admin can't do incremental imports the files are merged through this connection
+    //
+    wMergeConnection = new MetaSelectionLine<>( pipelineMeta, metadataProvider, NeoConnection.class, wComposite, SWT.SINGLE | SWT.LEFT | SWT.BORDER,
+      "Fallback MERGE connection", "The Neo4j connection to MERGE the files with in batches when neo4j-admin can't do an incremental import" );
+    props.setLook( wMergeConnection );
+    wMergeConnection.addModifyListener( lsMod );
+    FormData fdMergeConnection = new FormData();
+    fdMergeConnection.left = new FormAttachment( 0, 0 );
+    fdMergeConnection.right = new FormAttachment( 100, 0 );
+    fdMergeConnection.top = new FormAttachment( lastControl, margin );
+    wMergeConnection.setLayoutData( fdMergeConnection );
+    try {
+      wMergeConnection.fillItems();
+    } catch ( Exception e ) {
+      new ErrorDialog( shell, "Error", "Error getting list of connections", e );
+    }
+    lastControl = wMergeConnection;
+
 
     // Some buttons
     wOk = new Button( wComposite, SWT.PUSH );
@@ -424,6 +509,7 @@ public class ImporterDialog extends BaseTransformDialog implements ITransformDia
     wBaseFolder.addSelectionListener( lsDef );
     wMaxMemory.addSelectionListener( lsDef );
     wReadBufferSize.addSelectionListener( lsDef );
+    wStallTimeout.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -471,7 +557,16 @@ public class ImporterDialog extends BaseTransformDialog implements ITransformDia
     wSkipBadRelationships.setSelection( input.isSkippingBadRelationships() );
     wMultiLine.setSelection( input.isMultiLine() );
     wReadBufferSize.setText( Const.NVL( input.getReadBufferSize(), "" ) );
+    wOutputtingProgress.setSelection( input.isOutputtingProgress() );
+    wStallTimeout.setText( Const.NVL( input.getStallTimeout(), "" ) );
+    wIncrementalImport.setSelection( input.isIncrementalImport() );
+    wMergeConnection.setText( Const.NVL( input.getMergeConnection(), "" ) );
+
+    enableFields();
+  }
 
+  private void enableFields() {
+    wMergeConnection.setEnabled( wIncrementalImport.getSelection() );
   }
 
   private void ok() {
@@ -497,6 +592,10 @@ public class ImporterDialog extends BaseTransformDialog implements ITransformDia
     meta.setSkippingBadRelationships( wSkipBadRelationships.getSelection() );
     meta.setMultiLine( wMultiLine.getSelection() );
     meta.setReadBufferSize( wReadBufferSize.getText() );
+    meta.setOutputtingProgress( wOutputtingProgress.getSelection() );
+    meta.setStallTimeout( wStallTimeout.getText() );
+    meta.setIncrementalImport( wIncrementalImport.getSelection() );
+    meta.setMergeConnection( wMergeConnection.getText() );
   }
 
 }
@@ -5,6 +5,10 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopXmlException;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
@@ -39,6 +43,18 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
   public static final String MULTI_LINE = "multi_line";
   public static final String SKIP_BAD_RELATIONSHIPS = "skip_bad_relationships";
   public static final String READ_BUFFER_SIZE = "read_buffer_size";
+  public static final String OUTPUTTING_PROGRESS = "outputting_progress";
+  public static final String STALL_TIMEOUT = "stall_timeout";
+  public static final String INCREMENTAL_IMPORT = "incremental_import";
+  public static final String MERGE_CONNECTION = "merge_connection";
+
+  public static final String FIELD_STAGE = "import_stage";
+  public static final String FIELD_STAGE_NR = "import_stage_nr";
+  public static final String FIELD_PERCENTAGE = "import_percentage";
+  public static final String FIELD_NODES_PER_SECOND = "import_nodes_per_second";
+  public static final String FIELD_RELATIONSHIPS_PER_SECOND = "import_relationships_per_second";
+  public static final String FIELD_MEMORY = "import_memory";
+  public static final String FIELD_ELAPSED_MS = "import_elapsed_ms";
 
   protected String filenameField;
   protected String fileTypeField;
@@ -54,7 +70,10 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
   protected boolean multiLine;
   protected boolean skippingBadRelationships;
   protected String readBufferSize;
-
+  protected boolean outputtingProgress;
+  protected String stallTimeout;
+  protected boolean incrementalImport;
+  protected String mergeConnection;
 
   @Override public void setDefault() {
     databaseFilename = "graph.db";
@@ -62,11 +81,32 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
     baseFolder = "/var/lib/neo4j/";
     reportFile = "import.report";
     readBufferSize = "4M";
+    outputtingProgress = false;
+    stallTimeout = "600";
+    incrementalImport = false;
   }
 
   @Override public void getFields( IRowMeta inputRowMeta, String name, IRowMeta[] info, TransformMeta nextStep, IVariables space, IHopMetadataProvider metadataProvider )
     throws HopTransformException {
     // No fields are added by default
+    //
+    if ( outputtingProgress ) {
+      // The progress of the import is reported in extra rows after the input rows
+      //
+      IValueMeta[] progressValueMetas = new IValueMeta[] {
+        new ValueMetaString( FIELD_STAGE ),
+        new ValueMetaInteger( FIELD_STAGE_NR ),
+        new ValueMetaInteger( FIELD_PERCENTAGE ),
+        new ValueMetaNumber( FIELD_NODES_PER_SECOND ),
+        new ValueMetaNumber( FIELD_RELATIONSHIPS_PER_SECOND ),
+        new ValueMetaString( FIELD_MEMORY ),
+        new ValueMetaInteger( FIELD_ELAPSED_MS ),
+      };
+      for ( IValueMeta valueMeta : progressValueMetas ) {
+        valueMeta.setOrigin( name );
+        inputRowMeta.addValueMeta( valueMeta );
+      }
+    }
   }
 
   @Override public String getXml() throws HopException {
@@ -85,6 +125,10 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
     xml.append( XmlHandler.addTagValue( MULTI_LINE, multiLine ) );
     xml.append( XmlHandler.addTagValue( SKIP_BAD_RELATIONSHIPS, skippingBadRelationships ) );
     xml.append( XmlHandler.addTagValue( READ_BUFFER_SIZE, readBufferSize ) );
+    xml.append( XmlHandler.addTagValue( OUTPUTTING_PROGRESS, outputtingProgress ) );
+    xml.append( XmlHandler.addTagValue( STALL_TIMEOUT, stallTimeout ) );
+    xml.append( XmlHandler.addTagValue( INCREMENTAL_IMPORT, incrementalImport ) );
+    xml.append( XmlHandler.addTagValue( MERGE_CONNECTION, mergeConnection ) );
     return xml.toString();
   }
 
@@ -103,6 +147,10 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
     multiLine = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, MULTI_LINE ) );
     skippingBadRelationships = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, SKIP_BAD_RELATIONSHIPS ) );
     readBufferSize = XmlHandler.getTagValue( transformNode, READ_BUFFER_SIZE );
+    outputtingProgress = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, OUTPUTTING_PROGRESS ) );
+    stallTimeout = XmlHandler.getTagValue( transformNode, STALL_TIMEOUT );
+    incrementalImport = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, INCREMENTAL_IMPORT ) );
+    mergeConnection = XmlHandler.getTagValue( transformNode, MERGE_CONNECTION );
   }
 
 
@@ -337,4 +385,68 @@ public class ImporterMeta extends BaseTransformMeta implements ITransformMeta<Im
   public void setReadBufferSize( String readBufferSize ) {
     this.readBufferSize = readBufferSize;
   }
+
+  /**
+   * Gets outputtingProgress
+   *
+   * @return value of outputtingProgress
+   */
+  public boolean isOutputtingProgress() {
+    return outputtingProgress;
+  }
+
+  /**
+   * @param outputtingProgress The outputtingProgress to set
+   */
+  public void setOutputtingProgress( boolean outputtingProgress ) {
+    this.outputtingProgress = outputtingProgress;
+  }
+
+  /**
+   * Gets stallTimeout
+   *
+   * @return value of stallTimeout in seconds
+   */
+  public String getStallTimeout() {
+    return stallTimeout;
+  }
+
+  /**
+   * @param stallTimeout The stallTimeout to set
+   */
+  public void setStallTimeout( String stallTimeout ) {
+    this.stallTimeout = stallTimeout;
+  }
+
+  /**
+   * Gets incrementalImport
+   *
+   * @return value of incrementalImport, true if the files are added to the existing database instead of replacing it
+   */
+  public boolean isIncrementalImport() {
+    return incrementalImport;
+  }
+
+  /**
+   * @param incrementalImport The incrementalImport to set
+   */
+  public void setIncrementalImport( boolean incrementalImport ) {
+    this.incrementalImport = incrementalImport;
+  }
+
+  /**
+   * Gets mergeConnection
+   *
+   * @return value of mergeConnection, the Neo4j connection to merge the files with when neo4j-admin can't do an incremental import
+   */
+  public String getMergeConnection() {
+    return mergeConnection;
+  }
+
+  /**
+   * @param mergeConnection The mergeConnection to set
+   */
+  public void setMergeConnection( String mergeConnection ) {
+    this.mergeConnection = mergeConnection;
+  }
 }
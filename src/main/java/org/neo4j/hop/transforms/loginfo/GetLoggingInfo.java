@@ -37,6 +37,7 @@ import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
 import org.neo4j.hop.logging.Defaults;
 import org.neo4j.hop.logging.util.LoggingCore;
+import org.neo4j.hop.logging.util.LoggingSink;
 import org.neo4j.hop.shared.NeoConnection;
 
 import java.text.ParseException;
@@ -114,6 +115,25 @@ public class GetLoggingInfo extends BaseTransform<GetLoggingInfoMeta, GetLogging
           row[ index ] = getPreviousWorkflowSuccess( argument );
           break;
 
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_ROWS:
+          row[ index ] = getLoggingSink().getSpool().getRows();
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_SIZE:
+          row[ index ] = getLoggingSink().getSpool().getSizeBytes();
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_MAX_SIZE:
+          row[ index ] = getLoggingSink().getSpool().getMaxSizeBytes();
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_DROPPED_ROWS:
+          row[ index ] = getLoggingSink().getSpool().getDroppedRows();
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_REPLAYED_ROWS:
+          row[ index ] = getLoggingSink().getReplayedRows();
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_REPLAY_ROWS_PER_SECOND:
+          row[ index ] = getLoggingSink().getReplayRowsPerSecond();
+          break;
+
         default:
           break;
       }
@@ -192,6 +212,14 @@ public class GetLoggingInfo extends BaseTransform<GetLoggingInfoMeta, GetLogging
     super.dispose();
   }
 
+  private LoggingSink getLoggingSink() throws Exception {
+    final NeoConnection connection = LoggingCore.getConnection( getPipeline().getMetadataProvider(), getPipeline() );
+    if ( connection == null ) {
+      throw new HopException( "Unable to find logging Neo4j connection (variable " + Defaults.VARIABLE_NEO4J_LOGGING_CONNECTION + ")" );
+    }
+    return LoggingSink.getSink( connection );
+  }
+
   private Date getPreviousPipelineExecution( String pipelineName ) throws Exception {
 
     final NeoConnection connection = LoggingCore.getConnection( getPipeline().getMetadataProvider(), getPipeline() );
@@ -33,7 +33,9 @@ import org.apache.hop.core.injection.InjectionSupported;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNone;
+import org.apache.hop.core.row.value.ValueMetaNumber;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.xml.XmlHandler;
 import org.apache.hop.i18n.BaseMessages;
@@ -195,6 +197,16 @@ public class GetLoggingInfoMeta extends BaseTransformMeta implements ITransformM
         case TYPE_SYSTEM_INFO_WORKFLOW_PREVIOUS_SUCCESS_DATE:
           v = new ValueMetaDate( fieldName[ i ] );
           break;
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_ROWS:
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_SIZE:
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_MAX_SIZE:
+        case TYPE_SYSTEM_INFO_LOGGING_SPOOL_DROPPED_ROWS:
+        case TYPE_SYSTEM_INFO_LOGGING_REPLAYED_ROWS:
+          v = new ValueMetaInteger( fieldName[ i ] );
+          break;
+        case TYPE_SYSTEM_INFO_LOGGING_REPLAY_ROWS_PER_SECOND:
+          v = new ValueMetaNumber( fieldName[ i ] );
+          break;
         default:
           v = new ValueMetaNone( fieldName[ i ] );
           break;
@@ -36,6 +36,13 @@ public enum GetLoggingInfoTypes {
   TYPE_SYSTEM_INFO_WORKFLOW_DATE_TO( "Specified workflow: End of date range", "Types.Desc.WorkflowEndDateRange" ),
   TYPE_SYSTEM_INFO_WORKFLOW_PREVIOUS_EXECUTION_DATE( "Specified workflow: Previous execution date", "Types.Desc.WorkflowPreviousExecutionDate" ),
   TYPE_SYSTEM_INFO_WORKFLOW_PREVIOUS_SUCCESS_DATE( "Specified workflow: Previous success date", "Types.Desc.WorkflowPreviousSuccessDate" ),
+
+  TYPE_SYSTEM_INFO_LOGGING_SPOOL_ROWS( "Logging spool: rows waiting", "Types.Desc.LoggingSpoolRows" ),
+  TYPE_SYSTEM_INFO_LOGGING_SPOOL_SIZE( "Logging spool: size in bytes", "Types.Desc.LoggingSpoolSize" ),
+  TYPE_SYSTEM_INFO_LOGGING_SPOOL_MAX_SIZE( "Logging spool: maximum size in bytes", "Types.Desc.LoggingSpoolMaxSize" ),
+  TYPE_SYSTEM_INFO_LOGGING_SPOOL_DROPPED_ROWS( "Logging spool: dropped rows", "Types.Desc.LoggingSpoolDroppedRows" ),
+  TYPE_SYSTEM_INFO_LOGGING_REPLAYED_ROWS( "Logging spool: replayed rows", "Types.Desc.LoggingReplayedRows" ),
+  TYPE_SYSTEM_INFO_LOGGING_REPLAY_ROWS_PER_SECOND( "Logging spool: replayed rows per second", "Types.Desc.LoggingReplayRowsPerSecond" ),
   ;
 
   private String code;
@@ -13,7 +13,6 @@ import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
-import org.neo4j.driver.Result;
 import org.neo4j.driver.summary.Notification;
 import org.neo4j.driver.summary.ResultSummary;
 import org.neo4j.hop.core.GraphUsage;
@@ -22,6 +21,8 @@ import org.neo4j.hop.core.data.GraphNodeData;
 import org.neo4j.hop.core.data.GraphPropertyData;
 import org.neo4j.hop.core.data.GraphPropertyDataType;
 import org.neo4j.hop.core.data.GraphRelationshipData;
+import org.neo4j.hop.core.data.GraphSymbols;
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.model.GraphPropertyType;
 import org.neo4j.hop.shared.NeoConnection;
 import org.neo4j.hop.shared.NeoConnectionUtils;
@@ -32,13 +33,21 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-
+/**
+ * Writes the 'from' node, the 'to' node and the relationship between them for every input row.
+ * <p>
+ * With more than one writer thread the rows are partitioned and every partition is written on its own session, see
+ * {@link #createPartitionWriters()}. The rows of one partition are written in input order but the partitions commit
+ * independently: when both nodes are merged a 'to' node shared by rows of different partitions gets its properties
+ * set in the order the partitions commit, so the last input row doesn't necessarily win.
+ */
 public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputData> implements ITransform<Neo4JOutputMeta, Neo4JOutputData> {
 
   private static Class<?> PKG = Neo4JOutput.class; // for i18n purposes, needed by Translator2!!
@@ -65,12 +74,14 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       data.fieldNames = data.outputRowMeta.getFieldNames();
       data.fromNodePropIndexes = new int[ meta.getFromNodeProps().length ];
       data.fromNodePropTypes = new GraphPropertyType[ meta.getFromNodeProps().length ];
+      data.fromNodePropConverters = new GraphPropertyConverter[ meta.getFromNodeProps().length ];
       for ( int i = 0; i < meta.getFromNodeProps().length; i++ ) {
         data.fromNodePropIndexes[ i ] = data.outputRowMeta.indexOfValue( meta.getFromNodeProps()[ i ] );
         if ( data.fromNodePropIndexes[ i ] < 0 ) {
           throw new HopException( "From node: Unable to find field '" + meta.getFromNodeProps()[ i ] + "' for property name '" + meta.getFromNodePropNames()[ i ] + "'" );
         }
         data.fromNodePropTypes[ i ] = GraphPropertyType.parseCode( meta.getFromNodePropTypes()[ i ] );
+        data.fromNodePropConverters[ i ] = data.fromNodePropTypes[ i ].getConverter( getInputRowMeta().getValueMeta( data.fromNodePropIndexes[ i ] ) );
       }
       data.fromNodeLabelIndexes = new int[ meta.getFromNodeLabels().length ];
       for ( int i = 0; i < meta.getFromNodeLabels().length; i++ ) {
@@ -81,9 +92,13 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       }
       data.toNodePropIndexes = new int[ meta.getToNodeProps().length ];
       data.toNodePropTypes = new GraphPropertyType[ meta.getToNodeProps().length ];
+      data.toNodePropConverters = new GraphPropertyConverter[ meta.getToNodeProps().length ];
       for ( int i = 0; i < meta.getToNodeProps().length; i++ ) {
         data.toNodePropIndexes[ i ] = data.outputRowMeta.indexOfValue( meta.getToNodeProps()[ i ] );
         data.toNodePropTypes[ i ] = GraphPropertyType.parseCode( meta.getToNodePropTypes()[ i ] );
+        if ( data.toNodePropIndexes[ i ] >= 0 ) {
+          data.toNodePropConverters[ i ] = data.toNodePropTypes[ i ].getConverter( getInputRowMeta().getValueMeta( data.toNodePropIndexes[ i ] ) );
+        }
       }
       data.toNodeLabelIndexes = new int[ meta.getToNodeLabels().length ];
       for ( int i = 0; i < meta.getToNodeLabels().length; i++ ) {
@@ -94,9 +109,13 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       }
       data.relPropIndexes = new int[ meta.getRelProps().length ];
       data.relPropTypes = new GraphPropertyType[ meta.getRelProps().length ];
+      data.relPropConverters = new GraphPropertyConverter[ meta.getRelProps().length ];
       for ( int i = 0; i < meta.getRelProps().length; i++ ) {
         data.relPropIndexes[ i ] = data.outputRowMeta.indexOfValue( meta.getRelProps()[ i ] );
         data.relPropTypes[ i ] = GraphPropertyType.parseCode( meta.getRelPropTypes()[ i ] );
+        if ( data.relPropIndexes[ i ] >= 0 ) {
+          data.relPropConverters[ i ] = data.relPropTypes[ i ].getConverter( getInputRowMeta().getValueMeta( data.relPropIndexes[ i ] ) );
+        }
       }
       data.relationshipIndex = data.outputRowMeta.indexOfValue( meta.getRelationship() );
       data.fromLabelValues = new String[ meta.getFromNodeLabelValues().length ];
@@ -109,16 +128,13 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       }
       data.relationshipLabelValue = environmentSubstitute( meta.getRelationshipValue() );
 
-      data.unwindList = new ArrayList<>();
+      data.unwindGroups = new LinkedHashMap<>();
+      data.symbols = new GraphSymbols();
 
       data.dynamicFromLabels = determineDynamicLabels( meta.getFromNodeLabels() );
       data.dynamicToLabels = determineDynamicLabels( meta.getToNodeLabels() );
       data.dynamicRelLabel = StringUtils.isNotEmpty( meta.getRelationship() );
 
-      data.previousFromLabelsClause = null;
-      data.previousToLabelsClause = null;
-      data.previousRelationshipLabel = null;
-
       // Calculate the operation types
       //
       data.fromOperationType = OperationType.MERGE;
@@ -154,6 +170,15 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       //
       if ( meta.isReturningGraph() ) {
         log.logBasic( "Writing to output graph field, not to Neo4j" );
+
+        // The graph property types only depend on the Hop types of the fields: convert with the same converters every row
+        //
+        data.fromNodeGraphTypes = getGraphPropertyDataTypes( getInputRowMeta(), data.fromNodePropIndexes );
+        data.fromNodeGraphConverters = getGraphPropertyConverters( getInputRowMeta(), data.fromNodePropIndexes, data.fromNodeGraphTypes );
+        data.toNodeGraphTypes = getGraphPropertyDataTypes( getInputRowMeta(), data.toNodePropIndexes );
+        data.toNodeGraphConverters = getGraphPropertyConverters( getInputRowMeta(), data.toNodePropIndexes, data.toNodeGraphTypes );
+        data.relGraphTypes = getGraphPropertyDataTypes( getInputRowMeta(), data.relPropIndexes );
+        data.relGraphConverters = getGraphPropertyConverters( getInputRowMeta(), data.relPropIndexes, data.relGraphTypes );
       } else {
         data.session = data.neoConnection.getSession( log );
 
@@ -167,6 +192,12 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
             return false;
           }
         }
+
+        // After the indexes: the partitioned writers can rely on the constraints these create
+        //
+        if ( data.writerThreads > 1 ) {
+          createPartitionWriters();
+        }
       }
     }
 
@@ -177,10 +208,9 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
 
     } else {
 
-      boolean changedLabel = calculateLabelsAndDetectChanges( row );
-      if ( changedLabel ) {
-        emptyUnwindList( changedLabel );
-      }
+      // Rows with different labels or relationship types are buffered separately, each with their own cypher
+      //
+      UnwindGroup group = calculateUnwindGroup( row );
 
       // Add rows to the unwind list.  Just put all the properties from the nodes and relationship in there
       // This could lead to property name collisions so we prepend the properties in the list with alias and underscore
@@ -188,35 +218,144 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       Map<String, Object> propsMap = new HashMap<>();
 
       if ( data.fromOperationType != OperationType.NONE ) {
-        addPropertiesToMap( propsMap, "f", data.fromNodePropIndexes, getInputRowMeta(), row, meta.getFromNodePropNames(), data.fromNodePropTypes );
+        addPropertiesToMap( propsMap, data.fromNodePropIndexes, getInputRowMeta(), row, data.fromNodePropConverters );
       }
       if ( data.toOperationType != OperationType.NONE ) {
-        addPropertiesToMap( propsMap, "t", data.toNodePropIndexes, getInputRowMeta(), row, meta.getToNodePropNames(), data.toNodePropTypes );
+        addPropertiesToMap( propsMap, data.toNodePropIndexes, getInputRowMeta(), row, data.toNodePropConverters );
       }
       if ( data.relOperationType != OperationType.NONE ) {
-        addPropertiesToMap( propsMap, "r", data.relPropIndexes, getInputRowMeta(), row, meta.getRelPropNames(), data.relPropTypes );
+        addPropertiesToMap( propsMap, data.relPropIndexes, getInputRowMeta(), row, data.relPropConverters );
       }
-      data.unwindList.add( propsMap );
+      if ( data.partitionWriters != null ) {
+        int partition = calculatePartition( getInputRowMeta(), row );
+        List<Map<String, Object>> partitionList = group.getPartitionLists().get( partition );
+        partitionList.add( propsMap );
 
-      if ( data.unwindList.size() >= data.batchSize ) {
-        emptyUnwindList( changedLabel );
+        if ( partitionList.size() >= data.batchSize ) {
+          flushPartition( group, partition );
+        }
+      } else {
+        group.getUnwindList().add( propsMap );
+
+        if ( group.getUnwindList().size() >= data.batchSize ) {
+          emptyUnwindList( group );
+        }
       }
 
       // Simply pass on the current row .
       //
       putRow( data.outputRowMeta, row );
-
-      // Remember the previous labels
-      //
-      data.previousFromLabelsClause = data.fromLabelsClause;
-      data.previousToLabelsClause = data.toLabelsClause;
-      data.previousRelationshipLabel = data.relationshipLabel;
     }
     return true;
   }
 
-  private void addPropertiesToMap( Map<String, Object> rowMap, String alias, int[] nodePropIndexes, IRowMeta rowMeta, Object[] row, String[] nodePropNames,
-                                   GraphPropertyType[] propertyTypes )
+  /**
+   * Set up one unwind buffer, session and writer thread per partition.
+   * Every node or relationship merged by two sessions at the same time could be created twice so the rows are partitioned
+   * on the primary properties of the merged node: the 'to' node if only that one is merged, otherwise the 'from' node.
+   * Relationships always end up in the partition of their merged node.
+   * If both nodes are merged the 'to' node needs a uniqueness or node key constraint on its primary properties.
+   * A 'to' node which is only matched can't be written by another partition: that partition might not have committed
+   * the node yet and the relationship would silently not be created.
+   * Deadlocks between the sessions are transient errors, the write transactions retry these.
+   */
+  private void createPartitionWriters() throws HopException {
+    boolean fromMerged = data.fromOperationType == OperationType.MERGE;
+    boolean toMerged = data.toOperationType == OperationType.MERGE;
+
+    if ( data.toOperationType == OperationType.MATCH && ( fromMerged || data.fromOperationType == OperationType.CREATE ) ) {
+      throw new HopException( "Writing with multiple threads isn't possible when the 'to' node is only matched while the 'from' node is written: "
+        + "a 'to' node written as a 'from' node by another thread might not be committed yet, use a single writer thread" );
+    }
+
+    List<Integer> keyIndexes = new ArrayList<>();
+    if ( data.fromOperationType != OperationType.NONE && !( toMerged && !fromMerged ) ) {
+      addPrimaryIndexes( keyIndexes, data.fromNodePropIndexes, meta.getFromNodePropPrimary() );
+    }
+    if ( keyIndexes.isEmpty() && data.toOperationType != OperationType.NONE ) {
+      addPrimaryIndexes( keyIndexes, data.toNodePropIndexes, meta.getToNodePropPrimary() );
+    }
+    if ( keyIndexes.isEmpty() ) {
+      throw new HopException( "Writing with multiple threads requires primary properties on the 'from' or 'to' node" );
+    }
+    if ( fromMerged && toMerged ) {
+      verifyUniqueConstraint( meta.getToNodeLabels(), data.toLabelValues, meta.getToNodeProps(), meta.getToNodePropNames(), meta.getToNodePropPrimary() );
+    }
+    data.partitionKeyIndexes = new int[ keyIndexes.size() ];
+    for ( int i = 0; i < keyIndexes.size(); i++ ) {
+      data.partitionKeyIndexes[ i ] = keyIndexes.get( i );
+    }
+
+    data.partitionWriters = new UnwindPartitionWriter[ data.writerThreads ];
+    for ( int partition = 0; partition < data.writerThreads; partition++ ) {
+      data.partitionWriters[ partition ] = new UnwindPartitionWriter( getTransformName() + " writer " + partition, data.neoConnection.getSession( log ) );
+    }
+    log.logBasic( "Writing to Neo4j with " + data.writerThreads + " partitioned writer threads" );
+  }
+
+  /**
+   * The 'to' node is merged by every writer: make sure that a constraint prevents duplicates.
+   */
+  private void verifyUniqueConstraint( String[] nodeLabelFields, String[] nodeLabelValues, String[] nodeProps, String[] nodePropNames, boolean[] nodePropPrimary )
+    throws HopException {
+    String advice = ", or use a single writer thread";
+    if ( determineDynamicLabels( nodeLabelFields ) ) {
+      throw new HopException( "Writing with multiple threads while merging both nodes requires static labels for the 'to' node" + advice );
+    }
+    List<String> primaryProperties = new ArrayList<>();
+    for ( int i = 0; i < nodeProps.length; i++ ) {
+      if ( nodePropPrimary[ i ] ) {
+        primaryProperties.add( StringUtils.isNotEmpty( nodePropNames[ i ] ) ? nodePropNames[ i ] : nodeProps[ i ] );
+      }
+    }
+    for ( String label : nodeLabelValues ) {
+      if ( StringUtils.isNotEmpty( label ) && NeoConnectionUtils.hasUniqueConstraint( data.session, label, primaryProperties ) ) {
+        return;
+      }
+    }
+    throw new HopException( "Writing with multiple threads while merging both nodes requires a uniqueness or node key constraint on the 'to' node properties "
+      + primaryProperties + " to prevent duplicates" + advice );
+  }
+
+  private void addPrimaryIndexes( List<Integer> keyIndexes, int[] propIndexes, boolean[] propPrimary ) {
+    for ( int i = 0; i < propIndexes.length; i++ ) {
+      if ( propPrimary[ i ] && propIndexes[ i ] >= 0 ) {
+        keyIndexes.add( propIndexes[ i ] );
+      }
+    }
+  }
+
+  private int calculatePartition( IRowMeta rowMeta, Object[] row ) throws HopValueException {
+    int hash = 1;
+    for ( int keyIndex : data.partitionKeyIndexes ) {
+      hash = 31 * hash + rowMeta.getValueMeta( keyIndex ).hashCode( row[ keyIndex ] );
+    }
+    return Math.floorMod( hash, data.writerThreads );
+  }
+
+  /**
+   * Hand the rows of the given partition of a group to its writer and start a new buffer for the partition.
+   *
+   * @param group     The group of rows
+   * @param partition The partition to flush
+   */
+  private void flushPartition( UnwindGroup group, int partition ) throws HopException {
+    String cypher = getCypher( group );
+    List<Map<String, Object>> partitionList = group.takePartitionList( partition );
+    if ( isDebug() ) {
+      logDebug( "Writing " + partitionList.size() + " rows of partition " + partition );
+    }
+    processPartitionResult( data.partitionWriters[ partition ].submit( cypher, partitionList ) );
+  }
+
+  private void processPartitionResult( UnwindPartitionWriter.PartitionResult result ) throws HopException {
+    if ( result != null ) {
+      processSummary( result.getSummary() );
+      setLinesOutput( getLinesOutput() + result.getSize() );
+    }
+  }
+
+  private void addPropertiesToMap( Map<String, Object> rowMap, int[] nodePropIndexes, IRowMeta rowMeta, Object[] row, GraphPropertyConverter[] converters )
     throws HopValueException {
 
     // Add all the node properties for the current row to the rowMap
@@ -226,8 +365,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       IValueMeta valueMeta = rowMeta.getValueMeta( nodePropIndexes[ i ] );
       Object valueData = row[ nodePropIndexes[ i ] ];
 
-      GraphPropertyType propertyType = propertyTypes[ i ];
-      Object neoValue = propertyType.convertFromHop( valueMeta, valueData );
+      Object neoValue = converters[ i ].convert( valueMeta, valueData );
 
       String propName = "p" + nodePropIndexes[ i ];
       rowMap.put( propName, neoValue );
@@ -235,189 +373,209 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
   }
 
 
-  private void emptyUnwindList( boolean changedLabel ) throws HopException {
+  private void emptyUnwindList( UnwindGroup group ) throws HopException {
 
-    Map<String, Object> properties = Collections.singletonMap( "props", data.unwindList );
+    if ( data.partitionWriters != null ) {
+      for ( int partition = 0; partition < data.partitionWriters.length; partition++ ) {
+        if ( !group.getPartitionLists().get( partition ).isEmpty() ) {
+          flushPartition( group, partition );
+        }
+      }
+      return;
+    }
 
-    if ( data.cypher == null || changedLabel ) {
+    if ( group.getUnwindList().isEmpty() ) {
+      return;
+    }
 
-      StringBuilder cypher = new StringBuilder();
-      cypher.append( "UNWIND $props as pr " ).append( Const.CR );
+    String cypher = getCypher( group );
+    List<Map<String, Object>> unwindList = group.takeUnwindList();
+    Map<String, Object> properties = Collections.singletonMap( "props", unwindList );
 
-      // The cypher for the 'from' node:
-      //
-      boolean takePreviousFrom = data.dynamicFromLabels && changedLabel && data.previousFromLabelsClause != null;
-      String fromLabelClause = takePreviousFrom ? data.previousFromLabelsClause : data.fromLabelsClause;
-      String fromMatchClause = getMatchClause( meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes, "f" );
-      switch ( data.fromOperationType ) {
-        case NONE:
-          break;
-        case CREATE:
-          cypher
-            .append( "CREATE( " )
-            .append( fromLabelClause )
-            .append( " " )
-            .append( fromMatchClause )
-            .append( ") " )
-            .append( Const.CR )
-          ;
-          String setClause = getSetClause( false, "f", meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes );
-          if ( StringUtils.isNotEmpty( setClause ) ) {
-            cypher
-              .append( setClause )
-              .append( Const.CR )
-            ;
-          }
-          updateUsageMap( data.fromLabels, GraphUsage.NODE_CREATE );
-          break;
-        case MERGE:
-          cypher
-            .append( "MERGE( " )
-            .append( fromLabelClause )
-            .append( " " )
-            .append( fromMatchClause )
-            .append( ") " )
-            .append( Const.CR )
-          ;
-          setClause = getSetClause( false, "f", meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes );
-          if ( StringUtils.isNotEmpty( setClause ) ) {
-            cypher
-              .append( setClause )
-              .append( Const.CR )
-            ;
-          }
-          updateUsageMap( data.fromLabels, GraphUsage.NODE_UPDATE );
-          break;
-        case MATCH:
-          cypher
-            .append( "MATCH( " )
-            .append( fromLabelClause )
-            .append( " " )
-            .append( fromMatchClause )
-            .append( ") " )
-            .append( Const.CR )
-          ;
-          updateUsageMap( data.toLabels, GraphUsage.NODE_READ );
-          break;
-        default:
-          throw new HopException( "Unsupported operation type for the 'from' node: " + data.fromOperationType );
-      }
+    // OK now we have the cypher statement, we can execute it...
+    //
+    if ( isDebug() ) {
+      logDebug( "Running Cypher: " + cypher );
+      logDebug( "properties list size : " + unwindList.size() );
+    }
 
-      // The cypher for the 'to' node:
-      //
-      boolean takePreviousTo = data.dynamicToLabels && changedLabel;
-      String toLabelsClause = takePreviousTo ? data.previousToLabelsClause : data.toLabelsClause;
-      String toMatchClause = getMatchClause( meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes, "f" );
-      switch ( data.toOperationType ) {
-        case NONE:
-          break;
-        case CREATE:
-          cypher
-            .append( "CREATE( " )
-            .append( toLabelsClause )
-            .append( " " )
-            .append( toMatchClause )
-            .append( ") " )
-            .append( Const.CR )
-          ;
-          String setClause = getSetClause( false, "t", meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes );
-          if ( StringUtils.isNotEmpty( setClause ) ) {
-            cypher
-              .append( setClause )
-              .append( Const.CR )
-            ;
-          }
-          updateUsageMap( data.toLabels, GraphUsage.NODE_CREATE );
-          break;
-        case MERGE:
+    // Run it always without beginTransaction()...
+    //
+    ResultSummary summary = data.session.writeTransaction( tx -> tx.run( cypher, properties ).consume() );
+    processSummary( summary );
+
+    setLinesOutput( getLinesOutput() + unwindList.size() );
+  }
+
+  /**
+   * Get the UNWIND statement of a group of rows, generate it the first time around.
+   *
+   * @param group The group of rows
+   * @return The cypher to write the rows of the group with
+   */
+  private String getCypher( UnwindGroup group ) throws HopException {
+    if ( group.getCypher() == null ) {
+      group.setCypher( buildCypher( group ) );
+    }
+    return group.getCypher();
+  }
+
+  private String buildCypher( UnwindGroup group ) throws HopException {
+    StringBuilder cypher = new StringBuilder();
+    cypher.append( "UNWIND $props as pr " ).append( Const.CR );
+
+    // The cypher for the 'from' node:
+    //
+    String fromLabelClause = group.getFromLabelsClause();
+    String fromMatchClause = getMatchClause( meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes, "f" );
+    switch ( data.fromOperationType ) {
+      case NONE:
+        break;
+      case CREATE:
+        cypher
+          .append( "CREATE( " )
+          .append( fromLabelClause )
+          .append( " " )
+          .append( fromMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        String setClause = getSetClause( false, "f", meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes );
+        if ( StringUtils.isNotEmpty( setClause ) ) {
           cypher
-            .append( "MERGE( " )
-            .append( toLabelsClause )
-            .append( " " )
-            .append( toMatchClause )
-            .append( ") " )
+            .append( setClause )
             .append( Const.CR )
           ;
-          setClause = getSetClause( false, "t", meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes );
-          if ( StringUtils.isNotEmpty( setClause ) ) {
-            cypher
-              .append( setClause )
-              .append( Const.CR )
-            ;
-          }
-          updateUsageMap( data.toLabels, GraphUsage.NODE_UPDATE );
-          break;
-        case MATCH:
+        }
+        updateUsageMap( group.getFromLabels(), GraphUsage.NODE_CREATE );
+        break;
+      case MERGE:
+        cypher
+          .append( "MERGE( " )
+          .append( fromLabelClause )
+          .append( " " )
+          .append( fromMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        setClause = getSetClause( false, "f", meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), data.fromNodePropIndexes );
+        if ( StringUtils.isNotEmpty( setClause ) ) {
           cypher
-            .append( "MATCH( " )
-            .append( toLabelsClause )
-            .append( " " )
-            .append( toMatchClause )
-            .append( ") " )
+            .append( setClause )
             .append( Const.CR )
           ;
-          updateUsageMap( data.toLabels, GraphUsage.NODE_READ );
-          break;
-        default:
-          throw new HopException( "Unsupported operation type for the 'to' node: " + data.toOperationType );
-      }
+        }
+        updateUsageMap( group.getFromLabels(), GraphUsage.NODE_UPDATE );
+        break;
+      case MATCH:
+        cypher
+          .append( "MATCH( " )
+          .append( fromLabelClause )
+          .append( " " )
+          .append( fromMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        updateUsageMap( group.getFromLabels(), GraphUsage.NODE_READ );
+        break;
+      default:
+        throw new HopException( "Unsupported operation type for the 'from' node: " + data.fromOperationType );
+    }
 
-      // The cypher for the relationship:
-      //
-      String relationshipSetClause = getSetClause( false, "r", meta.getRelPropNames(), new boolean[ meta.getRelPropNames().length ], data.relPropIndexes );
-      switch ( data.relOperationType ) {
-        case NONE:
-          break;
-        case MERGE:
+    // The cypher for the 'to' node:
+    //
+    String toLabelsClause = group.getToLabelsClause();
+    String toMatchClause = getMatchClause( meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes, "f" );
+    switch ( data.toOperationType ) {
+      case NONE:
+        break;
+      case CREATE:
+        cypher
+          .append( "CREATE( " )
+          .append( toLabelsClause )
+          .append( " " )
+          .append( toMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        String setClause = getSetClause( false, "t", meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes );
+        if ( StringUtils.isNotEmpty( setClause ) ) {
           cypher
-            .append( "MERGE (f)-[" )
-            .append( "r:" )
-            .append( data.relationshipLabel )
-            .append( "]->(t) " )
-            .append( Const.CR )
-            .append( relationshipSetClause )
+            .append( setClause )
             .append( Const.CR )
           ;
-          updateUsageMap( Arrays.asList( data.relationshipLabel ), GraphUsage.RELATIONSHIP_UPDATE );
-          ;
-          break;
-        case CREATE:
+        }
+        updateUsageMap( group.getToLabels(), GraphUsage.NODE_CREATE );
+        break;
+      case MERGE:
+        cypher
+          .append( "MERGE( " )
+          .append( toLabelsClause )
+          .append( " " )
+          .append( toMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        setClause = getSetClause( false, "t", meta.getToNodePropNames(), meta.getToNodePropPrimary(), data.toNodePropIndexes );
+        if ( StringUtils.isNotEmpty( setClause ) ) {
           cypher
-            .append( "CREATE (f)-[" )
-            .append( "r:" )
-            .append( data.relationshipLabel )
-            .append( "]->(t) " )
-            .append( Const.CR )
-            .append( getSetClause( false, "r", meta.getRelPropNames(), new boolean[ meta.getRelPropNames().length ], data.relPropIndexes ) )
+            .append( setClause )
             .append( Const.CR )
           ;
-          updateUsageMap( Arrays.asList( data.relationshipLabel ), GraphUsage.RELATIONSHIP_CREATE );
-          break;
-      }
-
-      data.cypher = cypher.toString();
+        }
+        updateUsageMap( group.getToLabels(), GraphUsage.NODE_UPDATE );
+        break;
+      case MATCH:
+        cypher
+          .append( "MATCH( " )
+          .append( toLabelsClause )
+          .append( " " )
+          .append( toMatchClause )
+          .append( ") " )
+          .append( Const.CR )
+        ;
+        updateUsageMap( group.getToLabels(), GraphUsage.NODE_READ );
+        break;
+      default:
+        throw new HopException( "Unsupported operation type for the 'to' node: " + data.toOperationType );
     }
 
-    // OK now we have the cypher statement, we can execute it...
+    // The cypher for the relationship:
     //
-    if ( isDebug() ) {
-      logDebug( "Running Cypher: " + data.cypher );
-      logDebug( "properties list size : " + data.unwindList.size() );
+    String relationshipSetClause = getSetClause( false, "r", meta.getRelPropNames(), new boolean[ meta.getRelPropNames().length ], data.relPropIndexes );
+    switch ( data.relOperationType ) {
+      case NONE:
+        break;
+      case MERGE:
+        cypher
+          .append( "MERGE (f)-[" )
+          .append( "r:" )
+          .append( group.getRelationshipLabel() )
+          .append( "]->(t) " )
+          .append( Const.CR )
+          .append( relationshipSetClause )
+          .append( Const.CR )
+        ;
+        updateUsageMap( Arrays.asList( group.getRelationshipLabel() ), GraphUsage.RELATIONSHIP_UPDATE );
+        ;
+        break;
+      case CREATE:
+        cypher
+          .append( "CREATE (f)-[" )
+          .append( "r:" )
+          .append( group.getRelationshipLabel() )
+          .append( "]->(t) " )
+          .append( Const.CR )
+          .append( getSetClause( false, "r", meta.getRelPropNames(), new boolean[ meta.getRelPropNames().length ], data.relPropIndexes ) )
+          .append( Const.CR )
+        ;
+        updateUsageMap( Arrays.asList( group.getRelationshipLabel() ), GraphUsage.RELATIONSHIP_CREATE );
+        break;
     }
 
-    // Run it always without beginTransaction()...
-    //
-    Result result = data.session.writeTransaction( tx -> tx.run( data.cypher, properties ) );
-    processSummary( result );
-
-    setLinesOutput( getLinesOutput() + data.unwindList.size() );
-
-    // Clear the list
-    //
-    data.unwindList.clear();
+    return cypher.toString();
   }
 
-
   private String getMatchClause( String[] propertyNames, boolean[] propertyPrimary, int[] nodePropIndexes, String alias ) {
     StringBuilder clause = new StringBuilder();
 
@@ -467,30 +625,26 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
   }
 
 
-  private boolean calculateLabelsAndDetectChanges( Object[] row ) throws HopException {
-    boolean changedLabel = false;
+  /**
+   * Calculate the labels and relationship type of the row and find the group of rows it belongs to.
+   * A new group is started for every new combination of 'from' labels, 'to' labels and relationship type.
+   *
+   * @param row The input row
+   * @return The group to buffer the row in
+   */
+  private UnwindGroup calculateUnwindGroup( Object[] row ) throws HopException {
 
     if ( data.fromOperationType != OperationType.NONE ) {
       if ( data.fromLabelsClause == null || data.dynamicFromLabels ) {
-        List<String> fLabels = getNodeLabels( meta.getFromNodeLabels(), data.fromLabelValues, getInputRowMeta(), row, data.fromNodeLabelIndexes );
-        data.fromLabelsClause = getLabels( "f", fLabels );
-      }
-      if ( data.dynamicFromLabels && data.previousFromLabelsClause != null && data.fromLabelsClause != null ) {
-        if ( !data.fromLabelsClause.equals( data.previousFromLabelsClause ) ) {
-          changedLabel = true;
-        }
+        data.fromLabels = getNodeLabels( meta.getFromNodeLabels(), data.fromLabelValues, getInputRowMeta(), row, data.fromNodeLabelIndexes );
+        data.fromLabelsClause = getLabels( "f", data.fromLabels );
       }
     }
 
     if ( data.toOperationType != OperationType.NONE ) {
       if ( data.toLabelsClause == null || data.dynamicToLabels ) {
-        List<String> tLabels = getNodeLabels( meta.getToNodeLabels(), data.toLabelValues, getInputRowMeta(), row, data.toNodeLabelIndexes );
-        data.toLabelsClause = getLabels( "t", tLabels );
-      }
-      if ( data.dynamicToLabels && data.previousToLabelsClause != null && data.toLabelsClause != null ) {
-        if ( !data.toLabelsClause.equals( data.previousToLabelsClause ) ) {
-          changedLabel = true;
-        }
+        data.toLabels = getNodeLabels( meta.getToNodeLabels(), data.toLabelValues, getInputRowMeta(), row, data.toNodeLabelIndexes );
+        data.toLabelsClause = getLabels( "t", data.toLabels );
       }
     }
 
@@ -501,14 +655,20 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       if ( StringUtils.isEmpty( data.relationshipLabel ) && StringUtils.isNotEmpty( data.relationshipLabelValue ) ) {
         data.relationshipLabel = data.relationshipLabelValue;
       }
-      if ( data.dynamicRelLabel && data.previousRelationshipLabel != null && data.relationshipLabel != null ) {
-        if ( !data.relationshipLabel.equals( data.previousRelationshipLabel ) ) {
-          changedLabel = true;
-        }
-      }
     }
 
-    return changedLabel;
+    String key = UnwindGroup.getKey( data.fromLabelsClause, data.toLabelsClause, data.relationshipLabel );
+    UnwindGroup group = data.unwindGroups.get( key );
+    if ( group == null ) {
+      int nrPartitions = data.partitionWriters == null ? 1 : data.partitionWriters.length;
+      group = new UnwindGroup( data.fromLabelsClause, data.toLabelsClause, data.relationshipLabel, data.fromLabels, data.toLabels, nrPartitions );
+      data.unwindGroups.put( key, group );
+      if ( isDebug() ) {
+        logDebug( "Buffering rows for " + data.fromLabelsClause + " / " + data.toLabelsClause + " / " + data.relationshipLabel
+          + " separately, " + data.unwindGroups.size() + " groups in total" );
+      }
+    }
+    return group;
   }
 
   private boolean determineDynamicLabels( String[] nodeLabelFields ) {
@@ -534,16 +694,16 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
 
       if ( meta.getFromNodeProps().length > 0 ) {
         sourceNodeData = createGraphNodeData( rowMeta, row, meta.getFromNodeLabels(), data.fromLabelValues, data.fromNodeLabelIndexes,
-          data.fromNodePropIndexes, meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), "from" );
+          data.fromNodePropIndexes, data.fromNodeGraphTypes, data.fromNodeGraphConverters, meta.getFromNodePropNames(), meta.getFromNodePropPrimary(), "from" );
         if ( !meta.isOnlyCreatingRelationships() ) {
-          graphData.getNodes().add( sourceNodeData );
+          graphData.addNode( sourceNodeData );
         }
       }
       if ( meta.getToNodeProps().length > 0 ) {
         targetNodeData = createGraphNodeData( rowMeta, row, meta.getToNodeLabels(), data.toLabelValues, data.toNodeLabelIndexes,
-          data.toNodePropIndexes, meta.getToNodePropNames(), meta.getToNodePropPrimary(), "to" );
+          data.toNodePropIndexes, data.toNodeGraphTypes, data.toNodeGraphConverters, meta.getToNodePropNames(), meta.getToNodePropPrimary(), "to" );
         if ( !meta.isOnlyCreatingRelationships() ) {
-          graphData.getNodes().add( targetNodeData );
+          graphData.addNode( targetNodeData );
         }
       }
 
@@ -559,7 +719,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
         relationshipData = new GraphRelationshipData();
         relationshipData.setSourceNodeId( sourceNodeData.getId() );
         relationshipData.setTargetNodeId( targetNodeData.getId() );
-        relationshipData.setLabel( relationshipLabel );
+        relationshipData.setLabel( data.symbols.intern( relationshipLabel ) );
         relationshipData.setId( sourceNodeData.getId() + " -> " + targetNodeData.getId() );
         relationshipData.setPropertySetId( "relationship" );
 
@@ -573,8 +733,8 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
           Object valueData = row[ data.relPropIndexes[ i ] ];
 
           String propertyName = meta.getRelPropNames()[ i ];
-          GraphPropertyDataType propertyType = GraphPropertyDataType.getTypeFromHop( valueMeta );
-          Object propertyNeoValue = propertyType.convertFromHop( valueMeta, valueData );
+          GraphPropertyDataType propertyType = data.relGraphTypes[ i ];
+          Object propertyNeoValue = data.relGraphConverters[ i ].convert( valueMeta, valueData );
           boolean propertyPrimary = false;
 
           relationshipData.getProperties().add(
@@ -582,7 +742,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
           );
         }
 
-        graphData.getRelationships().add( relationshipData );
+        graphData.addRelationship( relationshipData );
       }
 
       // Pass it forward...
@@ -597,8 +757,44 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
     }
   }
 
+  /**
+   * Get the graph property data types of the given fields, these only depend on the Hop data types
+   *
+   * @param rowMeta The input row metadata
+   * @param indexes The indexes of the fields, -1 for missing fields
+   * @return The graph property data types, null for missing fields
+   */
+  private GraphPropertyDataType[] getGraphPropertyDataTypes( IRowMeta rowMeta, int[] indexes ) {
+    GraphPropertyDataType[] types = new GraphPropertyDataType[ indexes.length ];
+    for ( int i = 0; i < indexes.length; i++ ) {
+      if ( indexes[ i ] >= 0 ) {
+        types[ i ] = GraphPropertyDataType.getTypeFromHop( rowMeta.getValueMeta( indexes[ i ] ) );
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Get the converters of the given fields to their graph property data types
+   *
+   * @param rowMeta The input row metadata
+   * @param indexes The indexes of the fields, -1 for missing fields
+   * @param types   The graph property data types of the fields
+   * @return The converters, null for missing fields
+   */
+  private GraphPropertyConverter[] getGraphPropertyConverters( IRowMeta rowMeta, int[] indexes, GraphPropertyDataType[] types ) {
+    GraphPropertyConverter[] converters = new GraphPropertyConverter[ indexes.length ];
+    for ( int i = 0; i < indexes.length; i++ ) {
+      if ( indexes[ i ] >= 0 ) {
+        converters[ i ] = GraphPropertyType.parseCode( types[ i ].name() ).getConverter( rowMeta.getValueMeta( indexes[ i ] ) );
+      }
+    }
+    return converters;
+  }
+
   private GraphNodeData createGraphNodeData( IRowMeta rowMeta, Object[] row, String[] nodeLabels, String[] nodeLabelValues, int[] nodeLabelIndexes,
-                                             int[] nodePropIndexes, String[] nodePropNames, boolean[] nodePropPrimary, String propertySetId ) throws HopException {
+                                             int[] nodePropIndexes, GraphPropertyDataType[] nodePropTypes, GraphPropertyConverter[] nodePropConverters,
+                                             String[] nodePropNames, boolean[] nodePropPrimary, String propertySetId ) throws HopException {
     GraphNodeData nodeData = new GraphNodeData();
 
     // The property set ID is simply either "Source" or "Target"
@@ -610,7 +806,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
     //
     List<String> labels = getNodeLabels( nodeLabels, nodeLabelValues, rowMeta, row, nodeLabelIndexes );
     for ( String label : labels ) {
-      nodeData.getLabels().add( label );
+      nodeData.getLabels().add( data.symbols.intern( label ) );
     }
 
     StringBuilder nodeId = new StringBuilder();
@@ -623,8 +819,8 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       Object valueData = row[ nodePropIndexes[ i ] ];
 
       String propertyName = nodePropNames[ i ];
-      GraphPropertyDataType propertyType = GraphPropertyDataType.getTypeFromHop( valueMeta );
-      Object propertyNeoValue = propertyType.convertFromHop( valueMeta, valueData );
+      GraphPropertyDataType propertyType = nodePropTypes[ i ];
+      Object propertyNeoValue = nodePropConverters[ i ].convert( valueMeta, valueData );
       boolean propertyPrimary = nodePropPrimary[ i ];
 
       nodeData.getProperties().add( new GraphPropertyData( propertyName, propertyNeoValue, propertyType, propertyPrimary ) );
@@ -673,6 +869,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       }
 
       data.batchSize = Const.toLong( environmentSubstitute( meta.getBatchSize() ), 1 );
+      data.writerThreads = Const.toInt( environmentSubstitute( meta.getWriterThreads() ), 1 );
     }
 
     return super.init();
@@ -689,6 +886,13 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
       }
     }
 
+    if ( data.partitionWriters != null ) {
+      for ( UnwindPartitionWriter partitionWriter : data.partitionWriters ) {
+        partitionWriter.close();
+      }
+      data.partitionWriters = null;
+    }
+
     if ( data.session != null ) {
       data.session.close();
     }
@@ -710,9 +914,8 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
     return labels.toString();
   }
 
-  private void processSummary( Result result ) throws HopException {
+  private void processSummary( ResultSummary summary ) throws HopException {
     boolean error = false;
-    ResultSummary summary = result.consume();
     for ( Notification notification : summary.notifications() ) {
       log.logError( notification.title() + " (" + notification.severity() + ")" );
       log.logError( notification.code() + " : " + notification.description() + ", position " + notification.position() );
@@ -732,7 +935,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
   }
 
   private String generateMatchClause( String alias, String mapName, List<String> nodeLabels, String[] nodeProps, String[] nodePropNames,
-                                      GraphPropertyType[] nodePropTypes,
+                                      GraphPropertyConverter[] nodePropConverters,
                                       boolean[] nodePropPrimary,
                                       IRowMeta rowMeta, Object[] rowData, int[] nodePropIndexes,
                                       Map<String, Object> parameters, AtomicInteger paramNr ) throws HopValueException {
@@ -769,8 +972,7 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
           IValueMeta valueMeta = rowMeta.getValueMeta( nodePropIndexes[ i ] );
           Object valueData = rowData[ nodePropIndexes[ i ] ];
 
-          GraphPropertyType propertyType = nodePropTypes[ i ];
-          Object neoValue = propertyType.convertFromHop( valueMeta, valueData );
+          Object neoValue = nodePropConverters[ i ].convert( valueMeta, valueData );
 
           parameters.put( parameterName, neoValue );
         }
@@ -871,14 +1073,21 @@ public class Neo4JOutput extends BaseNeoTransform<Neo4JOutputMeta, Neo4JOutputDa
   private void wrapUpTransaction() throws HopException {
 
     if ( !isStopped() ) {
-      if ( data.unwindList != null && data.unwindList.size() > 0 ) {
-        emptyUnwindList( true ); // force write!
+      if ( data.unwindGroups != null ) {
+        for ( UnwindGroup group : data.unwindGroups.values() ) {
+          emptyUnwindList( group ); // force write!
+        }
       }
+      if ( data.partitionWriters != null ) {
+        for ( UnwindPartitionWriter partitionWriter : data.partitionWriters ) {
+          processPartitionResult( partitionWriter.waitForPending() );
+        }
+      }
+    } else if ( data.unwindGroups != null ) {
+      // Nothing is going to be written anymore, allow gc
+      //
+      data.unwindGroups.clear();
     }
-
-    // Allow gc
-    //
-    data.unwindList = new ArrayList<>();
   }
 
   /**
@@ -4,6 +4,9 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.ITransformData;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphSymbols;
+import org.neo4j.hop.model.GraphPropertyConverter;
 import org.neo4j.hop.model.GraphPropertyType;
 import org.neo4j.hop.shared.NeoConnection;
 import org.neo4j.hop.transforms.BaseNeoTransformData;
@@ -34,8 +37,23 @@ public class Neo4JOutputData extends BaseNeoTransformData implements ITransformD
   public GraphPropertyType[] fromNodePropTypes;
   public GraphPropertyType[] toNodePropTypes;
   public GraphPropertyType[] relPropTypes;
+  public GraphPropertyConverter[] fromNodePropConverters;
+  public GraphPropertyConverter[] toNodePropConverters;
+  public GraphPropertyConverter[] relPropConverters;
+  public GraphPropertyDataType[] fromNodeGraphTypes;
+  public GraphPropertyDataType[] toNodeGraphTypes;
+  public GraphPropertyDataType[] relGraphTypes;
+  public GraphPropertyConverter[] fromNodeGraphConverters;
+  public GraphPropertyConverter[] toNodeGraphConverters;
+  public GraphPropertyConverter[] relGraphConverters;
 
-  public List<Map<String, Object>> unwindList;
+  public Map<String, UnwindGroup> unwindGroups;
+
+  public GraphSymbols symbols;
+
+  public int writerThreads;
+  public int[] partitionKeyIndexes;
+  public UnwindPartitionWriter[] partitionWriters;
 
   public String fromLabelsClause;
   public String toLabelsClause;
@@ -43,24 +61,17 @@ public class Neo4JOutputData extends BaseNeoTransformData implements ITransformD
   public String[] toLabelValues;
   public String relationshipLabelValue;
 
-  public String previousFromLabelsClause;
-  public String previousToLabelsClause;
-
   public boolean dynamicFromLabels;
   public boolean dynamicToLabels;
   public boolean dynamicRelLabel;
 
-  public List<String> previousFromLabels;
   public List<String> fromLabels;
-  public List<String> previousToLabels;
   public List<String> toLabels;
-  public String previousRelationshipLabel;
   public String relationshipLabel;
 
   public OperationType fromOperationType;
   public OperationType toOperationType;
   public OperationType relOperationType;
 
-  public String cypher;
   public boolean version4;
 }
@@ -58,6 +58,8 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
   private MetaSelectionLine<NeoConnection> wConnection;
   private Label wlBatchSize;
   private TextVar wBatchSize;
+  private Label wlWriterThreads;
+  private TextVar wWriterThreads;
   private Label wlCreateIndexes;
   private Button wCreateIndexes;
   private Label wlUseCreate;
@@ -172,6 +174,28 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
     wBatchSize.setLayoutData( fdBatchSize );
     lastControl = wBatchSize;
 
+    wlWriterThreads = new Label( shell, SWT.RIGHT );
+    wlWriterThreads.setText( "Number of writer threads" );
+    wlWriterThreads.setToolTipText( "Rows are partitioned on the primary node properties and every partition is written on its own thread and session."
+      + Const.CR + "The partitions commit independently: when both nodes are merged the properties of a 'to' node shared by several partitions"
+      + Const.CR + "are set in the order the partitions commit, not in the order of the input rows."
+      + Const.CR + "Not possible when the 'to' node is only matched while the 'from' node is written." );
+    props.setLook( wlWriterThreads );
+    FormData fdlWriterThreads = new FormData();
+    fdlWriterThreads.left = new FormAttachment( 0, 0 );
+    fdlWriterThreads.right = new FormAttachment( middle, -margin );
+    fdlWriterThreads.top = new FormAttachment( lastControl, 2 * margin );
+    wlWriterThreads.setLayoutData( fdlWriterThreads );
+    wWriterThreads = new TextVar( pipelineMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wWriterThreads );
+    wWriterThreads.addModifyListener( lsMod );
+    FormData fdWriterThreads = new FormData();
+    fdWriterThreads.left = new FormAttachment( middle, 0 );
+    fdWriterThreads.right = new FormAttachment( 100, 0 );
+    fdWriterThreads.top = new FormAttachment( wlWriterThreads, 0, SWT.CENTER );
+    wWriterThreads.setLayoutData( fdWriterThreads );
+    lastControl = wWriterThreads;
+
     wlCreateIndexes = new Label( shell, SWT.RIGHT );
     wlCreateIndexes.setText( "Create indexes? " );
     props.setLook( wlCreateIndexes );
@@ -662,6 +686,7 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
     wTransformName.addSelectionListener( lsDef );
     wConnection.addSelectionListener( lsDef );
     wBatchSize.addSelectionListener( lsDef );
+    wWriterThreads.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -692,6 +717,8 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
     wConnection.setEnabled( toNeo );
     wlBatchSize.setEnabled( toNeo );
     wBatchSize.setEnabled( toNeo );
+    wlWriterThreads.setEnabled( toNeo );
+    wWriterThreads.setEnabled( toNeo );
     wlCreateIndexes.setEnabled( toNeo );
     wCreateIndexes.setEnabled( toNeo );
     wlUseCreate.setEnabled( toNeo );
@@ -713,6 +740,7 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
     wTransformName.selectAll();
     wConnection.setText( Const.NVL( input.getConnection(), "" ) );
     wBatchSize.setText( Const.NVL( input.getBatchSize(), "" ) );
+    wWriterThreads.setText( Const.NVL( input.getWriterThreads(), "" ) );
     wCreateIndexes.setSelection( input.isCreatingIndexes() );
     wUseCreate.setSelection( input.isUsingCreate() );
     wOnlyCreateRelationships.setSelection( input.isOnlyCreatingRelationships() );
@@ -791,6 +819,7 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
     transformName = wTransformName.getText();
     input.setConnection( wConnection.getText() );
     input.setBatchSize( wBatchSize.getText() );
+    input.setWriterThreads( wWriterThreads.getText() );
     input.setCreatingIndexes( wCreateIndexes.getSelection() );
     input.setUsingCreate( wUseCreate.getSelection() );
     input.setOnlyCreatingRelationships( wOnlyCreateRelationships.getSelection() );
@@ -889,23 +918,6 @@ public class Neo4JOutputDialog extends BaseTransformDialog implements ITransform
   private void validateAndWarn( Neo4JOutputMeta input ) {
     StringBuffer message = new StringBuffer();
 
-    // Warn about running too many small UNWIND statements when using dynamic labels
-    //
-    boolean dynamicFrom = input.dynamicFromLabels() && input.isUsingCreate();
-    if ( dynamicFrom ) {
-      message.append( Const.CR );
-      message.append( BaseMessages.getString( PKG, "Neo4JOutputDialog.Warning.SortDynamicFromLabels", Const.CR ) );
-    }
-    boolean dynamicTo = input.dynamicToLabels() && input.isUsingCreate();
-    if ( dynamicTo ) {
-      message.append( Const.CR );
-      message.append( BaseMessages.getString( PKG, "Neo4JOutputDialog.Warning.SortDynamicToLabels", Const.CR ) );
-    }
-    if ( input.isOnlyCreatingRelationships() && input.isCreatingRelationships() && ( input.dynamicFromLabels() || input.dynamicToLabels() ) ) {
-      message.append( Const.CR );
-      message.append( BaseMessages.getString( PKG, "Neo4JOutputDialog.Warning.SortDynamicRelationshipLabel", Const.CR ) );
-    }
-
     // Verify that the defined connection is available
     //
     try {
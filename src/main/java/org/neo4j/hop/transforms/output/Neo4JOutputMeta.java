@@ -43,6 +43,7 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
 
   private static final String STRING_CONNECTION = "connection";
   private static final String STRING_BATCH_SIZE = "batch_size";
+  private static final String STRING_WRITER_THREADS = "writer_threads";
   private static final String STRING_KEY = "key";
   private static final String STRING_FROM = "from";
   private static final String STRING_LABELS = "labels";
@@ -73,6 +74,8 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
   private String connection;
   @Injection( name = STRING_BATCH_SIZE )
   private String batchSize;
+  @Injection( name = STRING_WRITER_THREADS )
+  private String writerThreads;
   @Injection( name = STRING_CREATE_INDEXES )
   private boolean creatingIndexes;
   @Injection( name = STRING_USE_CREATE )
@@ -151,6 +154,7 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
   public void setDefault() {
     connection = "";
     batchSize = "1000";
+    writerThreads = "1";
     creatingIndexes = true;
     usingCreate = false;
     onlyCreatingRelationships = false;
@@ -181,6 +185,7 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
 
     xml.append( XmlHandler.addTagValue( STRING_CONNECTION, connection ) );
     xml.append( XmlHandler.addTagValue( STRING_BATCH_SIZE, batchSize ) );
+    xml.append( XmlHandler.addTagValue( STRING_WRITER_THREADS, writerThreads ) );
     xml.append( XmlHandler.addTagValue( STRING_KEY, key ) );
     xml.append( XmlHandler.addTagValue( STRING_CREATE_INDEXES, creatingIndexes ) );
     xml.append( XmlHandler.addTagValue( STRING_USE_CREATE, usingCreate ) );
@@ -254,6 +259,7 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
 
     connection = XmlHandler.getTagValue( transformNode, STRING_CONNECTION );
     batchSize = XmlHandler.getTagValue( transformNode, STRING_BATCH_SIZE );
+    writerThreads = XmlHandler.getTagValue( transformNode, STRING_WRITER_THREADS );
     key = XmlHandler.getTagValue( transformNode, STRING_KEY );
     creatingIndexes = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, STRING_CREATE_INDEXES ) );
     usingCreate = "Y".equalsIgnoreCase( XmlHandler.getTagValue( transformNode, STRING_USE_CREATE ) );
@@ -446,6 +452,22 @@ public class Neo4JOutputMeta extends BaseTransformMeta implements ITransformMeta
     this.batchSize = batchSize;
   }
 
+  /**
+   * Gets writerThreads
+   *
+   * @return value of writerThreads
+   */
+  public String getWriterThreads() {
+    return writerThreads;
+  }
+
+  /**
+   * @param writerThreads The writerThreads to set
+   */
+  public void setWriterThreads( String writerThreads ) {
+    this.writerThreads = writerThreads;
+  }
+
   /**
    * Gets creatingIndexes
    *
@@ -0,0 +1,151 @@
+package org.neo4j.hop.transforms.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows buffered for one combination of 'from' labels, 'to' labels and relationship type.
+ * Every combination gets its own UNWIND statement so that rows don't need to be sorted on their labels.
+ */
+public class UnwindGroup {
+
+  private final String fromLabelsClause;
+  private final String toLabelsClause;
+  private final String relationshipLabel;
+  private final List<String> fromLabels;
+  private final List<String> toLabels;
+
+  private String cypher;
+  private List<Map<String, Object>> unwindList;
+  private List<List<Map<String, Object>>> partitionLists;
+
+  public UnwindGroup( String fromLabelsClause, String toLabelsClause, String relationshipLabel, List<String> fromLabels, List<String> toLabels, int nrPartitions ) {
+    this.fromLabelsClause = fromLabelsClause;
+    this.toLabelsClause = toLabelsClause;
+    this.relationshipLabel = relationshipLabel;
+    this.fromLabels = fromLabels;
+    this.toLabels = toLabels;
+    this.unwindList = new ArrayList<>();
+    if ( nrPartitions > 1 ) {
+      partitionLists = new ArrayList<>( nrPartitions );
+      for ( int partition = 0; partition < nrPartitions; partition++ ) {
+        partitionLists.add( new ArrayList<>() );
+      }
+    }
+  }
+
+  /**
+   * Calculate the key of the group of a row
+   *
+   * @param fromLabelsClause  The labels clause of the 'from' node or null
+   * @param toLabelsClause    The labels clause of the 'to' node or null
+   * @param relationshipLabel The relationship type or null
+   * @return The key to look up the group of the row with
+   */
+  public static String getKey( String fromLabelsClause, String toLabelsClause, String relationshipLabel ) {
+    return fromLabelsClause + "\n" + toLabelsClause + "\n" + relationshipLabel;
+  }
+
+  /**
+   * Take the buffered rows of the group, leaving an empty buffer behind.
+   *
+   * @return The rows which were buffered
+   */
+  public List<Map<String, Object>> takeUnwindList() {
+    List<Map<String, Object>> list = unwindList;
+    unwindList = new ArrayList<>();
+    return list;
+  }
+
+  /**
+   * Take the buffered rows of a partition of the group, leaving an empty buffer behind.
+   *
+   * @param partition The partition
+   * @return The rows which were buffered for the partition
+   */
+  public List<Map<String, Object>> takePartitionList( int partition ) {
+    List<Map<String, Object>> list = partitionLists.get( partition );
+    partitionLists.set( partition, new ArrayList<>() );
+    return list;
+  }
+
+  /**
+   * Gets fromLabelsClause
+   *
+   * @return value of fromLabelsClause
+   */
+  public String getFromLabelsClause() {
+    return fromLabelsClause;
+  }
+
+  /**
+   * Gets toLabelsClause
+   *
+   * @return value of toLabelsClause
+   */
+  public String getToLabelsClause() {
+    return toLabelsClause;
+  }
+
+  /**
+   * Gets relationshipLabel
+   *
+   * @return value of relationshipLabel
+   */
+  public String getRelationshipLabel() {
+    return relationshipLabel;
+  }
+
+  /**
+   * Gets fromLabels
+   *
+   * @return value of fromLabels
+   */
+  public List<String> getFromLabels() {
+    return fromLabels;
+  }
+
+  /**
+   * Gets toLabels
+   *
+   * @return value of toLabels
+   */
+  public List<String> getToLabels() {
+    return toLabels;
+  }
+
+  /**
+   * Gets cypher
+   *
+   * @return value of cypher
+   */
+  public String getCypher() {
+    return cypher;
+  }
+
+  /**
+   * @param cypher The cypher to set
+   */
+  public void setCypher( String cypher ) {
+    this.cypher = cypher;
+  }
+
+  /**
+   * Gets unwindList
+   *
+   * @return value of unwindList
+   */
+  public List<Map<String, Object>> getUnwindList() {
+    return unwindList;
+  }
+
+  /**
+   * Gets partitionLists
+   *
+   * @return value of partitionLists, null if the rows are not partitioned
+   */
+  public List<List<Map<String, Object>>> getPartitionLists() {
+    return partitionLists;
+  }
+}
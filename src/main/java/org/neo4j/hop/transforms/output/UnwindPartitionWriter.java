@@ -0,0 +1,121 @@
+package org.neo4j.hop.transforms.output;
+
+import org.apache.hop.core.exception.HopException;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the UNWIND batches of one partition of the rows on its own thread and session.
+ * Batches of the same partition are written in order and at most one batch is in flight at any time.
+ */
+public class UnwindPartitionWriter {
+
+  private static final long CLOSE_TIMEOUT_SECONDS = 60L;
+
+  private final Session session;
+  private final ExecutorService executorService;
+
+  private Future<ResultSummary> pending;
+  private int pendingSize;
+
+  public UnwindPartitionWriter( String threadName, Session session ) {
+    this.session = session;
+    this.executorService = Executors.newSingleThreadExecutor( runnable -> {
+      Thread thread = new Thread( runnable, threadName );
+      thread.setDaemon( true );
+      return thread;
+    } );
+  }
+
+  /**
+   * Send a batch of rows to Neo4j in the background.
+   * If the previous batch of this partition is still running we wait for it first.
+   *
+   * @param cypher     The UNWIND statement to execute
+   * @param unwindList The rows to pass as parameter 'props', owned by the writer from now on
+   * @return The result of the previous batch or null if there was none
+   * @throws HopException In case the previous batch failed
+   */
+  public PartitionResult submit( String cypher, List<Map<String, Object>> unwindList ) throws HopException {
+    PartitionResult previous = waitForPending();
+
+    final Map<String, Object> properties = Collections.singletonMap( "props", unwindList );
+    pendingSize = unwindList.size();
+    pending = executorService.submit( () -> session.writeTransaction( tx -> tx.run( cypher, properties ).consume() ) );
+
+    return previous;
+  }
+
+  /**
+   * Wait for the batch in flight, if any.
+   *
+   * @return The result of the batch or null if nothing was in flight
+   * @throws HopException In case the batch failed
+   */
+  public PartitionResult waitForPending() throws HopException {
+    if ( pending == null ) {
+      return null;
+    }
+    try {
+      return new PartitionResult( pending.get(), pendingSize );
+    } catch ( ExecutionException e ) {
+      throw new HopException( "Error writing batch of " + pendingSize + " rows to Neo4j", e.getCause() );
+    } catch ( InterruptedException e ) {
+      throw new HopException( "Interrupted while writing batch of " + pendingSize + " rows to Neo4j", e );
+    } finally {
+      pending = null;
+      pendingSize = 0;
+    }
+  }
+
+  /**
+   * Stop the writer thread and close the session.  Call {@link #waitForPending()} first to not lose any work.
+   * A batch still in flight, when the pipeline is stopped, is given some time to finish before the session is closed under it.
+   */
+  public void close() {
+    executorService.shutdownNow();
+    try {
+      executorService.awaitTermination( CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    session.close();
+  }
+
+  public static class PartitionResult {
+    private final ResultSummary summary;
+    private final int size;
+
+    public PartitionResult( ResultSummary summary, int size ) {
+      this.summary = summary;
+      this.size = size;
+    }
+
+    /**
+     * Gets summary
+     *
+     * @return value of summary
+     */
+    public ResultSummary getSummary() {
+      return summary;
+    }
+
+    /**
+     * Gets size
+     *
+     * @return value of size
+     */
+    public int getSize() {
+      return size;
+    }
+  }
+}
@@ -10,6 +10,7 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.neo4j.hop.core.data.GraphData;
+import org.neo4j.hop.core.data.GraphElementView;
 import org.neo4j.hop.core.data.GraphNodeData;
 import org.neo4j.hop.core.data.GraphRelationshipData;
 import org.neo4j.hop.core.value.ValueMetaGraph;
@@ -62,13 +63,12 @@ public class SplitGraph extends BaseTransform<SplitGraphMeta, SplitGraphData> im
     Object valueData = row[ data.graphFieldIndex ];
     GraphData graphData = valueMeta.getGraphData( valueData );
 
+    // Every output row gets a view on a single node or relationship of the graph, the elements are only copied when they're modified
+    //
     for ( GraphNodeData nodeData : graphData.getNodes() ) {
       Object[] outputRowData = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
       int index = getInputRowMeta().size();
-      GraphData copy = graphData.createEmptyCopy();
-      copy.getNodes().add( nodeData.clone() );
-
-      outputRowData[ data.graphFieldIndex ] = copy;
+      outputRowData[ data.graphFieldIndex ] = new GraphElementView( graphData, nodeData );
       if ( data.typeField != null ) {
         outputRowData[ index++ ] = "Node";
       }
@@ -84,10 +84,7 @@ public class SplitGraph extends BaseTransform<SplitGraphMeta, SplitGraphData> im
     for ( GraphRelationshipData relationshipData : graphData.getRelationships() ) {
       Object[] outputRowData = RowDataUtil.createResizedCopy( row, data.outputRowMeta.size() );
       int index = getInputRowMeta().size();
-      GraphData copy = graphData.createEmptyCopy();
-      copy.getRelationships().add( relationshipData.clone() );
-
-      outputRowData[ data.graphFieldIndex ] = copy;
+      outputRowData[ data.graphFieldIndex ] = new GraphElementView( graphData, relationshipData );
       if ( data.typeField != null ) {
         outputRowData[ index++ ] = "Relationship";
       }
@@ -0,0 +1,107 @@
+package org.neo4j.hop.core.value;
+
+import junit.framework.TestCase;
+import org.neo4j.driver.Values;
+import org.neo4j.hop.core.data.GraphData;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GraphDataCodecTest extends TestCase {
+
+  public void testRoundTrip() throws Exception {
+    GraphData graphData = new GraphData();
+    graphData.setSourcePipelineName( "pipeline" );
+    graphData.setSourceTransformName( "transform" );
+
+    List<GraphPropertyData> properties = new ArrayList<>();
+    properties.add( new GraphPropertyData( "id", "p-1", GraphPropertyDataType.String, true ) );
+    properties.add( new GraphPropertyData( "age", 42L, GraphPropertyDataType.Integer, false ) );
+    properties.add( new GraphPropertyData( "negative", -7L, GraphPropertyDataType.Integer, false ) );
+    properties.add( new GraphPropertyData( "score", 0.25, GraphPropertyDataType.Float, false ) );
+    properties.add( new GraphPropertyData( "active", true, GraphPropertyDataType.Boolean, false ) );
+    properties.add( new GraphPropertyData( "born", LocalDate.of( 1970, 1, 31 ), GraphPropertyDataType.Date, false ) );
+    properties.add( new GraphPropertyData( "seen", LocalDateTime.of( 2020, 2, 29, 13, 45, 0, 123000000 ), GraphPropertyDataType.LocalDateTime, false ) );
+    properties.add( new GraphPropertyData( "alarm", LocalTime.of( 7, 30 ), GraphPropertyDataType.LocalTime, false ) );
+    properties.add( new GraphPropertyData( "meeting", ZonedDateTime.of( 2021, 6, 1, 9, 0, 0, 0, ZoneId.of( "Europe/Brussels" ) ),
+      GraphPropertyDataType.DateTime, false ) );
+    properties.add( new GraphPropertyData( "lunch", OffsetTime.of( 12, 0, 0, 0, ZoneOffset.ofHours( 2 ) ), GraphPropertyDataType.Time, false ) );
+    properties.add( new GraphPropertyData( "wait", Values.isoDuration( 1, 2, 3, 4 ).asIsoDuration(), GraphPropertyDataType.Duration, false ) );
+    properties.add( new GraphPropertyData( "location", Values.point( 7203, 1.5, -2.5 ).asPoint(), GraphPropertyDataType.Point, false ) );
+    properties.add( new GraphPropertyData( "tags", Arrays.asList( "a", "b" ), GraphPropertyDataType.String, false ) );
+    properties.add( new GraphPropertyData( "missing", null, GraphPropertyDataType.String, false ) );
+    GraphNodeData node = new GraphNodeData( "p-1", new ArrayList<>( Arrays.asList( "Person", "Customer" ) ), properties );
+    node.setPropertySetId( "from" );
+    graphData.getNodes().add( node );
+
+    GraphNodeData other = new GraphNodeData( "p-2", new ArrayList<>( Arrays.asList( "Person" ) ), new ArrayList<>() );
+    other.getProperties().add( new GraphPropertyData( "id", "p-2", GraphPropertyDataType.String, true ) );
+    graphData.getNodes().add( other );
+
+    GraphRelationshipData relationship = new GraphRelationshipData( "p-1 -> p-2", "KNOWS", new ArrayList<>(), "p-1", "p-2" );
+    relationship.setPropertySetId( "relationship" );
+    relationship.getProperties().add( new GraphPropertyData( "since", 2001L, GraphPropertyDataType.Integer, false ) );
+    graphData.getRelationships().add( relationship );
+
+    GraphData decoded = GraphDataCodec.decode( GraphDataCodec.encode( graphData ) );
+
+    assertEquals( "pipeline", decoded.getSourcePipelineName() );
+    assertEquals( "transform", decoded.getSourceTransformName() );
+    assertEquals( 2, decoded.getNodes().size() );
+    assertEquals( 1, decoded.getRelationships().size() );
+
+    GraphNodeData decodedNode = decoded.getNodes().get( 0 );
+    assertEquals( "p-1", decodedNode.getId() );
+    assertEquals( Arrays.asList( "Person", "Customer" ), decodedNode.getLabels() );
+    assertEquals( "from", decodedNode.getPropertySetId() );
+    assertEquals( properties.size(), decodedNode.getProperties().size() );
+    for ( int i = 0; i < properties.size(); i++ ) {
+      GraphPropertyData expected = properties.get( i );
+      GraphPropertyData actual = decodedNode.getProperties().get( i );
+      assertEquals( expected.getId(), actual.getId() );
+      assertEquals( expected.getType(), actual.getType() );
+      assertEquals( expected.isPrimary(), actual.isPrimary() );
+      assertEquals( expected.getId(), expected.getValue(), actual.getValue() );
+    }
+
+    // Labels are shared between the nodes
+    //
+    assertEquals( Arrays.asList( "Person" ), decoded.getNodes().get( 1 ).getLabels() );
+
+    GraphRelationshipData decodedRelationship = decoded.getRelationships().get( 0 );
+    assertEquals( "p-1 -> p-2", decodedRelationship.getId() );
+    assertEquals( "KNOWS", decodedRelationship.getLabel() );
+    assertEquals( "p-1", decodedRelationship.getSourceNodeId() );
+    assertEquals( "p-2", decodedRelationship.getTargetNodeId() );
+    assertEquals( "relationship", decodedRelationship.getPropertySetId() );
+    assertEquals( 2001L, decodedRelationship.getProperties().get( 0 ).getValue() );
+  }
+
+  public void testEmptyGraph() throws Exception {
+    GraphData decoded = GraphDataCodec.decode( GraphDataCodec.encode( new GraphData() ) );
+    assertNull( decoded.getSourcePipelineName() );
+    assertTrue( decoded.getNodes().isEmpty() );
+    assertTrue( decoded.getRelationships().isEmpty() );
+  }
+
+  public void testUnknownVersion() {
+    try {
+      GraphDataCodec.decode( new byte[] { 99 } );
+      fail( "Unknown versions can't be decoded" );
+    } catch ( Exception e ) {
+      // Expected
+    }
+  }
+}
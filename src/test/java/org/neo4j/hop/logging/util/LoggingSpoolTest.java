@@ -0,0 +1,122 @@
+package org.neo4j.hop.logging.util;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LoggingSpoolTest extends TestCase {
+
+  private static final LoggingStatement STATEMENT = new LoggingStatement( LoggingStatement.ORDER_EXECUTION_START, "MERGE (n:Test { id : row.id })" );
+
+  private File folder;
+
+  @Override protected void setUp() throws Exception {
+    folder = File.createTempFile( "spool", "" );
+    folder.delete();
+    folder.mkdirs();
+  }
+
+  @Override protected void tearDown() throws Exception {
+    delete( folder );
+  }
+
+  public void testSealAndReplayInBatches() throws Exception {
+    try ( LoggingSpool spool = new LoggingSpool( folder, 1024L * 1024L ) ) {
+      for ( long id = 0; id < 5; id++ ) {
+        assertTrue( spool.append( STATEMENT, row( id ) ) );
+      }
+      assertNull( spool.getOldestSegment() );
+      spool.seal();
+      File first = spool.getOldestSegment();
+      assertNotNull( first );
+
+      // A new segment is started after sealing
+      //
+      assertTrue( spool.append( STATEMENT, row( 5L ) ) );
+      spool.seal();
+      assertEquals( 6L, spool.getRows() );
+
+      LoggingSpool.Batch batch = spool.read( first, 0L, 3 );
+      assertEquals( 3, batch.getRows().size() );
+      assertEquals( 0L, batch.getRows().get( 0 ).getParameters().get( "id" ) );
+      assertEquals( STATEMENT, batch.getRows().get( 0 ).getStatement() );
+
+      // Continue where the previous batch ended
+      //
+      batch = spool.read( first, batch.getEndOffset(), 3 );
+      assertEquals( 2, batch.getRows().size() );
+      assertEquals( 3L, batch.getRows().get( 0 ).getParameters().get( "id" ) );
+      assertEquals( first.length(), batch.getEndOffset() );
+      assertTrue( spool.read( first, batch.getEndOffset(), 3 ).getRows().isEmpty() );
+
+      spool.remove( first );
+      assertFalse( first.exists() );
+      assertEquals( 1L, spool.getRows() );
+
+      File second = spool.getOldestSegment();
+      assertNotSame( first, second );
+      List<LoggingSpool.Row> rows = spool.read( second, 0L, 10 ).getRows();
+      assertEquals( 1, rows.size() );
+      assertEquals( 5L, rows.get( 0 ).getParameters().get( "id" ) );
+    }
+  }
+
+  public void testTruncatedRecordIsIgnored() throws Exception {
+    try ( LoggingSpool spool = new LoggingSpool( folder, 1024L * 1024L ) ) {
+      spool.append( STATEMENT, row( 1L ) );
+      spool.append( STATEMENT, row( 2L ) );
+      spool.seal();
+      File segment = spool.getOldestSegment();
+      try ( RandomAccessFile file = new RandomAccessFile( segment, "rw" ) ) {
+        file.setLength( file.length() - 3 );
+      }
+      assertEquals( 1, spool.read( segment, 0L, 10 ).getRows().size() );
+    }
+  }
+
+  public void testDeadLetter() throws Exception {
+    try ( LoggingSpool spool = new LoggingSpool( folder, 1024L * 1024L ) ) {
+      spool.append( STATEMENT, row( 1L ) );
+      spool.append( STATEMENT, row( 2L ) );
+      spool.seal();
+      File segment = spool.getOldestSegment();
+      LoggingSpool.Batch first = spool.read( segment, 0L, 1 );
+      LoggingSpool.Batch second = spool.read( segment, first.getEndOffset(), 1 );
+
+      File deadLetter = spool.deadLetter( segment, second );
+      assertEquals( new File( new File( folder, LoggingSpool.DEAD_LETTER_FOLDER ), segment.getName() ), deadLetter );
+      List<LoggingSpool.Row> rows = spool.read( deadLetter, 0L, 10 ).getRows();
+      assertEquals( 1, rows.size() );
+      assertEquals( 2L, rows.get( 0 ).getParameters().get( "id" ) );
+    }
+  }
+
+  public void testFullSpoolDropsRows() throws Exception {
+    try ( LoggingSpool spool = new LoggingSpool( folder, 100L ) ) {
+      assertTrue( spool.append( STATEMENT, row( 1L ) ) );
+      assertFalse( spool.append( STATEMENT, row( 2L ) ) );
+      assertEquals( 1L, spool.getDroppedRows() );
+    }
+  }
+
+  private static Map<String, Object> row( long id ) {
+    Map<String, Object> row = new HashMap<>();
+    row.put( "id", id );
+    row.put( "name", "execution " + id );
+    return row;
+  }
+
+  private static void delete( File file ) {
+    File[] children = file.listFiles();
+    if ( children != null ) {
+      for ( File child : children ) {
+        delete( child );
+      }
+    }
+    file.delete();
+  }
+}
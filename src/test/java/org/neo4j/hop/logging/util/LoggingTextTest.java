@@ -0,0 +1,51 @@
+package org.neo4j.hop.logging.util;
+
+import junit.framework.TestCase;
+
+public class LoggingTextTest extends TestCase {
+
+  public void testShortTextIsKept() {
+    assertEquals( "Pipeline started", LoggingText.truncate( "Pipeline started", 100 ) );
+    assertEquals( "0123456789", LoggingText.truncate( "0123456789", 10 ) );
+  }
+
+  public void testNoMaximumLength() {
+    String text = "0123456789";
+    assertEquals( text, LoggingText.truncate( text, 0 ) );
+    assertEquals( text, LoggingText.truncate( text, -1 ) );
+  }
+
+  public void testHeadAndTailAreKept() {
+    String text = "HEAD-" + repeat( 'x', 1000 ) + "-TAIL";
+    String truncated = LoggingText.truncate( text, 10 );
+
+    assertTrue( truncated.startsWith( "HEAD-" ) );
+    assertTrue( truncated.endsWith( "-TAIL" ) );
+    assertTrue( truncated.contains( "... " + ( text.length() - 10 ) + " characters left out ..." ) );
+  }
+
+  public void testOddMaximumLength() {
+    String truncated = LoggingText.truncate( "abcdefghijklmnopqrstuvwxyz", 5 );
+
+    // 2 characters of the head, 3 of the tail
+    //
+    assertTrue( truncated.startsWith( "ab" ) );
+    assertFalse( truncated.startsWith( "abc" ) );
+    assertTrue( truncated.endsWith( "xyz" ) );
+    assertFalse( truncated.endsWith( "wxyz" ) );
+  }
+
+  public void testCompressRoundTrip() throws Exception {
+    String text = "2020/06/01 10:00:00 - Pipeline - Started\n2020/06/01 10:00:01 - Pipeline - Finished \u00fcn\u00efc\u00f6d\u00e9";
+    assertEquals( text, LoggingText.decompress( LoggingText.compress( text ) ) );
+    assertEquals( "", LoggingText.decompress( LoggingText.compress( "" ) ) );
+  }
+
+  private static String repeat( char c, int count ) {
+    StringBuilder builder = new StringBuilder( count );
+    for ( int i = 0; i < count; i++ ) {
+      builder.append( c );
+    }
+    return builder.toString();
+  }
+}
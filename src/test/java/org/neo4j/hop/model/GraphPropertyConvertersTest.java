@@ -0,0 +1,77 @@
+package org.neo4j.hop.model;
+
+import junit.framework.TestCase;
+import org.apache.hop.core.exception.HopValueException;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.types.IsoDuration;
+import org.neo4j.driver.types.Point;
+
+public class GraphPropertyConvertersTest extends TestCase {
+
+  public void testParseDuration() throws Exception {
+    assertDuration( GraphPropertyConverters.parseDuration( "P1Y2M10DT2H30M15.5S" ), 14, 10, 9015, 500000000 );
+    assertDuration( GraphPropertyConverters.parseDuration( "PT1H" ), 0, 0, 3600, 0 );
+    assertDuration( GraphPropertyConverters.parseDuration( "P3D" ), 0, 3, 0, 0 );
+    assertDuration( GraphPropertyConverters.parseDuration( "P2W" ), 0, 14, 0, 0 );
+    assertDuration( GraphPropertyConverters.parseDuration( "  p1dt1m  " ), 0, 1, 60, 0 );
+    assertDuration( GraphPropertyConverters.parseDuration( "-P1MT1S" ), -1, 0, -1, 0 );
+  }
+
+  public void testParseInvalidDuration() {
+    assertInvalidDuration( "1 day" );
+    assertInvalidDuration( "P1YT" );
+    assertInvalidDuration( "" );
+  }
+
+  public void testParsePoint() throws Exception {
+    assertPoint( GraphPropertyConverters.parsePoint( "POINT(4.35 50.85)" ), GraphPropertyConverters.SRID_CARTESIAN, 4.35, 50.85, Double.NaN );
+    assertPoint( GraphPropertyConverters.parsePoint( " point (  -1.5   2 ) " ), GraphPropertyConverters.SRID_CARTESIAN, -1.5, 2.0, Double.NaN );
+    assertPoint( GraphPropertyConverters.parsePoint( "SRID=4326;POINT(4.35 50.85)" ), GraphPropertyConverters.SRID_WGS84, 4.35, 50.85, Double.NaN );
+    assertPoint( GraphPropertyConverters.parsePoint( "POINT Z(1 2 3)" ), GraphPropertyConverters.SRID_CARTESIAN_3D, 1.0, 2.0, 3.0 );
+    assertPoint( GraphPropertyConverters.parsePoint( "srid=4326; POINT Z (4.35 50.85 100)" ), GraphPropertyConverters.SRID_WGS84_3D, 4.35, 50.85, 100.0 );
+  }
+
+  public void testParseInvalidPoint() {
+    assertInvalidPoint( "LINESTRING(1 2, 3 4)" );
+    assertInvalidPoint( "POINT EMPTY" );
+    assertInvalidPoint( "POINT(1)" );
+    assertInvalidPoint( "POINT(a b)" );
+    assertInvalidPoint( "SRID=x;POINT(1 2)" );
+  }
+
+  private static void assertDuration( Value value, long months, long days, long seconds, int nanoseconds ) {
+    IsoDuration duration = value.asIsoDuration();
+    assertEquals( months, duration.months() );
+    assertEquals( days, duration.days() );
+    assertEquals( seconds, duration.seconds() );
+    assertEquals( nanoseconds, duration.nanoseconds() );
+  }
+
+  private static void assertPoint( Value value, int srid, double x, double y, double z ) {
+    Point point = value.asPoint();
+    assertEquals( srid, point.srid() );
+    assertEquals( x, point.x(), 0.0 );
+    assertEquals( y, point.y(), 0.0 );
+    // 2D points have no z, NaN isn't equal to itself
+    //
+    assertEquals( 0, Double.compare( z, point.z() ) );
+  }
+
+  private static void assertInvalidDuration( String string ) {
+    try {
+      GraphPropertyConverters.parseDuration( string );
+      fail( "'" + string + "' isn't a duration" );
+    } catch ( HopValueException e ) {
+      // Expected
+    }
+  }
+
+  private static void assertInvalidPoint( String string ) {
+    try {
+      GraphPropertyConverters.parsePoint( string );
+      fail( "'" + string + "' isn't a point" );
+    } catch ( HopValueException e ) {
+      // Expected
+    }
+  }
+}
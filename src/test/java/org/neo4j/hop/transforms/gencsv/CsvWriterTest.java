@@ -0,0 +1,147 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.zip.GZIPInputStream;
+
+public class CsvWriterTest extends TestCase {
+
+  private File file;
+
+  @Override protected void setUp() throws Exception {
+    file = File.createTempFile( "csvwriter", ".csv" );
+  }
+
+  @Override protected void tearDown() throws Exception {
+    file.delete();
+  }
+
+  public void testQuotedFields() throws Exception {
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      writer.writeQuoted( "plain" );
+      writer.write( ',' );
+      writer.writeQuoted( "say \"hello\", then \"\"bye\"\"" );
+      writer.write( ',' );
+      writer.writeQuoted( "\"" );
+      writer.write( ',' );
+      writer.writeQuoted( "line 1\r\nline 2" );
+      writer.write( ',' );
+      writer.writeQuoted( null );
+    }
+    assertEquals( "\"plain\",\"say \"\"hello\"\", then \"\"\"\"bye\"\"\"\"\",\"\"\"\",\"line 1\r\nline 2\",\"\"", read( file ) );
+  }
+
+  public void testQuotedContentOfArrays() throws Exception {
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      writer.write( '"' );
+      writer.writeQuotedContent( "a\"b" );
+      writer.write( ';' );
+      writer.writeQuotedContent( null );
+      writer.write( ';' );
+      writer.writeQuotedContent( "c" );
+      writer.write( '"' );
+    }
+    assertEquals( "\"a\"\"b;;c\"", read( file ) );
+  }
+
+  public void testUtf8() throws Exception {
+    String text = "caf\u00e9 \u20ac \ud83d\ude00 \"\u00fc\"";
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      writer.write( text );
+      writer.write( ',' );
+      writer.writeQuoted( text );
+      writer.write( ',' );
+      writer.write( '\u00e9' );
+      writer.write( ',' );
+      writer.write( "\ud83d" );
+    }
+    assertEquals( text + ",\"caf\u00e9 \u20ac \ud83d\ude00 \"\"\u00fc\"\"\",\u00e9,?", read( file ) );
+  }
+
+  public void testNumbersAndBooleans() throws Exception {
+    long[] longs = { 0L, 7L, -7L, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE, 999999999999999999L, 1000000000000000000L };
+    double[] doubles = { 0.0, -0.0, 1.0, -42.0, 3.14, 1.0E7, 1.0E-5, 123456.5, Double.NaN, Double.POSITIVE_INFINITY };
+    StringBuilder expected = new StringBuilder();
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      for ( long value : longs ) {
+        writer.writeLong( value );
+        writer.write( ',' );
+        expected.append( value ).append( ',' );
+      }
+      for ( double value : doubles ) {
+        writer.writeDouble( value );
+        writer.write( ',' );
+        expected.append( value ).append( ',' );
+      }
+      writer.writeBoolean( true );
+      writer.write( ',' );
+      writer.writeBoolean( false );
+      expected.append( "true,false" );
+    }
+    assertEquals( expected.toString(), read( file ) );
+  }
+
+  public void testDatesAndTimes() throws Exception {
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      writer.writeDate( LocalDate.of( 2020, 6, 9 ) );
+      writer.write( ',' );
+      writer.writeDate( LocalDate.of( 12345, 1, 1 ) );
+      writer.write( ',' );
+      writer.writeTime( LocalTime.of( 9, 5 ) );
+      writer.write( ',' );
+      writer.writeTime( LocalTime.of( 9, 5, 7, 120000000 ) );
+      writer.write( ',' );
+      writer.writeTime( LocalTime.of( 9, 5, 7, 123456000 ) );
+      writer.write( ',' );
+      writer.writeTime( LocalTime.of( 9, 5, 7, 1 ) );
+      writer.write( ',' );
+      writer.writeDateTime( LocalDateTime.of( 2020, 6, 9, 23, 0 ) );
+    }
+    assertEquals( "2020-06-09,+12345-01-01,09:05:00,09:05:07.120,09:05:07.123456,09:05:07.000000001,2020-06-09T23:00:00", read( file ) );
+  }
+
+  public void testValuesSpanningBuffers() throws Exception {
+    StringBuilder expected = new StringBuilder();
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), false ) ) {
+      for ( int i = 0; expected.length() < 3 * CsvWriter.BUFFER_SIZE; i++ ) {
+        writer.writeLong( i );
+        writer.writeQuoted( "\u00e9\"" );
+        writer.writeDate( LocalDate.of( 2020, 1, 1 ).plusDays( i % 365 ) );
+        writer.write( '\n' );
+        expected.append( i ).append( "\"\u00e9\"\"\"" ).append( LocalDate.of( 2020, 1, 1 ).plusDays( i % 365 ) ).append( '\n' );
+      }
+    }
+    assertEquals( expected.toString(), read( file ) );
+  }
+
+  public void testCompressed() throws Exception {
+    try ( CsvWriter writer = new CsvWriter( file.getPath(), true ) ) {
+      writer.writeQuoted( "a,\"b\"" );
+      writer.write( ',' );
+      writer.writeLong( 42L );
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( InputStream in = new GZIPInputStream( new FileInputStream( file ) ) ) {
+      byte[] buffer = new byte[ 8192 ];
+      int read;
+      while ( ( read = in.read( buffer ) ) >= 0 ) {
+        bytes.write( buffer, 0, read );
+      }
+    }
+    assertEquals( "\"a,\"\"b\"\"\",42", new String( bytes.toByteArray(), StandardCharsets.UTF_8 ) );
+  }
+
+  private static String read( File file ) throws IOException {
+    return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+  }
+}
@@ -0,0 +1,95 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import junit.framework.TestCase;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FingerprintStoreTest extends TestCase {
+
+  private File folder;
+
+  @Override protected void setUp() throws Exception {
+    folder = File.createTempFile( "fingerprints", "" );
+    folder.delete();
+    folder.mkdirs();
+  }
+
+  @Override protected void tearDown() throws Exception {
+    for ( File file : folder.listFiles() ) {
+      file.delete();
+    }
+    folder.delete();
+  }
+
+  public void testPendingStoreIsOnlyUsedAfterPromotion() throws Exception {
+    File file = new File( folder, "fingerprints.bin" );
+
+    FingerprintStore first = FingerprintStore.load( file );
+    assertTrue( first.registerNode( node( "1", "Alice" ) ) );
+    assertTrue( first.registerNode( node( "2", "Bob" ) ) );
+    assertTrue( first.registerRelationship( relationship( "1", "2" ) ) );
+    assertEquals( 3L, first.getAdded() );
+    File pendingFile = first.savePending( file );
+    assertFalse( file.exists() );
+
+    // Without promotion the next run still sees everything as new
+    //
+    FingerprintStore notPromoted = FingerprintStore.load( file );
+    assertTrue( notPromoted.registerNode( node( "1", "Alice" ) ) );
+    assertEquals( 1L, notPromoted.getAdded() );
+
+    FingerprintStore.promotePending( pendingFile );
+    assertTrue( file.exists() );
+    assertFalse( pendingFile.exists() );
+
+    FingerprintStore second = FingerprintStore.load( file );
+    assertFalse( second.registerNode( node( "1", "Alice" ) ) );
+    assertTrue( second.registerNode( node( "2", "Robert" ) ) );
+    assertTrue( second.registerNode( node( "3", "Carol" ) ) );
+    assertFalse( second.registerRelationship( relationship( "1", "2" ) ) );
+    assertTrue( second.registerRelationship( relationship( "2", "3" ) ) );
+    assertEquals( 2L, second.getAdded() );
+    assertEquals( 1L, second.getUpdated() );
+    assertEquals( 2L, second.getUnchanged() );
+
+    long[] counts = FingerprintStore.readChangeCounts( second.savePending( file ) );
+    assertEquals( 2L, counts[ 0 ] );
+    assertEquals( 1L, counts[ 1 ] );
+  }
+
+  public void testPromoteRequiresPendingFile() throws Exception {
+    try {
+      FingerprintStore.promotePending( new File( folder, "fingerprints.bin" ) );
+      fail( "Only pending stores can be promoted" );
+    } catch ( Exception e ) {
+      // Expected
+    }
+  }
+
+  public void testFindEndpoint() throws Exception {
+    FingerprintStore store = FingerprintStore.load( new File( folder, "fingerprints.bin" ) );
+    for ( int i = 0; i < 5000; i++ ) {
+      store.registerNode( node( Integer.toString( i ), "Person " + i ) );
+    }
+    assertTrue( Arrays.equals( new String[] { "Person", "name" }, store.findEndpoint( "4321" ) ) );
+    assertNull( store.findEndpoint( "5000" ) );
+  }
+
+  private static GraphNodeData node( String id, String name ) {
+    List<GraphPropertyData> properties = new ArrayList<>();
+    properties.add( new GraphPropertyData( "name", name, GraphPropertyDataType.String, true ) );
+    return new GraphNodeData( id, Collections.singletonList( "Person" ), properties );
+  }
+
+  private static GraphRelationshipData relationship( String source, String target ) {
+    return new GraphRelationshipData( source + " -> " + target, "KNOWS", new ArrayList<>(), source, target );
+  }
+}
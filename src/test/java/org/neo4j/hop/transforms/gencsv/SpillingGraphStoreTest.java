@@ -0,0 +1,148 @@
+package org.neo4j.hop.transforms.gencsv;
+
+import junit.framework.TestCase;
+import org.neo4j.driver.Values;
+import org.neo4j.hop.core.data.GraphNodeData;
+import org.neo4j.hop.core.data.GraphPropertyData;
+import org.neo4j.hop.core.data.GraphPropertyDataType;
+import org.neo4j.hop.core.data.GraphRelationshipData;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SpillingGraphStoreTest extends TestCase {
+
+  private File folder;
+
+  @Override protected void setUp() throws Exception {
+    folder = File.createTempFile( "spilling", "" );
+    folder.delete();
+    folder.mkdirs();
+  }
+
+  @Override protected void tearDown() throws Exception {
+    for ( File file : folder.listFiles() ) {
+      file.delete();
+    }
+    folder.delete();
+  }
+
+  public void testFirstVersionWinsAcrossRuns() throws Exception {
+    List<GraphNodeData> merged = mergeNodes( UniquenessStrategy.First, 2 );
+    assertEquals( Arrays.asList( "1", "2", "3" ), ids( merged ) );
+    assertEquals( "Alice", merged.get( 0 ).getProperties().get( 0 ).getValue() );
+    assertEquals( "Bob", merged.get( 1 ).getProperties().get( 0 ).getValue() );
+    assertEquals( "Carol", merged.get( 2 ).getProperties().get( 0 ).getValue() );
+  }
+
+  public void testLastVersionWinsAcrossRuns() throws Exception {
+    List<GraphNodeData> merged = mergeNodes( UniquenessStrategy.Last, 2 );
+    assertEquals( Arrays.asList( "1", "2", "3" ), ids( merged ) );
+    assertEquals( "Alicia", merged.get( 0 ).getProperties().get( 0 ).getValue() );
+    assertEquals( "Robert", merged.get( 1 ).getProperties().get( 0 ).getValue() );
+    assertEquals( "Caroline", merged.get( 2 ).getProperties().get( 0 ).getValue() );
+  }
+
+  public void testSpilledAndInMemoryMergesAgree() throws Exception {
+    for ( UniquenessStrategy strategy : new UniquenessStrategy[] { UniquenessStrategy.First, UniquenessStrategy.Last } ) {
+      List<GraphNodeData> inMemory = mergeNodes( strategy, 1000 );
+      List<GraphNodeData> spilled = mergeNodes( strategy, 1 );
+      assertEquals( ids( inMemory ), ids( spilled ) );
+      for ( int i = 0; i < inMemory.size(); i++ ) {
+        assertEquals( inMemory.get( i ).getProperties().get( 0 ).getValue(), spilled.get( i ).getProperties().get( 0 ).getValue() );
+      }
+    }
+  }
+
+  public void testValuesKeepTheirTypeInSpilledRuns() throws Exception {
+    List<Object> values = Arrays.asList(
+      null,
+      "text",
+      42L,
+      3.14,
+      true,
+      new BigDecimal( "12345678901234567890.123456789" ),
+      LocalDate.of( 2020, 6, 19 ),
+      LocalDateTime.of( 2020, 6, 19, 10, 0 ),
+      LocalDateTime.of( 2020, 6, 19, 10, 11, 12, 123456789 ),
+      LocalTime.of( 23, 59, 59, 1000 ),
+      ZonedDateTime.of( 2020, 6, 19, 10, 11, 12, 0, ZoneId.of( "Europe/Brussels" ) ),
+      OffsetTime.of( 10, 11, 12, 0, ZoneOffset.ofHours( 2 ) ),
+      Duration.ofMillis( 1500 ),
+      Values.isoDuration( 14, 10, 9015, 500 ),
+      Values.isoDuration( 1, 2, 3, 4 ).asIsoDuration(),
+      Values.point( 4326, 4.35, 50.85 ),
+      Values.point( 9157, 1.0, 2.0, 3.0 ).asPoint(),
+      Arrays.asList( LocalDate.of( 2020, 1, 1 ), null, 7L )
+    );
+
+    List<GraphPropertyData> properties = new ArrayList<>();
+    for ( int i = 0; i < values.size(); i++ ) {
+      properties.add( new GraphPropertyData( "p" + i, values.get( i ), GraphPropertyDataType.String, false ) );
+    }
+    GraphRelationshipData relationship = new GraphRelationshipData( "r1", "KNOWS", properties, "1", "2" );
+
+    List<GraphRelationshipData> merged = new ArrayList<>();
+    try ( SpillingGraphStore store = new SpillingGraphStore( UniquenessStrategy.First, 1, folder ) ) {
+      store.addRelationship( relationship );
+      store.mergeRelationships( merged::add );
+    }
+
+    assertEquals( 1, merged.size() );
+    List<GraphPropertyData> read = merged.get( 0 ).getProperties();
+    assertEquals( values.size(), read.size() );
+    for ( int i = 0; i < values.size(); i++ ) {
+      Object expected = values.get( i );
+      Object actual = read.get( i ).getValue();
+      assertEquals( "p" + i, expected, actual );
+      if ( expected != null && !( expected instanceof List ) ) {
+        assertEquals( "p" + i, expected.getClass(), actual.getClass() );
+        assertEquals( "p" + i, expected.toString(), actual.toString() );
+      }
+    }
+  }
+
+  /**
+   * Node 1 arrives in every run, node 2 in the first and the last, node 3 only in the middle run
+   */
+  private List<GraphNodeData> mergeNodes( UniquenessStrategy strategy, int maxBufferedRecords ) throws Exception {
+    List<GraphNodeData> merged = new ArrayList<>();
+    try ( SpillingGraphStore store = new SpillingGraphStore( strategy, maxBufferedRecords, folder ) ) {
+      store.addNode( node( "2", "Bob" ) );
+      store.addNode( node( "1", "Alice" ) );
+      store.addNode( node( "1", "Alex" ) );
+      store.addNode( node( "3", "Carol" ) );
+      store.addNode( node( "3", "Caroline" ) );
+      store.addNode( node( "1", "Alicia" ) );
+      store.addNode( node( "2", "Robert" ) );
+      store.mergeNodes( merged::add );
+    }
+    return merged;
+  }
+
+  private static GraphNodeData node( String id, String name ) {
+    List<GraphPropertyData> properties = new ArrayList<>();
+    properties.add( new GraphPropertyData( "name", name, GraphPropertyDataType.String, false ) );
+    return new GraphNodeData( id, new ArrayList<>( Collections.singletonList( "Person" ) ), properties );
+  }
+
+  private static List<String> ids( List<GraphNodeData> nodes ) {
+    List<String> ids = new ArrayList<>();
+    for ( GraphNodeData node : nodes ) {
+      ids.add( node.getId() );
+    }
+    return ids;
+  }
+}
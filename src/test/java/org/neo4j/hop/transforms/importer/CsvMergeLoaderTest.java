@@ -0,0 +1,71 @@
+package org.neo4j.hop.transforms.importer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public class CsvMergeLoaderTest extends TestCase {
+
+  public void testParseHeader() {
+    List<CsvMergeLoader.Column> columns = CsvMergeLoader.parseHeader(
+      Arrays.asList( "id:ID(Person)", "name:string", "tags:string[]", "born:date", "age", ":LABEL", "~startLabel:IGNORE" ) );
+
+    assertEquals( 7, columns.size() );
+    assertEquals( "id", columns.get( 0 ).name );
+    assertEquals( "ID", columns.get( 0 ).type );
+    assertFalse( columns.get( 0 ).isProperty() );
+
+    assertEquals( "string", columns.get( 1 ).type );
+    assertTrue( columns.get( 1 ).isProperty() );
+
+    assertTrue( columns.get( 2 ).array );
+    assertEquals( Arrays.asList( "a", "b" ), columns.get( 2 ).convert( "a;b" ) );
+
+    assertEquals( "date( row.p3 )", columns.get( 3 ).getExpression( "row.p3" ) );
+
+    assertEquals( "age", columns.get( 4 ).name );
+    assertEquals( "string", columns.get( 4 ).type );
+
+    assertEquals( "", columns.get( 5 ).name );
+    assertEquals( "LABEL", columns.get( 5 ).type );
+
+    assertEquals( "~startLabel", columns.get( 6 ).name );
+    assertEquals( "IGNORE", columns.get( 6 ).type );
+    assertFalse( columns.get( 6 ).isProperty() );
+  }
+
+  public void testConvert() {
+    List<CsvMergeLoader.Column> columns = CsvMergeLoader.parseHeader( Arrays.asList( "count:long", "ratio:double", "flag:boolean", "ids:int[]" ) );
+    assertEquals( 42L, columns.get( 0 ).convert( "42" ) );
+    assertNull( columns.get( 0 ).convert( "" ) );
+    assertEquals( 0.5, columns.get( 1 ).convert( "0.5" ) );
+    assertEquals( Boolean.TRUE, columns.get( 2 ).convert( "true" ) );
+    assertEquals( Arrays.asList( 1L, 2L ), columns.get( 3 ).convert( "1;2" ) );
+  }
+
+  public void testReadRecord() throws Exception {
+    String csv = "\"1\",\"a \"\"quoted\"\" name\",,\"\"\r\n"
+      + "\"2\",\"multi\nline\",x,y\n"
+      + "\n";
+    try ( CsvMergeLoader.CsvRecordReader reader = new CsvMergeLoader.CsvRecordReader( new ByteArrayInputStream( csv.getBytes( StandardCharsets.UTF_8 ) ) ) ) {
+      assertEquals( Arrays.asList( "1", "a \"quoted\" name", null, "" ), reader.readRecord() );
+      assertEquals( Arrays.asList( "2", "multi\nline", "x", "y" ), reader.readRecord() );
+      assertNull( reader.readRecord() );
+    }
+  }
+
+  public void testRelationshipCypher() {
+    List<CsvMergeLoader.Column> columns = CsvMergeLoader.parseHeader( Arrays.asList( ":START_ID", "since:long", "role:string", ":END_ID", ":TYPE" ) );
+
+    String keyed = CsvMergeLoader.getRelationshipCypher( "WORKS_AT", columns, new String[] { "Person", "id" }, new String[] { "Company", "code" }, "role" );
+    assertEquals( "UNWIND $rows AS row MATCH (a:`Person` { `id` : row.START_ID }) MATCH (b:`Company` { `code` : row.END_ID }) "
+      + "MERGE (a)-[r:`WORKS_AT` { `role` : row.p2 }]->(b) SET r.`since` = row.p1", keyed );
+
+    String unkeyed = CsvMergeLoader.getRelationshipCypher( "WORKS_AT", columns, new String[] { "Person", "id" }, new String[] { "Company", "code" }, null );
+    assertEquals( "UNWIND $rows AS row MATCH (a:`Person` { `id` : row.START_ID }) MATCH (b:`Company` { `code` : row.END_ID }) "
+      + "MERGE (a)-[r:`WORKS_AT`]->(b) SET r.`since` = row.p1, r.`role` = row.p2", unkeyed );
+  }
+}
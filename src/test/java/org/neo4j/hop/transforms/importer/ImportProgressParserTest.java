@@ -0,0 +1,97 @@
+package org.neo4j.hop.transforms.importer;
+
+import junit.framework.TestCase;
+
+public class ImportProgressParserTest extends TestCase {
+
+  public void testStagesAndPercentages() {
+    ImportProgressParser parser = new ImportProgressParser();
+    parser.parseLine( "(1/4) Node import 2020-06-19 10:10:10.123+0000" );
+
+    ImportProgress progress = parser.poll();
+    assertNotNull( progress );
+    assertEquals( "Node import", progress.getStage() );
+    assertEquals( 1, progress.getStageNr() );
+    assertEquals( 4, progress.getStageCount() );
+    assertEquals( 0, progress.getPercentage() );
+    assertNull( parser.poll() );
+
+    parser.parseLine( "  Estimated number of nodes: 10.00 M" );
+    parser.parseLine( "  Estimated required memory usage: 1.01GiB" );
+    assertNull( parser.poll() );
+
+    parser.parseLine( ".......... .......... .......... .......... ..........   5% \u22061s 2ms" );
+    progress = parser.poll();
+    assertNotNull( progress );
+    assertEquals( 5, progress.getPercentage() );
+    assertEquals( "1.01GiB", progress.getMemory() );
+    assertEquals( "Node import", parser.getStage() );
+  }
+
+  public void testProcessedCountsDuringTheImport() {
+    ImportProgressParser parser = new ImportProgressParser();
+    parser.parseLine( "(1/4) Node import 2020-06-19 10:10:10.123+0000" );
+    parser.parseLine( "  Estimated number of nodes: 2.00 k" );
+    parser.parseLine( "  Estimated number of relationships: 4,000" );
+    assertEquals( 0L, parser.getProcessedNodes() );
+
+    parser.parseLine( ".......... .......... .......... .......... ..........  50% \u22061s" );
+    assertEquals( 1000L, parser.getProcessedNodes() );
+    assertEquals( 0L, parser.getProcessedRelationships() );
+
+    // The nodes are done once the relationships are imported
+    //
+    parser.parseLine( "(2/4) Relationship import 2020-06-19 10:10:20.123+0000" );
+    assertEquals( 2000L, parser.getProcessedNodes() );
+    parser.parseLine( ".......... .......... .......... .......... ..........  25% \u22061s" );
+    assertEquals( 1000L, parser.getProcessedRelationships() );
+
+    // Linking restarts the percentage, the count doesn't go back
+    //
+    parser.parseLine( "(3/4) Relationship linking 2020-06-19 10:10:30.123+0000" );
+    parser.parseLine( ".......... .......... .......... .......... ..........  10% \u22061s" );
+    assertEquals( 1000L, parser.getProcessedRelationships() );
+
+    parser.parseLine( "(4/4) Post processing 2020-06-19 10:10:40.123+0000" );
+    assertEquals( 4000L, parser.getProcessedRelationships() );
+    assertFalse( parser.isDone() );
+  }
+
+  public void testImportedCounts() {
+    ImportProgressParser parser = new ImportProgressParser();
+    parser.parseLine( "(1/4) Node import 2020-06-19 10:10:10.123+0000" );
+    parser.parseLine( "  Estimated number of nodes: 10.00 M" );
+    parser.parseLine( "IMPORT DONE in 11s 20ms." );
+    parser.parseLine( "Imported:" );
+    parser.parseLine( "  1000 nodes" );
+    parser.parseLine( "  2000 relationships" );
+    parser.parseLine( "  3000 properties" );
+    parser.parseLine( "Peak memory usage: 1.03GiB" );
+
+    assertTrue( parser.isDone() );
+    assertEquals( 1000L, parser.getImportedNodes() );
+    assertEquals( 2000L, parser.getImportedRelationships() );
+    assertEquals( 3000L, parser.getImportedProperties() );
+
+    // The reported counts replace the estimates
+    //
+    assertEquals( 1000L, parser.getProcessedNodes() );
+    assertEquals( 2000L, parser.getProcessedRelationships() );
+
+    ImportProgress progress = parser.poll();
+    assertEquals( 0, progress.getPercentage() );
+    progress = parser.poll();
+    assertEquals( 100, progress.getPercentage() );
+    assertNull( parser.poll() );
+  }
+
+  public void testOtherLinesAreIgnored() {
+    ImportProgressParser parser = new ImportProgressParser();
+    parser.parseLine( "Neo4j version: 4.0.6" );
+    parser.parseLine( "Importing the contents of these files into /data/databases/neo4j:" );
+    parser.parseLine( ".......... 5%" );
+    assertNull( parser.poll() );
+    assertNull( parser.getStage() );
+    assertEquals( 0L, parser.getProcessedNodes() );
+  }
+}